@@ -33,6 +33,7 @@ import com.amazonaws.util.AWSRequestMetrics.Field;
 
 import com.amazonaws.services.cloudformation.model.*;
 import com.amazonaws.services.cloudformation.model.transform.*;
+import com.amazonaws.services.cloudformation.waiters.AmazonCloudFormationWaiters;
 
 /**
  * Client for accessing AmazonCloudFormation.  All service calls made
@@ -72,6 +73,9 @@ public class AmazonCloudFormationClient extends AmazonWebServiceClient implement
     /** Provider for AWS credentials. */
     private AWSCredentialsProvider awsCredentialsProvider;
 
+    /** The waiters of this client; created on first use. */
+    private volatile AmazonCloudFormationWaiters waiters;
+
     /**
      * List of exception unmarshallers for all AmazonCloudFormation exceptions.
      */
@@ -1250,6 +1254,21 @@ public class AmazonCloudFormationClient extends AmazonWebServiceClient implement
         return client.getResponseMetadataForRequest(request);
     }
 
+    /**
+     * Returns the waiters polling AWS CloudFormation resources with this client until
+     * they reach a desired state.
+     */
+    public AmazonCloudFormationWaiters waiters() {
+        if (waiters == null) {
+            synchronized (this) {
+                if (waiters == null) {
+                    waiters = new AmazonCloudFormationWaiters(this);
+                }
+            }
+        }
+        return waiters;
+    }
+
     private <X, Y extends AmazonWebServiceRequest> Response<X> invoke(Request<Y> request,
             Unmarshaller<X, StaxUnmarshallerContext> unmarshaller,
             ExecutionContext executionContext)
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.cloudformation.waiters;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.amazonaws.services.cloudformation.AmazonCloudFormation;
+import com.amazonaws.services.cloudformation.model.DescribeStacksRequest;
+import com.amazonaws.services.cloudformation.model.DescribeStacksResult;
+import com.amazonaws.services.cloudformation.model.Stack;
+import com.amazonaws.services.cloudformation.model.StackStatus;
+import com.amazonaws.waiters.PollingStrategy;
+import com.amazonaws.waiters.SdkFunction;
+import com.amazonaws.waiters.Waiter;
+import com.amazonaws.waiters.WaiterAcceptor;
+import com.amazonaws.waiters.WaiterBuilder;
+import com.amazonaws.waiters.WaiterState;
+
+/**
+ * Waiters polling AWS CloudFormation resources until they reach a desired
+ * state.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * cloudFormation.createStack(createStackRequest);
+ * cloudFormation.waiters().stackCreateComplete().run(
+ *         new DescribeStacksRequest().withStackName(stackName));
+ * </pre>
+ */
+public class AmazonCloudFormationWaiters {
+
+    /** The states from which a stack being created can't complete. */
+    private static final List<String> CREATE_FAILED_STATES = Arrays.asList(
+            StackStatus.CREATE_FAILED.toString(),
+            StackStatus.DELETE_COMPLETE.toString(),
+            StackStatus.DELETE_FAILED.toString(),
+            StackStatus.DELETE_IN_PROGRESS.toString(),
+            StackStatus.ROLLBACK_COMPLETE.toString(),
+            StackStatus.ROLLBACK_FAILED.toString(),
+            StackStatus.ROLLBACK_IN_PROGRESS.toString());
+
+    /** The states from which a stack being updated can't complete. */
+    private static final List<String> UPDATE_FAILED_STATES = Arrays.asList(
+            StackStatus.UPDATE_ROLLBACK_IN_PROGRESS.toString(),
+            StackStatus.UPDATE_ROLLBACK_FAILED.toString(),
+            StackStatus.UPDATE_ROLLBACK_COMPLETE_CLEANUP_IN_PROGRESS.toString(),
+            StackStatus.UPDATE_ROLLBACK_COMPLETE.toString());
+
+    private final AmazonCloudFormation client;
+
+    public AmazonCloudFormationWaiters(AmazonCloudFormation client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns a waiter polling stacks every 30 seconds, up to 120 times, until
+     * they are all created. The wait fails if any of them fails to be
+     * created, or is rolled back or deleted.
+     */
+    public Waiter<DescribeStacksRequest> stackCreateComplete() {
+        return newStackWaiter(StackStatus.CREATE_COMPLETE, CREATE_FAILED_STATES);
+    }
+
+    /**
+     * Returns a waiter polling stacks every 30 seconds, up to 120 times, until
+     * they are all updated. The wait fails if the update of any of them is
+     * rolled back.
+     */
+    public Waiter<DescribeStacksRequest> stackUpdateComplete() {
+        return newStackWaiter(StackStatus.UPDATE_COMPLETE, UPDATE_FAILED_STATES);
+    }
+
+    private Waiter<DescribeStacksRequest> newStackWaiter(
+            final StackStatus completeStatus, final List<String> failedStatuses) {
+        return new WaiterBuilder<DescribeStacksRequest, DescribeStacksResult>()
+                .withSdkFunction(new SdkFunction<DescribeStacksRequest, DescribeStacksResult>() {
+                    @Override
+                    public DescribeStacksResult apply(DescribeStacksRequest input) {
+                        return client.describeStacks(input);
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeStacksResult>() {
+                    @Override
+                    public boolean matches(DescribeStacksResult output) {
+                        if (output.getStacks().isEmpty()) {
+                            return false;
+                        }
+                        for (Stack stack : output.getStacks()) {
+                            if (!completeStatus.toString().equals(stack.getStackStatus())) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.SUCCESS;
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeStacksResult>() {
+                    @Override
+                    public boolean matches(DescribeStacksResult output) {
+                        for (Stack stack : output.getStacks()) {
+                            if (failedStatuses.contains(stack.getStackStatus())) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.FAILURE;
+                    }
+                })
+                .withAcceptor(WaiterAcceptor.<DescribeStacksResult> errorCode(
+                        "ValidationError", WaiterState.FAILURE))
+                .withPollingStrategy(PollingStrategy.fixedDelay(120, 30 * 1000))
+                .build();
+    }
+}
@@ -65,7 +65,8 @@ public class CloudWatchMetricConfig {
      */
     static final int MAX_METRICS_DATUM_SIZE = 20;
     /**
-     * Default metrics queue size. If the queue size
+     * Default metrics queue size, ie the maximum number of unique metrics
+     * accumulated between two uploads. If the number of unique metrics
      * exceeds this value, then excessive metrics will be dropped to prevent
      * resource exhaustion.
      */
@@ -158,8 +159,10 @@ public class CloudWatchMetricConfig {
     }
 
     /**
-     * Configure the metric queue size, overriding the default. Must be at
-     * least 1.
+     * Configure the metric queue size, overriding the default. Since the
+     * statistics of each metric are accumulated as the data points are
+     * collected, this limits the number of unique metrics rather than the
+     * number of data points. Must be at least 1.
      * 
      * @see #DEFAULT_METRICS_QSIZE
      */
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Accumulates the statistics of each unique metric as the metric data points
+ * are collected, so that no data point needs to be queued up and summarized
+ * later by the uploader thread.
+ * <p>
+ * Collecting threads never block: the statistics of each metric are striped
+ * across a number of cells updated by compare-and-swap, each collecting thread
+ * updating the cells of its own stripe. The uploader periodically
+ * {@link #drain() drains} the statistics accumulated so far, which then start
+ * afresh. Besides the statistic set uploaded to Amazon CloudWatch, a
+ * {@link MetricHistogram} is kept for each metric from which percentiles are
+ * estimated.
+ * <p>
+ * Memory is bounded by the number of unique metrics rather than by the number
+ * of data points; data points of new metrics beyond that limit are dropped and
+ * the number of drops is logged on the next drain.
+ */
+@ThreadSafe
+public class MetricAggregator {
+    private static final Log log = LogFactory.getLog(MetricAggregator.class);
+
+    private final ConcurrentMap<MetricKey, Aggregate> aggregates = new ConcurrentHashMap<MetricKey, Aggregate>();
+    private final int maxMetrics;
+    private final int stripes;
+    private final AtomicLong dropped = new AtomicLong();
+    /** True if the uploader is waiting for the first data point. */
+    private volatile boolean awaitingData;
+
+    /**
+     * @param maxMetrics
+     *            the maximum number of unique metrics accumulated between two
+     *            drains.
+     */
+    MetricAggregator(int maxMetrics) {
+        if (maxMetrics < 1)
+            throw new IllegalArgumentException();
+        this.maxMetrics = maxMetrics;
+        int n = 1;
+        final int processors = Runtime.getRuntime().availableProcessors();
+        while (n < processors && n < Aggregate.MAX_STRIPES)
+            n <<= 1;
+        this.stripes = n;
+    }
+
+    /**
+     * Accumulates the value of the given metric datum into the statistics of
+     * its metric; a datum without value is ignored.
+     *
+     * @return true if the value is accounted for; false if it's dropped as
+     *         the maximum number of unique metrics has been reached.
+     */
+    public boolean add(MetricDatum datum) {
+        final Double value = datum.getValue();
+        if (value == null)
+            return true;
+        final MetricKey key = MetricKey.of(datum);
+        for (;;) {
+            Aggregate aggregate = aggregates.get(key);
+            if (aggregate == null) {
+                if (aggregates.size() >= maxMetrics) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                aggregate = new Aggregate(key, datum.getUnit(), stripes);
+                Aggregate existing = aggregates.putIfAbsent(key, aggregate);
+                if (existing == null) {
+                    if (awaitingData)
+                        signalData();
+                } else {
+                    aggregate = existing;
+                }
+            }
+            if (aggregate.add(value.doubleValue()))
+                return true;
+            // Drained concurrently; accumulate into a fresh aggregate instead.
+        }
+    }
+
+    /** Returns true if no statistics have been accumulated since the last drain. */
+    boolean isEmpty() {
+        return aggregates.isEmpty();
+    }
+
+    /**
+     * Blocks until at least one data point has been accumulated.
+     */
+    synchronized void awaitData() throws InterruptedException {
+        awaitingData = true;
+        try {
+            while (aggregates.isEmpty())
+                wait();
+        } finally {
+            awaitingData = false;
+        }
+    }
+
+    private synchronized void signalData() {
+        notifyAll();
+    }
+
+    /**
+     * Returns one metric datum with the statistic set of each metric
+     * accumulated since the last drain, the statistics of which then start
+     * afresh.
+     */
+    List<MetricDatum> drain() {
+        final List<MetricDatum> data = new ArrayList<MetricDatum>(aggregates.size());
+        for (Iterator<Aggregate> it = aggregates.values().iterator(); it.hasNext();) {
+            final Aggregate aggregate = it.next();
+            it.remove();
+            final MetricDatum datum = aggregate.seal();
+            if (datum != null)
+                data.add(datum);
+        }
+        final long drops = dropped.getAndSet(0);
+        if (drops > 0) {
+            log.warn(drops + " metric data points were dropped as more than "
+                    + maxMetrics + " unique metrics were collected");
+        }
+        return data;
+    }
+
+    /**
+     * The statistics of a single metric.
+     * <p>
+     * Each stripe is a cache line worth of cells holding the number of updates
+     * in flight, the sample count, and the bits of the sum, minimum and
+     * maximum. Updates of a stripe are counted in flight so that, once sealed,
+     * an aggregate can be read only after all the updates that raced with the
+     * sealing have completed; any later update is rejected and retried
+     * against a fresh aggregate.
+     */
+    private static final class Aggregate {
+        static final int MAX_STRIPES = 16;
+        private static final int CELLS_PER_STRIPE = 8;
+        private static final int IN_FLIGHT = 0;
+        private static final int COUNT = 1;
+        private static final int SUM = 2;
+        private static final int MIN = 3;
+        private static final int MAX = 4;
+
+        private final MetricKey key;
+        private final String unit;
+        private final int stripeMask;
+        private final AtomicLongArray cells;
+        private final MetricHistogram histogram = new MetricHistogram();
+        private volatile boolean sealed;
+
+        Aggregate(MetricKey key, String unit, int stripes) {
+            this.key = key;
+            this.unit = unit;
+            this.stripeMask = stripes - 1;
+            this.cells = new AtomicLongArray(stripes * CELLS_PER_STRIPE);
+            for (int i = 0; i < stripes; i++) {
+                final int base = i * CELLS_PER_STRIPE;
+                cells.set(base + MIN, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+                cells.set(base + MAX, Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY));
+            }
+        }
+
+        /**
+         * Accumulates the given value, returning false if this aggregate has
+         * been sealed.
+         */
+        boolean add(double value) {
+            final int base = stripe() * CELLS_PER_STRIPE;
+            cells.incrementAndGet(base + IN_FLIGHT);
+            try {
+                if (sealed)
+                    return false;
+                cells.incrementAndGet(base + COUNT);
+                long bits;
+                do {
+                    bits = cells.get(base + SUM);
+                } while (!cells.compareAndSet(base + SUM, bits,
+                        Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value)));
+                final long valueBits = Double.doubleToRawLongBits(value);
+                while (value < Double.longBitsToDouble(bits = cells.get(base + MIN))
+                        && !cells.compareAndSet(base + MIN, bits, valueBits))
+                    ;
+                while (value > Double.longBitsToDouble(bits = cells.get(base + MAX))
+                        && !cells.compareAndSet(base + MAX, bits, valueBits))
+                    ;
+                histogram.record(value);
+                return true;
+            } finally {
+                cells.decrementAndGet(base + IN_FLIGHT);
+            }
+        }
+
+        private int stripe() {
+            final long id = Thread.currentThread().getId();
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+        }
+
+        /**
+         * Rejects any further update and returns a metric datum with the
+         * accumulated statistics; or null if there are none.
+         */
+        MetricDatum seal() {
+            sealed = true;
+            double count = 0, sum = 0;
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int base = 0; base < cells.length(); base += CELLS_PER_STRIPE) {
+                while (cells.get(base + IN_FLIGHT) != 0)
+                    Thread.yield();
+                count += cells.get(base + COUNT);
+                sum += Double.longBitsToDouble(cells.get(base + SUM));
+                min = Math.min(min, Double.longBitsToDouble(cells.get(base + MIN)));
+                max = Math.max(max, Double.longBitsToDouble(cells.get(base + MAX)));
+            }
+            if (count == 0)
+                return null;
+            if (log.isDebugEnabled()) {
+                log.debug(key + ": count=" + (long) count
+                        + ", p50=" + histogram.getPercentile(0.5, min, max)
+                        + ", p90=" + histogram.getPercentile(0.9, min, max)
+                        + ", p99=" + histogram.getPercentile(0.99, min, max)
+                        + ", max=" + max);
+            }
+            return new MetricDatum()
+                .withDimensions(key.getDimensions())
+                .withMetricName(key.getMetricName())
+                .withUnit(unit)
+                .withStatisticValues(new StatisticSet()
+                    .withMaximum(max)
+                    .withMinimum(min)
+                    .withSampleCount(count)
+                    .withSum(sum));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * A lock-free histogram of metric values from which percentiles can be
+ * estimated.
+ * <p>
+ * Values are counted in buckets that split each power of two into
+ * {@value #SUB_BUCKETS} equal ranges, so that an estimated percentile is within
+ * 25% of the actual value whatever the magnitude of the metric (latencies in
+ * milliseconds as well as throughput in bytes per second). Zero and negative
+ * values are all counted in the first bucket.
+ */
+@ThreadSafe
+class MetricHistogram {
+    static final int SUB_BUCKETS = 4;
+    /** Smallest binary exponent with its own buckets; 2^-16 is about 1.5e-5. */
+    private static final int MIN_EXPONENT = -16;
+    /** Largest binary exponent with its own buckets; 2^47 is about 1.4e14. */
+    private static final int MAX_EXPONENT = 47;
+    static final int BUCKET_COUNT = 1 + (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /** Counts the given value in its bucket. */
+    void record(double value) {
+        counts.incrementAndGet(bucketOf(value));
+    }
+
+    /**
+     * Returns the estimated value below which the given fraction of the
+     * recorded values fall, bounded by the given minimum and maximum; or NaN if
+     * no value has been recorded.
+     *
+     * @param fraction
+     *            the percentile as a fraction between 0 and 1, eg 0.99 for the
+     *            99th percentile.
+     */
+    double getPercentile(double fraction, double min, double max) {
+        long total = 0;
+        final long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += snapshot[i] = counts.get(i);
+        }
+        if (total == 0)
+            return Double.NaN;
+        final long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.max(min, Math.min(max, upperBoundOf(i)));
+        }
+        return max;
+    }
+
+    static int bucketOf(double value) {
+        if (!(value > 0))
+            return 0;       // also where NaN ends up
+        final int exponent = Math.getExponent(value);
+        if (exponent < MIN_EXPONENT)
+            return 1;
+        if (exponent > MAX_EXPONENT)
+            return BUCKET_COUNT - 1;
+        // The top two bits of the mantissa select the sub-bucket
+        final int sub = (int) (Double.doubleToRawLongBits(value) >>> 50) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    /** Returns the (exclusive) upper bound of the values in the given bucket. */
+    static double upperBoundOf(int bucket) {
+        if (bucket == 0)
+            return 0;
+        final int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+        final int sub = (bucket - 1) % SUB_BUCKETS;
+        return Math.scalb(1.0 + (sub + 1) / (double) SUB_BUCKETS, exponent);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+
+/**
+ * Identifies a unique metric, ie a metric name along with its dimensions
+ * regardless of their order. Used in place of a serialized form of the metric
+ * so that looking up the statistics of a metric doesn't need to build any
+ * string.
+ */
+final class MetricKey {
+    private static final Dimension[] NO_DIMENSIONS = new Dimension[0];
+
+    private final String metricName;
+    /** Sorted with {@link DimensionComparator}. */
+    private final Dimension[] dimensions;
+    private final int hashCode;
+
+    private MetricKey(String metricName, Dimension[] dimensions) {
+        this.metricName = metricName;
+        this.dimensions = dimensions;
+        this.hashCode = 31 * (metricName == null ? 0 : metricName.hashCode())
+                + Arrays.hashCode(dimensions);
+    }
+
+    /** Returns the key of the metric of the given datum. */
+    static MetricKey of(MetricDatum datum) {
+        final List<Dimension> dims = datum.getDimensions();
+        final Dimension[] sorted = dims.isEmpty()
+                ? NO_DIMENSIONS
+                : dims.toArray(new Dimension[dims.size()]);
+        if (sorted.length > 1)
+            Arrays.sort(sorted, DimensionComparator.INSTANCE);
+        return new MetricKey(datum.getMetricName(), sorted);
+    }
+
+    String getMetricName() {
+        return metricName;
+    }
+
+    /** Returns a new list of the dimensions, in sorted order. */
+    List<Dimension> getDimensions() {
+        return Arrays.asList(dimensions.clone());
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof MetricKey))
+            return false;
+        final MetricKey that = (MetricKey) obj;
+        return hashCode == that.hashCode
+                && (metricName == null ? that.metricName == null : metricName.equals(that.metricName))
+                && Arrays.equals(dimensions, that.dimensions);
+    }
+
+    @Override
+    public String toString() {
+        return metricName + Arrays.toString(dimensions);
+    }
+}
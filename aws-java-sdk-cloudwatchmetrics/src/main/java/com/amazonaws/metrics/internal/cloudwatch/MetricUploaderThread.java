@@ -14,13 +14,10 @@
  */
 package com.amazonaws.metrics.internal.cloudwatch;
 
-import java.util.concurrent.BlockingQueue;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.services.cloudwatch.AmazonCloudWatchClient;
-import com.amazonaws.services.cloudwatch.model.MetricDatum;
 import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
 import com.amazonaws.util.VersionInfoUtils;
 
@@ -36,24 +33,24 @@ class MetricUploaderThread extends Thread {
     private final BlockingRequestBuilder qIterator;
 
     MetricUploaderThread(CloudWatchMetricConfig config,
-            BlockingQueue<MetricDatum> queue) {
+            MetricAggregator aggregator) {
         this(config,
-             queue,
+             aggregator,
              config.getCredentialsProvider() == null
              ? new AmazonCloudWatchClient()
              : new AmazonCloudWatchClient(config.getCredentialsProvider()));
     }
 
     MetricUploaderThread(CloudWatchMetricConfig config,
-        BlockingQueue<MetricDatum> queue,
+        MetricAggregator aggregator,
         AmazonCloudWatchClient client)
     {
         super(THREAD_NAME);
-        if (config == null || queue == null) {
+        if (config == null || aggregator == null) {
             throw new IllegalArgumentException();
         }
         this.cloudwatchClient = client;
-        this.qIterator = new BlockingRequestBuilder(config, queue);
+        this.qIterator = new BlockingRequestBuilder(config, aggregator);
         String endpoint = config.getCloudWatchEndPoint();
         if (endpoint != null)
             cloudwatchClient.setEndpoint(endpoint);
@@ -17,6 +17,8 @@ package com.amazonaws;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 
+import com.amazonaws.http.HttpClientProvider;
+
 /**
  * Used for Apache HTTP client specific custom configurations.
  */
@@ -24,11 +26,13 @@ import org.apache.http.conn.ssl.SSLSocketFactory;
 @NotThreadSafe
 public final class ApacheHttpClientConfig {
     private SSLSocketFactory sslSocketFactory;
+    private HttpClientProvider httpClientProvider;
 
     ApacheHttpClientConfig() {}
 
     ApacheHttpClientConfig(ApacheHttpClientConfig that) {
         this.sslSocketFactory = that.sslSocketFactory;
+        this.httpClientProvider = that.httpClientProvider;
     }
 
     /**
@@ -61,4 +65,35 @@ public final class ApacheHttpClientConfig {
         this.sslSocketFactory = sslSocketFactory;
         return this;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the custom factory of the Apache HttpClient used to send
+     * requests; or null if the default one is used.
+     */
+    public HttpClientProvider getHttpClientProvider() {
+        return httpClientProvider;
+    }
+
+    /**
+     * Sets a custom factory of the Apache HttpClient used to send requests.
+     *
+     * @param httpClientProvider a custom factory of the Apache HttpClient; or
+     * null to use the default one.
+     */
+    public void setHttpClientProvider(HttpClientProvider httpClientProvider) {
+        this.httpClientProvider = httpClientProvider;
+    }
+
+    /**
+     * Fluent API for setting a custom factory of the Apache HttpClient used
+     * to send requests.
+     *
+     * @param httpClientProvider a custom factory of the Apache HttpClient; or
+     * null to use the default one.
+     */
+    public ApacheHttpClientConfig withHttpClientProvider(
+            HttpClientProvider httpClientProvider) {
+        this.httpClientProvider = httpClientProvider;
+        return this;
+    }
+}
@@ -69,6 +69,18 @@ public class ClientConfiguration {
      */
     public static final boolean DEFAULT_USE_GZIP = false;
 
+    /**
+     * The default on whether to adapt the maximum number of connections of
+     * each route of the connection pool to its demand.
+     */
+    public static final boolean DEFAULT_USE_ADAPTIVE_CONNECTION_POOL = false;
+
+    /**
+     * The default on whether to throttle retries and the sending rate of a
+     * client once the service starts throttling it.
+     */
+    public static final boolean DEFAULT_USE_ADAPTIVE_RETRY = false;
+
     /**
      * The default expiration time (in milliseconds) for a connection in the
      * connection pool.
@@ -183,6 +195,21 @@ public class ClientConfiguration {
      */
     private boolean useGzip = DEFAULT_USE_GZIP;
 
+    /**
+     * Optional whether to adapt the maximum number of connections of each
+     * route (i.e. endpoint) of the connection pool to the time spent waiting
+     * for connections, instead of letting any route use up to
+     * {@link #maxConnections}.
+     */
+    private boolean useAdaptiveConnectionPool = DEFAULT_USE_ADAPTIVE_CONNECTION_POOL;
+
+    /**
+     * Optional whether the retries and sending rate of all the requests of a
+     * client are throttled as a whole, on top of the {@link #retryPolicy}
+     * applied to each request.
+     */
+    private boolean useAdaptiveRetry = DEFAULT_USE_ADAPTIVE_RETRY;
+
     /**
      * Optional override to control which signature algorithm should be used to
      * sign requests to the service. If not explicitly set, the client will
@@ -253,6 +280,8 @@ public class ClientConfiguration {
         this.userAgent                   = other.userAgent;
         this.useReaper                   = other.useReaper;
         this.useGzip                     = other.useGzip;
+        this.useAdaptiveConnectionPool   = other.useAdaptiveConnectionPool;
+        this.useAdaptiveRetry            = other.useAdaptiveRetry;
         this.socketReceiveBufferSizeHint = other.socketReceiveBufferSizeHint;
         this.socketSendBufferSizeHint    = other.socketSendBufferSizeHint;
         this.signerOverride              = other.signerOverride;
@@ -869,6 +898,99 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Checks if the maximum number of connections of each route of the
+     * connection pool is adapted to its demand.
+     *
+     * @return if the maximum number of connections of each route is adapted
+     */
+    public boolean useAdaptiveConnectionPool() {
+        return useAdaptiveConnectionPool;
+    }
+
+    /**
+     * Sets whether the maximum number of connections of each route (i.e.
+     * endpoint) of the connection pool is adapted to its demand. If enabled, a
+     * route that waits for connections is allowed more of them, and a route
+     * that doesn't use its connections is allowed fewer, while each recently
+     * used route keeps a fair share of the {@link #getMaxConnections()} of the
+     * pool. This prevents a single busy endpoint from starving the other
+     * endpoints of the client of connections.
+     *
+     * @param use
+     *            whether the maximum number of connections of each route is
+     *            adapted
+     */
+    public void setUseAdaptiveConnectionPool(boolean use) {
+        this.useAdaptiveConnectionPool = use;
+    }
+
+    /**
+     * Sets whether the maximum number of connections of each route (i.e.
+     * endpoint) of the connection pool is adapted to its demand, and returns
+     * the updated ClientConfiguration object.
+     *
+     * @param use
+     *            whether the maximum number of connections of each route is
+     *            adapted
+     *
+     * @return The updated ClientConfiguration object.
+     *
+     * @see #setUseAdaptiveConnectionPool(boolean)
+     */
+    public ClientConfiguration withAdaptiveConnectionPool(boolean use) {
+        setUseAdaptiveConnectionPool(use);
+        return this;
+    }
+
+    /**
+     * Checks if the retries and sending rate of the client are throttled as a
+     * whole.
+     *
+     * @return if adaptive retry is enabled
+     */
+    public boolean useAdaptiveRetry() {
+        return useAdaptiveRetry;
+    }
+
+    /**
+     * Sets whether the retries and sending rate of all the requests of the
+     * client are throttled as a whole, on top of the {@link RetryPolicy}
+     * applied to each request. If enabled:
+     * <ul>
+     * <li>every retry draws from a retry quota shared by the client, which is
+     * refilled by successful requests, so that the client stops retrying when
+     * most of its requests fail;</li>
+     * <li>once the service returns a throttling error, requests are sent no
+     * faster than a rate which is cut on each throttling error and recovers
+     * progressively on success, so that all the threads of the client back
+     * off together.</li>
+     * </ul>
+     *
+     * @param use
+     *            whether adaptive retry is enabled
+     */
+    public void setUseAdaptiveRetry(boolean use) {
+        this.useAdaptiveRetry = use;
+    }
+
+    /**
+     * Sets whether the retries and sending rate of all the requests of the
+     * client are throttled as a whole, and returns the updated
+     * ClientConfiguration object.
+     *
+     * @param use
+     *            whether adaptive retry is enabled
+     *
+     * @return The updated ClientConfiguration object.
+     *
+     * @see #setUseAdaptiveRetry(boolean)
+     */
+    public ClientConfiguration withAdaptiveRetry(boolean use) {
+        setUseAdaptiveRetry(use);
+        return this;
+    }
+
     /**
      * Returns the optional size hints (in bytes) for the low level TCP send and
      * receive buffers. This is an advanced option for advanced users who want
@@ -1311,7 +1433,9 @@ public class ClientConfiguration {
 
     /**
      * Sets the response metadata cache size. By default, it is set to
-     * {@value #DEFAULT_RESPONSE_METADATA_CACHE_SIZE}.
+     * {@value #DEFAULT_RESPONSE_METADATA_CACHE_SIZE}. A size of 0 disables
+     * the cache, in which case the response metadata of requests is no longer
+     * available through the client's getCachedResponseMetadata method.
      * @param responseMetadataCacheSize maximum cache size.
      */
     public void setResponseMetadataCacheSize(int responseMetadataCacheSize) {
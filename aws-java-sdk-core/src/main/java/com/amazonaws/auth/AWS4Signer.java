@@ -28,11 +28,11 @@ import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_EXPIRES;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SECURITY_TOKEN;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNATURE;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNED_HEADER;
+import static com.amazonaws.util.StringUtils.UTF8;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -63,6 +63,14 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private static final int SIGNER_CACHE_MAX_SIZE = 300;
     private static final FIFOCache<SignerKey> signerCache = new FIFOCache<SignerKey>(SIGNER_CACHE_MAX_SIZE);
 
+    /**
+     * The signing key last derived by this signer. A signer is normally used
+     * with a single set of credentials against a single region and service, so
+     * this spares the lookup in the shared cache, and the concatenation of its
+     * key, for almost every request.
+     */
+    private volatile LastSigningKey lastSigningKey;
+
     /**
      * Service name override for use when the endpoint can't be used to
      * determine the service name.
@@ -335,17 +343,30 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private final byte[] deriveSigningKey(AWSCredentials credentials,
             AWS4SignerRequestParams signerRequestParams) {
 
-        final String cacheKey = computeSigningCacheKeyName(credentials,
-                signerRequestParams);
         final long daysSinceEpochSigningDate = DateUtils
                 .numberOfDaysSinceEpoch(signerRequestParams
                         .getSigningDateTimeMilli());
+        final String secretKey = credentials.getAWSSecretKey();
+        final String regionName = signerRequestParams.getRegionName();
+        final String serviceName = signerRequestParams.getServiceName();
+
+        final LastSigningKey last = lastSigningKey;
+        if (last != null
+                && last.matches(secretKey, regionName, serviceName,
+                        daysSinceEpochSigningDate)) {
+            return last.signingKey;
+        }
 
+        final String cacheKey = computeSigningCacheKeyName(credentials,
+                signerRequestParams);
         SignerKey signerKey = signerCache.get(cacheKey);
 
         if (signerKey != null) {
             if (daysSinceEpochSigningDate == signerKey
                     .getNumberOfDaysSinceEpoch()) {
+                lastSigningKey = new LastSigningKey(secretKey, regionName,
+                        serviceName, daysSinceEpochSigningDate,
+                        signerKey.getSigningKey());
                 return signerKey.getSigningKey();
             }
         }
@@ -359,6 +380,8 @@ public class AWS4Signer extends AbstractAWSSigner implements
                 signerRequestParams.getServiceName());
         signerCache.add(cacheKey, new SignerKey(
                 daysSinceEpochSigningDate, signingKey));
+        lastSigningKey = new LastSigningKey(secretKey, regionName, serviceName,
+                daysSinceEpochSigningDate, signingKey);
         return signingKey;
     }
 
@@ -384,7 +407,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected final byte[] computeSignature(String stringToSign,
             byte[] signingKey, AWS4SignerRequestParams signerRequestParams) {
-        return sign(stringToSign.getBytes(Charset.forName("UTF-8")), signingKey,
+        return sign(stringToSign.getBytes(UTF8), signingKey,
                 SigningAlgorithm.HmacSHA256);
     }
 
@@ -394,25 +417,17 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private String buildAuthorizationHeader(SignableRequest<?> request,
             byte[] signature, AWSCredentials credentials,
             AWS4SignerRequestParams signerParams) {
-        final String signingCredentials = credentials.getAWSAccessKeyId() + "/"
-                + signerParams.getScope();
-
-        final String credential = "Credential="
-                + signingCredentials;
-        final String signerHeaders = "SignedHeaders="
-                + getSignedHeadersString(request);
-        final String signatureHeader = "Signature="
-                + BinaryUtils.toHex(signature);
-
-        final StringBuilder authHeaderBuilder = new StringBuilder();
+        final StringBuilder authHeaderBuilder = new StringBuilder(256);
 
         authHeaderBuilder.append(AWS4_SIGNING_ALGORITHM)
-                         .append(" ")
-                         .append(credential)
-                         .append(", ")
-                         .append(signerHeaders)
-                         .append(", ")
-                         .append(signatureHeader);
+                         .append(" Credential=")
+                         .append(credentials.getAWSAccessKeyId())
+                         .append("/")
+                         .append(signerParams.getScope())
+                         .append(", SignedHeaders=")
+                         .append(getSignedHeadersString(request))
+                         .append(", Signature=")
+                         .append(BinaryUtils.toHex(signature));
 
         return authHeaderBuilder.toString();
     }
@@ -443,19 +458,16 @@ public class AWS4Signer extends AbstractAWSSigner implements
     }
 
     protected String getCanonicalizedHeaderString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request.getHeaders()
-                .keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        final List<String> sortedHeaders = getSortedHeaderNames(request);
 
         final Map<String, String> requestHeaders = request.getHeaders();
-        StringBuilder buffer = new StringBuilder();
+        StringBuilder buffer = new StringBuilder(sortedHeaders.size() * 64);
         for (String header : sortedHeaders) {
-            String key = header.toLowerCase().replaceAll("\\s+", " ");
+            appendCompactedString(buffer, header.toLowerCase());
+            buffer.append(":");
             String value = requestHeaders.get(header);
-
-            buffer.append(key).append(":");
             if (value != null) {
-                buffer.append(value.replaceAll("\\s+", " "));
+                appendCompactedString(buffer, value);
             }
 
             buffer.append("\n");
@@ -464,12 +476,49 @@ public class AWS4Signer extends AbstractAWSSigner implements
         return buffer.toString();
     }
 
-    protected String getSignedHeadersString(SignableRequest<?> request) {
+    /**
+     * Appends the given string to the buffer with each run of whitespace
+     * replaced by a single space; this is the equivalent of
+     * <code>replaceAll("\\s+", " ")</code> without compiling a regular
+     * expression for every header of every request.
+     */
+    private static void appendCompactedString(StringBuilder buffer, String s) {
+        final int length = s.length();
+        boolean previousIsWhiteSpace = false;
+        for (int i = 0; i < length; i++) {
+            final char ch = s.charAt(i);
+            if (isWhiteSpace(ch)) {
+                if (!previousIsWhiteSpace) {
+                    buffer.append(' ');
+                    previousIsWhiteSpace = true;
+                }
+            } else {
+                buffer.append(ch);
+                previousIsWhiteSpace = false;
+            }
+        }
+    }
+
+    /**
+     * Returns true for the characters matched by <code>\\s</code> in a regular
+     * expression.
+     */
+    private static boolean isWhiteSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000b'
+                || ch == '\f' || ch == '\r';
+    }
+
+    private static List<String> getSortedHeaderNames(SignableRequest<?> request) {
         final List<String> sortedHeaders = new ArrayList<String>(request
                 .getHeaders().keySet());
         Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        return sortedHeaders;
+    }
+
+    protected String getSignedHeadersString(SignableRequest<?> request) {
+        final List<String> sortedHeaders = getSortedHeaderNames(request);
 
-        StringBuilder buffer = new StringBuilder();
+        StringBuilder buffer = new StringBuilder(sortedHeaders.size() * 24);
         for (String header : sortedHeaders) {
             if (buffer.length() > 0)
                 buffer.append(";");
@@ -572,11 +621,43 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private byte[] newSigningKey(AWSCredentials credentials,
             String dateStamp, String regionName, String serviceName) {
         byte[] kSecret = ("AWS4" + credentials.getAWSSecretKey())
-                .getBytes(Charset.forName("UTF-8"));
+                .getBytes(UTF8);
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion,
                 SigningAlgorithm.HmacSHA256);
         return sign(AWS4_TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
     }
+
+    /**
+     * A signing key along with what it was derived from.
+     */
+    private static final class LastSigningKey {
+        private final String secretKey;
+        private final String regionName;
+        private final String serviceName;
+        private final long daysSinceEpoch;
+        private final byte[] signingKey;
+
+        private LastSigningKey(String secretKey, String regionName,
+                String serviceName, long daysSinceEpoch, byte[] signingKey) {
+            this.secretKey = secretKey;
+            this.regionName = regionName;
+            this.serviceName = serviceName;
+            this.daysSinceEpoch = daysSinceEpoch;
+            this.signingKey = signingKey;
+        }
+
+        private boolean matches(String secretKey, String regionName,
+                String serviceName, long daysSinceEpoch) {
+            return this.daysSinceEpoch == daysSinceEpoch
+                    && equals(this.secretKey, secretKey)
+                    && equals(this.regionName, regionName)
+                    && equals(this.serviceName, serviceName);
+        }
+
+        private static boolean equals(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
 }
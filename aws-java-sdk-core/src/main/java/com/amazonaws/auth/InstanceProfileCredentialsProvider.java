@@ -15,15 +15,16 @@
 package com.amazonaws.auth;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.Date;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.internal.CredentialsRefreshScheduler;
 import com.amazonaws.internal.EC2MetadataClient;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.json.Jackson;
@@ -33,6 +34,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 /**
  * Credentials provider implementation that loads credentials from the Amazon
  * EC2 Instance Metadata Service.
+ * <p>
+ * Credentials are refreshed in the background well before they expire, at a
+ * random time within a few minutes so that a fleet of hosts doesn't refresh
+ * all at once, and the current credentials keep being returned without
+ * blocking while the refresh is in progress. Callers only wait for the
+ * metadata service when there are no credentials yet, or when the current
+ * ones are about to expire.
  */
 public class InstanceProfileCredentialsProvider implements AWSCredentialsProvider {
 
@@ -50,6 +58,25 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
      */
     private static final int EXPIRATION_THRESHOLD = 1000 * 60 * 15;
 
+    /**
+     * The threshold before credentials expire (in milliseconds) within which
+     * callers wait for new credentials rather than getting the current ones
+     * while they are refreshed in the background.
+     */
+    private static final int BLOCKING_EXPIRATION_THRESHOLD = 1000 * 60;
+
+    /**
+     * The maximum time (in milliseconds) by which background refreshes are
+     * randomly moved ahead of their threshold.
+     */
+    private static final int REFRESH_JITTER = 1000 * 60 * 5;
+
+    /**
+     * The minimum time (in milliseconds) between two attempts to refresh the
+     * credentials in the background.
+     */
+    private static final int MIN_REFRESH_INTERVAL = 1000 * 60;
+
     /** The name of the Json Object that contains the access key.*/
     private static final String ACCESS_KEY_ID = "AccessKeyId";
 
@@ -59,13 +86,6 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
     /** The name of the Json Object that contains the token.*/
     private static final String TOKEN = "Token";
 
-    /**
-     * The wait time, after which the background thread initiates a refresh to
-     * load latest credentials if needed.
-     */
-    private static final int ASYNC_REFRESH_INTERVAL_TIME_MINUTES= 1;
-
-
     /** The current instance profile credentials */
     protected volatile AWSCredentials credentials;
 
@@ -75,53 +95,41 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
     /** The time of the last attempt to check for new credentials */
     protected volatile Date lastInstanceProfileCheck;
 
-    /**
-     * The executor service used for refreshing the credentials in the
-     * background.
-     */
-    private volatile ScheduledExecutorService executor;
+    /** True while a refresh requested by a caller is pending. */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /** The next background refresh of the credentials, if any. */
+    private volatile ScheduledFuture<?> scheduledRefresh;
 
     public InstanceProfileCredentialsProvider() {
         this(false);
     }
 
     /**
-     * Spins up a new thread to refresh the credentials asynchronously if
-     * refreshCredentialsAsync is set to true, otherwise the credentials will be
-     * refreshed from the instance metadata service synchronously,
+     * Loads the credentials in the background right away if
+     * refreshCredentialsAsync is set to true, otherwise the credentials will
+     * be first loaded from the instance metadata service synchronously by
+     * {@link #getCredentials()}. In both cases, once loaded, the credentials
+     * are refreshed in the background before they expire.
      *
      * @param refreshCredentialsAsync
-     *            true if credentials needs to be refreshed asynchronously else
+     *            true if credentials needs to be loaded asynchronously else
      *            false.
      */
     public InstanceProfileCredentialsProvider(boolean refreshCredentialsAsync) {
         if (refreshCredentialsAsync) {
-            executor = Executors.newScheduledThreadPool(1);
-            executor.scheduleWithFixedDelay(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        getCredentials();
-                    } catch (AmazonClientException ace) {
-                        handleError(ace);
-                    } catch (RuntimeException re) {
-                        handleError(re);
-                    } catch (Error e) {
-                        handleError(e);
-                    }
-                }
-            }, 0, ASYNC_REFRESH_INTERVAL_TIME_MINUTES, TimeUnit.MINUTES);
+            refreshing.set(true);
+            scheduledRefresh = CredentialsRefreshScheduler.schedule(new RefreshTask(this), 0);
         }
     }
 
-    private void handleError(Throwable t) {
-        credentials = null;
-        LOG.error(t.getMessage(), t);
-    }
-
     public AWSCredentials getCredentials() {
-        if (needsToLoadCredentials())
-            loadCredentials();
+        if (needsToLoadCredentials()) {
+            if (needsToWaitForCredentials())
+                loadCredentials();
+            else
+                refreshInBackground();
+        }
         if (expired()) {
             throw new AmazonClientException(
                     "The credentials received from the Amazon EC2 metadata service have expired");
@@ -147,6 +155,19 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
         return false;
     }
 
+    /**
+     * Returns true if callers can't be given the current credentials while
+     * new ones are loaded, because there are none or they are about to
+     * expire.
+     */
+    private boolean needsToWaitForCredentials() {
+        if (credentials == null) return true;
+
+        Date expiration = credentialsExpiration;
+        return expiration != null
+                && expiration.getTime() - System.currentTimeMillis() < BLOCKING_EXPIRATION_THRESHOLD;
+    }
+
     /**
      * Returns true if the current credentials are within the expiration
      * threshold, and therefore, should be refreshed.
@@ -164,6 +185,16 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
         return (System.currentTimeMillis() - lastInstanceProfileCheck.getTime()) > REFRESH_THRESHOLD;
     }
 
+    /**
+     * Returns true if credentials were requested from the metadata service
+     * too recently to try again in the background.
+     */
+    private boolean isWithinMinRefreshInterval() {
+        Date lastCheck = lastInstanceProfileCheck;
+        return lastCheck != null
+                && System.currentTimeMillis() - lastCheck.getTime() < MIN_REFRESH_INTERVAL;
+    }
+
     private boolean expired() {
         if (credentialsExpiration != null) {
             if (credentialsExpiration.getTime() < System.currentTimeMillis()) {
@@ -174,9 +205,60 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
         return false;
     }
 
+    /**
+     * Refreshes the credentials in the background unless a refresh is already
+     * pending, collapsing the requests of concurrent callers into one.
+     */
+    private void refreshInBackground() {
+        if (isWithinMinRefreshInterval()) return;
+
+        if (refreshing.compareAndSet(false, true)) {
+            CredentialsRefreshScheduler.schedule(new RefreshTask(this), 0);
+        }
+    }
+
+    /**
+     * Refreshes the credentials from the background thread, unless they have
+     * just been refreshed.
+     */
+    private void refreshFromBackground() {
+        try {
+            synchronized (this) {
+                if (!isWithinMinRefreshInterval()) fetchCredentials();
+            }
+        } catch (AmazonClientException ace) {
+            LOG.debug("Unable to refresh credentials from Amazon EC2 metadata service", ace);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Schedules the next background refresh of the current credentials, a
+     * random time ahead of the expiration or refresh threshold.
+     */
+    private void scheduleRefresh() {
+        long delay;
+        Date expiration = credentialsExpiration;
+        if (expiration != null) {
+            delay = expiration.getTime() - EXPIRATION_THRESHOLD - System.currentTimeMillis();
+        } else {
+            delay = REFRESH_THRESHOLD;
+        }
+        delay = Math.max(delay - CredentialsRefreshScheduler.jitter(REFRESH_JITTER), MIN_REFRESH_INTERVAL);
+
+        ScheduledFuture<?> previous = scheduledRefresh;
+        if (previous != null) previous.cancel(false);
+        scheduledRefresh = CredentialsRefreshScheduler.schedule(new RefreshTask(this), delay);
+    }
+
     private synchronized void loadCredentials() {
         if (!needsToLoadCredentials()) return;
 
+        fetchCredentials();
+    }
+
+    private synchronized void fetchCredentials() {
         JsonNode accessKey;
         JsonNode secretKey;
         JsonNode node;
@@ -224,6 +306,8 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
         } catch (IOException e) {
             handleError("Unable to load credentials from Amazon EC2 metadata service", e);
         }
+
+        scheduleRefresh();
     }
 
     /**
@@ -254,8 +338,27 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
 
     @Override
     protected void finalize() throws Throwable {
-        if (executor != null) {
-            executor.shutdownNow();
+        ScheduledFuture<?> refresh = scheduledRefresh;
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+    }
+
+    /**
+     * Refreshes the credentials of a provider in the background, without
+     * keeping the provider from being garbage collected.
+     */
+    private static final class RefreshTask implements Runnable {
+        private final WeakReference<InstanceProfileCredentialsProvider> provider;
+
+        RefreshTask(InstanceProfileCredentialsProvider provider) {
+            this.provider = new WeakReference<InstanceProfileCredentialsProvider>(provider);
+        }
+
+        @Override
+        public void run() {
+            InstanceProfileCredentialsProvider p = provider.get();
+            if (p != null) p.refreshFromBackground();
         }
     }
 }
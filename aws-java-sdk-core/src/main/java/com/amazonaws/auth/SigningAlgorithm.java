@@ -14,9 +14,44 @@
  */
 package com.amazonaws.auth;
 
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Mac;
+
+import com.amazonaws.AmazonClientException;
+
 public enum SigningAlgorithm {
     
     HmacSHA1,
     HmacSHA256;
 
+    /**
+     * Mac instances are costly to look up, so each thread keeps its own
+     * instance of each algorithm.
+     */
+    private final ThreadLocal<Mac> macReference;
+
+    private SigningAlgorithm() {
+        final String algorithmName = this.toString();
+        macReference = new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+                try {
+                    return Mac.getInstance(algorithmName);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new AmazonClientException("Unable to fetch Mac instance for Algorithm "
+                            + algorithmName + ": " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the Mac instance of this algorithm for the current thread. The
+     * instance must be initialized with a key before each use, and must not be
+     * shared with other threads.
+     */
+    public Mac getMac() {
+        return macReference.get();
+    }
 }
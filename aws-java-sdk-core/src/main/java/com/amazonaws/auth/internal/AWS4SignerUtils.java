@@ -29,6 +29,16 @@ public final class AWS4SignerUtils {
     private static final DateTimeFormatter timeFormatter = DateTimeFormat
             .forPattern("yyyyMMdd'T'HHmmss'Z'").withZoneUTC();
 
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Most requests are signed within the same second, and all of them within
+     * the same day, as the previous one; so the last formatted values are kept
+     * around rather than printed again with Joda for every request.
+     */
+    private static volatile FormattedTime lastDateStamp = new FormattedTime(-1, null);
+    private static volatile FormattedTime lastTimestamp = new FormattedTime(-1, null);
+
     /**
      * Returns a string representation of the given date time in yyyyMMdd
      * format. The date returned is in the UTC zone.
@@ -36,7 +46,15 @@ public final class AWS4SignerUtils {
      * For example, given a time "1416863450581", this method returns "20141124"
      */
     public static String formatDateStamp(long timeMilli) {
-        return dateFormatter.print(timeMilli);
+        if (timeMilli < 0)
+            return dateFormatter.print(timeMilli);
+        final long day = timeMilli / MILLIS_PER_DAY;
+        FormattedTime last = lastDateStamp;
+        if (last.period != day) {
+            last = new FormattedTime(day, dateFormatter.print(timeMilli));
+            lastDateStamp = last;
+        }
+        return last.value;
     }
 
     /**
@@ -47,6 +65,28 @@ public final class AWS4SignerUtils {
      * "20141124T211050Z"
      */
     public static String formatTimestamp(long timeMilli) {
-        return timeFormatter.print(timeMilli);
+        if (timeMilli < 0)
+            return timeFormatter.print(timeMilli);
+        final long second = timeMilli / 1000;
+        FormattedTime last = lastTimestamp;
+        if (last.period != second) {
+            last = new FormattedTime(second, timeFormatter.print(timeMilli));
+            lastTimestamp = last;
+        }
+        return last.value;
+    }
+
+    /**
+     * An immutable formatted value, along with the period (the day or the
+     * second since the epoch) that it was formatted for.
+     */
+    private static final class FormattedTime {
+        private final long period;
+        private final String value;
+
+        private FormattedTime(long period, String value) {
+            this.period = period;
+            this.value = value;
+        }
     }
 }
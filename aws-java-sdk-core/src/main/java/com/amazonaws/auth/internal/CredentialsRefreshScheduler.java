@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth.internal;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The scheduler shared by all the credentials providers that refresh their
+ * credentials in the background, so that any number of providers cost a
+ * single daemon thread, which is only started on first use.
+ * <p>
+ * For internal use only.
+ */
+public final class CredentialsRefreshScheduler {
+    private static final Log LOG = LogFactory.getLog(CredentialsRefreshScheduler.class);
+
+    private static final Random RANDOM = new Random();
+
+    /** Guarded by the class lock; created on first use. */
+    private static ScheduledExecutorService executor;
+
+    private CredentialsRefreshScheduler() {
+    }
+
+    /**
+     * Runs the given task in the background after the given delay. Any
+     * exception thrown by the task is logged.
+     */
+    public static ScheduledFuture<?> schedule(final Runnable task, long delayMillis) {
+        return executor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.warn("Unable to refresh credentials in the background", e);
+                } catch (Error e) {
+                    LOG.error("Unable to refresh credentials in the background", e);
+                    throw e;
+                }
+            }
+        }, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a random delay between 0 inclusive and the given number of
+     * milliseconds exclusive, used to spread the refreshes of hosts that
+     * received credentials at the same time.
+     */
+    public static long jitter(long maxMillis) {
+        return maxMillis <= 0 ? 0 : (long) (RANDOM.nextDouble() * maxMillis);
+    }
+
+    private static synchronized ScheduledExecutorService executor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "aws-credentials-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
@@ -24,11 +24,18 @@ import static com.amazonaws.util.AWSRequestMetrics.Field.Exception;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolAvailableCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolLeasedCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolPendingCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolRouteAvailableCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolRouteLeasedCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolRouteMaxCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolRoutePendingCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpRequestTime;
+import static com.amazonaws.util.AWSRequestMetrics.Field.RateLimiterDelayTime;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RedirectLocation;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RequestCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RequestSigningTime;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RetryPauseTime;
+import static com.amazonaws.util.AWSRequestMetrics.Field.RetryQuotaAvailableCapacity;
+import static com.amazonaws.util.AWSRequestMetrics.Field.RetryQuotaExceeded;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ServiceEndpoint;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ServiceName;
 import static com.amazonaws.util.AWSRequestMetrics.Field.StatusCode;
@@ -39,7 +46,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -49,8 +55,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.net.ssl.SSLContext;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.Header;
@@ -61,10 +65,12 @@ import org.apache.http.StatusLine;
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.ClientContext;
 import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.scheme.SchemeSocketFactory;
 import org.apache.http.pool.ConnPoolControl;
 import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.BasicHttpContext;
@@ -90,7 +96,6 @@ import com.amazonaws.event.ProgressInputStream;
 import com.amazonaws.event.ProgressListener;
 import com.amazonaws.handlers.CredentialsRequestHandler;
 import com.amazonaws.handlers.RequestHandler2;
-import com.amazonaws.http.conn.ssl.SdkTLSSocketFactory;
 import com.amazonaws.internal.CRC32MismatchException;
 import com.amazonaws.internal.ReleasableInputStream;
 import com.amazonaws.internal.ResettableInputStream;
@@ -98,6 +103,8 @@ import com.amazonaws.internal.SdkBufferedInputStream;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.internal.ClientSideRateLimiter;
+import com.amazonaws.retry.internal.RetryQuota;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.retry.internal.AuthErrorRetryStrategy;
 import com.amazonaws.retry.internal.AuthRetryParameters;
@@ -171,6 +178,18 @@ public class AmazonHttpClient {
     /** The time difference in seconds between this client and AWS. */
     private volatile int timeOffset = SDKGlobalTime.getGlobalTimeOffset();
 
+    /**
+     * The quota every retry of this client draws from; or null if the client
+     * doesn't use adaptive retry.
+     */
+    private final RetryQuota retryQuota;
+
+    /**
+     * Limits the sending rate of this client once throttled; or null if the
+     * client doesn't use adaptive retry.
+     */
+    private final ClientSideRateLimiter rateLimiter;
+
     /**
      * Constructs a new AWS client using the specified client configuration
      * options (ex: max retry attempts, proxy settings, etc).
@@ -197,7 +216,21 @@ public class AmazonHttpClient {
      *            is none.
      */
     public AmazonHttpClient(ClientConfiguration config, RequestMetricCollector requestMetricCollector) {
-        this(config, httpClientFactory.createHttpClient(config), requestMetricCollector);
+        this(config, createHttpClient(config), requestMetricCollector);
+    }
+
+    /**
+     * Returns a new HTTP client from the provider configured for the given
+     * client configuration, or from the default Apache HttpClient factory if
+     * there is none.
+     */
+    private static HttpClient createHttpClient(ClientConfiguration config) {
+        HttpClientProvider provider =
+                config.getApacheHttpClientConfig().getHttpClientProvider();
+        if (provider == null) {
+            provider = httpClientFactory;
+        }
+        return provider.createHttpClient(config);
     }
 
     /**
@@ -212,6 +245,13 @@ public class AmazonHttpClient {
         this.httpClient = httpClient;
         this.requestMetricCollector = requestMetricCollector;
         this.responseMetadataCache = new ResponseMetadataCache(config.getResponseMetadataCacheSize());
+        if (config.useAdaptiveRetry()) {
+            this.retryQuota = new RetryQuota();
+            this.rateLimiter = new ClientSideRateLimiter();
+        } else {
+            this.retryQuota = null;
+            this.rateLimiter = null;
+        }
     }
 
     /**
@@ -247,19 +287,22 @@ public class AmazonHttpClient {
             return;
         }
 
-        try {
-            SchemeRegistry schemeRegistry = httpClient.getConnectionManager().getSchemeRegistry();
-            SSLSocketFactory sf = config.getApacheHttpClientConfig().getSslSocketFactory();
-            if (sf == null) {
-                sf = new SdkTLSSocketFactory(
-                        SSLContext.getDefault(),
-                        SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
-            }
-            Scheme https = new Scheme("https", 443, sf);
-            schemeRegistry.register(https);
-        } catch (NoSuchAlgorithmException e) {
-            throw new AmazonClientException("Unable to access default SSL context to disable strict hostname verification");
+        /*
+         * Clients from a custom HttpClientProvider may have no connection
+         * manager, in which case they verify host names on their own.
+         */
+        ClientConnectionManager connectionManager = httpClient.getConnectionManager();
+        if (connectionManager == null) {
+            return;
+        }
+
+        SchemeRegistry schemeRegistry = connectionManager.getSchemeRegistry();
+        SchemeSocketFactory sf = config.getApacheHttpClientConfig().getSslSocketFactory();
+        if (sf == null) {
+            sf = LazyTLSSocketFactory.BROWSER_COMPATIBLE;
         }
+        Scheme https = new Scheme("https", 443, sf);
+        schemeRegistry.register(https);
     }
     /**
      * Executes the request and returns the result.
@@ -504,7 +547,8 @@ public class AmazonHttpClient {
                                 p.apacheRequest,
                                 ace,
                                 p.requestCount,
-                                config.getRetryPolicy())) {
+                                config.getRetryPolicy())
+                        || !acquireRetryQuota(p, ace, awsRequestMetrics)) {
                     throw lastReset(ace, request);
                 }
                 // Cache the retryable exception
@@ -577,6 +621,7 @@ public class AmazonHttpClient {
         private URI signerURI;
         int requestCount; // monotonic increasing
         AmazonClientException retriedException; // last retryable exception
+        int retryQuotaAcquired; // tokens drawn from the retry quota so far
 
         HttpRequestBase apacheRequest;
         org.apache.http.HttpResponse apacheResponse;
@@ -689,6 +734,17 @@ public class AmazonHttpClient {
                 awsRequestMetrics.endEvent(RetryPauseTime);
             }
         }
+        if (rateLimiter != null) {
+            awsRequestMetrics.startEvent(RateLimiterDelayTime);
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException(e.getMessage(), e);
+            } finally {
+                awsRequestMetrics.endEvent(RateLimiterDelayTime);
+            }
+        }
 
         // Sign the request if a signer was provided
         execParams.newSigner(request, execContext);
@@ -729,6 +785,7 @@ public class AmazonHttpClient {
             isHeaderReqIdAvail = logHeaderRequestId(execParams.apacheResponse);
         } finally {
             awsRequestMetrics.endEvent(HttpRequestTime);
+            captureRouteMetrics(httpClient.getConnectionManager(), httpContext, awsRequestMetrics);
         }
 
         publishProgress(listener, ProgressEventType.HTTP_REQUEST_COMPLETED_EVENT);
@@ -736,6 +793,8 @@ public class AmazonHttpClient {
         final int statusCode = statusLine == null ? -1 : statusLine.getStatusCode();
         if (isRequestSuccessful(execParams.apacheResponse)) {
             awsRequestMetrics.addProperty(StatusCode, statusCode);
+            if (rateLimiter != null)
+                rateLimiter.update(false);
             /*
              * If we get back any 2xx status code, then we know we should
              * treat the service call as successful.
@@ -746,6 +805,11 @@ public class AmazonHttpClient {
             T response = handleResponse(request, responseHandler,
                     execParams.apacheRequest, httpResponse, execParams.apacheResponse,
                     execContext, isHeaderReqIdAvail);
+            if (retryQuota != null) {
+                retryQuota.release(execParams.retryQuotaAcquired);
+                awsRequestMetrics.setCounter(RetryQuotaAvailableCapacity,
+                        retryQuota.getAvailableCapacity());
+            }
             return new Response<T>(response, httpResponse);
         }
         if (isTemporaryRedirect(execParams.apacheResponse)) {
@@ -773,6 +837,8 @@ public class AmazonHttpClient {
             .addPropertyWith(AWSRequestID, ase.getRequestId())
             .addPropertyWith(AWSErrorCode, ase.getErrorCode())
             .addPropertyWith(StatusCode, ase.getStatusCode());
+        if (rateLimiter != null)
+            rateLimiter.update(RetryUtils.isThrottlingException(ase));
         // Check whether we should internally retry the auth error
         execParams.authRetryParam = null;
         AuthErrorRetryStrategy authRetry = execContext.getAuthErrorRetryStrategy();
@@ -781,11 +847,12 @@ public class AmazonHttpClient {
             execParams.authRetryParam = authRetry.shouldRetryWithAuthParam(request, httpResponse, ase);
         }
         if (execParams.authRetryParam == null &&
-            !shouldRetry(request.getOriginalRequest(),
+            (!shouldRetry(request.getOriginalRequest(),
                 execParams.apacheRequest,
                 ase,
                 execParams.requestCount,
-                config.getRetryPolicy())) {
+                config.getRetryPolicy())
+             || !acquireRetryQuota(execParams, ase, awsRequestMetrics))) {
             throw ase;
         }
         // Comment out for now. Ref: CR2662349
@@ -874,6 +941,30 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Captures the pool metrics of the route the request has been sent
+     * through, which is only known once the http client has leased a
+     * connection for it.
+     */
+    private void captureRouteMetrics(ClientConnectionManager connectionManager,
+            HttpContext httpContext, AWSRequestMetrics awsRequestMetrics) {
+        if (awsRequestMetrics.isEnabled()
+                && connectionManager instanceof ConnPoolControl) {
+            Object route = httpContext.getAttribute(ClientContext.ROUTE);
+            if (route instanceof HttpRoute) {
+                @SuppressWarnings("unchecked")
+                ConnPoolControl<HttpRoute> control = (ConnPoolControl<HttpRoute>) connectionManager;
+                PoolStats stats = control.getStats((HttpRoute) route);
+                awsRequestMetrics
+                    .withCounter(HttpClientPoolRouteAvailableCount, stats.getAvailable())
+                    .withCounter(HttpClientPoolRouteLeasedCount, stats.getLeased())
+                    .withCounter(HttpClientPoolRoutePendingCount, stats.getPending())
+                    .withCounter(HttpClientPoolRouteMaxCount, stats.getMax())
+                    ;
+            }
+        }
+    }
+
     /**
      * Capture the metrics for the given throwable.
      */
@@ -932,8 +1023,12 @@ public class AmazonHttpClient {
      * Once a client has been shutdown, it cannot be used to make more requests.
      */
     public void shutdown() {
-        IdleConnectionReaper.removeConnectionManager(httpClient.getConnectionManager());
-        httpClient.getConnectionManager().shutdown();
+        ClientConnectionManager connectionManager = httpClient.getConnectionManager();
+        // Custom http clients aren't required to expose a connection manager
+        if (connectionManager != null) {
+            IdleConnectionReaper.removeConnectionManager(connectionManager);
+            connectionManager.shutdown();
+        }
     }
 
     /**
@@ -988,6 +1083,31 @@ public class AmazonHttpClient {
                                                            retries);
     }
 
+    /**
+     * Draws the tokens needed for a retry from the retry quota of this client,
+     * if it uses adaptive retry.
+     *
+     * @return true if the retry may go ahead; false if the quota is exhausted.
+     */
+    private boolean acquireRetryQuota(ExecOneRequestParams execParams,
+            AmazonClientException exception, AWSRequestMetrics awsRequestMetrics) {
+        if (retryQuota == null)
+            return true;
+        final int acquired = retryQuota.acquire(exception);
+        awsRequestMetrics.setCounter(RetryQuotaAvailableCapacity,
+                retryQuota.getAvailableCapacity());
+        if (acquired == 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("Retry quota exhausted; not retrying: "
+                        + exception.getMessage());
+            }
+            awsRequestMetrics.incrementCounter(RetryQuotaExceeded);
+            return false;
+        }
+        execParams.retryQuotaAcquired += acquired;
+        return true;
+    }
+
     private static boolean isTemporaryRedirect(org.apache.http.HttpResponse response) {
         int status = response.getStatusLine().getStatusCode();
         return status == HttpStatus.SC_TEMPORARY_REDIRECT &&
@@ -16,8 +16,8 @@ package com.amazonaws.http;
 
 import java.util.concurrent.TimeUnit;
 
+import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
-import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.params.HttpParams;
 
 import com.amazonaws.ClientConfiguration;
@@ -32,8 +32,10 @@ class ConnectionManagerFactory {
             ClientConfiguration config,
             HttpParams httpClientParams) {
 
+        // The schemes are registered by the caller. The default registry of
+        // Apache HttpClient would load a new SSL context for every client.
         PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(
-                SchemeRegistryFactory.createDefault(),
+                new SchemeRegistry(),
                 config.getConnectionTTL(),
                 TimeUnit.MILLISECONDS,
                 new DelegatingDnsResolver(config.getDnsResolver()));
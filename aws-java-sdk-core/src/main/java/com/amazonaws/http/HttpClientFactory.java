@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 
@@ -56,7 +55,6 @@ import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeLayeredSocketFactory;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.scheme.SchemeSocketFactory;
-import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
@@ -65,15 +63,15 @@ import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HttpContext;
 
-import com.amazonaws.AmazonClientException;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.http.conn.ConnectionPoolMonitor;
 import com.amazonaws.http.conn.SdkConnectionKeepAliveStrategy;
-import com.amazonaws.http.conn.ssl.SdkTLSSocketFactory;
 import com.amazonaws.http.impl.client.HttpRequestNoRetryHandler;
 import com.amazonaws.http.impl.client.SdkHttpClient;
+import com.amazonaws.metrics.AwsSdkMetrics;
 
 /** Responsible for creating and configuring instances of Apache HttpClient4. */
-class HttpClientFactory {
+class HttpClientFactory implements HttpClientProvider {
 
 
     /**
@@ -86,6 +84,7 @@ class HttpClientFactory {
      *
      * @return The new, configured HttpClient.
      */
+    @Override
     public HttpClient createHttpClient(ClientConfiguration config) {
         /* Set HTTP client parameters */
         HttpParams httpClientParams = new BasicHttpParams();
@@ -105,7 +104,12 @@ class HttpClientFactory {
         PoolingClientConnectionManager connectionManager = ConnectionManagerFactory
                 .createPoolingClientConnManager(config, httpClientParams);
 
-        SdkHttpClient httpClient = new SdkHttpClient(connectionManager, httpClientParams);
+        ConnectionPoolMonitor poolMonitor = new ConnectionPoolMonitor(connectionManager,
+                config.getMaxConnections(), config.useAdaptiveConnectionPool());
+        SdkHttpClient httpClient = new SdkHttpClient(connectionManager, poolMonitor, httpClientParams);
+        if (AwsSdkMetrics.isMetricsEnabled()) {
+            poolMonitor.registerMBean();
+        }
         httpClient.setHttpRequestRetryHandler(HttpRequestNoRetryHandler.Singleton);
         httpClient.setRedirectStrategy(new NeverFollowRedirectStrategy());
 
@@ -118,21 +122,15 @@ class HttpClientFactory {
             ConnRouteParams.setLocalAddress(httpClientParams, config.getLocalAddress());
         }
 
-        try {
-            Scheme http = new Scheme("http", 80, PlainSocketFactory.getSocketFactory());
-            SSLSocketFactory sf = config.getApacheHttpClientConfig().getSslSocketFactory();
-            if (sf == null) {
-                sf = new SdkTLSSocketFactory(
-                        SSLContext.getDefault(),
-                        SSLSocketFactory.STRICT_HOSTNAME_VERIFIER);
-            }
-            Scheme https = new Scheme("https", 443, sf);
-            SchemeRegistry sr = connectionManager.getSchemeRegistry();
-            sr.register(http);
-            sr.register(https);
-        } catch (NoSuchAlgorithmException e) {
-            throw new AmazonClientException("Unable to access default SSL context", e);
+        Scheme http = new Scheme("http", 80, PlainSocketFactory.getSocketFactory());
+        SchemeSocketFactory sf = config.getApacheHttpClientConfig().getSslSocketFactory();
+        if (sf == null) {
+            sf = LazyTLSSocketFactory.STRICT;
         }
+        Scheme https = new Scheme("https", 443, sf);
+        SchemeRegistry sr = connectionManager.getSchemeRegistry();
+        sr.register(http);
+        sr.register(https);
 
         /*
          * If SSL cert checking for endpoints has been explicitly disabled,
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import org.apache.http.client.HttpClient;
+
+import com.amazonaws.ApacheHttpClientConfig;
+import com.amazonaws.ClientConfiguration;
+
+/**
+ * Factory of the Apache HttpClient used by {@link AmazonHttpClient} to send
+ * requests to AWS.
+ * <p>
+ * By default, requests are sent through an Apache HttpClient backed by a
+ * pooling connection manager. A custom factory may be configured via
+ * {@link ApacheHttpClientConfig#setHttpClientProvider(HttpClientProvider)} to
+ * customize that client, for instance with a different connection manager or
+ * request executor. The returned client is used the same way as the default
+ * one: each request blocks the calling thread until its response is received.
+ * <p>
+ * The returned client must not retry requests or follow redirects on its own,
+ * as both are handled by {@link AmazonHttpClient}. If it has no connection
+ * manager, it is also responsible for verifying host names. Implementations
+ * must be thread safe.
+ */
+public interface HttpClientProvider {
+    /**
+     * Returns a new HTTP client configured with the given client configuration
+     * (ex: proxy settings, connection limits, timeouts, etc). The client is
+     * owned by the caller, which shuts down its connection manager (if any)
+     * once it is no longer needed.
+     */
+    HttpClient createHttpClient(ClientConfiguration config);
+}
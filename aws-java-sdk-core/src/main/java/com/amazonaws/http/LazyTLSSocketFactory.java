@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.security.NoSuchAlgorithmException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.scheme.SchemeLayeredSocketFactory;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.params.HttpParams;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.http.conn.ssl.SdkTLSSocketFactory;
+
+/**
+ * The socket factory used for HTTPS connections when no SSL socket factory is
+ * configured, shared by all the clients of the JVM.
+ * <p>
+ * Loading the default SSL context, along with the trust store it is
+ * initialized with, takes a large part of the construction of the first
+ * client. It is deferred until the first HTTPS connection is opened, so that
+ * clients can be created and configured without paying for it, and done only
+ * once rather than for every client.
+ */
+@ThreadSafe
+final class LazyTLSSocketFactory implements SchemeLayeredSocketFactory {
+
+    /** Verifies host names strictly; used by default. */
+    static final LazyTLSSocketFactory STRICT =
+            new LazyTLSSocketFactory(SSLSocketFactory.STRICT_HOSTNAME_VERIFIER);
+
+    /** Evaluates wildcards in certificate host names more liberally. */
+    static final LazyTLSSocketFactory BROWSER_COMPATIBLE =
+            new LazyTLSSocketFactory(SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+
+    private final X509HostnameVerifier hostnameVerifier;
+
+    private volatile SdkTLSSocketFactory delegate;
+
+    private LazyTLSSocketFactory(X509HostnameVerifier hostnameVerifier) {
+        this.hostnameVerifier = hostnameVerifier;
+    }
+
+    private SdkTLSSocketFactory delegate() {
+        SdkTLSSocketFactory factory = delegate;
+        if (factory == null) {
+            synchronized (this) {
+                factory = delegate;
+                if (factory == null) {
+                    try {
+                        factory = new SdkTLSSocketFactory(
+                                SSLContext.getDefault(), hostnameVerifier);
+                    } catch (NoSuchAlgorithmException e) {
+                        throw new AmazonClientException(
+                                "Unable to access default SSL context", e);
+                    }
+                    delegate = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
+    @Override
+    public Socket createSocket(HttpParams params) throws IOException {
+        return delegate().createSocket(params);
+    }
+
+    @Override
+    public Socket connectSocket(Socket sock, InetSocketAddress remoteAddress,
+            InetSocketAddress localAddress, HttpParams params)
+            throws IOException, UnknownHostException, ConnectTimeoutException {
+        return delegate().connectSocket(sock, remoteAddress, localAddress, params);
+    }
+
+    @Override
+    public boolean isSecure(Socket sock) throws IllegalArgumentException {
+        return delegate().isSecure(sock);
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port,
+            HttpParams params) throws IOException, UnknownHostException {
+        return delegate().createLayeredSocket(socket, target, port, params);
+    }
+}
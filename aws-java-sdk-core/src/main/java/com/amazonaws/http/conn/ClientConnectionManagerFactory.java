@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.pool.ConnPoolControl;
 
 public class ClientConnectionManagerFactory {
@@ -34,6 +35,18 @@ public class ClientConnectionManagerFactory {
      * @param orig the target instance to be wrapped
      */
     public static ClientConnectionManager wrap(ClientConnectionManager orig) {
+        return wrap(orig, null);
+    }
+
+    /**
+     * Returns a wrapped instance of {@link ClientConnectionManager}
+     * to capture the necessary performance metrics, and to report the
+     * connection requests to the given monitor of the connection pool.
+     * @param orig the target instance to be wrapped
+     * @param monitor the monitor of the connection pool; or null
+     */
+    public static ClientConnectionManager wrap(ClientConnectionManager orig,
+            ConnectionPoolMonitor monitor) {
         if (orig instanceof Wrapped)
             throw new IllegalArgumentException();
         final Class<?>[] interfaces;
@@ -53,7 +66,7 @@ public class ClientConnectionManagerFactory {
                 // https://github.com/aws/aws-sdk-java/pull/48#issuecomment-29454423
                 ClientConnectionManagerFactory.class.getClassLoader(),
                 interfaces,
-                new Handler(orig));
+                new Handler(orig, monitor));
     }
 
     /**
@@ -63,17 +76,32 @@ public class ClientConnectionManagerFactory {
      */
     private static class Handler implements InvocationHandler {
         private final ClientConnectionManager orig;
-        Handler(ClientConnectionManager real) {
+        private final ConnectionPoolMonitor monitor;
+        Handler(ClientConnectionManager real, ConnectionPoolMonitor monitor) {
             this.orig = real;
+            this.monitor = monitor;
         }
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
             try {
-                Object ret = method.invoke(orig, args);
-                return ret instanceof ClientConnectionRequest
-                     ? ClientConnectionRequestFactory.wrap((ClientConnectionRequest) ret)
-                     : ret
-                     ;
+                if (monitor == null) {
+                    Object ret = method.invoke(orig, args);
+                    return ret instanceof ClientConnectionRequest
+                         ? ClientConnectionRequestFactory.wrap((ClientConnectionRequest) ret)
+                         : ret
+                         ;
+                }
+                final String name = method.getName();
+                if ("requestConnection".equals(name)) {
+                    HttpRoute route = (HttpRoute) args[0];
+                    monitor.requested(route);
+                    return ClientConnectionRequestFactory.wrap(
+                            (ClientConnectionRequest) method.invoke(orig, args),
+                            route, monitor);
+                }
+                if ("shutdown".equals(name))
+                    monitor.shutdown();
+                return method.invoke(orig, args);
             } catch (InvocationTargetException e) {
                 log.debug("", e);
                 throw e.getCause();
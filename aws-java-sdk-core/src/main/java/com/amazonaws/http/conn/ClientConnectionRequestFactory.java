@@ -22,6 +22,9 @@ import java.lang.reflect.Proxy;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
 
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.ServiceLatencyProvider;
@@ -40,13 +43,26 @@ class ClientConnectionRequestFactory {
      * @param orig the target instance to be wrapped
      */
     static ClientConnectionRequest wrap(ClientConnectionRequest orig) {
+        return wrap(orig, null, null);
+    }
+
+    /**
+     * Returns a wrapped instance of {@link ClientConnectionRequest}
+     * to capture the necessary performance metrics, and to report the
+     * connection leases of the given route to the given monitor.
+     * @param orig the target instance to be wrapped
+     * @param route the route of the requested connection; or null
+     * @param monitor the monitor of the connection pool; or null
+     */
+    static ClientConnectionRequest wrap(ClientConnectionRequest orig,
+            HttpRoute route, ConnectionPoolMonitor monitor) {
         if (orig instanceof Wrapped)
             throw new IllegalArgumentException();
         return (ClientConnectionRequest) Proxy.newProxyInstance(
                 // https://github.com/aws/aws-sdk-java/pull/48#issuecomment-29454423
                 ClientConnectionRequestFactory.class.getClassLoader(),
                 interfaces,
-                new Handler(orig));
+                new Handler(orig, route, monitor));
     }
 
     /**
@@ -57,8 +73,13 @@ class ClientConnectionRequestFactory {
      */
     private static class Handler implements InvocationHandler {
         private final ClientConnectionRequest orig;
-        Handler(ClientConnectionRequest orig) {
+        private final HttpRoute route;
+        private final ConnectionPoolMonitor monitor;
+        Handler(ClientConnectionRequest orig, HttpRoute route,
+                ConnectionPoolMonitor monitor) {
             this.orig = orig;
+            this.route = route;
+            this.monitor = monitor;
         }
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
@@ -66,8 +87,20 @@ class ClientConnectionRequestFactory {
                 if ("getConnection".equals(method.getName())) {
                     ServiceLatencyProvider latencyProvider = new ServiceLatencyProvider(
                             AWSServiceMetrics.HttpClientGetConnectionTime);
+                    final long startNano = System.nanoTime();
                     try {
-                        return method.invoke(orig, args);
+                        Object conn = method.invoke(orig, args);
+                        if (monitor != null && conn instanceof ManagedClientConnection) {
+                            monitor.leased(route, System.nanoTime() - startNano,
+                                    !((ManagedClientConnection) conn).isOpen());
+                        }
+                        return conn;
+                    } catch (InvocationTargetException e) {
+                        if (monitor != null
+                                && e.getCause() instanceof ConnectionPoolTimeoutException) {
+                            monitor.leaseTimedOut(route, System.nanoTime() - startNano);
+                        }
+                        throw e;
                     } finally {
                         AwsSdkMetrics.getServiceMetricCollector()
                                 .collectLatency(latencyProvider.endTiming());
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.conn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+import com.amazonaws.jmx.spi.SdkGenericMBeanRegistry;
+import com.amazonaws.jmx.spi.SdkMBeanRegistry;
+
+/**
+ * Keeps per route statistics of a connection pool and, in adaptive mode, sizes
+ * the maximum number of connections of each route.
+ * <p>
+ * In adaptive mode, a route that waits for connections has its maximum grown,
+ * while a route that uses few of its connections has it shrunk. Each route
+ * that has recently requested a connection is guaranteed a fair share of the
+ * pool, so that a busy route can't starve the others of connections.
+ * <p>
+ * The statistics of a route are dropped once it has been idle for
+ * {@link #IDLE_NANOS} with no connection leased, so that the routes used over
+ * the life of a client don't accumulate.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public class ConnectionPoolMonitor implements ConnectionPoolMonitorMBean {
+    private static final Log log = LogFactory.getLog(ConnectionPoolMonitor.class);
+
+    private static final String MBEAN_OBJECT_NAME_PREFIX =
+        "com.amazonaws.management:type=" + ConnectionPoolMonitor.class.getSimpleName() + ",id=";
+    private static final AtomicInteger mbeanCount = new AtomicInteger();
+
+    /** Minimum time between two adjustments of the maximum of a route. */
+    static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Time after which a route that requested no connection isn't active. */
+    static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    /** Mean lease wait time above which the maximum of a route is grown. */
+    static final long WAIT_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * Number of buckets of the lease wait time histograms: the first holds
+     * waits below 1 ms, the next ones double in width up to 1024 ms, and the
+     * last holds the longer waits.
+     */
+    public static final int HISTOGRAM_BUCKETS = 12;
+
+    private final ConnPoolControl<HttpRoute> pool;
+    private final int maxConnections;
+    private final boolean adaptive;
+    private final ConcurrentMap<HttpRoute, RouteStats> routes =
+        new ConcurrentHashMap<HttpRoute, RouteStats>();
+    private volatile String mbeanName;
+
+    /**
+     * @param pool
+     *            the pool to monitor
+     * @param maxConnections
+     *            the maximum number of connections of the pool
+     * @param adaptive
+     *            whether the maximum number of connections of each route is
+     *            adapted to the time spent waiting for connections
+     */
+    public ConnectionPoolMonitor(ConnPoolControl<HttpRoute> pool,
+            int maxConnections, boolean adaptive) {
+        this.pool = pool;
+        this.maxConnections = maxConnections;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Called when a connection is requested for the given route, before it is
+     * leased.
+     */
+    public void requested(HttpRoute route) {
+        RouteStats stats = routes.get(route);
+        if (stats == null) {
+            RouteStats newStats = new RouteStats();
+            stats = routes.putIfAbsent(route, newStats);
+            if (stats == null) {
+                stats = newStats;
+                pruneIdleRoutes(route, System.nanoTime());
+                if (adaptive) {
+                    // Start a new route at its fair share of the pool
+                    stats.maxPerRoute = Math.max(1, maxConnections / activeRoutes(System.nanoTime()));
+                    pool.setMaxPerRoute(route, stats.maxPerRoute);
+                }
+            }
+        }
+        stats.lastRequestNanos = System.nanoTime();
+    }
+
+    /**
+     * Called when a connection has been leased for the given route.
+     *
+     * @param waitNanos
+     *            the time spent waiting for the connection
+     * @param opened
+     *            whether the connection is yet to be opened, rather than
+     *            reused from the pool
+     */
+    public void leased(HttpRoute route, long waitNanos, boolean opened) {
+        RouteStats stats = routes.get(route);
+        if (stats == null)
+            return;
+        stats.leaseCount.incrementAndGet();
+        if (opened)
+            stats.openedCount.incrementAndGet();
+        stats.record(waitNanos);
+        if (adaptive)
+            adjust(route, stats);
+    }
+
+    /**
+     * Called when no connection could be leased for the given route within the
+     * connection timeout.
+     */
+    public void leaseTimedOut(HttpRoute route, long waitNanos) {
+        RouteStats stats = routes.get(route);
+        if (stats == null)
+            return;
+        stats.timeoutCount.incrementAndGet();
+        stats.record(waitNanos);
+        if (adaptive)
+            adjust(route, stats);
+    }
+
+    /**
+     * Returns the statistics of the given route, or null if no connection has
+     * been requested for it.
+     */
+    public RouteStats getRouteStats(HttpRoute route) {
+        return routes.get(route);
+    }
+
+    /**
+     * Grows or shrinks the maximum number of connections of the given route,
+     * at most once per {@link #ADJUST_INTERVAL_NANOS}.
+     */
+    private void adjust(HttpRoute route, RouteStats stats) {
+        final long now = System.nanoTime();
+        final long last = stats.lastAdjustNanos.get();
+        if (now - last < ADJUST_INTERVAL_NANOS
+                || !stats.lastAdjustNanos.compareAndSet(last, now))
+            return;
+        final long leases = stats.windowLeases.getAndSet(0);
+        final long waitNanos = stats.windowWaitNanos.getAndSet(0);
+        final int fairShare = Math.max(1, maxConnections / activeRoutes(now));
+        // Keep a fair share of the pool for each of the other active routes
+        int reserved = 0;
+        for (RouteStats other : routes.values()) {
+            if (other != stats && now - other.lastRequestNanos < IDLE_NANOS)
+                reserved += Math.min(other.maxPerRoute, fairShare);
+        }
+        final int ceiling = Math.max(fairShare, maxConnections - reserved);
+        final PoolStats poolStats = pool.getStats(route);
+        final int max = stats.maxPerRoute;
+        int newMax = max;
+        if (poolStats.getPending() > 0
+                || (leases > 0 && waitNanos / leases > WAIT_THRESHOLD_NANOS)) {
+            newMax = max * 2;
+        } else if (poolStats.getLeased() < max / 2) {
+            newMax = Math.max(Math.max(1, poolStats.getLeased()), max - max / 4);
+        }
+        newMax = Math.min(newMax, ceiling);
+        if (newMax != max) {
+            stats.maxPerRoute = newMax;
+            pool.setMaxPerRoute(route, newMax);
+            if (log.isDebugEnabled()) {
+                log.debug("Max connections of " + route + " changed from "
+                        + max + " to " + newMax);
+            }
+        }
+    }
+
+    /**
+     * Drops the statistics of the routes other than the given one that have
+     * been idle for {@link #IDLE_NANOS} and have no connection leased.
+     */
+    private void pruneIdleRoutes(HttpRoute current, long now) {
+        for (Map.Entry<HttpRoute, RouteStats> e : routes.entrySet()) {
+            HttpRoute route = e.getKey();
+            RouteStats stats = e.getValue();
+            if (route.equals(current) || now - stats.lastRequestNanos < IDLE_NANOS)
+                continue;
+            PoolStats poolStats = pool.getStats(route);
+            if (poolStats.getLeased() == 0 && poolStats.getPending() == 0)
+                routes.remove(route, stats);
+        }
+    }
+
+    private int activeRoutes(long now) {
+        int count = 0;
+        for (RouteStats stats : routes.values()) {
+            if (now - stats.lastRequestNanos < IDLE_NANOS)
+                count++;
+        }
+        return Math.max(1, count);
+    }
+
+    /**
+     * Registers this monitor as an MBean for JMX access.
+     *
+     * @return true if the registration succeeded; false otherwise.
+     */
+    public boolean registerMBean() {
+        SdkMBeanRegistry registry = SdkMBeanRegistry.Factory.getMBeanRegistry();
+        if (!(registry instanceof SdkGenericMBeanRegistry))
+            return false;
+        String name = MBEAN_OBJECT_NAME_PREFIX + mbeanCount.incrementAndGet();
+        if (((SdkGenericMBeanRegistry) registry).registerMBean(name, this)) {
+            mbeanName = name;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Unregisters this monitor from JMX, if registered.
+     */
+    public void unregisterMBean() {
+        String name = mbeanName;
+        if (name != null) {
+            mbeanName = null;
+            SdkMBeanRegistry.Factory.getMBeanRegistry().unregisterMBean(name);
+        }
+    }
+
+    /**
+     * Called when the connection pool is shut down: unregisters this monitor
+     * from JMX and drops the statistics of all the routes.
+     */
+    public void shutdown() {
+        unregisterMBean();
+        routes.clear();
+    }
+
+    @Override
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return pool.getMaxTotal();
+    }
+
+    @Override
+    public int getLeasedCount() {
+        return pool.getTotalStats().getLeased();
+    }
+
+    @Override
+    public int getAvailableCount() {
+        return pool.getTotalStats().getAvailable();
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pool.getTotalStats().getPending();
+    }
+
+    @Override
+    public String[] getRouteStats() {
+        List<String> lines = new ArrayList<String>(routes.size());
+        for (Map.Entry<HttpRoute, RouteStats> e : routes.entrySet()) {
+            HttpRoute route = e.getKey();
+            RouteStats stats = e.getValue();
+            PoolStats poolStats = pool.getStats(route);
+            StringBuilder sb = new StringBuilder()
+                .append(route)
+                .append(": leased=").append(poolStats.getLeased())
+                .append(", available=").append(poolStats.getAvailable())
+                .append(", pending=").append(poolStats.getPending())
+                .append(", max=").append(pool.getMaxPerRoute(route))
+                .append(", leases=").append(stats.getLeaseCount())
+                .append(", opened=").append(stats.getOpenedCount())
+                .append(", timeouts=").append(stats.getTimeoutCount())
+                .append(", leaseWaitMs={");
+            long[] histogram = stats.getLeaseWaitHistogram();
+            for (int i = 0; i < histogram.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                long bound = getBucketUpperBoundMillis(i);
+                sb.append(bound < 0 ? ">=1024" : "<" + bound)
+                  .append('=').append(histogram[i]);
+            }
+            lines.add(sb.append('}').toString());
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    /**
+     * Returns the exclusive upper bound in milliseconds of the given bucket of
+     * the lease wait time histograms, or -1 for the last, unbounded, bucket.
+     */
+    public static long getBucketUpperBoundMillis(int bucket) {
+        return bucket < HISTOGRAM_BUCKETS - 1 ? 1L << bucket : -1;
+    }
+
+    /**
+     * Returns the bucket of the lease wait time histograms of the given wait.
+     */
+    static int bucketOf(long waitNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * Statistics of the connections of a single route.
+     */
+    public static class RouteStats {
+        private final AtomicLong leaseCount = new AtomicLong();
+        private final AtomicLong openedCount = new AtomicLong();
+        private final AtomicLong timeoutCount = new AtomicLong();
+        private final AtomicLongArray leaseWaitHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+        /* State of the adaptive sizing */
+        private final AtomicLong windowLeases = new AtomicLong();
+        private final AtomicLong windowWaitNanos = new AtomicLong();
+        private final AtomicLong lastAdjustNanos = new AtomicLong(System.nanoTime() - ADJUST_INTERVAL_NANOS);
+        volatile long lastRequestNanos = System.nanoTime();
+        private volatile int maxPerRoute;
+
+        private void record(long waitNanos) {
+            leaseWaitHistogram.incrementAndGet(bucketOf(waitNanos));
+            windowLeases.incrementAndGet();
+            windowWaitNanos.addAndGet(waitNanos);
+        }
+
+        /**
+         * Returns the number of connections leased for the route.
+         */
+        public long getLeaseCount() {
+            return leaseCount.get();
+        }
+
+        /**
+         * Returns the number of new connections leased for the route, as
+         * opposed to connections reused from the pool.
+         */
+        public long getOpenedCount() {
+            return openedCount.get();
+        }
+
+        /**
+         * Returns the number of connection requests of the route that timed
+         * out waiting for a connection.
+         */
+        public long getTimeoutCount() {
+            return timeoutCount.get();
+        }
+
+        /**
+         * Returns a copy of the histogram of the time spent waiting for a
+         * connection, leased or timed out.
+         *
+         * @see ConnectionPoolMonitor#getBucketUpperBoundMillis(int)
+         */
+        public long[] getLeaseWaitHistogram() {
+            long[] histogram = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < histogram.length; i++)
+                histogram[i] = leaseWaitHistogram.get(i);
+            return histogram;
+        }
+    }
+}
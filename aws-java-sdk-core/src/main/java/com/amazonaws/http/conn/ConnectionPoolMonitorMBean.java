@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.conn;
+
+/**
+ * MBean interface for the connection pool of an http client.
+ */
+public interface ConnectionPoolMonitorMBean {
+    /**
+     * Returns true if the maximum number of connections of each route is
+     * adapted to the time spent waiting for connections; false otherwise.
+     */
+    public boolean isAdaptive();
+
+    /**
+     * Returns the maximum number of connections of the pool.
+     */
+    public int getMaxTotal();
+
+    /**
+     * Returns the number of connections currently in use.
+     */
+    public int getLeasedCount();
+
+    /**
+     * Returns the number of idle persistent connections.
+     */
+    public int getAvailableCount();
+
+    /**
+     * Returns the number of connection requests waiting for a connection.
+     */
+    public int getPendingCount();
+
+    /**
+     * Returns one line of statistics per route of the pool: the current pool
+     * stats and maximum number of connections of the route, the number of
+     * connections leased, opened and timed out since the creation of the
+     * pool, and the histogram of the time spent waiting for a connection.
+     */
+    public String[] getRouteStats();
+}
@@ -20,6 +20,7 @@ import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HttpRequestExecutor;
 
 import com.amazonaws.http.conn.ClientConnectionManagerFactory;
+import com.amazonaws.http.conn.ConnectionPoolMonitor;
 import com.amazonaws.http.protocol.SdkHttpRequestExecutor;
 
 public class SdkHttpClient extends DefaultHttpClient {
@@ -29,6 +30,18 @@ public class SdkHttpClient extends DefaultHttpClient {
         super(ClientConnectionManagerFactory.wrap(conman), params);
     }
 
+    /**
+     * @param monitor
+     *            the monitor to which the connection requests of this client
+     *            are reported; or null
+     */
+    public SdkHttpClient(
+            final ClientConnectionManager conman,
+            final ConnectionPoolMonitor monitor,
+            final HttpParams params) {
+        super(ClientConnectionManagerFactory.wrap(conman, monitor), params);
+    }
+
     @Override
     protected HttpRequestExecutor createRequestExecutor() {
         return new SdkHttpRequestExecutor();
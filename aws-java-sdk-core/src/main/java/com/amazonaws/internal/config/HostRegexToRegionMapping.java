@@ -23,6 +23,7 @@ import com.amazonaws.annotation.Immutable;
 public class HostRegexToRegionMapping {
 
     private final String hostNameRegex;
+    private final Pattern hostNamePattern;
     private final String regionName;
 
     public HostRegexToRegionMapping(
@@ -32,8 +33,9 @@ public class HostRegexToRegionMapping {
                     "Invalid HostRegexToRegionMapping configuration: " +
                     "hostNameRegex must be non-empty");
         }
+        Pattern hostNamePattern;
         try {
-            Pattern.compile(hostNameRegex);
+            hostNamePattern = Pattern.compile(hostNameRegex);
         } catch (PatternSyntaxException e) {
             throw new IllegalArgumentException(
                     "Invalid HostRegexToRegionMapping configuration: " +
@@ -46,6 +48,7 @@ public class HostRegexToRegionMapping {
                     "regionName must be non-empty");
         }
         this.hostNameRegex = hostNameRegex;
+        this.hostNamePattern = hostNamePattern;
         this.regionName = regionName;
     }
 
@@ -53,6 +56,14 @@ public class HostRegexToRegionMapping {
         return hostNameRegex;
     }
 
+    /**
+     * Returns true if the given host name matches the host name regex of this
+     * mapping, which is only compiled once.
+     */
+    public boolean matches(String hostName) {
+        return hostNamePattern.matcher(hostName).matches();
+    }
+
     public String getRegionName() {
         return regionName;
     }
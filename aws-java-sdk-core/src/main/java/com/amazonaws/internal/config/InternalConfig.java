@@ -26,7 +26,6 @@ import com.amazonaws.annotation.Immutable;
 import com.amazonaws.log.InternalLogApi;
 import com.amazonaws.log.InternalLogFactory;
 import com.amazonaws.util.ClassLoaderHelper;
-import com.amazonaws.util.json.Jackson;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 
@@ -230,9 +229,7 @@ public class InternalConfig {
             throws JsonParseException, JsonMappingException, IOException {
         if (url == null)
             throw new IllegalArgumentException();
-        InternalConfigJsonHelper target = Jackson.getObjectMapper().readValue(
-                url, InternalConfigJsonHelper.class);
-        return target;
+        return InternalConfigJsonReader.read(url);
     }
 
     /**
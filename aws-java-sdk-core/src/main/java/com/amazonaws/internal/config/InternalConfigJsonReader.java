@@ -0,0 +1,221 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.internal.config;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the JSON representation of {@link InternalConfigJsonHelper} with the
+ * Jackson streaming parser.
+ * <p>
+ * The internal configuration is loaded when the first client is created.
+ * Binding it with an object mapper would make every application pay for
+ * initializing Jackson databind on startup, which takes several times longer
+ * than reading the few entries of the configuration. Unknown properties are
+ * ignored, as they were when binding.
+ */
+final class InternalConfigJsonReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .configure(JsonParser.Feature.ALLOW_COMMENTS, true);
+
+    private InternalConfigJsonReader() {
+    }
+
+    static InternalConfigJsonHelper read(URL url) throws IOException {
+        JsonParser parser = JSON_FACTORY.createParser(url);
+        try {
+            parser.nextToken();
+            InternalConfigJsonHelper config = new InternalConfigJsonHelper();
+            startObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("defaultSigner".equals(field)) {
+                    config.setDefaultSigner(readSignerConfig(parser));
+                } else if ("serviceSigners".equals(field)) {
+                    config.setServiceSigners(readSignerIndexes(parser));
+                } else if ("regionSigners".equals(field)) {
+                    config.setRegionSigners(readSignerIndexes(parser));
+                } else if ("serviceRegionSigners".equals(field)) {
+                    config.setServiceRegionSigners(readSignerIndexes(parser));
+                } else if ("httpClients".equals(field)) {
+                    config.setHttpClients(readHttpClientIndexes(parser));
+                } else if ("hostRegexToRegionMappings".equals(field)) {
+                    config.setHostRegexToRegionMappings(readHostRegexToRegionMappings(parser));
+                } else if ("userAgentTemplate".equals(field)) {
+                    config.setUserAgentTemplate(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return config;
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static SignerConfigJsonHelper readSignerConfig(JsonParser parser)
+            throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        SignerConfigJsonHelper signerConfig = new SignerConfigJsonHelper();
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("signerType".equals(field)) {
+                signerConfig.setSignerType(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return signerConfig;
+    }
+
+    private static HttpClientConfigJsonHelper readHttpClientConfig(JsonParser parser)
+            throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        HttpClientConfigJsonHelper httpClientConfig = new HttpClientConfigJsonHelper();
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("serviceName".equals(field)) {
+                httpClientConfig.setServiceName(parser.getValueAsString());
+            } else if ("regionMetadataServiceName".equals(field)) {
+                httpClientConfig.setRegionMetadataServiceName(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return httpClientConfig;
+    }
+
+    private static JsonIndex<SignerConfigJsonHelper, SignerConfig>[] readSignerIndexes(
+            JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        List<JsonIndex<SignerConfigJsonHelper, SignerConfig>> indexes =
+                new ArrayList<JsonIndex<SignerConfigJsonHelper, SignerConfig>>();
+        startArray(parser);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String key = null;
+            SignerConfigJsonHelper signerConfig = null;
+            startObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("key".equals(field)) {
+                    key = parser.getValueAsString();
+                } else if ("config".equals(field)) {
+                    signerConfig = readSignerConfig(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            indexes.add(new JsonIndex<SignerConfigJsonHelper, SignerConfig>(key, signerConfig));
+        }
+        return toArray(indexes);
+    }
+
+    private static JsonIndex<HttpClientConfigJsonHelper, HttpClientConfig>[] readHttpClientIndexes(
+            JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        List<JsonIndex<HttpClientConfigJsonHelper, HttpClientConfig>> indexes =
+                new ArrayList<JsonIndex<HttpClientConfigJsonHelper, HttpClientConfig>>();
+        startArray(parser);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String key = null;
+            HttpClientConfigJsonHelper httpClientConfig = null;
+            startObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("key".equals(field)) {
+                    key = parser.getValueAsString();
+                } else if ("config".equals(field)) {
+                    httpClientConfig = readHttpClientConfig(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            indexes.add(new JsonIndex<HttpClientConfigJsonHelper, HttpClientConfig>(
+                    key, httpClientConfig));
+        }
+        return toArray(indexes);
+    }
+
+    private static HostRegexToRegionMappingJsonHelper[] readHostRegexToRegionMappings(
+            JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        List<HostRegexToRegionMappingJsonHelper> mappings =
+                new ArrayList<HostRegexToRegionMappingJsonHelper>();
+        startArray(parser);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            HostRegexToRegionMappingJsonHelper mapping = new HostRegexToRegionMappingJsonHelper();
+            startObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("hostNameRegex".equals(field)) {
+                    mapping.setHostNameRegex(parser.getValueAsString());
+                } else if ("regionName".equals(field)) {
+                    mapping.setRegionName(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            mappings.add(mapping);
+        }
+        return mappings.toArray(new HostRegexToRegionMappingJsonHelper[mappings.size()]);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <C extends Builder<T>, T> JsonIndex<C, T>[] toArray(
+            List<JsonIndex<C, T>> indexes) {
+        return indexes.toArray(new JsonIndex[indexes.size()]);
+    }
+
+    private static void startObject(JsonParser parser) throws JsonParseException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException("Expected an object but found "
+                    + parser.getCurrentToken(), parser.getCurrentLocation());
+        }
+    }
+
+    private static void startArray(JsonParser parser) throws JsonParseException {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException("Expected an array but found "
+                    + parser.getCurrentToken(), parser.getCurrentLocation());
+        }
+    }
+}
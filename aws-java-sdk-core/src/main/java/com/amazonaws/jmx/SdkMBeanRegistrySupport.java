@@ -16,10 +16,10 @@ package com.amazonaws.jmx;
 
 import org.apache.commons.logging.LogFactory;
 
-import com.amazonaws.jmx.spi.SdkMBeanRegistry;
+import com.amazonaws.jmx.spi.SdkGenericMBeanRegistry;
 import com.amazonaws.metrics.MetricAdmin;
 
-public class SdkMBeanRegistrySupport implements SdkMBeanRegistry {
+public class SdkMBeanRegistrySupport implements SdkGenericMBeanRegistry {
     ;
     @Override
     public boolean registerMetricAdminMBean(String objectName) {
@@ -31,6 +31,16 @@ public class SdkMBeanRegistrySupport implements SdkMBeanRegistry {
         return false;
     }
 
+    @Override
+    public boolean registerMBean(String objectName, Object mbean) {
+        try {
+            return MBeans.registerMBean(objectName, mbean);
+        } catch(Exception ex) {
+            LogFactory.getLog(SdkMBeanRegistrySupport.class).warn("", ex);
+        }
+        return false;
+    }
+
     @Override
     public boolean unregisterMBean(String objectName) {
         try {
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.jmx.spi;
+
+/**
+ * {@link SdkMBeanRegistry} that can also register arbitrary MBeans. Kept apart
+ * so that existing implementations of {@link SdkMBeanRegistry} still work;
+ * callers check for it at runtime.
+ */
+public interface SdkGenericMBeanRegistry extends SdkMBeanRegistry {
+    /**
+     * Returns true if the registration of the given MBean under the given
+     * object name succeeded; false otherwise.
+     */
+    public boolean registerMBean(String objectName, Object mbean);
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * A fixed memory histogram of latencies, from which percentiles can be
+ * estimated.
+ * <p>
+ * Latencies are recorded in microseconds into buckets that split each power of
+ * two into {@value #SUB_BUCKETS} equal ranges, so that an estimated percentile
+ * is within 12.5% of the actual latency, from a microsecond up to about 38
+ * hours. Recording a latency takes a few atomic updates and allocates nothing.
+ */
+@ThreadSafe
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Latencies of 2^MAX_EXPONENT micros and above all fall in the last bucket. */
+    private static final int MAX_EXPONENT = 37;
+    static final int BUCKET_COUNT = SUB_BUCKETS
+            + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a latency given as a start and end time in nanoseconds, as
+     * captured by {@link System#nanoTime()}.
+     */
+    public void recordNanos(long startTimeNano, long endTimeNano) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(endTimeNano - startTimeNano));
+    }
+
+    /**
+     * Records a latency in microseconds; negative latencies are recorded as
+     * zero.
+     */
+    public void recordMicros(long micros) {
+        if (micros < 0)
+            micros = 0;
+        counts.incrementAndGet(bucketOf(micros));
+        totalMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get())
+                && !maxMicros.compareAndSet(max, micros))
+            ;
+    }
+
+    /** Returns the number of latencies recorded. */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /** Returns the mean latency in milliseconds; or zero if none recorded. */
+    public double getMeanMillis() {
+        final long count = getCount();
+        return count == 0 ? 0 : totalMicros.get() / 1000.0 / count;
+    }
+
+    /** Returns the maximum latency in milliseconds; or zero if none recorded. */
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Returns the estimated latency in milliseconds below which the given
+     * percentage of the recorded latencies fall; or zero if none recorded.
+     *
+     * @param percentile
+     *            the percentile, between 0 and 100; eg 99 for the 99th
+     *            percentile.
+     */
+    public double getPercentileMillis(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        final long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            count += snapshot[i] = counts.get(i);
+        if (count == 0)
+            return 0;
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        final long max = maxMicros.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(max, upperBoundOf(i)) / 1000.0;
+        }
+        return max / 1000.0;
+    }
+
+    /** Clears all the recorded latencies. */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts.set(i, 0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3fms, p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms",
+                getCount(), getMeanMillis(), getPercentileMillis(50),
+                getPercentileMillis(90), getPercentileMillis(99), getMaxMillis());
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS)
+            return (int) micros;
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent >= MAX_EXPONENT)
+            return BUCKET_COUNT - 1;
+        final int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /** Returns the (exclusive) upper bound in micros of the given bucket. */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket + 1;
+        final int exponent = SUB_BUCKET_BITS + (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.jmx.spi.SdkGenericMBeanRegistry;
+import com.amazonaws.jmx.spi.SdkMBeanRegistry;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.TimingInfo;
+
+/**
+ * A request metric collector that keeps in memory a {@link LatencyHistogram}
+ * per service operation for each of the latency metrics below, so that
+ * percentiles of the client side latencies can be observed in process or over
+ * JMX without uploading anything:
+ * <ul>
+ * <li>{@link Field#ClientExecuteTime}</li>
+ * <li>{@link Field#HttpRequestTime}, recorded for each attempt</li>
+ * <li>{@link Field#RequestSigningTime}, recorded for each attempt</li>
+ * <li>{@link Field#ResponseProcessingTime}, ie the unmarshalling time</li>
+ * <li>{@link Field#RetryPauseTime}, recorded for each retry</li>
+ * </ul>
+ * Memory is fixed per operation, and collecting the metrics of a request
+ * allocates nothing once its operation has been seen.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * OperationLatencyCollector collector = new OperationLatencyCollector();
+ * collector.registerMBean();
+ * AmazonDynamoDBClient client = new AmazonDynamoDBClient(credentials, config, collector);
+ * </pre>
+ */
+@ThreadSafe
+public class OperationLatencyCollector extends RequestMetricCollector
+        implements OperationLatencyCollectorMBean {
+    /** The latency metrics recorded for each operation. */
+    private static final Field[] LATENCY_METRICS = {
+        Field.ClientExecuteTime,
+        Field.HttpRequestTime,
+        Field.RequestSigningTime,
+        Field.ResponseProcessingTime,
+        Field.RetryPauseTime,
+    };
+
+    private static final String MBEAN_OBJECT_NAME_PREFIX =
+            "com.amazonaws.management:type=" + OperationLatencyCollector.class.getSimpleName() + ",id=";
+    private static final AtomicInteger mbeanCount = new AtomicInteger();
+
+    /** Operation latencies by service name and original request class. */
+    private final ConcurrentMap<String, ConcurrentMap<Class<?>, OperationLatencies>> services =
+            new ConcurrentHashMap<String, ConcurrentMap<Class<?>, OperationLatencies>>();
+    private volatile String mbeanName;
+
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        final AWSRequestMetrics metrics = request.getAWSRequestMetrics();
+        if (metrics == null || !metrics.isEnabled())
+            return;
+        final TimingInfo root = metrics.getTimingInfo();
+        final OperationLatencies latencies = latenciesOf(request);
+        for (int i = 0; i < LATENCY_METRICS.length; i++) {
+            final Field field = LATENCY_METRICS[i];
+            final LatencyHistogram histogram = latencies.histograms[i];
+            if (field == Field.ClientExecuteTime) {
+                // The root timing is more accurate than the sub-measurement
+                if (root.isEndTimeKnown()) {
+                    histogram.recordNanos(root.getStartTimeNano(),
+                            root.getEndTimeNano());
+                    continue;
+                }
+            }
+            final List<TimingInfo> timings = root.getAllSubMeasurements(field.name());
+            if (timings == null)
+                continue;
+            for (int j = 0, n = timings.size(); j < n; j++) {
+                final TimingInfo timing = timings.get(j);
+                if (timing.isEndTimeKnown()) {
+                    histogram.recordNanos(timing.getStartTimeNano(),
+                            timing.getEndTimeNano());
+                }
+            }
+        }
+    }
+
+    private OperationLatencies latenciesOf(Request<?> request) {
+        final String serviceName = request.getServiceName();
+        ConcurrentMap<Class<?>, OperationLatencies> operations = services.get(serviceName);
+        if (operations == null) {
+            operations = new ConcurrentHashMap<Class<?>, OperationLatencies>();
+            ConcurrentMap<Class<?>, OperationLatencies> existing =
+                    services.putIfAbsent(serviceName, operations);
+            if (existing != null)
+                operations = existing;
+        }
+        final AmazonWebServiceRequest original = request.getOriginalRequest();
+        final Class<?> requestClass = original == null
+                ? AmazonWebServiceRequest.class : original.getClass();
+        OperationLatencies latencies = operations.get(requestClass);
+        if (latencies == null) {
+            latencies = new OperationLatencies(serviceName + "/" + operationNameOf(requestClass));
+            OperationLatencies existing = operations.putIfAbsent(requestClass, latencies);
+            if (existing != null)
+                latencies = existing;
+        }
+        return latencies;
+    }
+
+    private static String operationNameOf(Class<?> requestClass) {
+        final String name = requestClass.getSimpleName();
+        return name.endsWith("Request") && name.length() > "Request".length()
+                ? name.substring(0, name.length() - "Request".length())
+                : name;
+    }
+
+    /**
+     * Returns the histogram of the given latency metric of an operation; or
+     * null if no latency has been recorded for that operation, or if the
+     * metric isn't recorded by this collector.
+     *
+     * @param operation
+     *            the operation, in the form "service/operation", eg
+     *            "AmazonDynamoDBv2/GetItem".
+     */
+    public LatencyHistogram getLatencyHistogram(String operation, Field latencyMetric) {
+        for (int i = 0; i < LATENCY_METRICS.length; i++) {
+            if (LATENCY_METRICS[i] == latencyMetric) {
+                OperationLatencies latencies = find(operation);
+                return latencies == null ? null : latencies.histograms[i];
+            }
+        }
+        return null;
+    }
+
+    private OperationLatencies find(String operation) {
+        for (ConcurrentMap<Class<?>, OperationLatencies> operations : services.values()) {
+            for (OperationLatencies latencies : operations.values()) {
+                if (latencies.operation.equals(operation))
+                    return latencies;
+            }
+        }
+        return null;
+    }
+
+    private List<OperationLatencies> allLatencies() {
+        List<OperationLatencies> all = new ArrayList<OperationLatencies>();
+        for (Map<Class<?>, OperationLatencies> operations : services.values())
+            all.addAll(operations.values());
+        return all;
+    }
+
+    @Override
+    public String[] getOperations() {
+        List<String> names = new ArrayList<String>();
+        for (OperationLatencies latencies : allLatencies())
+            names.add(latencies.operation);
+        return names.toArray(new String[names.size()]);
+    }
+
+    @Override
+    public String[] getLatencyMetrics() {
+        String[] names = new String[LATENCY_METRICS.length];
+        for (int i = 0; i < LATENCY_METRICS.length; i++)
+            names[i] = LATENCY_METRICS[i].name();
+        return names;
+    }
+
+    @Override
+    public String[] getLatencySummaries() {
+        List<String> lines = new ArrayList<String>();
+        for (OperationLatencies latencies : allLatencies()) {
+            for (int i = 0; i < LATENCY_METRICS.length; i++) {
+                LatencyHistogram histogram = latencies.histograms[i];
+                if (histogram.getCount() > 0) {
+                    lines.add(latencies.operation + " "
+                            + LATENCY_METRICS[i].name() + ": " + histogram);
+                }
+            }
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    @Override
+    public double getPercentileMillis(String operation, String latencyMetric,
+            double percentile) {
+        Field field;
+        try {
+            field = Field.valueOf(latencyMetric);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        LatencyHistogram histogram = getLatencyHistogram(operation, field);
+        return histogram == null ? -1 : histogram.getPercentileMillis(percentile);
+    }
+
+    @Override
+    public void reset() {
+        for (OperationLatencies latencies : allLatencies()) {
+            for (LatencyHistogram histogram : latencies.histograms)
+                histogram.reset();
+        }
+    }
+
+    /**
+     * Registers this collector as an MBean for JMX access.
+     *
+     * @return true if the registration succeeded; false otherwise.
+     */
+    public boolean registerMBean() {
+        SdkMBeanRegistry registry = SdkMBeanRegistry.Factory.getMBeanRegistry();
+        if (!(registry instanceof SdkGenericMBeanRegistry))
+            return false;
+        String name = MBEAN_OBJECT_NAME_PREFIX + mbeanCount.incrementAndGet();
+        if (((SdkGenericMBeanRegistry) registry).registerMBean(name, this)) {
+            mbeanName = name;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Unregisters this collector from JMX, if registered.
+     */
+    public void unregisterMBean() {
+        String name = mbeanName;
+        if (name != null) {
+            mbeanName = null;
+            SdkMBeanRegistry.Factory.getMBeanRegistry().unregisterMBean(name);
+        }
+    }
+
+    /**
+     * The latency histograms of a single operation, in the order of
+     * {@link OperationLatencyCollector#LATENCY_METRICS}.
+     */
+    private static final class OperationLatencies {
+        private final String operation;
+        private final LatencyHistogram[] histograms = new LatencyHistogram[LATENCY_METRICS.length];
+
+        OperationLatencies(String operation) {
+            this.operation = operation;
+            for (int i = 0; i < histograms.length; i++)
+                histograms[i] = new LatencyHistogram();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * MBean interface for the per operation latency histograms of an
+ * {@link OperationLatencyCollector}.
+ */
+public interface OperationLatencyCollectorMBean {
+    /**
+     * Returns the operations with recorded latencies, each in the form
+     * "service/operation", eg "AmazonDynamoDBv2/GetItem".
+     */
+    public String[] getOperations();
+
+    /**
+     * Returns the names of the latency metrics recorded for each operation.
+     */
+    public String[] getLatencyMetrics();
+
+    /**
+     * Returns one line per operation and latency metric with the count, mean,
+     * 50th, 90th and 99th percentiles and maximum of the latencies recorded.
+     */
+    public String[] getLatencySummaries();
+
+    /**
+     * Returns the estimated latency in milliseconds below which the given
+     * percentage of the latencies of an operation fall; or -1 if the operation
+     * or metric is unknown.
+     *
+     * @param operation
+     *            the operation, in the form "service/operation".
+     * @param latencyMetric
+     *            the latency metric, one of {@link #getLatencyMetrics()}.
+     * @param percentile
+     *            the percentile, between 0 and 100.
+     */
+    public double getPercentileMillis(String operation, String latencyMetric,
+            double percentile);
+
+    /**
+     * Clears the latencies recorded so far.
+     */
+    public void reset();
+}
@@ -79,6 +79,10 @@
  * <li>S3DownloadByteCount - Number of bytes downloaded from S3.</li>
  * <li>S3UploadThroughput - Number of bytes uploaded to S3 per second.</li>
  * <li>S3UploadByteCount - Number of bytes uploaded to S3.</li>
+ * <li>S3DownloadToFileThroughput - Number of bytes per second downloaded from
+ * S3 and written to files.</li>
+ * <li>S3DownloadToFileByteCount - Number of bytes downloaded from S3 and
+ * written to files.</li>
  * </ol>
  * <h3>Machine Metrics</h3>
  * <h4>Memory</h4>
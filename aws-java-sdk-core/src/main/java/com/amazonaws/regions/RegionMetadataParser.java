@@ -19,19 +19,20 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Parses a region metadata file to pull out information about the
  * available regions, names, IDs, and what service endpoints are available
  * in each region.
+ * <p>
+ * The metadata is read with a StAX stream reader rather than into a DOM
+ * document, as it is parsed when the first region is looked up, typically
+ * while the first client is being configured, and the stream reader is
+ * much cheaper to load.
  */
 public class RegionMetadataParser {
 
@@ -44,6 +45,9 @@ public class RegionMetadataParser {
     private static final String HTTPS_TAG = "Https";
     private static final String HOSTNAME_TAG = "Hostname";
 
+    private static final XMLInputFactory XML_INPUT_FACTORY =
+        XMLInputFactory.newInstance();
+
     /**
      * Parses the specified input stream and returns a {@code RegionMetadata}
      * object.
@@ -108,71 +112,105 @@ public class RegionMetadataParser {
             final InputStream input,
             final boolean endpointVerification) throws IOException {
 
-        Document document;
+        XMLStreamReader reader = null;
         try {
 
-            DocumentBuilderFactory factory =
-                DocumentBuilderFactory.newInstance();
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
 
-            DocumentBuilder documentBuilder = factory.newDocumentBuilder();
-            document = documentBuilder.parse(input);
+            List<Region> regions = new ArrayList<Region>();
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && REGION_TAG.equals(reader.getLocalName())) {
+                    regions.add(parseRegionElement(reader, endpointVerification));
+                }
+            }
+            return regions;
 
-        } catch (IOException exception) {
-            throw exception;
-        } catch (Exception exception) {
+        } catch (XMLStreamException exception) {
             throw new IOException("Unable to parse region metadata file: "
                                   + exception.getMessage(),
                                   exception);
         } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException exception) {
+                }
+            }
             try {
                 input.close();
             } catch (IOException exception) {
             }
         }
-        
-        NodeList regionNodes = document.getElementsByTagName(REGION_TAG);
-        List<Region> regions = new ArrayList<Region>();
-        for (int i = 0; i < regionNodes.getLength(); i++) {
-            Node node = regionNodes.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                Element element = (Element)node;
-                regions.add(parseRegionElement(element, endpointVerification));
-            }
-        }
-        
-        return regions;
     }
 
+    /**
+     * Parses the region element the reader is positioned on, leaving the
+     * reader on its end tag.
+     */
     private static Region parseRegionElement(
-            final Element regionElement,
-            final boolean endpointVerification) {
-
-        String name = getChildElementValue(REGION_ID_TAG, regionElement);
-        String domain = getChildElementValue(DOMAIN_TAG, regionElement);
+            final XMLStreamReader reader,
+            final boolean endpointVerification) throws XMLStreamException {
+
+        String name = null;
+        String domain = null;
+        List<String[]> endpoints = new ArrayList<String[]>();
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String tag = reader.getLocalName();
+            if (ENDPOINT_TAG.equals(tag)) {
+                endpoints.add(parseEndpointElement(reader));
+            } else if (REGION_ID_TAG.equals(tag) && name == null) {
+                name = reader.getElementText();
+            } else if (DOMAIN_TAG.equals(tag) && domain == null) {
+                domain = reader.getElementText();
+            } else {
+                skipElement(reader);
+            }
+        }
 
         Region region = new Region(name, domain);
-
-        NodeList endpointNodes =
-            regionElement.getElementsByTagName(ENDPOINT_TAG);
-
-        for (int i = 0; i < endpointNodes.getLength(); i++) {
-            addRegionEndpoint(region,
-                              (Element) endpointNodes.item(i),
-                              endpointVerification);
+        for (String[] endpoint : endpoints) {
+            addRegionEndpoint(region, endpoint, endpointVerification);
         }
-
         return region;
     }
-    
+
+    /**
+     * Parses the endpoint element the reader is positioned on into its
+     * service name, host name, and HTTP and HTTPS support, leaving the reader
+     * on its end tag.
+     */
+    private static String[] parseEndpointElement(final XMLStreamReader reader)
+            throws XMLStreamException {
+
+        String[] endpoint = new String[4];
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String tag = reader.getLocalName();
+            if (SERVICE_TAG.equals(tag)) {
+                endpoint[0] = reader.getElementText();
+            } else if (HOSTNAME_TAG.equals(tag)) {
+                endpoint[1] = reader.getElementText();
+            } else if (HTTP_TAG.equals(tag)) {
+                endpoint[2] = reader.getElementText();
+            } else if (HTTPS_TAG.equals(tag)) {
+                endpoint[3] = reader.getElementText();
+            } else {
+                skipElement(reader);
+            }
+        }
+        return endpoint;
+    }
+
     private static void addRegionEndpoint(
             final Region region,
-            final Element endpointElement,
+            final String[] endpoint,
             final boolean endpointVerification) {
 
-        String serviceName = getChildElementValue(SERVICE_TAG, endpointElement);
-        String hostname = getChildElementValue(HOSTNAME_TAG, endpointElement);
-        String http = getChildElementValue(HTTP_TAG, endpointElement);
-        String https = getChildElementValue(HTTPS_TAG, endpointElement);
+        String serviceName = endpoint[0];
+        String hostname = endpoint[1];
+        String http = endpoint[2];
+        String https = endpoint[3];
 
         if ( endpointVerification && !verifyLegacyEndpoint(hostname) ) {
             throw new IllegalStateException("Invalid service endpoint ("
@@ -184,17 +222,22 @@ public class RegionMetadataParser {
         region.getHttpsSupport().put(serviceName, "true".equals(https));
     }
 
-    private static String getChildElementValue(
-            final String tagName,
-            final Element element) {
-
-        Node tagNode = element.getElementsByTagName(tagName).item(0);
-        if ( tagNode == null )
-            return null;
-        NodeList nodes= tagNode.getChildNodes();
-        Node node = (Node)nodes.item(0); 
-     
-        return node.getNodeValue();    
+    /**
+     * Skips the element the reader is positioned on, along with its content,
+     * leaving the reader on its end tag.
+     */
+    private static void skipElement(final XMLStreamReader reader)
+            throws XMLStreamException {
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
     }
 
     /**
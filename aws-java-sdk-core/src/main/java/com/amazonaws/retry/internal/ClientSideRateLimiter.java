@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * Limits the rate at which a client sends requests once the service has
+ * started throttling it, so that all the threads of the client slow down
+ * together rather than each one retrying on its own.
+ * <p>
+ * The limiter does nothing until the first throttling error. From then on
+ * every request must take a token from a bucket filled at the allowed sending
+ * rate, waiting as necessary. The allowed rate follows the CUBIC congestion
+ * control algorithm: on each throttling error it drops to {@value #BETA} times
+ * the rate at which requests were being sent, and on each success it grows
+ * back along a cubic curve, slowly around the rate at which throttling last
+ * happened and faster away from it, but never beyond twice the measured
+ * sending rate.
+ * <p>
+ * For internal use only.
+ */
+@ThreadSafe
+public class ClientSideRateLimiter {
+    /** The fraction of the sending rate kept on throttling. */
+    static final double BETA = 0.7;
+    /** Scales the growth of the allowed rate after throttling. */
+    static final double SCALE_CONSTANT = 0.4;
+    /** Weight of the latest measurement in the measured sending rate. */
+    static final double SMOOTH = 0.8;
+    static final double MIN_FILL_RATE = 0.5;
+    static final double MIN_CAPACITY = 1;
+    /** The sending rate is measured over buckets of half a second. */
+    private static final double MEASUREMENT_BUCKET_SECONDS = 0.5;
+
+    private final Clock clock;
+
+    private boolean enabled;
+    private double fillRate;
+    private double maxCapacity;
+    private double currentCapacity;
+    private double lastRefillSeconds = -1;
+
+    private double measuredTxRate;
+    private double lastTxRateBucket;
+    private long requestCount;
+
+    private double lastMaxRate;
+    private double lastThrottleSeconds;
+    private double timeWindow;
+
+    /** Total time in nanoseconds spent waiting for tokens. */
+    private long totalDelayNanos;
+
+    public ClientSideRateLimiter() {
+        this(Clock.SYSTEM);
+    }
+
+    ClientSideRateLimiter(Clock clock) {
+        this.clock = clock;
+        this.lastTxRateBucket = Math.floor(clock.seconds());
+        this.lastThrottleSeconds = clock.seconds();
+    }
+
+    /**
+     * Takes a token to send a request, blocking until one is available if the
+     * service has been throttling this client.
+     *
+     * @return the time spent waiting in milliseconds.
+     */
+    public long acquire() throws InterruptedException {
+        final long delayMillis = reserve();
+        if (delayMillis > 0)
+            Thread.sleep(delayMillis);
+        return delayMillis;
+    }
+
+    /**
+     * Takes a token, possibly ahead of its availability, and returns how long
+     * in milliseconds the caller must wait before sending its request.
+     */
+    synchronized long reserve() {
+        if (!enabled)
+            return 0;
+        refill();
+        currentCapacity -= 1;
+        if (currentCapacity >= 0)
+            return 0;
+        final long delayMillis = (long) Math.ceil(-currentCapacity / fillRate * 1000);
+        totalDelayNanos += delayMillis * 1000000L;
+        return delayMillis;
+    }
+
+    /**
+     * Updates the allowed sending rate with the outcome of a request.
+     *
+     * @param throttled
+     *            true if the service rejected the request with a throttling
+     *            error; false if it accepted the request.
+     */
+    public synchronized void update(boolean throttled) {
+        updateMeasuredRate();
+        final double now = clock.seconds();
+        double calculatedRate;
+        if (throttled) {
+            final double rateToUse = enabled
+                    ? Math.min(measuredTxRate, fillRate)
+                    : measuredTxRate;
+            lastMaxRate = rateToUse;
+            timeWindow = Math.cbrt(lastMaxRate * (1 - BETA) / SCALE_CONSTANT);
+            lastThrottleSeconds = now;
+            calculatedRate = rateToUse * BETA;
+            enabled = true;
+        } else {
+            if (!enabled)
+                return;
+            final double t = now - lastThrottleSeconds - timeWindow;
+            calculatedRate = SCALE_CONSTANT * t * t * t + lastMaxRate;
+        }
+        setRate(Math.min(calculatedRate, 2 * measuredTxRate));
+    }
+
+    private void refill() {
+        final double now = clock.seconds();
+        if (lastRefillSeconds >= 0) {
+            currentCapacity = Math.min(maxCapacity,
+                    currentCapacity + (now - lastRefillSeconds) * fillRate);
+        }
+        lastRefillSeconds = now;
+    }
+
+    private void setRate(double rate) {
+        refill();
+        fillRate = Math.max(rate, MIN_FILL_RATE);
+        maxCapacity = Math.max(rate, MIN_CAPACITY);
+        currentCapacity = Math.min(currentCapacity, maxCapacity);
+    }
+
+    private void updateMeasuredRate() {
+        final double now = clock.seconds();
+        final double bucket = Math.floor(now / MEASUREMENT_BUCKET_SECONDS)
+                * MEASUREMENT_BUCKET_SECONDS;
+        requestCount++;
+        if (bucket > lastTxRateBucket) {
+            final double currentRate = requestCount / (bucket - lastTxRateBucket);
+            measuredTxRate = currentRate * SMOOTH + measuredTxRate * (1 - SMOOTH);
+            requestCount = 0;
+            lastTxRateBucket = bucket;
+        }
+    }
+
+    /** Returns true if requests are currently being rate limited. */
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Returns the allowed sending rate in requests per second. */
+    public synchronized double getFillRate() {
+        return fillRate;
+    }
+
+    /** Returns the measured sending rate in requests per second. */
+    public synchronized double getMeasuredSendingRate() {
+        return measuredTxRate;
+    }
+
+    /** Returns the total time in milliseconds requests have waited for tokens. */
+    public synchronized long getTotalDelayMillis() {
+        return totalDelayNanos / 1000000L;
+    }
+
+    /** The source of time, in seconds, replaced in unit tests. */
+    static class Clock {
+        static final Clock SYSTEM = new Clock();
+
+        double seconds() {
+            return System.nanoTime() / 1e9;
+        }
+    }
+}
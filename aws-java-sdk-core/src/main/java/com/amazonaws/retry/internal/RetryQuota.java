@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+/**
+ * A token bucket shared by all the requests of a client that every retry must
+ * draw from, so that a client stops retrying when most of its requests fail
+ * instead of multiplying its load on a service that is already struggling.
+ * <p>
+ * Each retry costs {@link #RETRY_COST} tokens, or {@link #TIMEOUT_RETRY_COST}
+ * after a timeout. A request that succeeds gives back the tokens drawn by its
+ * retries, or a single token if it needed none, up to the capacity of the
+ * bucket. A retry is denied if not enough tokens are left.
+ * <p>
+ * For internal use only.
+ */
+@ThreadSafe
+public class RetryQuota {
+    public static final int DEFAULT_CAPACITY = 500;
+    public static final int RETRY_COST = 5;
+    public static final int TIMEOUT_RETRY_COST = 10;
+    public static final int NO_RETRY_INCREMENT = 1;
+
+    private final int capacity;
+    private final AtomicInteger available;
+
+    public RetryQuota() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RetryQuota(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.available = new AtomicInteger(capacity);
+    }
+
+    /**
+     * Draws the tokens needed to retry after the given failure.
+     *
+     * @return the number of tokens drawn, to be given back with
+     *         {@link #release(int)} if the request eventually succeeds; or 0
+     *         if the retry is denied.
+     */
+    public int acquire(AmazonClientException exception) {
+        final int cost = isTimeout(exception) ? TIMEOUT_RETRY_COST : RETRY_COST;
+        for (;;) {
+            final int current = available.get();
+            if (current < cost)
+                return 0;
+            if (available.compareAndSet(current, current - cost))
+                return cost;
+        }
+    }
+
+    /**
+     * Gives back tokens on the success of a request.
+     *
+     * @param acquired
+     *            the total number of tokens drawn by the retries of the
+     *            request; or 0 if it succeeded on its first attempt.
+     */
+    public void release(int acquired) {
+        final int refund = acquired > 0 ? acquired : NO_RETRY_INCREMENT;
+        for (;;) {
+            final int current = available.get();
+            if (current >= capacity)
+                return;
+            if (available.compareAndSet(current, Math.min(capacity, current + refund)))
+                return;
+        }
+    }
+
+    /** Returns the number of tokens currently available. */
+    public int getAvailableCapacity() {
+        return available.get();
+    }
+
+    /** Returns the maximum number of tokens of this quota. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static boolean isTimeout(AmazonClientException exception) {
+        if (exception instanceof AmazonServiceException)
+            return false;
+        for (Throwable t = exception.getCause(); t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException
+                    || t instanceof org.apache.http.conn.ConnectTimeoutException)
+                return true;
+        }
+        return false;
+    }
+}
@@ -14,6 +14,7 @@
  */
 package com.amazonaws.transform;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,10 +22,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 /**
@@ -34,14 +43,64 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * A context created over an {@link XMLStreamReader} walks the document with
+ * the StAX cursor API, without an event object per XML event: the events
+ * returned by {@link #nextEvent()} are shared views of the current position,
+ * one per event type, while its name and text are available through
+ * {@link #testExpression(String, int)} and {@link #readText()}. The full
+ * event is only built if asked for through {@link #getCurrentEvent()}.
  */
 public class StaxUnmarshallerContext {
 
     private XMLEvent currentEvent;
     private final XMLEventReader eventReader;
 
+    private final XMLStreamReader streamReader;
+
+    /**
+     * True if the current event of the stream reader hasn't been returned by
+     * nextEvent yet, i.e. at the start of the document and after readText.
+     */
+    private boolean streamEventPending = true;
+
+    /** Type of the event last returned by nextEvent from the stream reader. */
+    private int streamEventType = -1;
+
+    /**
+     * True while the stream reader is at the event last returned by
+     * nextEvent, i.e. until readText moves past its element.
+     */
+    private boolean streamEventCurrent;
+
+    /** The full event built for the current position, if asked for. */
+    private XMLEvent builtStreamEvent;
+
+    /** The events returned by nextEvent, by type; created on first use. */
+    private CursorEvent[] cursorEvents;
+
+    /** Index of the current attribute of the stream reader, or -1. */
+    private int attributeIndex = -1;
+
+    /** Number of attributes of the current start element of the stream reader. */
+    private int attributeCount;
+
+    /** Keys under which to store the text of the current start element. */
+    private final List<String> pendingMetadataKeys = new ArrayList<String>(2);
+
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /**
+     * The path of the current position, e.g. "/a/b" or "/a/b/@c", built
+     * incrementally rather than from the stack on every event.
+     */
+    private final StringBuilder path = new StringBuilder(128);
+
+    /** Length of the path of the current element, without any attribute. */
+    private int elementPathLength;
+
+    /** Length of the path of each element on the stack, below its own name. */
+    private int[] parentPathLengths = new int[16];
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
@@ -71,6 +130,24 @@ public class StaxUnmarshallerContext {
      */
     public StaxUnmarshallerContext(XMLEventReader eventReader, Map<String, String> headers) {
         this.eventReader = eventReader;
+        this.streamReader = null;
+        this.headers = headers;
+    }
+
+    /**
+     * Constructs a new unmarshaller context reading the specified XML stream
+     * with the StAX cursor API, and a set of response headers.
+     *
+     * @param streamReader
+     *            The XML stream for this unmarshalling context, positioned at
+     *            the start of the document.
+     * @param headers
+     *            The set of response headers associated with this unmarshaller
+     *            context.
+     */
+    public StaxUnmarshallerContext(XMLStreamReader streamReader, Map<String, String> headers) {
+        this.eventReader = null;
+        this.streamReader = streamReader;
         this.headers = headers;
     }
 
@@ -97,6 +174,8 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public String readText() throws XMLStreamException {
+        if (streamReader != null) return readStreamText();
+
         if (currentEvent.isAttribute()) {
             Attribute attribute = (Attribute)currentEvent;
             return attribute.getValue();
@@ -138,7 +217,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+        return pathEndsWith(expression, false);
     }
 
     /**
@@ -168,7 +247,7 @@ public class StaxUnmarshallerContext {
 
 
         return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+                && pathEndsWith(expression, true));
     }
 
     /**
@@ -180,17 +259,31 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
+        if (streamReader != null) {
+            return streamEventPending
+                    && streamReader.getEventType() == XMLStreamConstants.START_DOCUMENT;
+        }
         return eventReader.peek().isStartDocument();
     }
 
     /**
      * Returns the next XML event for the document being parsed.
+     * <p>
+     * When reading from an {@link XMLStreamReader}, the returned event is a
+     * view shared by all the events of its type, so no object is allocated
+     * per event. The methods testing its type, such as
+     * {@link XMLEvent#isStartElement()}, are always available. The others
+     * return the details of the current position as built by
+     * {@link #getCurrentEvent()}, and so must be called before the next call
+     * to this method or to {@link #readText()}.
      *
      * @return The next XML event for the document being parsed.
      *
      * @throws XMLStreamException
      */
     public XMLEvent nextEvent() throws XMLStreamException {
+        if (streamReader != null) return nextStreamEvent();
+
         if (attributeIterator != null && attributeIterator.hasNext()) {
             currentEvent = (XMLEvent)attributeIterator.next();
         } else {
@@ -217,6 +310,35 @@ public class StaxUnmarshallerContext {
         return currentEvent;
     }
 
+    /**
+     * Returns the current XML event, i.e. the event last returned by
+     * {@link #nextEvent()}, with all its details such as its name, attributes,
+     * text and location.
+     * <p>
+     * When reading from an {@link XMLStreamReader}, the event is built from
+     * the stream reader on the first call for a position, and is only
+     * available until {@link #readText()} reads the text of an element.
+     *
+     * @return The current XML event, or null if none has been read yet.
+     *
+     * @throws IllegalStateException
+     *             if reading from an {@link XMLStreamReader} and the text of
+     *             the current element has been read.
+     * @throws XMLStreamException
+     */
+    public XMLEvent getCurrentEvent() throws XMLStreamException {
+        if (streamReader == null) return currentEvent;
+        if (streamEventType < 0) return null;
+        if (!streamEventCurrent) {
+            throw new IllegalStateException("The stream reader has moved past the"
+                    + " current event to read its text");
+        }
+        if (builtStreamEvent == null) {
+            builtStreamEvent = allocateEvent(streamEventType);
+        }
+        return builtStreamEvent;
+    }
+
     /**
      * Returns any metadata collected through metadata expressions while this
      * context was reading the XML events from the XML document.
@@ -267,26 +389,358 @@ public class StaxUnmarshallerContext {
         }
     }
 
+    private XMLEvent nextStreamEvent() throws XMLStreamException {
+        builtStreamEvent = null;
+        streamEventCurrent = true;
+        if (attributeIndex + 1 < attributeCount) {
+            attributeIndex++;
+            setAttributePath(streamReader.getAttributeLocalName(attributeIndex));
+            return cursorEvent(XMLStreamConstants.ATTRIBUTE);
+        }
+
+        final int type;
+        if (streamEventPending) {
+            streamEventPending = false;
+            type = streamReader.getEventType();
+        } else {
+            type = advanceStream();
+        }
+        attributeIndex = -1;
+        attributeCount = 0;
+
+        if (type == XMLStreamConstants.START_ELEMENT) {
+            pushElement(streamReader.getLocalName());
+            attributeCount = streamReader.getAttributeCount();
+            for (MetadataExpression metadataExpression : metadataExpressions) {
+                if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
+                    pendingMetadataKeys.add(metadataExpression.key);
+                }
+            }
+        } else if (type == XMLStreamConstants.END_ELEMENT) {
+            popElement();
+        } else {
+            clearAttributePath();
+        }
+        return cursorEvent(type);
+    }
+
+    /**
+     * Returns the shared event of the given type, making it the type of the
+     * current event.
+     */
+    private XMLEvent cursorEvent(int type) {
+        streamEventType = type;
+        if (cursorEvents == null) {
+            cursorEvents = new CursorEvent[XMLStreamConstants.ENTITY_DECLARATION + 1];
+        }
+        if (type < 0 || type >= cursorEvents.length) return new CursorEvent(type);
+        CursorEvent event = cursorEvents[type];
+        if (event == null) {
+            event = type == XMLStreamConstants.ATTRIBUTE
+                    ? new CursorAttribute() : new CursorEvent(type);
+            cursorEvents[type] = event;
+        }
+        return event;
+    }
+
+    /**
+     * Reads the text of the current attribute or element of the stream reader,
+     * leaving the end of the element to be returned by the next call to
+     * nextEvent.
+     */
+    private String readStreamText() throws XMLStreamException {
+        if (attributeIndex >= 0) {
+            return streamReader.getAttributeValue(attributeIndex);
+        }
+
+        builtStreamEvent = null;
+        streamEventCurrent = false;
+        int type = streamEventPending ? streamReader.getEventType() : advanceStream();
+        streamEventPending = true;
+        attributeCount = 0;
+        String text = null;
+        StringBuilder sb = null;
+        while (true) {
+            if (type == XMLStreamConstants.CHARACTERS
+                    || type == XMLStreamConstants.CDATA
+                    || type == XMLStreamConstants.SPACE) {
+                // Most values come in a single chunk; only join the others
+                if (text == null) {
+                    text = streamReader.getText();
+                } else {
+                    if (sb == null) sb = new StringBuilder(text);
+                    sb.append(streamReader.getTextCharacters(),
+                            streamReader.getTextStart(),
+                            streamReader.getTextLength());
+                }
+            } else if (type == XMLStreamConstants.END_ELEMENT) {
+                if (sb != null) return sb.toString();
+                return text == null ? "" : text;
+            } else {
+                throw new RuntimeException("Encountered unexpected event: " + type);
+            }
+            type = advanceStream();
+        }
+    }
+
+    /**
+     * Moves the stream reader to its next event, storing the text following a
+     * start element that matched a metadata expression.
+     */
+    private int advanceStream() throws XMLStreamException {
+        final int type = streamReader.next();
+        if (!pendingMetadataKeys.isEmpty()) {
+            if (type == XMLStreamConstants.CHARACTERS) {
+                final String text = streamReader.getText();
+                for (String key : pendingMetadataKeys) {
+                    metadata.put(key, text);
+                }
+            }
+            pendingMetadataKeys.clear();
+        }
+        return type;
+    }
+
     private void updateContext(XMLEvent event) {
         if (event == null) return;
 
         if (event.isEndElement()) {
-            stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
-            }
+            popElement();
         } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
+            pushElement(event.asStartElement().getName().getLocalPart());
         } else if (event.isAttribute()) {
             Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+            setAttributePath(attribute.getName().getLocalPart());
+        }
+    }
+
+    private void pushElement(String localName) {
+        path.setLength(elementPathLength);
+        final int depth = stack.size();
+        if (depth == parentPathLengths.length) {
+            int[] grown = new int[depth * 2];
+            System.arraycopy(parentPathLengths, 0, grown, 0, depth);
+            parentPathLengths = grown;
+        }
+        parentPathLengths[depth] = elementPathLength;
+        stack.push(localName);
+        path.append('/').append(localName);
+        elementPathLength = path.length();
+    }
+
+    private void popElement() {
+        stack.pop();
+        elementPathLength = parentPathLengths[stack.size()];
+        path.setLength(elementPathLength);
+    }
+
+    private void setAttributePath(String localName) {
+        path.setLength(elementPathLength);
+        path.append("/@").append(localName);
+    }
+
+    private void clearAttributePath() {
+        path.setLength(elementPathLength);
+    }
+
+    /**
+     * Returns true if the path of the current position ends with the given
+     * expression, preceded by a slash if requested.
+     */
+    private boolean pathEndsWith(String expression, boolean afterSlash) {
+        final int length = expression.length();
+        int offset = path.length() - length;
+        if (afterSlash && (offset < 1 || path.charAt(offset - 1) != '/')) return false;
+        if (offset < 0) return false;
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(offset + i) != expression.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a real event for the current position of the stream reader.
+     */
+    private XMLEvent allocateEvent(int type) throws XMLStreamException {
+        final XMLEventFactory factory = EventFactoryHolder.FACTORY;
+        synchronized (factory) {
+            factory.setLocation(new FixedLocation(streamReader.getLocation()));
+            switch (type) {
+            case XMLStreamConstants.START_ELEMENT:
+                return factory.createStartElement(streamReader.getPrefix(),
+                        streamReader.getNamespaceURI(), streamReader.getLocalName(),
+                        attributes(factory).iterator(), namespaces(factory).iterator());
+            case XMLStreamConstants.END_ELEMENT:
+                return factory.createEndElement(streamReader.getPrefix(),
+                        streamReader.getNamespaceURI(), streamReader.getLocalName(),
+                        namespaces(factory).iterator());
+            case XMLStreamConstants.ATTRIBUTE:
+                return attribute(factory, attributeIndex);
+            case XMLStreamConstants.CHARACTERS:
+                return factory.createCharacters(streamReader.getText());
+            case XMLStreamConstants.CDATA:
+                return factory.createCData(streamReader.getText());
+            case XMLStreamConstants.SPACE:
+                return factory.createSpace(streamReader.getText());
+            case XMLStreamConstants.COMMENT:
+                return factory.createComment(streamReader.getText());
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                return factory.createProcessingInstruction(
+                        streamReader.getPITarget(), streamReader.getPIData());
+            case XMLStreamConstants.DTD:
+                return factory.createDTD(streamReader.getText());
+            case XMLStreamConstants.START_DOCUMENT:
+                return factory.createStartDocument(
+                        streamReader.getCharacterEncodingScheme() == null
+                                ? "UTF-8" : streamReader.getCharacterEncodingScheme(),
+                        streamReader.getVersion() == null ? "1.0" : streamReader.getVersion(),
+                        streamReader.isStandalone());
+            case XMLStreamConstants.END_DOCUMENT:
+                return factory.createEndDocument();
+            default:
+                throw new XMLStreamException("Unsupported event type: " + type);
             }
-            stackString += "/@" + attribute.getName().getLocalPart();
         }
     }
 
+    private Attribute attribute(XMLEventFactory factory, int index) {
+        return factory.createAttribute(
+                nullToEmpty(streamReader.getAttributePrefix(index)),
+                nullToEmpty(streamReader.getAttributeNamespace(index)),
+                streamReader.getAttributeLocalName(index),
+                streamReader.getAttributeValue(index));
+    }
+
+    private List<Attribute> attributes(XMLEventFactory factory) {
+        final int count = streamReader.getAttributeCount();
+        List<Attribute> attributes = new ArrayList<Attribute>(count);
+        for (int i = 0; i < count; i++) {
+            attributes.add(attribute(factory, i));
+        }
+        return attributes;
+    }
+
+    private List<Namespace> namespaces(XMLEventFactory factory) {
+        final int count = streamReader.getNamespaceCount();
+        List<Namespace> namespaces = new ArrayList<Namespace>(count);
+        for (int i = 0; i < count; i++) {
+            String prefix = streamReader.getNamespacePrefix(i);
+            namespaces.add(prefix == null
+                    ? factory.createNamespace(streamReader.getNamespaceURI(i))
+                    : factory.createNamespace(prefix, streamReader.getNamespaceURI(i)));
+        }
+        return namespaces;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * Holds the factory of the events built on demand from a stream reader.
+     */
+    private static class EventFactoryHolder {
+        static final XMLEventFactory FACTORY = XMLEventFactory.newInstance();
+    }
+
+    /**
+     * Event returned when reading from a stream reader, shared by all the
+     * events of its type. Only its type is held: the other methods return the
+     * details of the current event of the context, which must be of the same
+     * type.
+     */
+    private class CursorEvent implements XMLEvent {
+        private final int type;
+
+        CursorEvent(int type) {
+            this.type = type;
+        }
+
+        XMLEvent event() {
+            if (streamEventType != type) {
+                throw new IllegalStateException("The event is no longer the current event");
+            }
+            try {
+                return getCurrentEvent();
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public int getEventType() { return type; }
+        public boolean isStartElement() { return type == XMLStreamConstants.START_ELEMENT; }
+        public boolean isAttribute() { return type == XMLStreamConstants.ATTRIBUTE; }
+        public boolean isNamespace() { return type == XMLStreamConstants.NAMESPACE; }
+        public boolean isEndElement() { return type == XMLStreamConstants.END_ELEMENT; }
+        public boolean isEntityReference() { return type == XMLStreamConstants.ENTITY_REFERENCE; }
+        public boolean isProcessingInstruction() { return type == XMLStreamConstants.PROCESSING_INSTRUCTION; }
+        public boolean isStartDocument() { return type == XMLStreamConstants.START_DOCUMENT; }
+        public boolean isEndDocument() { return type == XMLStreamConstants.END_DOCUMENT; }
+
+        public boolean isCharacters() {
+            return type == XMLStreamConstants.CHARACTERS
+                    || type == XMLStreamConstants.CDATA
+                    || type == XMLStreamConstants.SPACE;
+        }
+
+        public Location getLocation() { return event().getLocation(); }
+        public QName getSchemaType() { return event().getSchemaType(); }
+        public StartElement asStartElement() { return event().asStartElement(); }
+        public EndElement asEndElement() { return event().asEndElement(); }
+        public Characters asCharacters() { return event().asCharacters(); }
+
+        public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException {
+            event().writeAsEncodedUnicode(writer);
+        }
+
+        @Override
+        public String toString() {
+            return "XMLEvent[type=" + type + "]";
+        }
+    }
+
+    /**
+     * Attribute event returned when reading from a stream reader, so that it
+     * can be read as an {@link Attribute} like the events of an event reader.
+     */
+    private final class CursorAttribute extends CursorEvent implements Attribute {
+        CursorAttribute() {
+            super(XMLStreamConstants.ATTRIBUTE);
+        }
+
+        private Attribute attribute() {
+            return (Attribute) event();
+        }
+
+        public QName getName() { return attribute().getName(); }
+        public String getValue() { return attribute().getValue(); }
+        public String getDTDType() { return attribute().getDTDType(); }
+        public boolean isSpecified() { return attribute().isSpecified(); }
+    }
+
+    /**
+     * Copy of the location of the stream reader, which moves along with it.
+     */
+    private static final class FixedLocation implements Location {
+        private final int lineNumber;
+        private final int columnNumber;
+        private final int characterOffset;
+        private final String publicId;
+        private final String systemId;
+
+        FixedLocation(Location location) {
+            this.lineNumber = location.getLineNumber();
+            this.columnNumber = location.getColumnNumber();
+            this.characterOffset = location.getCharacterOffset();
+            this.publicId = location.getPublicId();
+            this.systemId = location.getSystemId();
+        }
+
+        public int getLineNumber() { return lineNumber; }
+        public int getColumnNumber() { return columnNumber; }
+        public int getCharacterOffset() { return characterOffset; }
+        public String getPublicId() { return publicId; }
+        public String getSystemId() { return systemId; }
+    }
+
 }
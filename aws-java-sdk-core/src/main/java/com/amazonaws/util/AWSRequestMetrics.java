@@ -130,7 +130,44 @@ public class AWSRequestMetrics {
          * /apidocs/org/apache/http/pool/PoolStats.html
          */
         HttpClientPoolPendingCount,
+        /**
+         * The number of idle persistent connections of the route (i.e.
+         * endpoint) the request has been sent through.
+         */
+        HttpClientPoolRouteAvailableCount,
+        /**
+         * The number of connections of the route the request has been sent
+         * through that are currently being used to execute requests.
+         */
+        HttpClientPoolRouteLeasedCount,
+        /**
+         * The number of connection requests of the route the request has been
+         * sent through being blocked awaiting a free connection.
+         */
+        HttpClientPoolRoutePendingCount,
+        /**
+         * The maximum number of connections of the route the request has been
+         * sent through, which may vary if the client uses an adaptive
+         * connection pool.
+         */
+        HttpClientPoolRouteMaxCount,
         RetryPauseTime,
+        /**
+         * The number of tokens left in the retry quota of the client, if the
+         * client uses adaptive retry.
+         */
+        RetryQuotaAvailableCapacity,
+        /**
+         * The number of retries denied as the retry quota of the client was
+         * exhausted.
+         */
+        RetryQuotaExceeded,
+        /**
+         * The time spent waiting for the client side rate limiter before
+         * sending the request, if the client uses adaptive retry and has been
+         * throttled.
+         */
+        RateLimiterDelayTime,
 //      S3DownloadThroughput, // migrated to S3RequestMetric in the S3 clint library
 //      S3UploadThroughput,   // migrated to S3RequestMetric in the S3 clint library
         ServiceEndpoint,
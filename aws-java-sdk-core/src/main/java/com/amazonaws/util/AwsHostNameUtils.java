@@ -16,6 +16,8 @@ package com.amazonaws.util;
 
 import java.net.InetAddress;
 import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,6 +36,10 @@ public class AwsHostNameUtils {
     private static final Pattern EXTENDED_CLOUDSEARCH_ENDPOINT_PATTERN =
         Pattern.compile("^(?:.+\\.)?([a-z0-9-]+)\\.cloudsearch\\..+");
 
+    /** The patterns matching the regions in the endpoints of each service. */
+    private static final ConcurrentMap<String, Pattern> SERVICE_REGION_PATTERNS =
+        new ConcurrentHashMap<String, Pattern>();
+
     /**
      * @deprecated in favor of {@link #parseRegionName(String, String)}.
      */
@@ -82,11 +88,15 @@ public class AwsHostNameUtils {
 
             // If we have a service hint, look for 'service.[region]' or
             // 'service-[region]' in the endpoint's hostname.
-            Pattern pattern = Pattern.compile(
-                "^(?:.+\\.)?"
-                + Pattern.quote(serviceHint)
-                + "[.-]([a-z0-9-]+)\\."
-            );
+            Pattern pattern = SERVICE_REGION_PATTERNS.get(serviceHint);
+            if (pattern == null) {
+                pattern = Pattern.compile(
+                    "^(?:.+\\.)?"
+                    + Pattern.quote(serviceHint)
+                    + "[.-]([a-z0-9-]+)\\."
+                );
+                SERVICE_REGION_PATTERNS.putIfAbsent(serviceHint, pattern);
+            }
 
             Matcher matcher = pattern.matcher(host);
             if (matcher.find()) {
@@ -150,8 +160,7 @@ public class AwsHostNameUtils {
         InternalConfig internConfig = InternalConfig.Factory.getInternalConfig();
 
         for (HostRegexToRegionMapping mapping : internConfig.getHostRegexToRegionMappings()) {
-            String hostNameRegex = mapping.getHostNameRegex();
-            if (host.matches(hostNameRegex)) {
+            if (mapping.matches(host)) {
                 return mapping.getRegionName();
             }
         }
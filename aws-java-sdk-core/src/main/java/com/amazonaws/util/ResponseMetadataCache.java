@@ -14,8 +14,8 @@
  */
 package com.amazonaws.util;
 
-import java.util.LinkedHashMap;
-import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.amazonaws.ResponseMetadata;
 
@@ -23,10 +23,18 @@ import com.amazonaws.ResponseMetadata;
  * Cache of response metadata for recently executed requests for diagnostic
  * purposes. This cache has a max size and as entries are added, the oldest
  * entry is aged out once the max size has been reached.
+ * <p>
+ * Every request executed by a client adds an entry, so the cache is a ring
+ * of slots that threads claim with an atomic counter rather than a map
+ * guarded by a lock, which would make all the threads sharing a client take
+ * turns. A cache of size 0 stores nothing.
  */
 public class ResponseMetadataCache {
-    private final InternalCache internalCache;
+    /** The slots of the cache, overwritten oldest first. */
+    private final AtomicReferenceArray<Entry> entries;
 
+    /** The number of entries ever added, which selects the next slot. */
+    private final AtomicLong added = new AtomicLong();
 
     /**
      * Creates a new cache that will contain, at most the specified number of
@@ -36,7 +44,7 @@ public class ResponseMetadataCache {
      *            The maximum size of this cache.
      */
     public ResponseMetadataCache(int maxEntries) {
-        internalCache = new InternalCache(maxEntries);
+        entries = new AtomicReferenceArray<Entry>(Math.max(maxEntries, 0));
     }
 
     /**
@@ -48,9 +56,10 @@ public class ResponseMetadataCache {
      * @param metadata
      *            The metadata for this entry.
      */
-    public synchronized void add(Object obj, ResponseMetadata metadata) {
-        if (obj == null) return;
-        internalCache.put(System.identityHashCode(obj), metadata);
+    public void add(Object obj, ResponseMetadata metadata) {
+        if (obj == null || entries.length() == 0) return;
+        final int slot = (int) (added.getAndIncrement() % entries.length());
+        entries.set(slot, new Entry(System.identityHashCode(obj), metadata));
     }
 
     /**
@@ -68,26 +77,27 @@ public class ResponseMetadataCache {
         // on all platforms, but should be reasonable enough to use
         // for a few requests at a time.  We can always easily move
         // to our own unique IDs if needed.
-        return internalCache.get(System.identityHashCode(obj));
+        final int length = entries.length();
+        if (length == 0) return null;
+        final int key = System.identityHashCode(obj);
+        // Scans from the newest entry so that the latest metadata of a
+        // request executed several times is returned
+        final long newest = added.get() - 1;
+        for (int i = 0; i < length && newest - i >= 0; i++) {
+            final Entry entry = entries.get((int) ((newest - i) % length));
+            if (entry != null && entry.key == key) return entry.metadata;
+        }
+        return null;
     }
 
+    /** The metadata of a request, keyed by the identity hash of the request. */
+    private static final class Entry {
+        private final int key;
+        private final ResponseMetadata metadata;
 
-    /**
-     * Simple implementation of LinkedHashMap that overrides the
-     * <code>removeEldestEntry</code> method to turn LinkedHashMap into a
-     * LRU(ish) cache that automatically evicts old entries.
-     */
-    private static final class InternalCache extends LinkedHashMap<Integer, ResponseMetadata> {
-        private int maxSize;
-
-        public InternalCache(int maxSize) {
-            super(maxSize);
-            this.maxSize = maxSize;
-        }
-
-        @Override
-        protected boolean removeEldestEntry(Entry eldest) {
-            return size() > maxSize;
+        Entry(int key, ResponseMetadata metadata) {
+            this.key = key;
+            this.metadata = metadata;
         }
     }
 }
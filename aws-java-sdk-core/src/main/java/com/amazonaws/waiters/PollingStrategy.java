@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+
+import java.util.Random;
+
+/**
+ * How often and how many times a {@link Waiter} polls a resource.
+ */
+public final class PollingStrategy {
+
+    private static final Random RANDOM = new Random();
+
+    private final int maxAttempts;
+    private final long delayMillis;
+    private final long maxDelayMillis;
+
+    private PollingStrategy(int maxAttempts, long delayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        if (delayMillis < 0 || maxDelayMillis < delayMillis) {
+            throw new IllegalArgumentException("Invalid delay");
+        }
+        this.maxAttempts = maxAttempts;
+        this.delayMillis = delayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Returns a strategy that polls up to the given number of times, waiting
+     * the given delay between two polls.
+     */
+    public static PollingStrategy fixedDelay(int maxAttempts, long delayMillis) {
+        return new PollingStrategy(maxAttempts, delayMillis, delayMillis);
+    }
+
+    /**
+     * Returns a strategy that polls up to the given number of times, doubling
+     * the delay between two polls from the given base delay up to the given
+     * maximum delay. Each delay is randomly reduced by up to half, so that
+     * waits started together don't keep polling together.
+     */
+    public static PollingStrategy exponentialBackoff(int maxAttempts,
+            long baseDelayMillis, long maxDelayMillis) {
+        return new PollingStrategy(maxAttempts, baseDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * Returns the maximum number of times the resource is polled.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the delay in milliseconds to wait after the given attempt,
+     * counted from 1, before polling again.
+     */
+    public long getDelayMillis(int attempt) {
+        if (delayMillis == maxDelayMillis) {
+            return delayMillis;
+        }
+        long delay = delayMillis << Math.min(attempt - 1, 30);
+        if (delay <= 0 || delay > maxDelayMillis) {
+            delay = maxDelayMillis;
+        }
+        return delay / 2 + (long) (RANDOM.nextDouble() * (delay - delay / 2));
+    }
+}
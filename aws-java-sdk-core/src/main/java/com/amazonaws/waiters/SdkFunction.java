@@ -0,0 +1,32 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+
+/**
+ * The service call a {@link Waiter} makes to poll a resource, eg
+ * describeTable.
+ *
+ * @param <Input>
+ *            The type of the request.
+ * @param <Output>
+ *            The type of the result.
+ */
+public interface SdkFunction<Input, Output> {
+    /**
+     * Makes the service call with the given request and returns its result.
+     */
+    public Output apply(Input input);
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonServiceException;
+
+/**
+ * Polls a resource until it reaches a desired state, eg until a table is
+ * active.
+ * <p>
+ * The polls of all the waiters run on a few threads shared by default by all
+ * the clients, and no thread is held between two polls, so that any number
+ * of resources can be waited for concurrently with {@link #runAsync}.
+ *
+ * @param <Input>
+ *            The type of the request used to poll the resource.
+ */
+public interface Waiter<Input> {
+
+    /**
+     * Polls the resource with the given request until it reaches the desired
+     * state, blocking the calling thread.
+     *
+     * @throws WaiterTimedOutException
+     *             If the resource doesn't reach the desired state within the
+     *             maximum number of attempts.
+     * @throws WaiterUnrecoverableException
+     *             If the resource can no longer reach the desired state.
+     * @throws AmazonServiceException
+     *             If polling the resource fails with an unexpected error.
+     */
+    public void run(Input request);
+
+    /**
+     * Polls the resource with the given request until it reaches the desired
+     * state, without blocking the calling thread.
+     *
+     * @param request
+     *            The request used to poll the resource.
+     * @param handler
+     *            The optional callback notified when the wait is over.
+     *
+     * @return A future completed when the wait is over, which fails with the
+     *         same exceptions as {@link #run}. Cancelling the future stops
+     *         polling.
+     */
+    public Future<Void> runAsync(Input request, WaiterHandler<Input> handler);
+}
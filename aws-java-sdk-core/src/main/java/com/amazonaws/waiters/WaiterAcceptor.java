@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+
+import com.amazonaws.AmazonServiceException;
+
+/**
+ * Decides the state of a resource polled by a {@link Waiter}, from the result
+ * of the service call or from the error it failed with. The acceptors of a
+ * waiter are tried in order, and the first that matches decides the state;
+ * the resource is polled again if none matches a result, and the wait fails
+ * with the error if none matches an error.
+ *
+ * @param <Output>
+ *            The type of the result of the service call.
+ */
+public abstract class WaiterAcceptor<Output> {
+
+    /**
+     * Returns true if this acceptor decides the state of the resource from
+     * the given result. Returns false by default.
+     */
+    public boolean matches(Output output) {
+        return false;
+    }
+
+    /**
+     * Returns true if this acceptor decides the state of the resource from
+     * the given error. Returns false by default.
+     */
+    public boolean matches(AmazonServiceException exception) {
+        return false;
+    }
+
+    /**
+     * Returns the state of the resource when this acceptor matches.
+     */
+    public abstract WaiterState getState();
+
+    /**
+     * Returns an acceptor that matches the errors with the given error code,
+     * eg "ResourceNotFoundException".
+     */
+    public static <Output> WaiterAcceptor<Output> errorCode(
+            final String errorCode, final WaiterState state) {
+        return new WaiterAcceptor<Output>() {
+            @Override
+            public boolean matches(AmazonServiceException exception) {
+                return errorCode.equals(exception.getErrorCode());
+            }
+
+            @Override
+            public WaiterState getState() {
+                return state;
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Builds a {@link Waiter}.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * Waiter&lt;DescribeTableRequest&gt; tableActive = new WaiterBuilder&lt;DescribeTableRequest, DescribeTableResult&gt;()
+ *         .withSdkFunction(describeTable)
+ *         .withAcceptor(tableStatusActive)
+ *         .withAcceptor(WaiterAcceptor.&lt;DescribeTableResult&gt; errorCode(&quot;ResourceNotFoundException&quot;, WaiterState.RETRY))
+ *         .withPollingStrategy(PollingStrategy.fixedDelay(25, 20000))
+ *         .build();
+ * </pre>
+ *
+ * @param <Input>
+ *            The type of the request used to poll the resource.
+ * @param <Output>
+ *            The type of the result of the polls.
+ */
+public class WaiterBuilder<Input, Output> {
+
+    private SdkFunction<Input, Output> sdkFunction;
+    private final List<WaiterAcceptor<Output>> acceptors = new ArrayList<WaiterAcceptor<Output>>();
+    private PollingStrategy pollingStrategy;
+    private ScheduledExecutorService executorService;
+
+    /**
+     * Sets the service call polling the resource.
+     *
+     * @return This builder for method chaining.
+     */
+    public WaiterBuilder<Input, Output> withSdkFunction(SdkFunction<Input, Output> sdkFunction) {
+        this.sdkFunction = sdkFunction;
+        return this;
+    }
+
+    /**
+     * Adds an acceptor deciding the state of the resource, tried after the
+     * acceptors already added.
+     *
+     * @return This builder for method chaining.
+     */
+    public WaiterBuilder<Input, Output> withAcceptor(WaiterAcceptor<Output> acceptor) {
+        this.acceptors.add(acceptor);
+        return this;
+    }
+
+    /**
+     * Sets how often and how many times the resource is polled.
+     *
+     * @return This builder for method chaining.
+     */
+    public WaiterBuilder<Input, Output> withPollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+        return this;
+    }
+
+    /**
+     * Sets the executor service running the polls, in place of the executor
+     * service shared by default by all the waiters.
+     *
+     * @return This builder for method chaining.
+     */
+    public WaiterBuilder<Input, Output> withExecutorService(ScheduledExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Returns a new waiter with the settings of this builder.
+     *
+     * @throws IllegalStateException
+     *             If the service call, acceptors or polling strategy are
+     *             missing.
+     */
+    public Waiter<Input> build() {
+        if (sdkFunction == null) {
+            throw new IllegalStateException("A service call is required to poll the resource");
+        }
+        if (acceptors.isEmpty()) {
+            throw new IllegalStateException("At least one acceptor is required");
+        }
+        if (pollingStrategy == null) {
+            throw new IllegalStateException("A polling strategy is required");
+        }
+        return new WaiterImpl<Input, Output>(sdkFunction,
+                new ArrayList<WaiterAcceptor<Output>>(acceptors),
+                pollingStrategy,
+                executorService == null ? WaiterExecutor.getDefault() : executorService);
+    }
+}
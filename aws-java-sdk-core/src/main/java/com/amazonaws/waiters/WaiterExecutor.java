@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the executor service shared by default by all the waiters. Its few
+ * daemon threads only make the polls, so they are enough for any number of
+ * concurrent waits.
+ */
+final class WaiterExecutor {
+
+    /** The number of threads polling resources for all the waiters. */
+    static final int THREAD_COUNT = 4;
+
+    /** Guarded by the class lock; created on first use. */
+    private static ScheduledExecutorService executor;
+
+    private WaiterExecutor() {
+    }
+
+    static synchronized ScheduledExecutorService getDefault() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(THREAD_COUNT, new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "aws-waiter-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
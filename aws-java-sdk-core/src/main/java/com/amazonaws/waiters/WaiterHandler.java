@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+
+/**
+ * Callback notified when an asynchronous wait is over.
+ *
+ * @param <Input>
+ *            The type of the request of the waiter.
+ */
+public abstract class WaiterHandler<Input> {
+
+    /**
+     * Called when the resource polled with the given request has reached
+     * the desired state.
+     */
+    public abstract void onWaitSuccess(Input request);
+
+    /**
+     * Called when the wait fails, with a {@link WaiterTimedOutException} if
+     * the resource didn't reach the desired state within the maximum number
+     * of attempts, a {@link WaiterUnrecoverableException} if it can no longer
+     * reach it, or the error the service call failed with.
+     */
+    public abstract void onWaitFailure(Exception e);
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+/**
+ * A waiter making each poll as a task on a scheduled executor service, and
+ * scheduling the next poll from there, so that no thread is held between two
+ * polls.
+ */
+final class WaiterImpl<Input, Output> implements Waiter<Input> {
+
+    private static final Log LOG = LogFactory.getLog(WaiterImpl.class);
+
+    private final SdkFunction<Input, Output> sdkFunction;
+    private final List<WaiterAcceptor<Output>> acceptors;
+    private final PollingStrategy pollingStrategy;
+    private final ScheduledExecutorService executorService;
+
+    WaiterImpl(SdkFunction<Input, Output> sdkFunction,
+            List<WaiterAcceptor<Output>> acceptors,
+            PollingStrategy pollingStrategy,
+            ScheduledExecutorService executorService) {
+        this.sdkFunction = sdkFunction;
+        this.acceptors = acceptors;
+        this.pollingStrategy = pollingStrategy;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public void run(Input request) {
+        Future<Void> future = runAsync(request, null);
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AbortedException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException("Unable to wait for the resource", cause);
+        }
+    }
+
+    @Override
+    public Future<Void> runAsync(Input request, WaiterHandler<Input> handler) {
+        Poll poll = new Poll(request, handler);
+        poll.schedule(0);
+        return poll;
+    }
+
+    /**
+     * Returns the state decided by the first acceptor matching the given
+     * result; or RETRY if none matches.
+     */
+    private WaiterState stateOf(Output output) {
+        for (WaiterAcceptor<Output> acceptor : acceptors) {
+            if (acceptor.matches(output)) {
+                return acceptor.getState();
+            }
+        }
+        return WaiterState.RETRY;
+    }
+
+    /**
+     * Returns the state decided by the first acceptor matching the given
+     * error; or null if none matches.
+     */
+    private WaiterState stateOf(AmazonServiceException exception) {
+        for (WaiterAcceptor<Output> acceptor : acceptors) {
+            if (acceptor.matches(exception)) {
+                return acceptor.getState();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A single wait, polling the resource each time it is run, and completed
+     * as a future when the wait is over.
+     */
+    private final class Poll implements Runnable, Future<Void> {
+        private final Input request;
+        private final WaiterHandler<Input> handler;
+
+        /** Only accessed by the poll in progress. */
+        private int attempts;
+
+        // Guarded by this
+        private ScheduledFuture<?> scheduled;
+        private boolean done;
+        private boolean cancelled;
+        private Throwable failure;
+
+        Poll(Input request, WaiterHandler<Input> handler) {
+            this.request = request;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            attempts++;
+            WaiterState state;
+            try {
+                state = poll();
+            } catch (Throwable t) {
+                // Errors too, as nothing else would complete the wait
+                fail(t);
+                return;
+            }
+            if (state == null) {
+                return;
+            }
+
+            switch (state) {
+            case SUCCESS:
+                succeed();
+                break;
+            case FAILURE:
+                fail(new WaiterUnrecoverableException(
+                        "Resource never entered the desired state as it failed."));
+                break;
+            default:
+                if (attempts >= pollingStrategy.getMaxAttempts()) {
+                    fail(new WaiterTimedOutException("Reached maximum attempts ("
+                            + attempts + ") without transitioning to the desired state"));
+                } else {
+                    schedule(pollingStrategy.getDelayMillis(attempts));
+                }
+            }
+        }
+
+        /**
+         * Calls the service and returns the state of the resource; or null
+         * if the wait has failed with a service error no acceptor matches.
+         */
+        private WaiterState poll() {
+            try {
+                return stateOf(sdkFunction.apply(request));
+            } catch (AmazonServiceException e) {
+                WaiterState state = stateOf(e);
+                if (state == null) {
+                    fail(e);
+                }
+                return state;
+            }
+        }
+
+        void schedule(long delayMillis) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                try {
+                    scheduled = executorService.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // Failed below, outside of the lock
+                }
+            }
+            fail(new AmazonClientException("Unable to schedule the next poll of the resource"));
+        }
+
+        private void succeed() {
+            if (complete(null) && handler != null) {
+                try {
+                    handler.onWaitSuccess(request);
+                } catch (RuntimeException e) {
+                    LOG.warn("Waiter handler failed", e);
+                }
+            }
+        }
+
+        private void fail(Throwable t) {
+            if (complete(t) && handler != null) {
+                try {
+                    handler.onWaitFailure(t instanceof Exception ? (Exception) t
+                            : new AmazonClientException("Unable to wait for the resource", t));
+                } catch (RuntimeException re) {
+                    LOG.warn("Waiter handler failed", re);
+                }
+            }
+        }
+
+        private synchronized boolean complete(Throwable t) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            failure = t;
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            cancelled = true;
+            if (scheduled != null) {
+                scheduled.cancel(mayInterruptIfRunning);
+            }
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public synchronized Void get() throws InterruptedException, ExecutionException {
+            while (!done) {
+                wait();
+            }
+            return result();
+        }
+
+        @Override
+        public synchronized Void get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            long remainingNanos = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + remainingNanos;
+            while (!done) {
+                if (remainingNanos <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            return result();
+        }
+
+        /** Must be called with the lock held, once done. */
+        private Void result() throws ExecutionException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Thrown when a resource polled by a {@link Waiter} is in a state from which
+ * it can no longer reach the desired state.
+ */
+public class WaiterUnrecoverableException extends AmazonClientException {
+    private static final long serialVersionUID = 1L;
+
+    public WaiterUnrecoverableException(String message) {
+        super(message);
+    }
+}
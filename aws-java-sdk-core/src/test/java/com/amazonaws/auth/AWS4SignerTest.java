@@ -118,6 +118,43 @@ public class AWS4SignerTest {
                 request.getHeaders().get("Authorization"));
     }
 
+    /**
+     * Tests that a signer reused with other credentials doesn't sign with the
+     * key derived from the previous ones.
+     */
+    @Test
+    public void testSigningWithChangingCredentials() throws Exception {
+        Calendar c = new GregorianCalendar();
+        c.set(1981, 1, 16, 6, 30, 0);
+        c.setTimeZone(TimeZone.getTimeZone("UTC"));
+        signer.setOverrideDate(c.getTime());
+
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        AWSCredentials otherCredentials = new BasicAWSCredentials("access", "other");
+
+        AWS4Signer freshSigner = new AWS4Signer();
+        freshSigner.setOverrideDate(c.getTime());
+        Request<?> expected = generateBasicRequest();
+        freshSigner.sign(expected, otherCredentials);
+
+        Request<?> request = generateBasicRequest();
+        signer.sign(request, credentials);
+        request = generateBasicRequest();
+        signer.sign(request, otherCredentials);
+        assertEquals(expected.getHeaders().get("Authorization"),
+                request.getHeaders().get("Authorization"));
+    }
+
+    @Test
+    public void testCanonicalizedHeaderWhitespace() {
+        Request<?> request = generateBasicRequest();
+        String value = " a\t\tb \r\n c\u000b\fd  ";
+        request.addHeader("X-Amz-Test", value);
+        String canonical = signer.getCanonicalizedHeaderString(request);
+        Assert.assertTrue(canonical.contains("x-amz-test:"
+                + value.replaceAll("\\s+", " ") + "\n"));
+    }
+
     /**
      * Tests that if passed anonymous credentials, signer will not generate a signature
      */
@@ -169,6 +206,18 @@ public class AWS4SignerTest {
         return dateStampFormat.format(date);
     }
 
+    @Test
+    public void getTimeStampOfSuccessiveTimes() {
+        long now = System.currentTimeMillis();
+        for (long time : new long[] { now, now + 1, now + 1000, now,
+                now + 86400000L, now }) {
+            assertEquals(getOldTimeStamp(new Date(time)),
+                    AWS4SignerUtils.formatTimestamp(time));
+            assertEquals(getOldDateStamp(new Date(time)),
+                    AWS4SignerUtils.formatDateStamp(time));
+        }
+    }
+
     @Test
     public void getDateStamp() {
         Date now = new Date();
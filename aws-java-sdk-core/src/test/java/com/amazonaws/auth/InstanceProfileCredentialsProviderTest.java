@@ -23,6 +23,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -216,6 +217,31 @@ public class InstanceProfileCredentialsProviderTest {
         }
     }
 
+    /**
+     * Tests that credentials close to expiring are returned right away while
+     * new ones are loaded in the background.
+     */
+    @Test
+    public void testCredentialsRefreshedInBackground() throws Exception {
+        mockServer.setResponseFileName("sessionResponse");
+        mockServer.setAvailableSecurityCredentials("test-credentials");
+
+        TestInstanceProfileCredentialsProvider credentialsProvider = new TestInstanceProfileCredentialsProvider();
+        AWSCredentials current = new BasicAWSCredentials("foo", "bar");
+        credentialsProvider.setCredentials(current);
+        credentialsProvider.setCredentialsExpiration(new Date(System.currentTimeMillis() + (ONE_MINUTE * 10)));
+        credentialsProvider.setLastInstanceProfileCheck(new Date(System.currentTimeMillis() - (ONE_MINUTE * 61)));
+
+        assertSame(current, credentialsProvider.getCredentials());
+
+        for (int i = 0; i < 100 && credentialsProvider.getCurrentCredentials() == current; i++) {
+            Thread.sleep(50);
+        }
+        AWSSessionCredentials credentials = (AWSSessionCredentials) credentialsProvider.getCredentials();
+        assertEquals("ACCESS_KEY_ID", credentials.getAWSAccessKeyId());
+        assertEquals("TOKEN_TOKEN_TOKEN", credentials.getSessionToken());
+    }
+
     /**
      * Tests by initiating a refresh thread in parallel which refreshes the
      * credentials. Next call to credentials provider will result in refreshing
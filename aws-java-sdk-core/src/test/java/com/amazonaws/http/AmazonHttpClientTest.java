@@ -258,4 +258,34 @@ public class AmazonHttpClientTest {
 
         EasyMock.replay(httpClient);
     }
+
+    @Test
+    public void testCustomHttpClientProvider() {
+        ClientConfiguration config = new ClientConfiguration();
+        config.getApacheHttpClientConfig().withHttpClientProvider(
+                new HttpClientProvider() {
+                    public HttpClient createHttpClient(ClientConfiguration c) {
+                        return httpClient;
+                    }
+                });
+
+        EasyMock.reset(httpClient);
+        EasyMock
+            .expect(httpClient.getConnectionManager())
+            .andReturn(null)
+            .times(2);
+        EasyMock.replay(httpClient);
+
+        // Neither relaxing host name verification nor shutting down needs a
+        // connection manager
+        AmazonHttpClient client = new AmazonHttpClient(config);
+        client.disableStrictHostnameVerification();
+        client.shutdown();
+        EasyMock.verify(httpClient);
+
+        ClientConfiguration copy = new ClientConfiguration(config);
+        Assert.assertSame(
+                config.getApacheHttpClientConfig().getHttpClientProvider(),
+                copy.getApacheHttpClientConfig().getHttpClientProvider());
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.conn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionPoolMonitorTest {
+    private static final HttpRoute hot = new HttpRoute(new HttpHost("hot.example.com", 443, "https"));
+    private static final HttpRoute cold = new HttpRoute(new HttpHost("cold.example.com", 443, "https"));
+
+    private PoolingClientConnectionManager pool;
+
+    @Before
+    public void setUp() {
+        pool = new PoolingClientConnectionManager();
+        pool.setMaxTotal(10);
+        pool.setDefaultMaxPerRoute(10);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void histogramBuckets() {
+        assertEquals(0, ConnectionPoolMonitor.bucketOf(TimeUnit.MICROSECONDS.toNanos(999)));
+        assertEquals(1, ConnectionPoolMonitor.bucketOf(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertEquals(2, ConnectionPoolMonitor.bucketOf(TimeUnit.MILLISECONDS.toNanos(3)));
+        assertEquals(10, ConnectionPoolMonitor.bucketOf(TimeUnit.MILLISECONDS.toNanos(1023)));
+        assertEquals(11, ConnectionPoolMonitor.bucketOf(TimeUnit.MILLISECONDS.toNanos(1024)));
+        assertEquals(11, ConnectionPoolMonitor.bucketOf(TimeUnit.MINUTES.toNanos(5)));
+        assertEquals(1, ConnectionPoolMonitor.getBucketUpperBoundMillis(0));
+        assertEquals(1024, ConnectionPoolMonitor.getBucketUpperBoundMillis(10));
+        assertEquals(-1, ConnectionPoolMonitor.getBucketUpperBoundMillis(11));
+    }
+
+    @Test
+    public void routeStats() {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(pool, 10, false);
+        assertNull(monitor.getRouteStats(hot));
+        monitor.requested(hot);
+        monitor.leased(hot, TimeUnit.MILLISECONDS.toNanos(3), true);
+        monitor.requested(hot);
+        monitor.leased(hot, 0, false);
+        monitor.requested(hot);
+        monitor.leaseTimedOut(hot, TimeUnit.SECONDS.toNanos(2));
+
+        ConnectionPoolMonitor.RouteStats stats = monitor.getRouteStats(hot);
+        assertEquals(2, stats.getLeaseCount());
+        assertEquals(1, stats.getOpenedCount());
+        assertEquals(1, stats.getTimeoutCount());
+        long[] histogram = stats.getLeaseWaitHistogram();
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[11]);
+        assertEquals(1, monitor.getRouteStats().length);
+        // Not adaptive: the pool is left alone
+        assertEquals(10, pool.getMaxPerRoute(hot));
+    }
+
+    @Test
+    public void adaptiveKeepsFairShareOfOtherRoutes() {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(pool, 10, true);
+        monitor.requested(hot);
+        assertEquals(10, pool.getMaxPerRoute(hot));
+        monitor.requested(cold);
+        assertEquals(5, pool.getMaxPerRoute(cold));
+
+        // The hot route waits for connections but must leave the fair share
+        // of the cold route alone
+        monitor.leased(hot, TimeUnit.MILLISECONDS.toNanos(50), false);
+        assertEquals(5, pool.getMaxPerRoute(hot));
+    }
+
+    @Test
+    public void adaptiveShrinksUnusedRoute() {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(pool, 10, true);
+        monitor.requested(hot);
+        monitor.leased(hot, 0, true);
+        // Nothing is leased from the pool, so the route doesn't need them all
+        assertEquals(8, pool.getMaxPerRoute(hot));
+    }
+
+    @Test
+    public void prunesIdleRoutes() {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(pool, 10, false);
+        monitor.requested(cold);
+        monitor.getRouteStats(cold).lastRequestNanos -= ConnectionPoolMonitor.IDLE_NANOS;
+        monitor.requested(hot);
+        assertNull(monitor.getRouteStats(cold));
+        assertEquals(1, monitor.getRouteStats().length);
+
+        monitor.shutdown();
+        assertNull(monitor.getRouteStats(hot));
+    }
+}
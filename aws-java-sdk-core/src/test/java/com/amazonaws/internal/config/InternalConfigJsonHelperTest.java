@@ -16,8 +16,21 @@ package com.amazonaws.internal.config;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.net.URL;
+
 import org.junit.Test;
 
+import com.amazonaws.util.ClassLoaderHelper;
 import com.amazonaws.util.json.Jackson;
 
 public class InternalConfigJsonHelperTest {
@@ -58,6 +71,91 @@ public class InternalConfigJsonHelperTest {
         assertEquals(json, json2);
     }
 
+    @Test
+    public void readerMatchesObjectMapper() throws Exception {
+        URL url = ClassLoaderHelper.getResource(
+                InternalConfig.DEFAULT_CONFIG_RESOURCE_ABSOLUTE_PATH);
+        InternalConfigJsonHelper expected = Jackson.getObjectMapper().readValue(
+                url, InternalConfigJsonHelper.class);
+        InternalConfigJsonHelper actual = InternalConfigJsonReader.read(url);
+        assertEquals(Jackson.toJsonPrettyString(expected),
+                Jackson.toJsonPrettyString(actual));
+    }
+
+    /**
+     * Sets every property of the helpers, so that a property added to them
+     * but not to {@link InternalConfigJsonReader} fails the test.
+     */
+    @Test
+    public void readerReadsEveryProperty() throws Exception {
+        String json = Jackson.toJsonPrettyString(
+                populate(InternalConfigJsonHelper.class, "config"));
+        File file = File.createTempFile("awssdk_core_config", ".json");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(json.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            URL url = file.toURI().toURL();
+            InternalConfigJsonHelper expected = Jackson.getObjectMapper().readValue(
+                    url, InternalConfigJsonHelper.class);
+            assertEquals(json, Jackson.toJsonPrettyString(expected));
+            assertEquals(json, Jackson.toJsonPrettyString(InternalConfigJsonReader.read(url)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns an instance of the given type with all its fields set, named
+     * after their path.
+     */
+    private static Object populate(Type type, String path) throws Exception {
+        if (type == String.class)
+            return path;
+        if (type == boolean.class || type == Boolean.class)
+            return Boolean.TRUE;
+        if (type == int.class || type == Integer.class)
+            return 1;
+        if (type instanceof GenericArrayType || type instanceof Class
+                && ((Class<?>) type).isArray()) {
+            Type componentType = type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType()
+                    : ((Class<?>) type).getComponentType();
+            Object array = Array.newInstance(rawType(componentType), 1);
+            Array.set(array, 0, populate(componentType, path + "[0]"));
+            return array;
+        }
+        Class<?> clazz = rawType(type);
+        Constructor<?> constructor = clazz.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object instance = constructor.newInstance();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()))
+                continue;
+            Type fieldType = field.getGenericType();
+            if (fieldType instanceof TypeVariable) {
+                // Resolves the type parameters of JsonIndex
+                TypeVariable<?>[] parameters = clazz.getTypeParameters();
+                for (int i = 0; i < parameters.length; i++) {
+                    if (parameters[i].equals(fieldType))
+                        fieldType = ((ParameterizedType) type).getActualTypeArguments()[i];
+                }
+            }
+            field.setAccessible(true);
+            field.set(instance, populate(fieldType, path + "." + field.getName()));
+        }
+        return instance;
+    }
+
+    private static Class<?> rawType(Type type) {
+        return type instanceof ParameterizedType
+                ? (Class<?>) ((ParameterizedType) type).getRawType()
+                : (Class<?>) type;
+    }
+
     private static void p(Object o) {
         System.out.println(String.valueOf(o));
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.TimingInfo;
+
+public class OperationLatencyCollectorTest {
+
+    private static class GetThingRequest extends AmazonWebServiceRequest {
+    }
+
+    @Test
+    public void histogramBuckets() {
+        for (long micros = 0; micros < 100000; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            long lower = bucket == 0 ? 0 : LatencyHistogram.upperBoundOf(bucket - 1);
+            if (micros < lower || micros >= upper)
+                throw new AssertionError(micros + " not in bucket " + bucket);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1,
+                LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(99), 0);
+        for (int millis = 1; millis <= 1000; millis++)
+            histogram.recordMicros(TimeUnit.MILLISECONDS.toMicros(millis));
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMillis(), 0.001);
+        assertEquals(1000, histogram.getMaxMillis(), 0);
+        assertEquals(500, histogram.getPercentileMillis(50), 500 / 8.0);
+        assertEquals(990, histogram.getPercentileMillis(99), 990 / 8.0);
+        assertEquals(1000, histogram.getPercentileMillis(100), 0);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void collectMetrics() {
+        OperationLatencyCollector collector = new OperationLatencyCollector();
+        for (int i = 0; i < 10; i++) {
+            collector.collectMetrics(newRequest(10, 2), null);
+        }
+        assertArrayEquals(new String[] {"Thing/GetThing"}, collector.getOperations());
+
+        LatencyHistogram execute = collector.getLatencyHistogram(
+                "Thing/GetThing", Field.ClientExecuteTime);
+        assertEquals(10, execute.getCount());
+        assertEquals(10, execute.getMeanMillis(), 0.001);
+        LatencyHistogram http = collector.getLatencyHistogram(
+                "Thing/GetThing", Field.HttpRequestTime);
+        // Two attempts per request
+        assertEquals(20, http.getCount());
+        assertEquals(2, collector.getPercentileMillis("Thing/GetThing",
+                Field.HttpRequestTime.name(), 99), 2 / 8.0);
+        assertEquals(-1, collector.getPercentileMillis("Thing/GetThing",
+                "NoSuchMetric", 99), 0);
+        assertNull(collector.getLatencyHistogram("Thing/PutThing",
+                Field.HttpRequestTime));
+
+        collector.reset();
+        assertEquals(0, execute.getCount());
+    }
+
+    /**
+     * Returns a request that took the given number of millis, with two HTTP
+     * attempts of the given number of millis each.
+     */
+    private DefaultRequest<?> newRequest(long executeMillis, long httpMillis) {
+        DefaultRequest<?> request = new DefaultRequest<Void>(
+                new GetThingRequest(), "Thing");
+        AWSRequestMetricsFullSupport metrics = new AWSRequestMetricsFullSupport();
+        TimingInfo root = metrics.getTimingInfo();
+        long start = root.getStartTimeNano();
+        for (int i = 0; i < 2; i++) {
+            root.addSubMeasurement(Field.HttpRequestTime.name(),
+                    TimingInfo.newTimingInfoFullSupport(start,
+                            start + TimeUnit.MILLISECONDS.toNanos(httpMillis)));
+        }
+        root.setEndTimeNano(start + TimeUnit.MILLISECONDS.toNanos(executeMillis));
+        request.setAWSRequestMetrics(metrics);
+        return request;
+    }
+}
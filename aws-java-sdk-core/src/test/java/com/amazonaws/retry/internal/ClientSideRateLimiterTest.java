@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ClientSideRateLimiterTest {
+
+    private static class FakeClock extends ClientSideRateLimiter.Clock {
+        double now;
+
+        @Override
+        double seconds() {
+            return now;
+        }
+    }
+
+    @Test
+    public void noLimitUntilThrottled() throws Exception {
+        FakeClock clock = new FakeClock();
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(clock);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.reserve());
+            limiter.update(false);
+        }
+        assertFalse(limiter.isEnabled());
+    }
+
+    @Test
+    public void throttlingCutsTheRateWhichThenRecovers() {
+        FakeClock clock = new FakeClock();
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(clock);
+        // Send 100 requests per second for a few seconds
+        for (int i = 0; i < 500; i++) {
+            clock.now += 0.01;
+            limiter.update(false);
+        }
+        double measured = limiter.getMeasuredSendingRate();
+        assertEquals(100, measured, 10);
+
+        limiter.update(true);
+        assertTrue(limiter.isEnabled());
+        double throttledRate = limiter.getFillRate();
+        assertEquals(measured * ClientSideRateLimiter.BETA, throttledRate, 1);
+
+        // Requests beyond the allowed rate have to wait
+        long totalDelay = 0;
+        for (int i = 0; i < 10; i++)
+            totalDelay += limiter.reserve();
+        assertTrue(totalDelay > 0);
+
+        // The rate grows back on success, up to twice the measured rate
+        for (int i = 0; i < 1000; i++) {
+            clock.now += 1.0 / throttledRate;
+            limiter.update(false);
+        }
+        assertTrue(limiter.getFillRate() > throttledRate);
+        assertTrue(limiter.getFillRate() <= 2 * limiter.getMeasuredSendingRate() + 1e-9);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.SocketTimeoutException;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+public class RetryQuotaTest {
+
+    @Test
+    public void retriesAreDeniedOnceExhausted() {
+        RetryQuota quota = new RetryQuota(12);
+        AmazonServiceException ase = new AmazonServiceException("throttled");
+        assertEquals(RetryQuota.RETRY_COST, quota.acquire(ase));
+        assertEquals(RetryQuota.RETRY_COST, quota.acquire(ase));
+        assertEquals(0, quota.acquire(ase));
+        assertEquals(2, quota.getAvailableCapacity());
+
+        // Successful retries give back what they drew
+        quota.release(RetryQuota.RETRY_COST);
+        assertEquals(7, quota.getAvailableCapacity());
+        assertEquals(RetryQuota.RETRY_COST, quota.acquire(ase));
+    }
+
+    @Test
+    public void timeoutsCostMore() {
+        RetryQuota quota = new RetryQuota();
+        AmazonClientException timeout = new AmazonClientException(
+                "Unable to execute HTTP request", new SocketTimeoutException());
+        assertEquals(RetryQuota.TIMEOUT_RETRY_COST, quota.acquire(timeout));
+        assertEquals(RetryQuota.DEFAULT_CAPACITY - RetryQuota.TIMEOUT_RETRY_COST,
+                quota.getAvailableCapacity());
+    }
+
+    @Test
+    public void releaseIsBoundedByCapacity() {
+        RetryQuota quota = new RetryQuota(10);
+        quota.release(0);
+        assertEquals(10, quota.getAvailableCapacity());
+        quota.acquire(new AmazonServiceException("error"));
+        for (int i = 0; i < 10; i++)
+            quota.release(0);
+        assertEquals(10, quota.getAvailableCapacity());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.XMLEvent;
+
+import org.junit.Test;
+
+public class StaxUnmarshallerContextTest {
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<DescribeThingsResponse xmlns=\"http://example.com/doc/\">\n"
+            + "  <requestId>59dbff89-35bd-4eac-99ed-be587EXAMPLE</requestId>\n"
+            + "  <thingSet>\n"
+            + "    <item id=\"i-1\" state=\"running\">\n"
+            + "      <name>first &amp; <![CDATA[<best>]]> thing</name>\n"
+            + "      <tagSet><item><key>k</key><value></value></item></tagSet>\n"
+            + "    </item>\n"
+            + "    <item id=\"i-2\"><name>second</name></item>\n"
+            + "  </thingSet>\n"
+            + "</DescribeThingsResponse>";
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    private static StaxUnmarshallerContext eventContext() throws Exception {
+        return new StaxUnmarshallerContext(FACTORY.createXMLEventReader(
+                new ByteArrayInputStream(XML.getBytes("UTF-8"))), null);
+    }
+
+    private static StaxUnmarshallerContext streamContext() throws Exception {
+        return new StaxUnmarshallerContext(FACTORY.createXMLStreamReader(
+                new ByteArrayInputStream(XML.getBytes("UTF-8"))), null);
+    }
+
+    /**
+     * Walks the document the way the generated unmarshallers do, recording
+     * the values read and the positions at which they were read.
+     */
+    private static List<String> unmarshall(StaxUnmarshallerContext context) throws Exception {
+        context.registerMetadataExpression("requestId", 2, "RequestId");
+        List<String> values = new ArrayList<String>();
+        assertTrue(context.isStartOfDocument());
+        while (true) {
+            XMLEvent xmlEvent = context.nextEvent();
+            if (xmlEvent.isEndDocument()) break;
+            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                if (context.testExpression("thingSet/item/@id", 2)
+                        || context.testExpression("thingSet/item/@state", 2)
+                        || context.testExpression("item/name", 3)
+                        || context.testExpression("tagSet/item/key", 4)
+                        || context.testExpression("tagSet/item/value", 4)) {
+                    values.add(context.getCurrentDepth() + ":" + context.readText());
+                }
+            } else if (xmlEvent.isEndElement()) {
+                values.add("end:" + context.getCurrentDepth());
+            }
+        }
+        assertEquals("59dbff89-35bd-4eac-99ed-be587EXAMPLE",
+                context.getMetadata().get("RequestId"));
+        return values;
+    }
+
+    @Test
+    public void streamReaderMatchesEventReader() throws Exception {
+        List<String> expected = unmarshall(eventContext());
+        List<String> actual = unmarshall(streamContext());
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("3:i-1"));
+        assertTrue(actual.contains("3:running"));
+        assertTrue(actual.contains("4:first & <best> thing"));
+        assertTrue(actual.contains("6:k"));
+        assertTrue(actual.contains("6:"));
+        assertTrue(actual.contains("4:second"));
+    }
+
+    /**
+     * Describes the events read the way custom unmarshallers may look at them.
+     */
+    private static List<String> describeEvents(StaxUnmarshallerContext context)
+            throws Exception {
+        List<String> events = new ArrayList<String>();
+        while (true) {
+            XMLEvent xmlEvent = context.nextEvent();
+            if (xmlEvent.isEndDocument()) break;
+            if (xmlEvent.isStartElement()) {
+                events.add("start:" + xmlEvent.asStartElement().getName()
+                        + ":" + xmlEvent.getLocation().getLineNumber());
+            } else if (xmlEvent.isAttribute()) {
+                Attribute attribute = (Attribute)xmlEvent;
+                events.add("attribute:" + attribute.getName() + "=" + attribute.getValue());
+            } else if (xmlEvent.isEndElement()) {
+                events.add("end:" + xmlEvent.asEndElement().getName());
+            } else if (xmlEvent.isCharacters()) {
+                events.add("text:" + xmlEvent.asCharacters().getData());
+            }
+        }
+        return events;
+    }
+
+    @Test
+    public void streamEventsMatchEventReaderEvents() throws Exception {
+        List<String> expected = describeEvents(eventContext());
+        List<String> actual = describeEvents(streamContext());
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("start:{http://example.com/doc/}requestId:3"));
+        assertTrue(actual.contains("attribute:state=running"));
+    }
+
+    @Test
+    public void streamEventsAreShared() throws Exception {
+        StaxUnmarshallerContext context = streamContext();
+        XMLEvent startDocument = context.nextEvent();
+        assertTrue(startDocument.isStartDocument());
+        assertFalse(context.isStartOfDocument());
+
+        XMLEvent root = context.nextEvent();
+        assertTrue(root.isStartElement());
+        assertTrue(context.testExpression("DescribeThingsResponse"));
+        context.nextEvent();
+        XMLEvent requestId = context.nextEvent();
+        assertSame(root, requestId);
+        assertTrue(context.testExpression("DescribeThingsResponse/requestId", 1));
+        assertFalse(context.testExpression("Response/requestId", 1));
+
+        // The details are those of the current position
+        assertEquals("requestId", root.asStartElement().getName().getLocalPart());
+        assertEquals("requestId", context.getCurrentEvent().asStartElement()
+                .getName().getLocalPart());
+        assertEquals(3, context.getCurrentEvent().getLocation().getLineNumber());
+
+        context.readText();
+        try {
+            context.getCurrentEvent();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        assertTrue(context.nextEvent().isEndElement());
+        assertEquals("requestId", context.getCurrentEvent().asEndElement()
+                .getName().getLocalPart());
+    }
+}
@@ -78,6 +78,62 @@ public class ResponseMetadataCacheTest {
         assertNull(cache.get(key));
     }
 
+    /** Tests that the latest metadata of a key added twice is returned. */
+    @Test
+    public void testReAdd() {
+        ResponseMetadataCache cache = new ResponseMetadataCache(3);
+
+        AmazonWebServiceRequest key1 = new TestRequest();
+        AmazonWebServiceRequest key2 = new TestRequest();
+        ResponseMetadata metadata1 = newResponseMetadata();
+        ResponseMetadata metadata2 = newResponseMetadata();
+        ResponseMetadata metadata3 = newResponseMetadata();
+
+        cache.add(key1, metadata1);
+        cache.add(key2, metadata2);
+        cache.add(key1, metadata3);
+        assertEquals(metadata3, cache.get(key1));
+        assertEquals(metadata2, cache.get(key2));
+        assertNull(cache.get(new TestRequest()));
+    }
+
+    /** Tests that the cache holds exactly the latest entries after concurrent adds. */
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final int threads = 8;
+        final int addsPerThread = 1000;
+        final ResponseMetadataCache cache = new ResponseMetadataCache(threads);
+        final AmazonWebServiceRequest[][] keys = new AmazonWebServiceRequest[threads][addsPerThread];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final AmazonWebServiceRequest[] threadKeys = keys[i];
+            workers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < addsPerThread; j++) {
+                        threadKeys[j] = new TestRequest();
+                        cache.add(threadKeys[j], newResponseMetadata());
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        int cached = 0;
+        for (AmazonWebServiceRequest[] threadKeys : keys) {
+            for (AmazonWebServiceRequest key : threadKeys) {
+                if (cache.get(key) != null) cached++;
+            }
+        }
+        assertEquals(threads, cached);
+        AmazonWebServiceRequest key = new TestRequest();
+        ResponseMetadata metadata = newResponseMetadata();
+        cache.add(key, metadata);
+        assertEquals(metadata, cache.get(key));
+    }
+
     private class TestRequest extends AmazonWebServiceRequest {}
 
     private ResponseMetadata newResponseMetadata() {
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.waiters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+
+public class WaiterTest {
+
+    /** Returns the statuses given, then the last one forever. */
+    private static class Statuses implements SdkFunction<String, String> {
+        private final String[] statuses;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        Statuses(String... statuses) {
+            this.statuses = statuses;
+        }
+
+        @Override
+        public String apply(String input) {
+            String status = statuses[Math.min(calls.getAndIncrement(), statuses.length - 1)];
+            if (status.startsWith("Error:")) {
+                AmazonServiceException e = new AmazonServiceException(status);
+                e.setErrorCode(status.substring("Error:".length()));
+                throw e;
+            }
+            return status;
+        }
+    }
+
+    private static WaiterAcceptor<String> status(final String status, final WaiterState state) {
+        return new WaiterAcceptor<String>() {
+            @Override
+            public boolean matches(String output) {
+                return status.equals(output);
+            }
+
+            @Override
+            public WaiterState getState() {
+                return state;
+            }
+        };
+    }
+
+    private static Waiter<String> newWaiter(Statuses statuses, int maxAttempts) {
+        return new WaiterBuilder<String, String>()
+                .withSdkFunction(statuses)
+                .withAcceptor(status("ACTIVE", WaiterState.SUCCESS))
+                .withAcceptor(status("FAILED", WaiterState.FAILURE))
+                .withAcceptor(WaiterAcceptor.<String> errorCode("NotFound", WaiterState.RETRY))
+                .withPollingStrategy(PollingStrategy.fixedDelay(maxAttempts, 1))
+                .build();
+    }
+
+    @Test
+    public void success() {
+        Statuses statuses = new Statuses("Error:NotFound", "CREATING", "ACTIVE");
+        newWaiter(statuses, 5).run("table");
+        assertEquals(3, statuses.calls.get());
+    }
+
+    @Test
+    public void timeout() {
+        Statuses statuses = new Statuses("CREATING");
+        try {
+            newWaiter(statuses, 3).run("table");
+            fail();
+        } catch (WaiterTimedOutException expected) {
+        }
+        assertEquals(3, statuses.calls.get());
+    }
+
+    @Test
+    public void failure() {
+        try {
+            newWaiter(new Statuses("CREATING", "FAILED"), 5).run("table");
+            fail();
+        } catch (WaiterUnrecoverableException expected) {
+        }
+    }
+
+    @Test
+    public void unexpectedError() {
+        try {
+            newWaiter(new Statuses("Error:AccessDenied"), 5).run("table");
+            fail();
+        } catch (AmazonServiceException expected) {
+            assertEquals("AccessDenied", expected.getErrorCode());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void errorFailsWait() {
+        Waiter<String> waiter = new WaiterBuilder<String, String>()
+                .withSdkFunction(new SdkFunction<String, String>() {
+                    @Override
+                    public String apply(String input) {
+                        throw new NoClassDefFoundError("Missing");
+                    }
+                })
+                .withAcceptor(status("ACTIVE", WaiterState.SUCCESS))
+                .withPollingStrategy(PollingStrategy.fixedDelay(5, 1))
+                .build();
+        try {
+            waiter.run("table");
+            fail();
+        } catch (NoClassDefFoundError expected) {
+        }
+    }
+
+    @Test
+    public void concurrentWaits() throws Exception {
+        final int waits = 500;
+        final CountDownLatch latch = new CountDownLatch(waits);
+        final AtomicInteger successes = new AtomicInteger();
+        WaiterHandler<String> handler = new WaiterHandler<String>() {
+            @Override
+            public void onWaitSuccess(String request) {
+                successes.incrementAndGet();
+                latch.countDown();
+            }
+
+            @Override
+            public void onWaitFailure(Exception e) {
+                latch.countDown();
+            }
+        };
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < waits; i++) {
+            futures.add(newWaiter(new Statuses("CREATING", "CREATING", "ACTIVE"), 5)
+                    .runAsync("table" + i, handler));
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(waits, successes.get());
+        for (Future<Void> future : futures) {
+            assertTrue(future.isDone());
+            future.get();
+        }
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        Statuses statuses = new Statuses("CREATING");
+        Waiter<String> waiter = new WaiterBuilder<String, String>()
+                .withSdkFunction(statuses)
+                .withAcceptor(status("ACTIVE", WaiterState.SUCCESS))
+                .withPollingStrategy(PollingStrategy.fixedDelay(100, 50))
+                .build();
+        Future<Void> future = waiter.runAsync("table", null);
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        int calls = statuses.calls.get();
+        Thread.sleep(200);
+        assertTrue(statuses.calls.get() <= calls + 1);
+        assertFalse(future.cancel(false));
+    }
+
+    @Test
+    public void exponentialBackoff() {
+        PollingStrategy strategy = PollingStrategy.exponentialBackoff(10, 100, 1000);
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long max = Math.min(1000, 100L << (attempt - 1));
+            long delay = strategy.getDelayMillis(attempt);
+            assertTrue(delay >= max / 2 && delay <= max);
+        }
+        assertEquals(20, PollingStrategy.fixedDelay(5, 20).getDelayMillis(3));
+    }
+}
@@ -35,6 +35,7 @@ import com.amazonaws.util.AWSRequestMetrics.Field;
 
 import com.amazonaws.services.dynamodbv2.model.*;
 import com.amazonaws.services.dynamodbv2.model.transform.*;
+import com.amazonaws.services.dynamodbv2.waiters.AmazonDynamoDBWaiters;
 
 /**
  * Client for accessing DynamoDB. All service calls made using this client are
@@ -222,6 +223,9 @@ public class AmazonDynamoDBClient extends AmazonWebServiceClient implements
     /** Provider for AWS credentials. */
     private AWSCredentialsProvider awsCredentialsProvider;
 
+    /** The waiters of this client; created on first use. */
+    private volatile AmazonDynamoDBWaiters waiters;
+
     private static final Log log = LogFactory.getLog(AmazonDynamoDB.class);
 
     /** Default signing name for the service. */
@@ -1743,6 +1747,21 @@ public class AmazonDynamoDBClient extends AmazonWebServiceClient implements
         return client.getResponseMetadataForRequest(request);
     }
 
+    /**
+     * Returns the waiters polling Amazon DynamoDB resources with this client until
+     * they reach a desired state.
+     */
+    public AmazonDynamoDBWaiters waiters() {
+        if (waiters == null) {
+            synchronized (this) {
+                if (waiters == null) {
+                    waiters = new AmazonDynamoDBWaiters(this);
+                }
+            }
+        }
+        return waiters;
+    }
+
     private <X, Y extends AmazonWebServiceRequest> Response<X> invoke(
             Request<Y> request,
             Unmarshaller<X, JsonUnmarshallerContext> unmarshaller,
@@ -29,6 +29,8 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -189,6 +191,13 @@ public class DynamoDBMapper {
     private final AmazonDynamoDB db;
     private final DynamoDBMapperConfig config;
     private final DynamoDBReflector reflector = new DynamoDBReflector();
+
+    /*
+     * Converters of the standard conversion schemas, which are thread safe
+     * and cache the marshallers resolved for each property.
+     */
+    private final ConcurrentMap<ConversionSchema, ItemConverter> converters =
+            new ConcurrentHashMap<ConversionSchema, ItemConverter>();
     private final DynamoDBTableSchemaParser schemaParser = new DynamoDBTableSchemaParser();
     private final VersionIncrementor incrementor = new VersionIncrementor();
 
@@ -2986,11 +2995,23 @@ public class DynamoDBMapper {
     private ItemConverter getConverter(DynamoDBMapperConfig config) {
         ConversionSchema schema = config.getConversionSchema();
 
+        ItemConverter converter = converters.get(schema);
+        if (converter != null) {
+            return converter;
+        }
+
         ConversionSchema.Dependencies params = new ConversionSchema.Dependencies()
                 .with(DynamoDBReflector.class, reflector)
                 .with(S3ClientCache.class, s3cc);
 
-        return schema.getConverter(params);
+        converter = schema.getConverter(params);
+        if (schema instanceof ConversionSchemas.StandardConversionSchema) {
+            ItemConverter existing = converters.putIfAbsent(schema, converter);
+            if (existing != null) {
+                converter = existing;
+            }
+        }
+        return converter;
     }
 
     private void pauseExponentially(int retries) {
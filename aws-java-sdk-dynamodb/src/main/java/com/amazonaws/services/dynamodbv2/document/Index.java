@@ -21,11 +21,13 @@ import org.apache.http.annotation.ThreadSafe;
 
 import com.amazonaws.annotation.Beta;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.document.api.ParallelScanApi;
 import com.amazonaws.services.dynamodbv2.document.api.QueryApi;
 import com.amazonaws.services.dynamodbv2.document.api.ScanApi;
 import com.amazonaws.services.dynamodbv2.document.internal.IndexQueryImpl;
 import com.amazonaws.services.dynamodbv2.document.internal.IndexScanImpl;
 import com.amazonaws.services.dynamodbv2.document.internal.ScanImpl;
+import com.amazonaws.services.dynamodbv2.document.spec.ParallelScanSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
 import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.UpdateTableSpec;
@@ -46,7 +48,7 @@ import com.amazonaws.services.dynamodbv2.xspec.ScanExpressionSpec;
  * of this class can be obtained via {@link Table#getIndex(String)}.
  */
 @ThreadSafe
-public class Index implements QueryApi, ScanApi {
+public class Index implements QueryApi, ScanApi, ParallelScanApi {
     private static final long SLEEP_TIME_MILLIS = 5000;
     private final Table table;
     private final String indexName;
@@ -376,4 +378,9 @@ public class Index implements QueryApi, ScanApi {
     public ItemCollection<ScanOutcome> scan(ScanSpec params) {
         return scanDelegate.scan(params);
     }
+
+    @Override
+    public ParallelScanItemCollection parallelScan(ParallelScanSpec spec) {
+        return scanDelegate.parallelScan(spec);
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * The items of a parallel scan, returned as the segments of the table or
+ * index are scanned concurrently. Items are returned in no particular order.
+ * <p>
+ * The collection can only be iterated over once. Scanning starts with the
+ * iteration and proceeds ahead of it by a bounded number of pages, and stops
+ * when the iteration doesn't keep up. Closing the collection stops the scan of the segments.
+ * Any failure to scan a segment is thrown from the iterator.
+ */
+public abstract class ParallelScanItemCollection implements Iterable<Item>, Closeable {
+
+    /**
+     * Returns an iterator over the items of the scan, waiting for items to be
+     * scanned as needed.
+     *
+     * @throws IllegalStateException
+     *             if the collection has already been iterated over.
+     */
+    @Override
+    public abstract Iterator<Item> iterator();
+
+    /**
+     * Stops the scan of the segments. Items already returned are unaffected.
+     */
+    @Override
+    public abstract void close();
+
+    /**
+     * Returns the total count of items returned by DynamoDB so far.
+     */
+    public abstract int getTotalCount();
+
+    /**
+     * Returns the total scanned count accumulated so far.
+     */
+    public abstract int getTotalScannedCount();
+
+    /**
+     * Returns the total read capacity units consumed so far, as reported by
+     * DynamoDB.
+     */
+    public abstract double getTotalConsumedCapacityUnits();
+}
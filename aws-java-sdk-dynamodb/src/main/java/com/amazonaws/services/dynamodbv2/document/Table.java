@@ -25,6 +25,7 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.document.api.DeleteItemApi;
 import com.amazonaws.services.dynamodbv2.document.api.GetItemApi;
 import com.amazonaws.services.dynamodbv2.document.api.PutItemApi;
+import com.amazonaws.services.dynamodbv2.document.api.ParallelScanApi;
 import com.amazonaws.services.dynamodbv2.document.api.QueryApi;
 import com.amazonaws.services.dynamodbv2.document.api.ScanApi;
 import com.amazonaws.services.dynamodbv2.document.api.UpdateItemApi;
@@ -38,6 +39,7 @@ import com.amazonaws.services.dynamodbv2.document.internal.UpdateItemImpl;
 import com.amazonaws.services.dynamodbv2.document.spec.DeleteItemSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.GetItemSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.PutItemSpec;
+import com.amazonaws.services.dynamodbv2.document.spec.ParallelScanSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
 import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.UpdateItemSpec;
@@ -68,7 +70,7 @@ import com.amazonaws.services.dynamodbv2.xspec.UpdateItemExpressionSpec;
  */
 @ThreadSafe
 public class Table implements PutItemApi, GetItemApi, QueryApi, ScanApi,
-        UpdateItemApi, DeleteItemApi {
+        ParallelScanApi, UpdateItemApi, DeleteItemApi {
     private static final long SLEEP_TIME_MILLIS = 5000;
     private final String tableName;
     private final AmazonDynamoDB client;
@@ -294,6 +296,11 @@ public class Table implements PutItemApi, GetItemApi, QueryApi, ScanApi,
             .withValueMap(scanExpressions.getValueMap()));
     }
 
+    @Override
+    public ParallelScanItemCollection parallelScan(ParallelScanSpec spec) {
+        return scanDelegate.parallelScan(spec);
+    }
+
     @Override
     public DeleteItemOutcome deleteItem(KeyAttribute... primaryKeyComponents) {
         return deleteItemDelegate.deleteItem(primaryKeyComponents);
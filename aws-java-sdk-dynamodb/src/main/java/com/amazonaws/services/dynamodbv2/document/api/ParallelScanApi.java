@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document.api;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.dynamodbv2.document.ParallelScanItemCollection;
+import com.amazonaws.services.dynamodbv2.document.spec.ParallelScanSpec;
+
+/**
+ * A Table-centric parallel Scan API.
+ */
+@ThreadSafe
+public interface ParallelScanApi {
+    /**
+     * Scans the segments of a table or index concurrently, returning items
+     * as they are scanned.
+     */
+    public ParallelScanItemCollection parallelScan(ParallelScanSpec spec);
+}
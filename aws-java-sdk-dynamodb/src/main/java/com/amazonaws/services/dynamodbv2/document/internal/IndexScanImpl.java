@@ -17,9 +17,13 @@ package com.amazonaws.services.dynamodbv2.document.internal;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Index;
 import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.ParallelScanItemCollection;
 import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
 import com.amazonaws.services.dynamodbv2.document.api.ScanApi;
+import com.amazonaws.services.dynamodbv2.document.spec.ParallelScanSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
 
 /**
  * The implementation for <code>ScanApi</code> for an index.
@@ -37,4 +41,25 @@ public class IndexScanImpl extends ScanImpl implements ScanApi {
         spec.getRequest().setIndexName(index.getIndexName());
         return super.doScan(spec);
     }
+
+    @Override
+    protected ParallelScanItemCollection doParallelScan(ParallelScanSpec spec) {
+        spec.getScanSpec().getRequest().setIndexName(index.getIndexName());
+        return super.doParallelScan(spec);
+    }
+
+    /**
+     * Returns the provisioned read capacity units of a global secondary
+     * index, or of the table for a local secondary index.
+     */
+    @Override
+    protected long getProvisionedReadCapacityUnits(TableDescription desc) {
+        if (desc.getGlobalSecondaryIndexes() != null) {
+            for (GlobalSecondaryIndexDescription gsi : desc.getGlobalSecondaryIndexes()) {
+                if (index.getIndexName().equals(gsi.getIndexName()))
+                    return readCapacityUnitsOf(gsi.getProvisionedThroughput());
+            }
+        }
+        return super.getProvisionedReadCapacityUnits(desc);
+    }
 }
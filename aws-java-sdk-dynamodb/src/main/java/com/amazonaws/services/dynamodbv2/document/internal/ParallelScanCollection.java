@@ -0,0 +1,349 @@
+/*
+ * Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ParallelScanItemCollection;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+/**
+ * Scans the segments of a table or index concurrently, each segment a page at
+ * a time, and hands the pages over to the iterating thread as they arrive.
+ * <p>
+ * At most one page of a segment is scanned at once, and at most a given
+ * number of pages are being scanned or waiting to be iterated over across all
+ * the segments. A segment that can't scan its next page is left idle, not
+ * blocked on the executor, until the iteration takes a page. Nothing is
+ * scanned until the iteration starts.
+ */
+class ParallelScanCollection extends ParallelScanItemCollection {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
+    private final AmazonDynamoDB client;
+    private final ExecutorService executor;
+    private final boolean shutDownExecutor;
+    private final int maxInFlightPages;
+    private final ReadCapacityRateLimiter rateLimiter;
+    private final Integer maxResultSize;
+
+    private final Object lock = new Object();
+    private final List<Segment> segments;
+    private final LinkedList<List<Item>> readyPages = new LinkedList<List<Item>>();
+    private int inFlightPages;
+    private int remainingSegments;
+    private RuntimeException failure;
+    private boolean closed;
+    private boolean iterated;
+
+    private int totalCount;
+    private int totalScannedCount;
+    private double totalConsumedCapacityUnits;
+
+    /**
+     * @param requests
+     *            the requests scanning each segment, which are reused for
+     *            the successive pages of the segment.
+     * @param executor
+     *            the executor on which to scan; or null to create one.
+     * @param unitsPerSecond
+     *            the read capacity units to consume per second; or null if
+     *            the scan isn't rate limited.
+     */
+    ParallelScanCollection(AmazonDynamoDB client, List<ScanRequest> requests,
+            ExecutorService executor, int maxInFlightPages,
+            Double unitsPerSecond, Integer maxResultSize) {
+        this.client = client;
+        this.shutDownExecutor = executor == null;
+        this.executor = executor == null ? newExecutor(requests.size()) : executor;
+        this.maxInFlightPages = maxInFlightPages;
+        this.rateLimiter = unitsPerSecond == null
+                ? null
+                : new ReadCapacityRateLimiter(unitsPerSecond.doubleValue());
+        this.maxResultSize = maxResultSize;
+
+        this.segments = new ArrayList<Segment>(requests.size());
+        for (ScanRequest request : requests) {
+            segments.add(new Segment(request));
+        }
+        this.remainingSegments = segments.size();
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        synchronized (lock) {
+            if (iterated)
+                throw new IllegalStateException("A parallel scan can only be iterated over once");
+            iterated = true;
+            scheduleScans();
+        }
+        return new ItemIterator();
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed)
+                return;
+            closed = true;
+            readyPages.clear();
+            lock.notifyAll();
+        }
+        if (shutDownExecutor)
+            executor.shutdown();
+    }
+
+    @Override
+    public int getTotalCount() {
+        synchronized (lock) {
+            return totalCount;
+        }
+    }
+
+    @Override
+    public int getTotalScannedCount() {
+        synchronized (lock) {
+            return totalScannedCount;
+        }
+    }
+
+    @Override
+    public double getTotalConsumedCapacityUnits() {
+        synchronized (lock) {
+            return totalConsumedCapacityUnits;
+        }
+    }
+
+    /**
+     * Returns the next page of items, waiting for it to be scanned, or null
+     * once all the segments have been scanned or the scan is closed.
+     */
+    private List<Item> takePage() {
+        synchronized (lock) {
+            while (true) {
+                if (failure != null) {
+                    final RuntimeException e = failure;
+                    closeQuietly();
+                    throw e;
+                }
+                if (!readyPages.isEmpty()) {
+                    inFlightPages--;
+                    scheduleScans();
+                    return readyPages.removeFirst();
+                }
+                if (closed || remainingSegments == 0)
+                    break;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException("Interrupted while waiting for scan results", e);
+                }
+            }
+        }
+        close();
+        return null;
+    }
+
+    /**
+     * Starts scanning the next page of as many idle segments as the in-flight
+     * page budget allows. Must be called with the lock held.
+     */
+    private void scheduleScans() {
+        for (Segment segment : segments) {
+            if (closed || failure != null || inFlightPages >= maxInFlightPages)
+                return;
+            if (segment.done || segment.scanning)
+                continue;
+            segment.scanning = true;
+            inFlightPages++;
+            try {
+                executor.execute(segment);
+            } catch (RejectedExecutionException e) {
+                segment.scanning = false;
+                inFlightPages--;
+                failure = new AmazonClientException("Unable to scan segment", e);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        closed = true;
+        readyPages.clear();
+        if (shutDownExecutor)
+            executor.shutdown();
+    }
+
+    /**
+     * Returns a pool of daemon threads that exit once idle, so that a scan
+     * abandoned without being closed doesn't hold on to them.
+     */
+    private static ExecutorService newExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "dynamodb-parallel-scan-"
+                        + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** A segment of the scan, which scans its next page when run. */
+    private final class Segment implements Runnable {
+        private final ScanRequest request;
+        private Map<String, AttributeValue> lastEvaluatedKey;
+        private boolean scanning;
+        private boolean done;
+
+        Segment(ScanRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            final ScanResult result;
+            final List<Item> items;
+            try {
+                final double reservedUnits = rateLimiter == null ? 0 : rateLimiter.acquire();
+                synchronized (lock) {
+                    if (closed) {
+                        scanning = false;
+                        inFlightPages--;
+                        return;
+                    }
+                    request.setExclusiveStartKey(lastEvaluatedKey);
+                }
+                result = client.scan(request);
+                if (rateLimiter != null)
+                    rateLimiter.settle(reservedUnits, consumedUnits(result));
+                items = InternalUtils.toItemList(result.getItems());
+            } catch (InterruptedException e) {
+                fail(new AmazonClientException("Interrupted while scanning segment", e));
+                return;
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+
+            synchronized (lock) {
+                scanning = false;
+                lastEvaluatedKey = result.getLastEvaluatedKey();
+                if (lastEvaluatedKey == null) {
+                    done = true;
+                    remainingSegments--;
+                }
+                if (result.getCount() != null)
+                    totalCount += result.getCount().intValue();
+                if (result.getScannedCount() != null)
+                    totalScannedCount += result.getScannedCount().intValue();
+                final Double units = consumedUnits(result);
+                if (units != null)
+                    totalConsumedCapacityUnits += units.doubleValue();
+
+                if (closed) {
+                    inFlightPages--;
+                } else {
+                    readyPages.add(items == null ? Collections.<Item>emptyList() : items);
+                    scheduleScans();
+                }
+                lock.notifyAll();
+            }
+        }
+
+        private void fail(RuntimeException e) {
+            synchronized (lock) {
+                scanning = false;
+                inFlightPages--;
+                if (failure == null)
+                    failure = e;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private static Double consumedUnits(ScanResult result) {
+        final ConsumedCapacity capacity = result.getConsumedCapacity();
+        return capacity == null ? null : capacity.getCapacityUnits();
+    }
+
+    /** Iterates over the pages taken from the segments. */
+    private final class ItemIterator implements Iterator<Item> {
+        private Iterator<Item> currentPage = Collections.<Item>emptyList().iterator();
+        private int returned;
+        private boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            if (maxResultSize != null && returned >= maxResultSize.intValue()) {
+                if (!exhausted) {
+                    exhausted = true;
+                    close();
+                }
+                return false;
+            }
+            while (!currentPage.hasNext()) {
+                if (exhausted)
+                    return false;
+                final List<Item> page = takePage();
+                if (page == null) {
+                    exhausted = true;
+                    return false;
+                }
+                currentPage = page.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            returned++;
+            return currentPage.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document.internal;
+
+/**
+ * Limits the read capacity consumed by concurrent requests to a number of
+ * units per second.
+ * <p>
+ * The capacity consumed by a request is only known from its result, so each
+ * request reserves as many units as the last request consumed and the
+ * difference is settled when its result arrives. Requests wait while the
+ * reserved units exceed the units accrued at the target rate, of which at
+ * most one second's worth is accrued while no request is made.
+ */
+class ReadCapacityRateLimiter {
+    private final double unitsPerSecond;
+
+    private double availableUnits;
+    private double estimatedUnits = 1;
+    private long lastRefillNanos = System.nanoTime();
+
+    ReadCapacityRateLimiter(double unitsPerSecond) {
+        if (unitsPerSecond <= 0)
+            throw new IllegalArgumentException("units per second must be positive");
+        this.unitsPerSecond = unitsPerSecond;
+    }
+
+    /**
+     * Waits until a request may be made, and reserves the units it is
+     * expected to consume.
+     *
+     * @return the units reserved, to be passed to {@link #settle}.
+     */
+    double acquire() throws InterruptedException {
+        while (true) {
+            final long waitMillis;
+            synchronized (this) {
+                refill();
+                if (availableUnits >= 0) {
+                    availableUnits -= estimatedUnits;
+                    return estimatedUnits;
+                }
+                waitMillis = (long) Math.ceil(-availableUnits / unitsPerSecond * 1000);
+            }
+            Thread.sleep(Math.max(1, waitMillis));
+        }
+    }
+
+    /**
+     * Accounts for the units actually consumed by a request.
+     *
+     * @param reservedUnits
+     *            the units reserved by {@link #acquire()} for the request.
+     * @param consumedUnits
+     *            the units consumed by the request; or null if unknown, in
+     *            which case the reservation stands.
+     */
+    synchronized void settle(double reservedUnits, Double consumedUnits) {
+        if (consumedUnits == null)
+            return;
+        availableUnits -= consumedUnits.doubleValue() - reservedUnits;
+        estimatedUnits = Math.max(consumedUnits.doubleValue(), 1);
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+        availableUnits = Math.min(unitsPerSecond,
+                availableUnits + (now - lastRefillNanos) / 1e9 * unitsPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -14,24 +14,32 @@
  */
 package com.amazonaws.services.dynamodbv2.document.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.document.ItemCollection;
 import com.amazonaws.services.dynamodbv2.document.KeyAttribute;
+import com.amazonaws.services.dynamodbv2.document.ParallelScanItemCollection;
 import com.amazonaws.services.dynamodbv2.document.ScanFilter;
 import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
 import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.api.ParallelScanApi;
 import com.amazonaws.services.dynamodbv2.document.api.ScanApi;
+import com.amazonaws.services.dynamodbv2.document.spec.ParallelScanSpec;
 import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
 
 /**
- * The implementation for <code>ScanApi</code>.
+ * The implementation for <code>ScanApi</code> and <code>ParallelScanApi</code>.
  */
-public class ScanImpl extends AbstractImpl implements ScanApi {
+public class ScanImpl extends AbstractImpl implements ScanApi, ParallelScanApi {
     public ScanImpl(AmazonDynamoDB client, Table table) {
         super(client, table);
     }
@@ -69,7 +77,58 @@ public class ScanImpl extends AbstractImpl implements ScanApi {
         return doScan(spec);
     }
 
+    @Override
+    public ParallelScanItemCollection parallelScan(ParallelScanSpec spec) {
+        return doParallelScan(spec);
+    }
+
     protected ItemCollection<ScanOutcome> doScan(ScanSpec spec) {
+        prepareRequest(spec);
+        return new ScanCollection(getClient(), spec);
+    }
+
+    protected ParallelScanItemCollection doParallelScan(ParallelScanSpec spec) {
+        final ScanSpec scanSpec = spec.getScanSpec();
+        final ScanRequest req = prepareRequest(scanSpec);
+
+        Double unitsPerSecond = spec.getReadCapacityUnitsPerSecond();
+        if (unitsPerSecond == null && spec.getTargetReadCapacityFraction() != null) {
+            unitsPerSecond = spec.getTargetReadCapacityFraction()
+                    * getProvisionedReadCapacityUnits(getTable().describe());
+        }
+
+        // one request per segment, each reused for its successive pages
+        final int totalSegments = spec.getTotalSegments();
+        List<ScanRequest> requests = new ArrayList<ScanRequest>(totalSegments);
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest segmentReq = req.clone()
+                    .withSegment(segment)
+                    .withTotalSegments(totalSegments)
+                    .withLimit(scanSpec.getMaxPageSize());
+            segmentReq.setExclusiveStartKey(null);
+            if (unitsPerSecond != null && segmentReq.getReturnConsumedCapacity() == null)
+                segmentReq.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            requests.add(segmentReq);
+        }
+        return new ParallelScanCollection(getClient(), requests,
+                spec.getExecutorService(), spec.getMaxInFlightPages(),
+                unitsPerSecond, scanSpec.getMaxResultSize());
+    }
+
+    /**
+     * Returns the provisioned read capacity units of what is being scanned.
+     */
+    protected long getProvisionedReadCapacityUnits(TableDescription desc) {
+        return readCapacityUnitsOf(desc.getProvisionedThroughput());
+    }
+
+    static long readCapacityUnitsOf(ProvisionedThroughputDescription throughput) {
+        if (throughput == null || throughput.getReadCapacityUnits() == null)
+            throw new IllegalStateException("provisioned read capacity is unknown");
+        return throughput.getReadCapacityUnits().longValue();
+    }
+
+    private ScanRequest prepareRequest(ScanSpec spec) {
         // set the table name
         String tableName = getTable().getTableName();
         ScanRequest req = spec.getRequest().withTableName(tableName);
@@ -91,6 +150,6 @@ public class ScanImpl extends AbstractImpl implements ScanApi {
         req.withExpressionAttributeNames(spec.getNameMap())
            .withExpressionAttributeValues(attrValMap)
            ;
-        return new ScanCollection(getClient(), spec);
+        return req;
     }
 }
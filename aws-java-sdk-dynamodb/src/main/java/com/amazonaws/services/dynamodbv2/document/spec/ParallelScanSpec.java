@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document.spec;
+
+import java.util.concurrent.ExecutorService;
+
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+
+/**
+ * API for fully specifying a parallel scan, which scans the segments of a
+ * table or index concurrently, as specified by a {@link ScanSpec}.
+ * <p>
+ * The exclusive start key, segment and total segments of the scan spec are
+ * ignored; each segment is scanned from its start.
+ */
+public class ParallelScanSpec {
+    /** Default maximum number of pages being scanned or not yet iterated over. */
+    public static final int DEFAULT_MAX_IN_FLIGHT_PAGES = 16;
+
+    private final ScanSpec scanSpec;
+    private int totalSegments;
+    private ExecutorService executorService;
+    private int maxInFlightPages = DEFAULT_MAX_IN_FLIGHT_PAGES;
+    private Double targetReadCapacityFraction;
+    private Double readCapacityUnitsPerSecond;
+
+    /**
+     * @param scanSpec
+     *            the parameters of the scan of each segment.
+     * @param totalSegments
+     *            the number of segments to scan concurrently.
+     *
+     * @see ScanRequest#withTotalSegments(Integer)
+     */
+    public ParallelScanSpec(ScanSpec scanSpec, int totalSegments) {
+        if (scanSpec == null)
+            throw new IllegalArgumentException("scan spec must be specified");
+        if (totalSegments < 1)
+            throw new IllegalArgumentException("total segments must be positive");
+        this.scanSpec = scanSpec;
+        this.totalSegments = totalSegments;
+    }
+
+    public ScanSpec getScanSpec() {
+        return scanSpec;
+    }
+
+    public int getTotalSegments() {
+        return totalSegments;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor on which to scan the segments. By default a pool of
+     * one daemon thread per segment is created for the scan, whose threads
+     * exit when idle; it is shut down when the scan completes or is closed.
+     * A given executor is not shut down.
+     */
+    public ParallelScanSpec withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    public int getMaxInFlightPages() {
+        return maxInFlightPages;
+    }
+
+    /**
+     * Sets the maximum number of pages being scanned or not yet iterated
+     * over, across all the segments. Segments stop scanning while that many
+     * pages are pending, so that a slow consumer doesn't buffer the table in
+     * memory. Defaults to {@value #DEFAULT_MAX_IN_FLIGHT_PAGES}.
+     */
+    public ParallelScanSpec withMaxInFlightPages(int maxInFlightPages) {
+        if (maxInFlightPages < 1)
+            throw new IllegalArgumentException("max in flight pages must be positive");
+        this.maxInFlightPages = maxInFlightPages;
+        return this;
+    }
+
+    public Double getTargetReadCapacityFraction() {
+        return targetReadCapacityFraction;
+    }
+
+    /**
+     * Limits the scan to the given fraction of the provisioned read capacity
+     * of the table, or of the global secondary index being scanned, which is
+     * described once when the scan starts. By default the scan is not rate
+     * limited.
+     */
+    public ParallelScanSpec withTargetReadCapacityFraction(double fraction) {
+        if (fraction <= 0)
+            throw new IllegalArgumentException("fraction must be positive");
+        this.targetReadCapacityFraction = fraction;
+        return this;
+    }
+
+    public Double getReadCapacityUnitsPerSecond() {
+        return readCapacityUnitsPerSecond;
+    }
+
+    /**
+     * Limits the scan to the given number of read capacity units per second,
+     * taking precedence over any target read capacity fraction. By default
+     * the scan is not rate limited.
+     */
+    public ParallelScanSpec withReadCapacityUnitsPerSecond(double unitsPerSecond) {
+        if (unitsPerSecond <= 0)
+            throw new IllegalArgumentException("units per second must be positive");
+        this.readCapacityUnitsPerSecond = unitsPerSecond;
+        return this;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.waiters;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.amazonaws.waiters.PollingStrategy;
+import com.amazonaws.waiters.SdkFunction;
+import com.amazonaws.waiters.Waiter;
+import com.amazonaws.waiters.WaiterAcceptor;
+import com.amazonaws.waiters.WaiterBuilder;
+import com.amazonaws.waiters.WaiterState;
+
+/**
+ * Waiters polling Amazon DynamoDB resources until they reach a desired state.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * dynamoDB.createTable(createTableRequest);
+ * dynamoDB.waiters().tableActive().run(new DescribeTableRequest(tableName));
+ * </pre>
+ */
+public class AmazonDynamoDBWaiters {
+
+    private final AmazonDynamoDB client;
+
+    public AmazonDynamoDBWaiters(AmazonDynamoDB client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns a waiter polling a table every 20 seconds, up to 25 times,
+     * until it is active. A table that doesn't exist yet is polled again.
+     */
+    public Waiter<DescribeTableRequest> tableActive() {
+        return new WaiterBuilder<DescribeTableRequest, DescribeTableResult>()
+                .withSdkFunction(new SdkFunction<DescribeTableRequest, DescribeTableResult>() {
+                    @Override
+                    public DescribeTableResult apply(DescribeTableRequest input) {
+                        return client.describeTable(input);
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeTableResult>() {
+                    @Override
+                    public boolean matches(DescribeTableResult output) {
+                        return TableStatus.ACTIVE.toString().equals(
+                                output.getTable().getTableStatus());
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.SUCCESS;
+                    }
+                })
+                .withAcceptor(WaiterAcceptor.<DescribeTableResult> errorCode(
+                        "ResourceNotFoundException", WaiterState.RETRY))
+                .withPollingStrategy(PollingStrategy.fixedDelay(25, 20 * 1000))
+                .build();
+    }
+}
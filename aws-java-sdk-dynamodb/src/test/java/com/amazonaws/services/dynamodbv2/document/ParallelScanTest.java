@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.document.spec.ParallelScanSpec;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+public class ParallelScanTest {
+
+    private static final int PAGES_PER_SEGMENT = 5;
+    private static final int ITEMS_PER_PAGE = 10;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    /**
+     * Returns pages of items named after their segment and page, counting
+     * the scans started.
+     */
+    private static class FakeClient extends AmazonDynamoDBClient {
+        final AtomicInteger scans = new AtomicInteger();
+        final Set<Integer> segments = Collections.synchronizedSet(new HashSet<Integer>());
+        volatile int failOnScan = -1;
+        volatile double unitsPerPage;
+
+        FakeClient() {
+            super(new BasicAWSCredentials("access", "secret"));
+        }
+
+        @Override
+        public ScanResult scan(ScanRequest request) {
+            final int scan = scans.incrementAndGet();
+            if (scan == failOnScan)
+                throw new AmazonServiceException("scan failed");
+            assertEquals("table", request.getTableName());
+            final int segment = request.getSegment();
+            segments.add(segment);
+            final int page = request.getExclusiveStartKey() == null ? 0
+                    : Integer.parseInt(request.getExclusiveStartKey().get("page").getN()) + 1;
+
+            List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+            for (int i = 0; i < ITEMS_PER_PAGE; i++) {
+                items.add(Collections.singletonMap("id",
+                        new AttributeValue(segment + "/" + page + "/" + i)));
+            }
+            ScanResult result = new ScanResult()
+                    .withItems(items)
+                    .withCount(ITEMS_PER_PAGE)
+                    .withScannedCount(ITEMS_PER_PAGE);
+            if (page + 1 < PAGES_PER_SEGMENT) {
+                Map<String, AttributeValue> lastKey = Collections.singletonMap(
+                        "page", new AttributeValue().withN(Integer.toString(page)));
+                result.setLastEvaluatedKey(lastKey);
+            }
+            if (request.getReturnConsumedCapacity() != null) {
+                assertEquals(ReturnConsumedCapacity.TOTAL.toString(),
+                        request.getReturnConsumedCapacity());
+                result.setConsumedCapacity(new ConsumedCapacity()
+                        .withCapacityUnits(unitsPerPage));
+            }
+            return result;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void scansAllSegments() {
+        FakeClient client = new FakeClient();
+        ParallelScanItemCollection items = new Table(client, "table").parallelScan(
+                new ParallelScanSpec(new ScanSpec(), 4).withExecutorService(executor));
+
+        Set<String> ids = new HashSet<String>();
+        for (Item item : items) {
+            assertTrue(ids.add(item.getString("id")));
+        }
+        assertEquals(4 * PAGES_PER_SEGMENT * ITEMS_PER_PAGE, ids.size());
+        assertEquals(4, client.segments.size());
+        assertEquals(ids.size(), items.getTotalCount());
+        assertEquals(4 * PAGES_PER_SEGMENT, client.scans.get());
+    }
+
+    @Test
+    public void boundsPagesAheadOfIteration() throws Exception {
+        FakeClient client = new FakeClient();
+        ParallelScanItemCollection items = new Table(client, "table").parallelScan(
+                new ParallelScanSpec(new ScanSpec(), 4)
+                        .withExecutorService(executor)
+                        .withMaxInFlightPages(3));
+        Iterator<Item> iterator = items.iterator();
+        assertTrue(iterator.hasNext());
+        Thread.sleep(200);
+        // One page taken by the iterator, three more scanned ahead
+        assertEquals(4, client.scans.get());
+
+        items.close();
+        for (int i = 0; i < ITEMS_PER_PAGE; i++) {
+            iterator.next();
+        }
+        assertFalse(iterator.hasNext());
+        Thread.sleep(100);
+        assertEquals(4, client.scans.get());
+    }
+
+    @Test
+    public void startsScanningOnIteration() throws Exception {
+        FakeClient client = new FakeClient();
+        ParallelScanItemCollection items = new Table(client, "table").parallelScan(
+                new ParallelScanSpec(new ScanSpec(), 2).withExecutorService(executor));
+        Thread.sleep(100);
+        assertEquals(0, client.scans.get());
+
+        assertTrue(items.iterator().hasNext());
+        items.close();
+        assertTrue(client.scans.get() > 0);
+    }
+
+    @Test
+    public void stopsAtMaxResultSize() {
+        FakeClient client = new FakeClient();
+        int count = 0;
+        for (Iterator<Item> it = new Table(client, "table").parallelScan(
+                new ParallelScanSpec(new ScanSpec().withMaxResultSize(25), 2))
+                .iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        assertEquals(25, count);
+    }
+
+    @Test
+    public void throwsScanFailures() {
+        FakeClient client = new FakeClient();
+        client.failOnScan = 3;
+        try {
+            for (Item item : new Table(client, "table").parallelScan(
+                    new ParallelScanSpec(new ScanSpec(), 2).withExecutorService(executor))) {
+                item.getString("id");
+            }
+            fail();
+        } catch (AmazonServiceException expected) {
+            assertEquals("scan failed", expected.getErrorMessage());
+        }
+    }
+
+    @Test
+    public void limitsConsumedCapacity() throws Exception {
+        FakeClient client = new FakeClient();
+        client.unitsPerPage = 20;
+        long start = System.nanoTime();
+        ParallelScanItemCollection items = new Table(client, "table").parallelScan(
+                new ParallelScanSpec(new ScanSpec(), 2)
+                        .withExecutorService(executor)
+                        .withReadCapacityUnitsPerSecond(100));
+        int count = 0;
+        for (Iterator<Item> it = items.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(2 * PAGES_PER_SEGMENT * ITEMS_PER_PAGE, count);
+        assertEquals(2 * PAGES_PER_SEGMENT * 20, items.getTotalConsumedCapacityUnits(), 0.001);
+        // 200 units at 100 units per second, less the first pages let through
+        assertTrue("took " + elapsedMillis + "ms", elapsedMillis >= 1000);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void iteratesOnce() {
+        ParallelScanItemCollection items = new Table(new FakeClient(), "table")
+                .parallelScan(new ParallelScanSpec(new ScanSpec(), 1));
+        items.iterator();
+        items.iterator();
+    }
+}
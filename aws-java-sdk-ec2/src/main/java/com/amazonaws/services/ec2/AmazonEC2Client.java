@@ -33,6 +33,7 @@ import com.amazonaws.util.AWSRequestMetrics.Field;
 
 import com.amazonaws.services.ec2.model.*;
 import com.amazonaws.services.ec2.model.transform.*;
+import com.amazonaws.services.ec2.waiters.AmazonEC2Waiters;
 
 /**
  * Client for accessing AmazonEC2.  All service calls made
@@ -51,6 +52,9 @@ public class AmazonEC2Client extends AmazonWebServiceClient implements AmazonEC2
     /** Provider for AWS credentials. */
     private AWSCredentialsProvider awsCredentialsProvider;
 
+    /** The waiters of this client; created on first use. */
+    private volatile AmazonEC2Waiters waiters;
+
     /**
      * List of exception unmarshallers for all AmazonEC2 exceptions.
      */
@@ -11799,6 +11803,21 @@ public class AmazonEC2Client extends AmazonWebServiceClient implements AmazonEC2
         return client.getResponseMetadataForRequest(request);
     }
 
+    /**
+     * Returns the waiters polling Amazon EC2 resources with this client until
+     * they reach a desired state.
+     */
+    public AmazonEC2Waiters waiters() {
+        if (waiters == null) {
+            synchronized (this) {
+                if (waiters == null) {
+                    waiters = new AmazonEC2Waiters(this);
+                }
+            }
+        }
+        return waiters;
+    }
+
     private <X, Y extends AmazonWebServiceRequest> Response<X> invoke(Request<Y> request,
             Unmarshaller<X, StaxUnmarshallerContext> unmarshaller,
             ExecutionContext executionContext)
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.ec2.waiters;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.InstanceStateName;
+import com.amazonaws.services.ec2.model.Reservation;
+import com.amazonaws.waiters.PollingStrategy;
+import com.amazonaws.waiters.SdkFunction;
+import com.amazonaws.waiters.Waiter;
+import com.amazonaws.waiters.WaiterAcceptor;
+import com.amazonaws.waiters.WaiterBuilder;
+import com.amazonaws.waiters.WaiterState;
+
+/**
+ * Waiters polling Amazon EC2 resources until they reach a desired state.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * ec2.waiters().instanceRunning().run(
+ *         new DescribeInstancesRequest().withInstanceIds(instanceIds));
+ * </pre>
+ */
+public class AmazonEC2Waiters {
+
+    /** The states from which an instance can't become running by itself. */
+    private static final List<String> INSTANCE_NOT_RUNNING_STATES = Arrays.asList(
+            InstanceStateName.ShuttingDown.toString(),
+            InstanceStateName.Terminated.toString(),
+            InstanceStateName.Stopping.toString());
+
+    private final AmazonEC2 client;
+
+    public AmazonEC2Waiters(AmazonEC2 client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns a waiter polling instances every 15 seconds, up to 40 times,
+     * until they are all running. The wait fails if any of them is shutting
+     * down, terminated or stopping. Instances that aren't known yet are polled
+     * again.
+     */
+    public Waiter<DescribeInstancesRequest> instanceRunning() {
+        return new WaiterBuilder<DescribeInstancesRequest, DescribeInstancesResult>()
+                .withSdkFunction(new SdkFunction<DescribeInstancesRequest, DescribeInstancesResult>() {
+                    @Override
+                    public DescribeInstancesResult apply(DescribeInstancesRequest input) {
+                        return client.describeInstances(input);
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeInstancesResult>() {
+                    @Override
+                    public boolean matches(DescribeInstancesResult output) {
+                        boolean any = false;
+                        for (Reservation reservation : output.getReservations()) {
+                            for (Instance instance : reservation.getInstances()) {
+                                if (!InstanceStateName.Running.toString().equals(
+                                        instance.getState().getName())) {
+                                    return false;
+                                }
+                                any = true;
+                            }
+                        }
+                        return any;
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.SUCCESS;
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeInstancesResult>() {
+                    @Override
+                    public boolean matches(DescribeInstancesResult output) {
+                        for (Reservation reservation : output.getReservations()) {
+                            for (Instance instance : reservation.getInstances()) {
+                                if (INSTANCE_NOT_RUNNING_STATES.contains(
+                                        instance.getState().getName())) {
+                                    return true;
+                                }
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.FAILURE;
+                    }
+                })
+                .withAcceptor(WaiterAcceptor.<DescribeInstancesResult> errorCode(
+                        "InvalidInstanceID.NotFound", WaiterState.RETRY))
+                .withPollingStrategy(PollingStrategy.fixedDelay(40, 15 * 1000))
+                .build();
+    }
+}
@@ -14,18 +14,25 @@
  */
 package com.amazonaws.services.glacier;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.services.glacier.internal.TreeHashInputStream;
 import com.amazonaws.util.BinaryUtils;
 
@@ -37,9 +44,26 @@ import com.amazonaws.util.BinaryUtils;
  */
 public class TreeHashGenerator {
 
+    private static final int MB = 1024 * 1024;
+
+    /** The size of the file regions mapped in memory at once; a multiple of 1MB. */
+    private static final long MAPPED_REGION_SIZE = 64L * MB;
+
+    /** The minimum number of chunks worth hashing on another thread. */
+    private static final int MIN_CHUNKS_PER_RANGE = 16;
+
+    /** The buffer size used to read input streams. */
+    private static final int STREAM_BUFFER_SIZE = 128 * 1024;
+
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    /** Hashes ranges of chunks for the calling threads; created on first use. */
+    private static ExecutorService executor;
+
 	/**
 	 * Calculates a hex encoded binary hash using a tree hashing algorithm for
-	 * the data in the specified file.
+	 * the data in the specified file. The file is memory mapped and its 1MB
+	 * chunks are hashed on all the available processors.
 	 * 
 	 * @param file
 	 *            The file containing the data to hash.
@@ -53,16 +77,46 @@ public class TreeHashGenerator {
 	 */
     public static String calculateTreeHash(File file)
             throws AmazonClientException {
-        ResettableInputStream is = null;
+        return calculateTreeHash(file, 0, file.length());
+    }
+
+	/**
+	 * Calculates a hex encoded binary hash using a tree hashing algorithm for
+	 * the specified portion of a file, such as a part of a multipart upload.
+	 * The portion is memory mapped and its 1MB chunks are hashed on all the
+	 * available processors.
+	 * 
+	 * @param file
+	 *            The file containing the data to hash.
+	 * @param offset
+	 *            The position in the file of the first byte to hash.
+	 * @param length
+	 *            The number of bytes to hash.
+	 * 
+	 * @return The hex encoded binary tree hash for the data in the specified
+	 *         portion of the file.
+	 * 
+	 * @throws AmazonClientException
+	 *             If any problems were encountered reading the data or
+	 *             computing the hash.
+	 */
+    public static String calculateTreeHash(File file, long offset, long length)
+            throws AmazonClientException {
+        if (length <= 0) {
+            throw new AmazonClientException("Unable to compute hash for an empty portion of file: "
+                    + file.getAbsolutePath());
+        }
+        RandomAccessFile raf = null;
         try {
-            is = new ResettableInputStream(file);
-            return calculateTreeHash(is);
+            raf = new RandomAccessFile(file, "r");
+            return calculateTreeHash(calculateChecksums(raf.getChannel(), offset, length));
         } catch (IOException e) {
             throw new AmazonClientException("Unable to compute hash for file: "
                     + file.getAbsolutePath(), e);
         } finally {
-            if (is != null)
-                is.release();
+            if (raf != null) {
+                try { raf.close(); } catch (IOException e) {}
+            }
         }
     }
 
@@ -86,7 +140,7 @@ public class TreeHashGenerator {
         try {
             TreeHashInputStream treeHashInputStream =
                 new TreeHashInputStream(input);
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
             while (treeHashInputStream.read(buffer, 0, buffer.length) != -1);
             // closing is currently required to compute the checksum 
             treeHashInputStream.close();
@@ -118,21 +172,17 @@ public class TreeHashGenerator {
          * one element. Any final odd-numbered parts at each step are carried
          * over to the next iteration as-is.
          */
-        List<byte[]> hashes = new ArrayList<byte[]>();
-        hashes.addAll(checksums);
+        if (checksums.isEmpty()) {
+            throw new AmazonClientException("Unable to compute hash of no checksums");
+        }
+        MessageDigest messageDigest = newSHA256MessageDigest();
+        List<byte[]> hashes = checksums;
         while ( hashes.size() > 1 ) {
-            List<byte[]> treeHashes = new ArrayList<byte[]>();
+            List<byte[]> treeHashes = new ArrayList<byte[]>((hashes.size() + 1) / 2);
             for ( int i = 0; i < hashes.size() / 2; i++ ) {
-                byte[] firstPart = hashes.get(2 * i);
-                byte[] secondPart = hashes.get(2 * i + 1);
-                byte[] concatenation = new byte[firstPart.length + secondPart.length];
-                System.arraycopy(firstPart, 0, concatenation, 0, firstPart.length);
-                System.arraycopy(secondPart, 0, concatenation, firstPart.length, secondPart.length);
-                try {
-					treeHashes.add(computeSHA256Hash(concatenation));
-				} catch (Exception e) {
-					throw new AmazonClientException("Unable to compute hash", e);
-				}
+                messageDigest.update(hashes.get(2 * i));
+                messageDigest.update(hashes.get(2 * i + 1));
+                treeHashes.add(messageDigest.digest());
             }
             if ( hashes.size() % 2 == 1 ) {
                 treeHashes.add(hashes.get(hashes.size() - 1));
@@ -142,20 +192,103 @@ public class TreeHashGenerator {
 
         return BinaryUtils.toHex(hashes.get(0));
     }
-    
 
-    private static byte[] computeSHA256Hash(byte[] data) throws NoSuchAlgorithmException, IOException {
-        BufferedInputStream bis = new BufferedInputStream(new ByteArrayInputStream(data));
+    /**
+     * Returns the SHA-256 checksums of the consecutive 1MB chunks of the given
+     * portion of a file, computed on memory mapped regions of the file. Large
+     * portions are split in as many ranges of chunks as there are processors,
+     * one of which is hashed by the calling thread.
+     */
+    private static List<byte[]> calculateChecksums(final FileChannel channel,
+            final long offset, final long length) throws IOException {
+        final int chunkCount = (int) ((length + MB - 1) / MB);
+        final byte[][] checksums = new byte[chunkCount][];
+        final int rangeCount = Math.min(PROCESSORS, chunkCount / MIN_CHUNKS_PER_RANGE);
+        if (rangeCount <= 1) {
+            digestChunks(channel, offset, length, checksums, 0, chunkCount);
+            return Arrays.asList(checksums);
+        }
+
+        final int chunksPerRange = (chunkCount + rangeCount - 1) / rangeCount;
+        final List<Future<?>> futures = new ArrayList<Future<?>>(rangeCount - 1);
         try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[16384];
-            int bytesRead = -1;
-            while ( (bytesRead = bis.read(buffer, 0, buffer.length)) != -1 ) {
-                messageDigest.update(buffer, 0, bytesRead);
+            for (int from = chunksPerRange; from < chunkCount; from += chunksPerRange) {
+                final int start = from;
+                final int end = Math.min(from + chunksPerRange, chunkCount);
+                futures.add(executor().submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            digestChunks(channel, offset, length, checksums, start, end);
+                        } catch (IOException e) {
+                            throw new AmazonClientException("Unable to compute hash", e);
+                        }
+                    }
+                }));
             }
-            return messageDigest.digest();
+            digestChunks(channel, offset, length, checksums, 0, chunksPerRange);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while computing hash", e);
+        } catch (ExecutionException e) {
+            throw new AmazonClientException("Unable to compute hash", e.getCause());
         } finally {
-            try { bis.close(); } catch ( Exception e ) {}
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return Arrays.asList(checksums);
+    }
+
+    /**
+     * Stores in the given array the checksums of the chunks of the given
+     * portion of a file from the chunk at index from, inclusive, to the chunk
+     * at index to, exclusive.
+     */
+    private static void digestChunks(FileChannel channel, long offset,
+            long length, byte[][] checksums, int from, int to) throws IOException {
+        MessageDigest messageDigest = newSHA256MessageDigest();
+        int chunk = from;
+        while (chunk < to) {
+            long regionStart = (long) chunk * MB;
+            long regionSize = Math.min(Math.min(MAPPED_REGION_SIZE, (long) (to - chunk) * MB),
+                    length - regionStart);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                    offset + regionStart, regionSize);
+            for (int position = 0; position < regionSize; position += MB) {
+                ByteBuffer slice = region.duplicate();
+                slice.position(position);
+                slice.limit((int) Math.min(position + MB, regionSize));
+                messageDigest.update(slice);
+                checksums[chunk++] = messageDigest.digest();
+            }
+        }
+    }
+
+    private static MessageDigest newSHA256MessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AmazonClientException("Unable to compute hash", e);
+        }
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(PROCESSORS - 1, new ThreadFactory() {
+                private int threadCount = 1;
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setName("glacier-tree-hash-worker-" + threadCount++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
+        return executor;
     }
 }
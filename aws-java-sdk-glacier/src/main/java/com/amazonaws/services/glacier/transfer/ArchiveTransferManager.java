@@ -27,9 +27,17 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -87,6 +95,12 @@ public class ArchiveTransferManager {
     /** Default retry time when downloading in multiple chunks using range retrieval */
     private static final int DEFAULT_MAX_RETRIES = 3;
 
+    /**
+     * The number of threads transferring parts or chunks concurrently, when
+     * no executor service is specified.
+     */
+    private static final int DEFAULT_THREAD_COUNT = 10;
+
     /** Glacier client used for making all requests. */
     private final AmazonGlacier glacier;
 
@@ -98,6 +112,12 @@ public class ArchiveTransferManager {
 
     private final AmazonSNSClient sns;
 
+    /**
+     * The executor service transferring parts and chunks; or null to use a
+     * new thread pool for each transfer.
+     */
+    private final ExecutorService executorService;
+
     private static final Log log = LogFactory.getLog(ArchiveTransferManager.class);
 
     /**
@@ -163,11 +183,37 @@ public class ArchiveTransferManager {
      *            timeouts.
      */
     public ArchiveTransferManager(AmazonGlacierClient glacier, AWSCredentialsProvider credentialsProvider, ClientConfiguration clientConfiguration) {
+        this(glacier, credentialsProvider, clientConfiguration, null);
+    }
+
+    /**
+     * Constructs a new ArchiveTransferManager, using the specified Amazon
+     * Glacier client, AWS credentials provider and client configuration, and
+     * the specified executor service to upload parts and download chunks
+     * concurrently.
+     * <p>
+     * The executor service is not shut down by the ArchiveTransferManager.
+     *
+     * @param glacier
+     *            The client for working with Amazon Glacier.
+     * @param credentialsProvider
+     *            The AWS credentials provider used to authenticate requests.
+     * @param clientConfiguration
+     *            Client specific options, such as proxy settings, retries, and
+     *            timeouts.
+     * @param executorService
+     *            The executor service used to upload parts and download chunks
+     *            concurrently; or null to use a new pool of
+     *            {@value #DEFAULT_THREAD_COUNT} threads for each transfer.
+     */
+    public ArchiveTransferManager(AmazonGlacierClient glacier, AWSCredentialsProvider credentialsProvider,
+            ClientConfiguration clientConfiguration, ExecutorService executorService) {
         this.credentialsProvider = credentialsProvider;
         this.clientConfiguration = clientConfiguration;
         this.glacier = glacier;
         this.sns = null;
         this.sqs = null;
+        this.executorService = executorService;
     }
 
     /**
@@ -190,11 +236,38 @@ public class ArchiveTransferManager {
      *            retrieval job status.
      */
     public ArchiveTransferManager(AmazonGlacierClient glacier, AmazonSQSClient sqs, AmazonSNSClient sns) {
+        this(glacier, sqs, sns, null);
+    }
+
+    /**
+     * Constructs a new ArchiveTransferManager, using the specified Amazon
+     * Glacier client, the specified Amazon SQS and Amazon SNS clients for
+     * polling download job status, and the specified executor service to
+     * upload parts and download chunks concurrently.
+     * <p>
+     * The executor service is not shut down by the ArchiveTransferManager.
+     *
+     * @param glacier
+     *            The client for working with Amazon Glacier.
+     * @param sqs
+     *            The client for working with Amazon SQS when polling archive
+     *            retrieval job status.
+     * @param sns
+     *            The client for working with Amazon SNS when polling archive
+     *            retrieval job status.
+     * @param executorService
+     *            The executor service used to upload parts and download chunks
+     *            concurrently; or null to use a new pool of
+     *            {@value #DEFAULT_THREAD_COUNT} threads for each transfer.
+     */
+    public ArchiveTransferManager(AmazonGlacierClient glacier, AmazonSQSClient sqs, AmazonSNSClient sns,
+            ExecutorService executorService) {
         this.credentialsProvider = null;
         this.clientConfiguration = null;
         this.glacier = glacier;
         this.sqs = sqs;
         this.sns = sns;
+        this.executorService = executorService;
     }
 
     /**
@@ -460,7 +533,7 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
+     * individual chunks of the data, several at a time, in order to handle any
      * transient errors along the way.
      *
      * @param accountId
@@ -482,7 +555,7 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
+     * individual chunks of the data, several at a time, in order to handle any
      * transient errors along the way. You can also add an optional progress
      * listener for receiving updates about the download status.
      *
@@ -531,6 +604,9 @@ public class ArchiveTransferManager {
             throw new AmazonClientException("Unable to open the output file " + file.getPath(), e);
         }
 
+        final FileChannel channel = output.getChannel();
+        final ExecutorService executor = executorService != null ? executorService : newExecutorService();
+        final List<Future<?>> chunks = new ArrayList<Future<?>>();
         try {
             publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
             while (currentPosition < archiveSize) {
@@ -539,23 +615,48 @@ public class ArchiveTransferManager {
                 } else {
                     endPosition = currentPosition + chunkSize - 1;
                 }
-    
-                // Download the chunk
-                try {
-                    downloadOneChunk(accountId, vaultName, jobId, output,
-                            currentPosition, endPosition, progressListener);
-                } catch (Throwable t) {
-                    publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
-                    throw failure(t);
-                }
+
+                chunks.add(executor.submit(newDownloadChunkCallable(accountId,
+                        vaultName, jobId, channel, currentPosition,
+                        endPosition, progressListener)));
                 currentPosition += chunkSize;
             }
+
+            // Wait for the chunks to be downloaded
+            try {
+                for (Future<?> chunk : chunks) {
+                    chunk.get();
+                }
+            } catch (Throwable t) {
+                for (Future<?> chunk : chunks) {
+                    chunk.cancel(true);
+                }
+                publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                throw failure(unwrapExecutionException(t));
+            }
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
         } finally {
+            if (executor != executorService) {
+                executor.shutdownNow();
+            }
             closeQuietly(output, log);
         }
     }
 
+    private Callable<Void> newDownloadChunkCallable(final String accountId,
+            final String vaultName, final String jobId,
+            final FileChannel output, final long currentPosition,
+            final long endPosition, final ProgressListener progressListener) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                downloadOneChunk(accountId, vaultName, jobId, output,
+                        currentPosition, endPosition, progressListener);
+                return null;
+            }
+        };
+    }
+
     private void validateChunkSize(long chunkSize) {
         if (chunkSize <= 0) {
             throw new AmazonClientException("Invalid chunk size, chunk size must be great than 0");
@@ -572,7 +673,7 @@ public class ArchiveTransferManager {
      * errors are encountered while streaming the data from Amazon Glacier.
      */
     private void downloadOneChunk(String accountId, String vaultName,
-            String jobId, RandomAccessFile output, long currentPosition,
+            String jobId, FileChannel output, long currentPosition,
             long endPosition, ProgressListener progressListener) {
         final long chunkSize = endPosition - currentPosition + 1;
         TreeHashInputStream input = null;
@@ -589,7 +690,7 @@ public class ArchiveTransferManager {
                 GetJobOutputResult jobOutputResult = glacier.getJobOutput(req);
                 try {
                     input = new TreeHashInputStream(new BufferedInputStream(jobOutputResult.getBody()));
-                    appendToFile(output, input);
+                    writeToFile(output, currentPosition, input);
                 } catch (NoSuchAlgorithmException e) {
                     throw failure(e, "Unable to compute hash for data integrity");
                 } finally {
@@ -624,11 +725,6 @@ public class ArchiveTransferManager {
                                 + currentPosition + " endPosition="
                                 + endPosition);
                     }
-                    try {
-                        output.seek(currentPosition);
-                    } catch (IOException e) {
-                        throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), e);
-                    }
                 } else {
                     throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
                 }
@@ -637,9 +733,11 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Writes the data from the given input stream to the given output stream.
+     * Writes the data from the given input stream to the given file channel,
+     * starting at the given position. Positional writes leave the position of
+     * the channel unchanged, so that chunks can be written concurrently.
      */
-    private void appendToFile(RandomAccessFile output, InputStream input)
+    private void writeToFile(FileChannel output, long position, InputStream input)
             throws IOException {
         byte[] buffer = new byte[1024 * 1024];
         int bytesRead = 0;
@@ -647,11 +745,38 @@ public class ArchiveTransferManager {
             bytesRead = input.read(buffer);
             if (bytesRead < 0)
                 break;
-            output.write(buffer, 0, bytesRead);
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, bytesRead);
+            while (bytes.hasRemaining()) {
+                position += output.write(bytes, position);
+            }
         } while (bytesRead > 0);
         return;
     }
 
+    /**
+     * Returns a new thread pool for the parts or chunks of a single transfer.
+     */
+    private static ExecutorService newExecutorService() {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private int threadCount = 1;
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("glacier-transfer-manager-worker-" + threadCount++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return Executors.newFixedThreadPool(DEFAULT_THREAD_COUNT, threadFactory);
+    }
+
+    private static Throwable unwrapExecutionException(Throwable t) {
+        if (t instanceof ExecutionException && t.getCause() != null) {
+            return t.getCause();
+        }
+        return t;
+    }
+
     /**
      * Calculates the part size to use when uploading an archive of the
      * specified size using Glacier's multipart upload APIs. Because of the tree
@@ -694,56 +819,25 @@ public class ArchiveTransferManager {
             throw failure(t);
         }
         publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
-        final String fileNotFoundMsg = "Unable to find file '"
-                + file.getAbsolutePath() + "'";
+        final ExecutorService executor = executorService != null ? executorService : newExecutorService();
+        final List<Future<byte[]>> parts = new ArrayList<Future<byte[]>>();
         try {
-            List<byte[]> binaryChecksums = new LinkedList<byte[]>();
-
             long currentPosition = 0;
             while (currentPosition < file.length()) {
                 long length = partSize;
                 if (currentPosition + partSize > file.length()) {
                     length = file.length() - currentPosition;
                 }
-
-                Exception failedException = null;
-                boolean completed = false;
-                int tries = 0;
-                    while (!completed && tries < 5){
-                        tries++;
-                        InputSubstream inputSubStream = null;
-                        try {
-                            inputSubStream = new InputSubstream(
-                                    newResettableInputStream(file, fileNotFoundMsg)
-                                        .disableClose(), // requires explicit release
-                                    currentPosition, length, true);
-                            String checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
-                            byte[] binaryChecksum = BinaryUtils.fromHex(checksum);
-                            inputSubStream.reset();
-                            UploadMultipartPartRequest req = new UploadMultipartPartRequest()
-                                .withAccountId(accountId)
-                                .withChecksum(checksum)
-                                .withBody(inputSubStream)
-                                .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
-                                .withUploadId(uploadId)
-                                .withVaultName(vaultName)
-                                .withGeneralProgressListener(progressListener)
-                                ;
-                            
-                            glacier.uploadMultipartPart(req);
-                            completed = true;
-                            binaryChecksums.add(binaryChecksum);
-                        } catch (Exception e){
-                            failedException = e;
-                        } finally {
-                            // We opened the file underneath; so need to release it
-                            release(inputSubStream, log);
-                        }
-                    } // end inner while
-                if (!completed && failedException!=null)
-                    throw failedException;
+                parts.add(executor.submit(newUploadPartCallable(accountId,
+                        vaultName, uploadId, file, currentPosition, length,
+                        progressListener)));
                 currentPosition += partSize;
-            } // end outer while
+            }
+
+            List<byte[]> binaryChecksums = new ArrayList<byte[]>(parts.size());
+            for (Future<byte[]> part : parts) {
+                binaryChecksums.add(part.get());
+            }
 
             String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
 
@@ -760,10 +854,75 @@ public class ArchiveTransferManager {
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
             return new UploadResult(artifactId);
         } catch (Throwable t) {
+            for (Future<byte[]> part : parts) {
+                part.cancel(true);
+            }
             publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
             glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, uploadId));
-            throw failure(t, "Unable to finish the upload");
+            throw failure(unwrapExecutionException(t), "Unable to finish the upload");
+        } finally {
+            if (executor != executorService) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private Callable<byte[]> newUploadPartCallable(final String accountId,
+            final String vaultName, final String uploadId, final File file,
+            final long currentPosition, final long length,
+            final ProgressListener progressListener) {
+        return new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                return uploadOnePart(accountId, vaultName, uploadId, file,
+                        currentPosition, length, progressListener);
+            }
+        };
+    }
+
+    /**
+     * Uploads one part of a multipart upload, retrying if any errors are
+     * encountered, and returns the binary tree hash of the part.
+     */
+    private byte[] uploadOnePart(String accountId, String vaultName,
+            String uploadId, File file, long currentPosition, long length,
+            ProgressListener progressListener) throws Exception {
+        final String fileNotFoundMsg = "Unable to find file '"
+                + file.getAbsolutePath() + "'";
+        final String checksum = TreeHashGenerator.calculateTreeHash(file, currentPosition, length);
+        Exception failedException = null;
+        int tries = 0;
+        while (tries < 5) {
+            tries++;
+            InputSubstream inputSubStream = null;
+            try {
+                inputSubStream = new InputSubstream(
+                        newResettableInputStream(file, fileNotFoundMsg)
+                            .disableClose(), // requires explicit release
+                        currentPosition, length, true);
+                UploadMultipartPartRequest req = new UploadMultipartPartRequest()
+                    .withAccountId(accountId)
+                    .withChecksum(checksum)
+                    .withBody(inputSubStream)
+                    .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
+                    .withUploadId(uploadId)
+                    .withVaultName(vaultName)
+                    .withGeneralProgressListener(progressListener)
+                    ;
+
+                glacier.uploadMultipartPart(req);
+                return BinaryUtils.fromHex(checksum);
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                failedException = e;
+            } finally {
+                // We opened the file underneath; so need to release it
+                release(inputSubStream, log);
+            }
         }
+        throw failedException;
     }
 
     private UploadResult uploadInSinglePart(final String accountId,
@@ -34,6 +34,7 @@ import com.amazonaws.util.json.*;
 
 import com.amazonaws.services.kinesis.model.*;
 import com.amazonaws.services.kinesis.model.transform.*;
+import com.amazonaws.services.kinesis.waiters.AmazonKinesisWaiters;
 
 /**
  * Client for accessing AmazonKinesis.  All service calls made
@@ -50,6 +51,9 @@ public class AmazonKinesisClient extends AmazonWebServiceClient implements Amazo
     /** Provider for AWS credentials. */
     private AWSCredentialsProvider awsCredentialsProvider;
 
+    /** The waiters of this client; created on first use. */
+    private volatile AmazonKinesisWaiters waiters;
+
     private static final Log log = LogFactory.getLog(AmazonKinesis.class);
 
     /**
@@ -2465,6 +2469,21 @@ public class AmazonKinesisClient extends AmazonWebServiceClient implements Amazo
         return client.getResponseMetadataForRequest(request);
     }
 
+    /**
+     * Returns the waiters polling Amazon Kinesis resources with this client until
+     * they reach a desired state.
+     */
+    public AmazonKinesisWaiters waiters() {
+        if (waiters == null) {
+            synchronized (this) {
+                if (waiters == null) {
+                    waiters = new AmazonKinesisWaiters(this);
+                }
+            }
+        }
+        return waiters;
+    }
+
     private <X, Y extends AmazonWebServiceRequest> Response<X> invoke(Request<Y> request,
             HttpResponseHandler<AmazonWebServiceResponse<X>> responseHandler,
             ExecutionContext executionContext) {
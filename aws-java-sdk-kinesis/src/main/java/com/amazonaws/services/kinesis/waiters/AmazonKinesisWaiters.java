@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.kinesis.waiters;
+
+import com.amazonaws.services.kinesis.AmazonKinesis;
+import com.amazonaws.services.kinesis.model.DescribeStreamRequest;
+import com.amazonaws.services.kinesis.model.DescribeStreamResult;
+import com.amazonaws.services.kinesis.model.StreamStatus;
+import com.amazonaws.waiters.PollingStrategy;
+import com.amazonaws.waiters.SdkFunction;
+import com.amazonaws.waiters.Waiter;
+import com.amazonaws.waiters.WaiterAcceptor;
+import com.amazonaws.waiters.WaiterBuilder;
+import com.amazonaws.waiters.WaiterState;
+
+/**
+ * Waiters polling Amazon Kinesis resources until they reach a desired state.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * kinesis.createStream(streamName, shardCount);
+ * kinesis.waiters().streamActive().run(new DescribeStreamRequest().withStreamName(streamName));
+ * </pre>
+ */
+public class AmazonKinesisWaiters {
+
+    private final AmazonKinesis client;
+
+    public AmazonKinesisWaiters(AmazonKinesis client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns a waiter polling a stream every 10 seconds, up to 18 times,
+     * until it is active.
+     */
+    public Waiter<DescribeStreamRequest> streamActive() {
+        return new WaiterBuilder<DescribeStreamRequest, DescribeStreamResult>()
+                .withSdkFunction(new SdkFunction<DescribeStreamRequest, DescribeStreamResult>() {
+                    @Override
+                    public DescribeStreamResult apply(DescribeStreamRequest input) {
+                        return client.describeStream(input);
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeStreamResult>() {
+                    @Override
+                    public boolean matches(DescribeStreamResult output) {
+                        return StreamStatus.ACTIVE.toString().equals(
+                                output.getStreamDescription().getStreamStatus());
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.SUCCESS;
+                    }
+                })
+                .withPollingStrategy(PollingStrategy.fixedDelay(18, 10 * 1000))
+                .build();
+    }
+}
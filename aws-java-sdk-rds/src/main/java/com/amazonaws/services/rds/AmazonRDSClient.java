@@ -33,6 +33,7 @@ import com.amazonaws.util.AWSRequestMetrics.Field;
 
 import com.amazonaws.services.rds.model.*;
 import com.amazonaws.services.rds.model.transform.*;
+import com.amazonaws.services.rds.waiters.AmazonRDSWaiters;
 
 /**
  * Client for accessing AmazonRDS.  All service calls made
@@ -77,6 +78,9 @@ public class AmazonRDSClient extends AmazonWebServiceClient implements AmazonRDS
     /** Provider for AWS credentials. */
     private AWSCredentialsProvider awsCredentialsProvider;
 
+    /** The waiters of this client; created on first use. */
+    private volatile AmazonRDSWaiters waiters;
+
     /**
      * List of exception unmarshallers for all AmazonRDS exceptions.
      */
@@ -5177,6 +5181,21 @@ public class AmazonRDSClient extends AmazonWebServiceClient implements AmazonRDS
         return client.getResponseMetadataForRequest(request);
     }
 
+    /**
+     * Returns the waiters polling Amazon RDS resources with this client until
+     * they reach a desired state.
+     */
+    public AmazonRDSWaiters waiters() {
+        if (waiters == null) {
+            synchronized (this) {
+                if (waiters == null) {
+                    waiters = new AmazonRDSWaiters(this);
+                }
+            }
+        }
+        return waiters;
+    }
+
     private <X, Y extends AmazonWebServiceRequest> Response<X> invoke(Request<Y> request,
             Unmarshaller<X, StaxUnmarshallerContext> unmarshaller,
             ExecutionContext executionContext)
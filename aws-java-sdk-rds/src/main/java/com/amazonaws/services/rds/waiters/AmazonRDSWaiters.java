@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.rds.waiters;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBInstance;
+import com.amazonaws.services.rds.model.DescribeDBInstancesRequest;
+import com.amazonaws.services.rds.model.DescribeDBInstancesResult;
+import com.amazonaws.waiters.PollingStrategy;
+import com.amazonaws.waiters.SdkFunction;
+import com.amazonaws.waiters.Waiter;
+import com.amazonaws.waiters.WaiterAcceptor;
+import com.amazonaws.waiters.WaiterBuilder;
+import com.amazonaws.waiters.WaiterState;
+
+/**
+ * Waiters polling Amazon RDS resources until they reach a desired state.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * rds.waiters().dBInstanceAvailable().run(
+ *         new DescribeDBInstancesRequest().withDBInstanceIdentifier(dbInstanceIdentifier));
+ * </pre>
+ */
+public class AmazonRDSWaiters {
+
+    /** The states from which a DB instance can't become available by itself. */
+    private static final List<String> DB_INSTANCE_UNAVAILABLE_STATES = Arrays.asList(
+            "deleted", "deleting", "failed", "incompatible-restore", "incompatible-parameters");
+
+    private final AmazonRDS client;
+
+    public AmazonRDSWaiters(AmazonRDS client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns a waiter polling DB instances every 30 seconds, up to 60 times,
+     * until they are all available. The wait fails if any of them is deleted,
+     * failed or incompatible.
+     */
+    public Waiter<DescribeDBInstancesRequest> dBInstanceAvailable() {
+        return new WaiterBuilder<DescribeDBInstancesRequest, DescribeDBInstancesResult>()
+                .withSdkFunction(new SdkFunction<DescribeDBInstancesRequest, DescribeDBInstancesResult>() {
+                    @Override
+                    public DescribeDBInstancesResult apply(DescribeDBInstancesRequest input) {
+                        return client.describeDBInstances(input);
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeDBInstancesResult>() {
+                    @Override
+                    public boolean matches(DescribeDBInstancesResult output) {
+                        if (output.getDBInstances().isEmpty()) {
+                            return false;
+                        }
+                        for (DBInstance instance : output.getDBInstances()) {
+                            if (!"available".equals(instance.getDBInstanceStatus())) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.SUCCESS;
+                    }
+                })
+                .withAcceptor(new WaiterAcceptor<DescribeDBInstancesResult>() {
+                    @Override
+                    public boolean matches(DescribeDBInstancesResult output) {
+                        for (DBInstance instance : output.getDBInstances()) {
+                            if (DB_INSTANCE_UNAVAILABLE_STATES.contains(instance.getDBInstanceStatus())) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public WaiterState getState() {
+                        return WaiterState.FAILURE;
+                    }
+                })
+                .withPollingStrategy(PollingStrategy.fixedDelay(60, 30 * 1000))
+                .build();
+    }
+}
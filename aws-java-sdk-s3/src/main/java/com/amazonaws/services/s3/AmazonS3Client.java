@@ -1288,7 +1288,9 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                 metadata.setContentType(Mimetypes.getInstance().getMimetype(file));
             }
 
-            if (calculateMD5 && !skipContentMd5Check) {
+            // In single-pass mode the MD5 is computed while uploading below
+            if (calculateMD5 && !skipContentMd5Check
+                    && !clientOptions.isSinglePassFileUpload()) {
                 try {
                     String contentMd5_b64 = Md5Utils.md5AsBase64(file);
                     metadata.setContentMD5(contentMd5_b64);
@@ -34,6 +34,7 @@ import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.services.s3.internal.MultiBufferOutputStream;
 import com.amazonaws.services.s3.internal.MultiFileOutputStream;
 import com.amazonaws.services.s3.internal.PartCreationEvent;
 import com.amazonaws.services.s3.internal.S3Direct;
@@ -665,6 +666,9 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
      * completed parts</li>
      * <li>the configuration of your own {@link MultiFileOutputStream} for
      * custom pipeline behavior</li>
+     * <li>the configuration of a {@link MultiBufferOutputStream} to hold the
+     * ciphertext parts in memory instead of temporary files, in which case the
+     * disk limit bounds the memory used by the buffers of the parts</li>
      * <li>the configuration of your own {@link UploadObjectObserver} for custom
      * multi-part upload behavior</li>
      * </ul>
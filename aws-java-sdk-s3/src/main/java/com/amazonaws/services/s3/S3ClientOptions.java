@@ -22,13 +22,20 @@ public class S3ClientOptions {
     /** The default setting for use of path-style access */
     public static final boolean DEFAULT_PATH_STYLE_ACCESS = false;
 
+    /** The default setting for single-pass uploads of files */
+    public static final boolean DEFAULT_SINGLE_PASS_FILE_UPLOAD = false;
+
     /** Flag for use of path-style access */
     private boolean pathStyleAccess = DEFAULT_PATH_STYLE_ACCESS;
 
+    /** Flag for reading files only once when uploading them */
+    private boolean singlePassFileUpload = DEFAULT_SINGLE_PASS_FILE_UPLOAD;
+
     public S3ClientOptions() {}
 
     public S3ClientOptions( S3ClientOptions other ) {
         this.pathStyleAccess = other.pathStyleAccess;
+        this.singlePassFileUpload = other.singlePassFileUpload;
     }
 
     /**
@@ -103,4 +110,59 @@ public class S3ClientOptions {
       return this;
     }
 
-}
\ No newline at end of file
+    /**
+     * <p>
+     * Returns whether the client reads a file only once when uploading it
+     * with a put object request.
+     * </p>
+     * <p>
+     * By default, unless the Content-MD5 of the object is given, the client
+     * reads the whole file to compute it before uploading the file, so that
+     * Amazon S3 rejects an upload corrupted in transit. In single-pass mode
+     * the MD5 digest is instead computed as the file is uploaded, and checked
+     * against the ETag returned by Amazon S3, as for uploads from a stream.
+     * This halves the disk reads of large uploads, but a corrupted upload is
+     * only detected once stored, and is reported as an error asking to delete
+     * the object.
+     * </p>
+     * <p>
+     * The payload is signed with streaming, chunked Signature Version 4, so
+     * it is never read just to compute its SHA-256 hash.
+     * </p>
+     * @return True if the client reads files only once when uploading them
+     */
+    public boolean isSinglePassFileUpload() {
+        return singlePassFileUpload;
+    }
+
+    /**
+     * <p>
+     * Configures the client to read a file only once when uploading it with
+     * a put object request, computing its MD5 digest as it is uploaded rather
+     * than before. See {@link #isSinglePassFileUpload()}.
+     * </p>
+     * @param singlePassFileUpload
+     *            True to read files only once when uploading them.
+     */
+    public void setSinglePassFileUpload(boolean singlePassFileUpload) {
+        this.singlePassFileUpload = singlePassFileUpload;
+    }
+
+    /**
+     * <p>
+     * Configures the client to read a file only once when uploading it with
+     * a put object request, computing its MD5 digest as it is uploaded rather
+     * than before. See {@link #isSinglePassFileUpload()}.
+     * </p>
+     * @param singlePassFileUpload
+     *            True to read files only once when uploading them.
+     *
+     * @return The updated S3ClientOptions object with the new single-pass
+     *         file upload setting.
+     */
+    public S3ClientOptions withSinglePassFileUpload(boolean singlePassFileUpload) {
+        setSinglePassFileUpload(singlePassFileUpload);
+        return this;
+    }
+
+}
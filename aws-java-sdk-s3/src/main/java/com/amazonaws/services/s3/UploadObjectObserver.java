@@ -14,6 +14,7 @@
  */
 package com.amazonaws.services.s3;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
@@ -138,12 +139,25 @@ public class UploadObjectObserver {
      *            which is ready for multipart upload to S3.
      */
     public void onPartCreate(PartCreationEvent event) {
+        futures.add(es.submit(newUploadPartCallable(event)));
+    }
+
+    /**
+     * Returns the task uploading the part of the given part-creation event,
+     * which deletes the ciphertext file of the part, or gives its buffer back
+     * for reuse, once the part has been uploaded.
+     *
+     * @param event
+     *            to represent the completion of a ciphertext part creation
+     *            which is ready for multipart upload to S3.
+     */
+    protected Callable<UploadPartResult> newUploadPartCallable(PartCreationEvent event) {
         final File part = event.getPart();
         final UploadPartRequest reqUploadPart =
             newUploadPartRequest(event, part);
         final OnFileDelete fileDeleteObserver = event.getFileDeleteObserver();
         appendUserAgent(reqUploadPart, AmazonS3EncryptionClient.USER_AGENT);
-        futures.add(es.submit(new Callable<UploadPartResult>() {
+        return new Callable<UploadPartResult>() {
             @Override public UploadPartResult call() {
                 // Upload the ciphertext directly via the non-encrypting
                 // s3 client
@@ -151,7 +165,11 @@ public class UploadObjectObserver {
                     return uploadPart(reqUploadPart);
                 } finally {
                     // clean up part already uploaded 
-                    if (!part.delete()) {
+                    if (part == null) {
+                        // the buffer of the part can be reused
+                        if (fileDeleteObserver != null)
+                            fileDeleteObserver.onFileDelete(null);
+                    } else if (!part.delete()) {
                         LogFactory.getLog(getClass()).debug(
                                 "Ignoring failure to delete file " + part
                                         + " which has already been uploaded");
@@ -161,7 +179,7 @@ public class UploadObjectObserver {
                     }
                 }
             }
-        }));
+        };
     }
 
     /**
@@ -204,25 +222,34 @@ public class UploadObjectObserver {
     }
     /**
      * Creates and returns an upload-part request corresponding to a ciphertext
-     * file upon a part-creation event.
+     * file, or ciphertext buffer, upon a part-creation event.
      * 
      * @param event
      *            the part-creation event of the ciphertxt file.
      * @param part
-     *            the created ciphertext file corresponding to the upload-part
+     *            the created ciphertext file corresponding to the upload-part;
+     *            or null if the part is held in memory.
      */
     protected UploadPartRequest newUploadPartRequest(PartCreationEvent event,
             final File part) {
         final UploadPartRequest reqUploadPart = new UploadPartRequest()
             .withBucketName(req.getBucketName())
-            .withFile(part)
             .withKey(req.getKey())
             .withPartNumber(event.getPartNumber())
-            .withPartSize(part.length())
             .withLastPart(event.isLastPart())
             .withUploadId(uploadId)
             .withObjectMetadata(req.getUploadPartMetadata())
             ;
+        if (part == null) {
+            reqUploadPart
+                .withInputStream(new ByteArrayInputStream(
+                        event.getBuffer(), 0, event.getLength()))
+                .withPartSize(event.getLength());
+        } else {
+            reqUploadPart
+                .withFile(part)
+                .withPartSize(part.length());
+        }
         return reqUploadPart;
     }
 
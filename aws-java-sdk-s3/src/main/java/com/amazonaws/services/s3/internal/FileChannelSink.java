@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.ByteThroughputProvider;
+import com.amazonaws.services.s3.metrics.S3ServiceMetric;
+
+/**
+ * Writes the content of an object into a file through positional
+ * {@link FileChannel} writes.
+ * <p>
+ * Content is read into a buffer that is reused by all the transfers of the
+ * current thread and written to the channel straight from that buffer, without
+ * any intermediate output stream buffering. If a digest is given, it is updated
+ * from the very same buffer, so that the integrity of the content can be
+ * checked without reading the file back from disk.
+ * <p>
+ * When SDK metrics are enabled, the throughput of the transfer is reported as
+ * {@link S3ServiceMetric#S3DownloadToFileThroughput}.
+ * <p>
+ * This class is not thread safe; each instance is meant to be used by a single
+ * thread, although any number of instances may write into distinct regions of
+ * the same channel concurrently.
+ */
+public class FileChannelSink {
+    /** The size of the per-thread transfer buffer. */
+    static final int BUFFER_SIZE = 128 * 1024;
+
+    private static final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private final long startPosition;
+    private long bytesWritten;
+
+    /**
+     * @param channel
+     *            the channel of the destination file.
+     * @param position
+     *            the position of the channel at which the first byte is
+     *            written.
+     * @param digest
+     *            the digest to update with the content; or null.
+     */
+    public FileChannelSink(FileChannel channel, long position, MessageDigest digest) {
+        this.channel = channel;
+        this.startPosition = position;
+        this.digest = digest;
+    }
+
+    /**
+     * Writes the whole content of the given stream to the channel, returning
+     * the number of bytes written by this call. If an {@link IOException} is
+     * thrown, {@link #getBytesWritten()} tells how much content made it to the
+     * channel before the failure.
+     */
+    public long transferFrom(InputStream in) throws IOException {
+        final byte[] buffer = buffers.get();
+        final ByteBuffer bb = ByteBuffer.wrap(buffer);
+        final Throughput throughput = AwsSdkMetrics.isMetricsEnabled()
+                ? new Throughput() : null;
+        final long before = bytesWritten;
+        try {
+            for (;;) {
+                final long startNano = System.nanoTime();
+                final int bytesRead = in.read(buffer);
+                if (bytesRead < 0)
+                    break;
+                if (digest != null)
+                    digest.update(buffer, 0, bytesRead);
+                bb.clear().limit(bytesRead);
+                while (bb.hasRemaining()) {
+                    bytesWritten += channel.write(bb, startPosition + bytesWritten);
+                }
+                if (throughput != null)
+                    throughput.increment(bytesRead, startNano);
+            }
+            return bytesWritten - before;
+        } finally {
+            if (throughput != null)
+                throughput.report();
+        }
+    }
+
+    /**
+     * Returns the total number of bytes written to the channel by this sink.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the position of the channel at which the next byte will be
+     * written.
+     */
+    public long getPosition() {
+        return startPosition + bytesWritten;
+    }
+
+    /**
+     * Captures the throughput of a single transfer, reporting it periodically
+     * so that the byte count doesn't overflow on large objects.
+     */
+    private static class Throughput extends ByteThroughputProvider {
+        private static final int REPORT_INTERVAL_SECS = 10;
+        private static final int REPORT_BYTE_COUNT = 1 << 30;
+
+        Throughput() {
+            super(S3ServiceMetric.S3DownloadToFileThroughput);
+        }
+
+        @Override
+        protected void increment(int bytesDelta, long startTimeNano) {
+            super.increment(bytesDelta, startTimeNano);
+            if (getByteCount() >= REPORT_BYTE_COUNT
+                    || TimeUnit.NANOSECONDS.toSeconds(getDurationNano()) > REPORT_INTERVAL_SECS) {
+                report();
+            }
+        }
+
+        void report() {
+            if (getByteCount() > 0) {
+                AwsSdkMetrics.getServiceMetricCollector().collectByteThroughput(this);
+                reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.services.s3.OnFileDelete;
+import com.amazonaws.services.s3.UploadObjectObserver;
+
+/**
+ * Used to split an output stream into multiple parts held in memory for
+ * purposes such as parallel uploads, as an alternative to temporary files.
+ * <p>
+ * Each part is written into a buffer of the part size; once full, the buffer
+ * is handed to the observer for upload and the writing continues into another
+ * buffer. The buffers are allocated on demand and reused once their part has
+ * been uploaded, and writing blocks when as many buffers as fit in the memory
+ * limit are in use, so that the whole pipeline uses a constant amount of
+ * memory whatever the length of the stream. The memory limit is configured
+ * through {@link #init(UploadObjectObserver, long, long)} in place of the disk
+ * limit.
+ */
+public class MultiBufferOutputStream extends MultiFileOutputStream {
+    private final ConcurrentLinkedQueue<byte[]> freeBuffers = new ConcurrentLinkedQueue<byte[]>();
+    private UploadObjectObserver observer;
+    private int partSize;
+    private int partsCreated;
+    /** Limits the number of buffers in use. */
+    private Semaphore bufferPermits;
+    /** The buffer of the current part; null before the first write. */
+    private byte[] buffer;
+    /** Number of bytes that have been written to the current buffer. */
+    private int currBufferBytesWritten;
+    /** Total number of bytes written to all buffers so far. */
+    private long totalBytesWritten;
+    private boolean closed;
+
+    /**
+     * Used to initialized this stream. This method is an SPI (service provider
+     * interface) that is called from <code>AmazonS3EncryptionClient</code>.
+     * <p>
+     * Implementation of this method should never block.
+     *
+     * @param observer
+     *            the upload object observer
+     * @param partSize
+     *            part size for multi-part upload
+     * @param memoryLimit
+     *            the maximum memory to be used by the buffers of this stream;
+     *            must be at least twice the part size
+     *
+     * @return this object
+     */
+    @Override
+    public MultiBufferOutputStream init(UploadObjectObserver observer,
+            long partSize, long memoryLimit) {
+        super.init(observer, partSize, memoryLimit);
+        if (partSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Part size of parts held in memory must not exceed "
+                + Integer.MAX_VALUE + ": partSize=" + partSize);
+        }
+        this.observer = observer;
+        this.partSize = (int) partSize;
+        this.bufferPermits = new Semaphore(
+                (int) Math.min(memoryLimit / partSize, Integer.MAX_VALUE));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * This method would block as necessary if all the buffers are in use.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        buffer()[currBufferBytesWritten++] = (byte) b;
+        totalBytesWritten++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * This method would block as necessary if all the buffers are in use.
+     */
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * This method would block as necessary if all the buffers are in use.
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            final byte[] buf = buffer();
+            final int n = Math.min(len, buf.length - currBufferBytesWritten);
+            System.arraycopy(b, off, buf, currBufferBytesWritten, n);
+            currBufferBytesWritten += n;
+            totalBytesWritten += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Returns the buffer to be used for writing, handing the current one over
+     * for upload if it is full and blocking if necessary until a buffer is
+     * free.
+     */
+    private byte[] buffer() throws IOException {
+        if (closed)
+            throw new IOException("Output stream is already closed");
+        if (buffer == null || currBufferBytesWritten >= partSize) {
+            if (buffer != null) {
+                onPartCreate(buffer, currBufferBytesWritten, false);
+            }
+            currBufferBytesWritten = 0;
+            partsCreated++;
+            buffer = acquireBuffer();
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a free buffer, blocking the running thread if all the buffers
+     * are in use.
+     *
+     * @throws AbortedException
+     *             if the running thread is interrupted while acquiring a
+     *             semaphore
+     */
+    private byte[] acquireBuffer() {
+        try {
+            bufferPermits.acquire();
+        } catch (InterruptedException e) {
+            // don't want to re-interrupt so it won't cause SDK stream to be
+            // closed in case the thread is reused for a different request
+            throw new AbortedException(e);
+        }
+        final byte[] free = freeBuffers.poll();
+        return free == null ? new byte[partSize] : free;
+    }
+
+    /**
+     * Not used; each part is notified with its own observer, which gives its
+     * buffer back for reuse.
+     */
+    @Override
+    public void onFileDelete(FileDeletionEvent event) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (buffer != null && currBufferBytesWritten > 0) {
+            onPartCreate(buffer, currBufferBytesWritten, true);
+        }
+        buffer = null;
+    }
+
+    /**
+     * Releases the free buffers; buffers of parts still being uploaded are
+     * released once their upload ends.
+     */
+    @Override
+    public void cleanup() {
+        freeBuffers.clear();
+    }
+
+    /**
+     * @return the number of parts written to buffers.
+     */
+    public int getNumPartsWritten() {
+        return partsCreated;
+    }
+
+    @Override
+    public long getTotalBytesWritten() {
+        return totalBytesWritten;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Notifies the observer about a new part ready for processing, with a
+     * file deletion observer giving its buffer back for reuse once it has
+     * been uploaded.
+     */
+    private void onPartCreate(final byte[] buffer, int length, boolean isLastPart) {
+        observer.onPartCreate(new PartCreationEvent(buffer, length,
+                partsCreated, isLastPart, new OnFileDelete() {
+                    @Override
+                    public void onFileDelete(FileDeletionEvent event) {
+                        freeBuffers.add(buffer);
+                        bufferPermits.release();
+                    }
+                }));
+    }
+}
@@ -20,6 +20,8 @@ import com.amazonaws.services.s3.OnFileDelete;
 
 public class PartCreationEvent {
     private final File part;
+    private final byte[] buffer;
+    private final int length;
     private final int partNumber;
     private final boolean isLastPart;
     private final OnFileDelete fileDeleteObserver;
@@ -29,18 +31,55 @@ public class PartCreationEvent {
         if (part == null)
             throw new IllegalArgumentException("part must not be specified");
         this.part = part;
+        this.buffer = null;
+        this.length = 0;
         this.partNumber = partNumber;
         this.isLastPart = isLastPart;
         this.fileDeleteObserver = fileDeleteObserver;
     }
 
     /**
-     * Returns a non-null part (in the form of a file) for multi-part upload.
+     * Constructs the event of a part held in memory, in the given number of
+     * bytes at the beginning of the given buffer. The given observer is
+     * notified once the part has been uploaded so that the buffer can be
+     * reused.
+     */
+    PartCreationEvent(byte[] buffer, int length, int partNumber,
+            boolean isLastPart, OnFileDelete fileDeleteObserver) {
+        if (buffer == null)
+            throw new IllegalArgumentException("buffer must be specified");
+        this.part = null;
+        this.buffer = buffer;
+        this.length = length;
+        this.partNumber = partNumber;
+        this.isLastPart = isLastPart;
+        this.fileDeleteObserver = fileDeleteObserver;
+    }
+
+    /**
+     * Returns the part (in the form of a file) for multi-part upload; or null
+     * if the part is held in memory, in which case {@link #getBuffer()} is
+     * non-null.
      */
     public File getPart() {
         return part;
     }
 
+    /**
+     * Returns the buffer holding the part in memory, starting at offset 0 and
+     * {@link #getLength()} bytes long; or null if the part is a file.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the length in bytes of a part held in memory.
+     */
+    public int getLength() {
+        return length;
+    }
+
     public int getPartNumber() {
         return partNumber;
     }
@@ -50,9 +89,10 @@ public class PartCreationEvent {
     }
 
     /**
-     * Returns an observer for file deletion; or null if there is none.
+     * Returns an observer for file deletion, also notified when a part held
+     * in memory has been uploaded; or null if there is none.
      */
     public OnFileDelete getFileDeleteObserver() {
         return fileDeleteObserver;
     }
-}
\ No newline at end of file
+}
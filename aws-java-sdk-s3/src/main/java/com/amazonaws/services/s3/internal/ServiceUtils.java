@@ -19,15 +19,17 @@ package com.amazonaws.services.s3.internal;
 import static com.amazonaws.util.IOUtils.closeQuietly;
 import static com.amazonaws.util.StringUtils.UTF8;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.SocketException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -51,7 +53,6 @@ import com.amazonaws.services.s3.transfer.exception.FileLockException;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.HttpUtils;
-import com.amazonaws.util.Md5Utils;
 
 /**
  * General utility methods used throughout the AWS S3 Java client.
@@ -277,7 +278,9 @@ public class ServiceUtils {
             throw new FileLockException("Fail to lock " + dstfile
                     + " for appendData=" + appendData);
         }
-        OutputStream outputStream = null;
+        final MessageDigest digest = performIntegrityCheck
+                ? newContentMd5Digest(s3Object.getObjectMetadata()) : null;
+        FileOutputStream outputStream = null;
         try {
             final long actualLen = dstfile.length();
             if (appendData && actualLen != expectedFileLength) {
@@ -287,13 +290,14 @@ public class ServiceUtils {
                             + expectedFileLength + " but actual length is "
                             + actualLen + " for file " + dstfile);
             }
-            outputStream = new BufferedOutputStream(new FileOutputStream(
-                    dstfile, appendData));
-            byte[] buffer = new byte[1024*10];
-            int bytesRead;
-            while ((bytesRead = s3Object.getObjectContent().read(buffer)) > -1) {
-                outputStream.write(buffer, 0, bytesRead);
+            if (digest != null && appendData) {
+                // The hash of the object covers the data already on disk
+                updateDigest(digest, dstfile);
             }
+            outputStream = new FileOutputStream(dstfile, appendData);
+            FileChannel channel = outputStream.getChannel();
+            new FileChannelSink(channel, channel.position(), digest)
+                    .transferFrom(s3Object.getObjectContent());
         } catch (IOException e) {
             s3Object.getObjectContent().abort();
             throw new AmazonClientException(
@@ -304,31 +308,60 @@ public class ServiceUtils {
             closeQuietly(s3Object.getObjectContent(), log);
         }
 
-        byte[] clientSideHash = null;
-        byte[] serverSideHash = null;
-        try {
-            // Multipart Uploads don't have an MD5 calculated on the service
-            // side
-            // Server Side encryption with AWS KMS enabled objects has MD5 of
-            // cipher text. So the MD5 validation needs to be skipped.
-            final ObjectMetadata metadata = s3Object.getObjectMetadata();
-            if (metadata != null) {
-                final String etag = metadata.getETag();
-                if (!ServiceUtils.isMultipartUploadETag(etag)
-                &&  !skipMd5CheckPerResponse(metadata))
-                {
-                    clientSideHash = Md5Utils.computeMD5Hash(new FileInputStream(dstfile));
-                    serverSideHash = BinaryUtils.fromHex(etag);
-                }
+        if (digest != null) {
+            byte[] clientSideHash = digest.digest();
+            byte[] serverSideHash = null;
+            try {
+                serverSideHash = BinaryUtils.fromHex(s3Object.getObjectMetadata().getETag());
+            } catch (Exception e) {
+                log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+            }
+            if (serverSideHash != null && !Arrays.equals(clientSideHash, serverSideHash)) {
+                throw new AmazonClientException("Unable to verify integrity of data download.  " +
+                        "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
+                        "The data stored in '" + dstfile.getAbsolutePath() + "' may be corrupt.");
             }
-        } catch (Exception e) {
+        }
+    }
+
+    /**
+     * Returns a new MD5 digest to validate downloaded content against the
+     * ETag of the given metadata; or null if the ETag isn't the MD5 of the
+     * content.
+     */
+    private static MessageDigest newContentMd5Digest(ObjectMetadata metadata) {
+        // Multipart Uploads don't have an MD5 calculated on the service
+        // side
+        // Server Side encryption with AWS KMS enabled objects has MD5 of
+        // cipher text. So the MD5 validation needs to be skipped.
+        if (metadata == null)
+            return null;
+        final String etag = metadata.getETag();
+        if (etag == null
+        ||  ServiceUtils.isMultipartUploadETag(etag)
+        ||  skipMd5CheckPerResponse(metadata))
+            return null;
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
             log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+            return null;
         }
+    }
 
-        if (performIntegrityCheck && clientSideHash != null && serverSideHash != null && !Arrays.equals(clientSideHash, serverSideHash)) {
-            throw new AmazonClientException("Unable to verify integrity of data download.  " +
-                    "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
-                    "The data stored in '" + dstfile.getAbsolutePath() + "' may be corrupt.");
+    /**
+     * Updates the given digest with the current content of the given file.
+     */
+    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[FileChannelSink.BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > -1) {
+                digest.update(buffer, 0, bytesRead);
+            }
+        } finally {
+            closeQuietly(in, log);
         }
     }
 
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2012-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Iterates the objects of an {@link S3Objects} by listing several ranges of
+ * keys at the same time on an executor.
+ * <p>
+ * The key space is cut at split points, either supplied by the caller or
+ * discovered by listing the common prefixes of the first page of keys with a
+ * delimiter.
+ * Each range is listed a page at a time, at most one page of a range being
+ * fetched at once, and at most a given number of pages being fetched or
+ * waiting to be iterated over across all the ranges. In ordered mode the
+ * ranges are iterated one after the other, so that keys are returned in the
+ * same order as a serial listing; otherwise pages are returned as soon as
+ * they are fetched.
+ */
+class ParallelS3ObjectIterator implements Iterator<S3ObjectSummary> {
+
+    /** Orders keys the way Amazon S3 does, by their UTF-8 encoding. */
+    static final Comparator<String> KEY_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            int i = 0;
+            int j = 0;
+            while (i < a.length() && j < b.length()) {
+                // Code point order is the order of the UTF-8 encodings
+                final int ca = a.codePointAt(i);
+                final int cb = b.codePointAt(j);
+                if (ca != cb) return ca < cb ? -1 : 1;
+                i += Character.charCount(ca);
+                j += Character.charCount(cb);
+            }
+            return (a.length() - i) - (b.length() - j);
+        }
+    };
+
+    private final S3Objects objects;
+    private final ExecutorService executor;
+    private final int maxPrefetchedPages;
+    private final boolean ordered;
+
+    private final Object lock = new Object();
+
+    /** The ranges being listed, in key order; null until the listing starts. */
+    private List<Partition> partitions;
+
+    /** In ordered mode, the index of the range being iterated over. */
+    private int currentPartition;
+
+    /** In unordered mode, the pages fetched and not yet iterated over. */
+    private final LinkedList<List<S3ObjectSummary>> readyPages =
+            new LinkedList<List<S3ObjectSummary>>();
+
+    /** The number of pages being fetched or waiting to be iterated over. */
+    private int prefetchedPages;
+
+    private int remainingPartitions;
+
+    private RuntimeException failure;
+
+    private Iterator<S3ObjectSummary> currentIterator =
+            Collections.<S3ObjectSummary>emptyList().iterator();
+
+    ParallelS3ObjectIterator(S3Objects objects) {
+        this.objects = objects;
+        this.executor = objects.getExecutorService();
+        this.maxPrefetchedPages = objects.getMaxPrefetchedPages();
+        this.ordered = objects.isOrdered();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentIterator.hasNext()) {
+            final List<S3ObjectSummary> page = takePage();
+            if (page == null) return false;
+            currentIterator = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public S3ObjectSummary next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return currentIterator.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the next page to iterate over, waiting for it to be fetched, or
+     * null once all the ranges have been iterated over.
+     */
+    private List<S3ObjectSummary> takePage() {
+        synchronized (lock) {
+            if (partitions == null) start();
+            while (true) {
+                if (failure != null) throw failure;
+
+                List<S3ObjectSummary> page = null;
+                if (ordered) {
+                    while (currentPartition < partitions.size()) {
+                        final Partition partition = partitions.get(currentPartition);
+                        if (!partition.pages.isEmpty()) {
+                            page = partition.pages.removeFirst();
+                            break;
+                        }
+                        if (!partition.done) break;
+                        currentPartition++;
+                    }
+                    if (page == null && currentPartition == partitions.size()) return null;
+                } else {
+                    if (!readyPages.isEmpty()) {
+                        page = readyPages.removeFirst();
+                    } else if (remainingPartitions == 0) {
+                        return null;
+                    }
+                }
+
+                if (page != null) {
+                    prefetchedPages--;
+                    scheduleFetches();
+                    return page;
+                }
+                scheduleFetches();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException("Interrupted while listing objects", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cuts the key space into ranges and starts listing them. Must be called
+     * with the lock held.
+     */
+    private void start() {
+        final List<String> splitPoints = new ArrayList<String>(
+                objects.getSplitPoints() != null
+                        ? objects.getSplitPoints()
+                        : discoverSplitPoints());
+        Collections.sort(splitPoints, KEY_ORDER);
+
+        partitions = new ArrayList<Partition>(splitPoints.size() + 1);
+        String lowerBound = null;
+        for (String splitPoint : splitPoints) {
+            if (lowerBound != null && KEY_ORDER.compare(lowerBound, splitPoint) == 0) continue;
+            partitions.add(new Partition(lowerBound, splitPoint));
+            lowerBound = splitPoint;
+        }
+        partitions.add(new Partition(lowerBound, null));
+        remainingPartitions = partitions.size();
+        scheduleFetches();
+    }
+
+    /**
+     * Lists the common prefixes of the keys up to the partition delimiter, so
+     * that each of them starts a new range. Only the first page of the
+     * delimited listing is read, so that a bucket with few or no prefixes
+     * isn't listed twice before its objects; the range after the last prefix
+     * found, or the whole bucket if none is found, is listed serially.
+     */
+    private List<String> discoverSplitPoints() {
+        final ObjectListing listing = objects.getS3().listObjects(new ListObjectsRequest()
+                .withBucketName(objects.getBucketName())
+                .withPrefix(objects.getPrefix())
+                .withDelimiter(objects.getPartitionDelimiter())
+                .withMaxKeys(objects.getBatchSize()));
+        return listing.getCommonPrefixes();
+    }
+
+    /**
+     * Starts fetching the next page of as many ranges as the prefetch limit
+     * allows. In ordered mode the range being iterated over may always fetch
+     * its next page, so that the ranges after it can't starve it. Must be
+     * called with the lock held.
+     */
+    private void scheduleFetches() {
+        if (failure != null) return;
+        for (int i = ordered ? currentPartition : 0; i < partitions.size(); i++) {
+            final Partition partition = partitions.get(i);
+            if (partition.done || partition.fetching) continue;
+
+            final boolean starving = ordered && i == currentPartition
+                    && partition.pages.isEmpty();
+            if (prefetchedPages >= maxPrefetchedPages && !starving) break;
+
+            partition.fetching = true;
+            prefetchedPages++;
+            try {
+                executor.execute(new FetchTask(partition));
+            } catch (RejectedExecutionException e) {
+                partition.fetching = false;
+                prefetchedPages--;
+                failure = new AmazonClientException("Unable to list objects in parallel", e);
+                lock.notifyAll();
+                return;
+            }
+        }
+    }
+
+    /** A range of keys, after a lower bound and up to an upper bound. */
+    private final class Partition {
+        /** Exclusive, or null for the first range. */
+        private final String lowerBound;
+        /** Inclusive, or null for the last range. */
+        private final String upperBound;
+
+        private final LinkedList<List<S3ObjectSummary>> pages =
+                new LinkedList<List<S3ObjectSummary>>();
+        private ObjectListing lastListing;
+        private boolean fetching;
+        private boolean done;
+
+        Partition(String lowerBound, String upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        ObjectListing fetchNextPage() {
+            if (lastListing == null) {
+                return objects.getS3().listObjects(new ListObjectsRequest()
+                        .withBucketName(objects.getBucketName())
+                        .withPrefix(objects.getPrefix())
+                        .withMarker(lowerBound)
+                        .withMaxKeys(objects.getBatchSize()));
+            }
+            return objects.getS3().listNextBatchOfObjects(lastListing);
+        }
+    }
+
+    /** Fetches the next page of a range. */
+    private final class FetchTask implements Runnable {
+        private final Partition partition;
+
+        FetchTask(Partition partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public void run() {
+            final ObjectListing listing;
+            List<S3ObjectSummary> page;
+            boolean done;
+            try {
+                listing = partition.fetchNextPage();
+                page = listing.getObjectSummaries();
+                done = !listing.isTruncated();
+                if (partition.upperBound != null && !page.isEmpty()) {
+                    int end = page.size();
+                    while (end > 0 && KEY_ORDER.compare(
+                            page.get(end - 1).getKey(), partition.upperBound) > 0) {
+                        end--;
+                    }
+                    if (end < page.size()) {
+                        page = new ArrayList<S3ObjectSummary>(page.subList(0, end));
+                        done = true;
+                    } else if (KEY_ORDER.compare(
+                            page.get(end - 1).getKey(), partition.upperBound) == 0) {
+                        done = true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    partition.fetching = false;
+                    prefetchedPages--;
+                    if (failure == null) failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                partition.lastListing = listing;
+                partition.fetching = false;
+                if (done) {
+                    partition.done = true;
+                    remainingPartitions--;
+                }
+                if (ordered) {
+                    partition.pages.add(page);
+                } else {
+                    readyPages.add(page);
+                }
+                scheduleFetches();
+                lock.notifyAll();
+            }
+        }
+    }
+}
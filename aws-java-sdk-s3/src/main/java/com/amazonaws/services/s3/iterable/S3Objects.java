@@ -14,7 +14,11 @@
  */
 package com.amazonaws.services.s3.iterable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
@@ -34,6 +38,19 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Objects#withBatchSize(int)} method.
+ * <p>
+ * For large buckets, the objects can be listed in parallel on an executor
+ * with {@link S3Objects#withExecutorService(ExecutorService)}. The key space
+ * is then cut into ranges that are listed at the same time, at the common
+ * prefixes of the keys up to a delimiter or at split points supplied with
+ * {@link S3Objects#withSplitPoints(String...)}:
+ *
+ * <pre class="brush: java">
+ * ExecutorService executor = Executors.newFixedThreadPool(16);
+ * for ( S3ObjectSummary summary : S3Objects.inBucket(s3, &quot;my-bucket&quot;).withExecutorService(executor) ) {
+ *     System.out.printf(&quot;Object with key '%s'\n&quot;, summary.getKey());
+ * }
+ * </pre>
  */
 public class S3Objects implements Iterable<S3ObjectSummary> {
 
@@ -42,6 +59,18 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
     private String bucketName;
     private Integer batchSize = null;
 
+    /** The default maximum number of pages listed ahead of the iteration. */
+    public static final int DEFAULT_MAX_PREFETCHED_PAGES = 16;
+
+    /** The default delimiter of the prefixes at which the key space is cut. */
+    public static final String DEFAULT_PARTITION_DELIMITER = "/";
+
+    private ExecutorService executorService = null;
+    private List<String> splitPoints = null;
+    private String partitionDelimiter = DEFAULT_PARTITION_DELIMITER;
+    private int maxPrefetchedPages = DEFAULT_MAX_PREFETCHED_PAGES;
+    private boolean ordered = true;
+
     private S3Objects(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
         this.bucketName = bucketName;
@@ -95,6 +124,111 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return batchSize;
     }
 
+    /**
+     * Sets the executor on which to list ranges of keys in parallel. By
+     * default objects are listed serially on the iterating thread.
+     * <p>
+     * The executor is not shut down by this iterable.
+     *
+     * @param executorService
+     *            The executor on which to list objects, or null to list them
+     *            serially.
+     */
+    public S3Objects withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Sets the keys at which the key space is cut into ranges listed in
+     * parallel: each range starts after a split point and ends with the next
+     * one. By default the key space is cut at the common prefixes of the keys
+     * up to the partition delimiter found in the first page of a delimited
+     * listing of the bucket; the keys after the last of them are listed
+     * serially.
+     * <p>
+     * Only used when listing objects in parallel.
+     *
+     * @param splitPoints
+     *            The keys after which a new range starts.
+     */
+    public S3Objects withSplitPoints(String... splitPoints) {
+        this.splitPoints = splitPoints == null
+                ? null
+                : new ArrayList<String>(Arrays.asList(splitPoints));
+        return this;
+    }
+
+    /**
+     * Sets the delimiter of the common prefixes at which the key space is
+     * cut into ranges when no split points are given. Defaults to
+     * {@value #DEFAULT_PARTITION_DELIMITER}.
+     * <p>
+     * Only used when listing objects in parallel.
+     *
+     * @param partitionDelimiter
+     *            The delimiter of the prefixes that start new ranges.
+     */
+    public S3Objects withPartitionDelimiter(String partitionDelimiter) {
+        this.partitionDelimiter = partitionDelimiter;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pages being listed or waiting to be iterated
+     * over, which bounds both the number of concurrent listings and the
+     * memory held by pages listed ahead of the iteration. Defaults to
+     * {@value #DEFAULT_MAX_PREFETCHED_PAGES}.
+     * <p>
+     * Only used when listing objects in parallel.
+     *
+     * @param maxPrefetchedPages
+     *            The maximum number of pages listed ahead.
+     */
+    public S3Objects withMaxPrefetchedPages(int maxPrefetchedPages) {
+        if (maxPrefetchedPages < 1) {
+            throw new IllegalArgumentException("maxPrefetchedPages must be positive");
+        }
+        this.maxPrefetchedPages = maxPrefetchedPages;
+        return this;
+    }
+
+    /**
+     * Sets whether objects listed in parallel are returned in key order, as
+     * by a serial listing, which is the default. Otherwise pages of objects
+     * are returned as soon as they are listed, which keeps the iteration from
+     * waiting on the slowest range.
+     * <p>
+     * Only used when listing objects in parallel.
+     *
+     * @param ordered
+     *            True to return objects in key order.
+     */
+    public S3Objects withOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public List<String> getSplitPoints() {
+        return splitPoints;
+    }
+
+    public String getPartitionDelimiter() {
+        return partitionDelimiter;
+    }
+
+    public int getMaxPrefetchedPages() {
+        return maxPrefetchedPages;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -151,6 +285,9 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
 
     @Override
     public Iterator<S3ObjectSummary> iterator() {
+        if (executorService != null) {
+            return new ParallelS3ObjectIterator(this);
+        }
         return new S3ObjectIterator();
     }
 
@@ -54,11 +54,26 @@ public class S3ServiceMetric extends SimpleMetricType implements ServiceMetricTy
     };
     public static final S3ServiceMetric S3UploadByteCount = new S3ServiceMetric(
             metricName(UPLOAD_BYTE_COUNT_NAME_SUFFIX));
+    /**
+     * Throughput of writing downloaded object content into files, including
+     * the time spent reading the content from the connection.
+     */
+    public static final S3ThroughputMetric S3DownloadToFileThroughput = new S3ThroughputMetric(
+            metricName("DownloadToFileThroughput")) {
+        @Override
+        public ServiceMetricType getByteCountMetricType() {
+            return S3DownloadToFileByteCount;
+        }
+    };
+    public static final S3ServiceMetric S3DownloadToFileByteCount = new S3ServiceMetric(
+            metricName("DownloadToFileByteCount"));
     private static final S3ServiceMetric[] values = {
         S3DownloadThroughput,
         S3DownloadByteCount,
         S3UploadThroughput,
-        S3UploadByteCount
+        S3UploadByteCount,
+        S3DownloadToFileThroughput,
+        S3DownloadToFileByteCount
     };
 
     private final String name;
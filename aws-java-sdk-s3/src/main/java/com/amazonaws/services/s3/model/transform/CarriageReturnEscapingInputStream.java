@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model.transform;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replaces the carriage return characters of a UTF-8 encoded XML document
+ * with explicit XML character entities as the document is read, to prevent
+ * the SAX parser from misinterpreting 0x0D characters as 0x0A and being
+ * unable to parse the XML.
+ * <p>
+ * The 0x0D byte never occurs within the multi-byte sequences of UTF-8, so the
+ * document is filtered without decoding it.
+ */
+final class CarriageReturnEscapingInputStream extends FilterInputStream {
+    private static final byte[] ESCAPED_CARRIAGE_RETURN = {'&', '#', '0', '1', '3', ';'};
+
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+
+    /** The next byte of a pending escape sequence to return. */
+    private int escapedPosition = ESCAPED_CARRIAGE_RETURN.length;
+
+    CarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+
+        int count = 0;
+        while (count < len) {
+            if (escapedPosition < ESCAPED_CARRIAGE_RETURN.length) {
+                b[off + count++] = ESCAPED_CARRIAGE_RETURN[escapedPosition++];
+                continue;
+            }
+            if (position == limit) {
+                // Don't block for more data once some has been returned
+                if (count > 0 || !fill()) break;
+            }
+            final byte next = buffer[position++];
+            if (next == '\r') {
+                escapedPosition = 0;
+            } else {
+                b[off + count++] = next;
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() != -1) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (limit - position)
+                + (ESCAPED_CARRIAGE_RETURN.length - escapedPosition);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private boolean fill() throws IOException {
+        final int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
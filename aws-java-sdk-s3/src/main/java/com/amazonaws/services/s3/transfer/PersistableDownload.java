@@ -63,10 +63,39 @@ public final class PersistableDownload extends PersistableTransfer {
     @JsonProperty
     private final String file;
 
+    /**
+     * The size of each ranged part of a parallel download, or zero if the
+     * object is downloaded through a single connection.
+     */
+    @JsonProperty
+    private final long partSize;
+
+    /**
+     * The ETag of the object being downloaded in parallel parts; parts are
+     * only fetched if the object still has this ETag.
+     */
+    @JsonProperty
+    private final String eTag;
+
+    /**
+     * The zero based numbers of the parts of a parallel download that have
+     * already been written to the file.
+     */
+    @JsonProperty
+    private final int[] completedParts;
+
     public PersistableDownload() {
         this(null, null, null, null, null, false, null);
     }
 
+    public PersistableDownload(String bucketName, String key,
+            String versionId, long[] range,
+            ResponseHeaderOverrides responseHeaders, boolean isRequesterPays,
+            String file) {
+        this(bucketName, key, versionId, range, responseHeaders,
+                isRequesterPays, file, 0, null, null);
+    }
+
     public PersistableDownload(
             @JsonProperty(value = "bucketName") String bucketName,
             @JsonProperty(value = "key") String key,
@@ -74,7 +103,10 @@ public final class PersistableDownload extends PersistableTransfer {
             @JsonProperty(value = "range") long[] range,
             @JsonProperty(value = "responseHeaders") ResponseHeaderOverrides responseHeaders,
             @JsonProperty(value = "isRequesterPays") boolean isRequesterPays,
-            @JsonProperty(value = "file") String file) {
+            @JsonProperty(value = "file") String file,
+            @JsonProperty(value = "partSize") long partSize,
+            @JsonProperty(value = "eTag") String eTag,
+            @JsonProperty(value = "completedParts") int[] completedParts) {
         this.bucketName = bucketName;
         this.key = key;
         this.versionId = versionId;
@@ -82,6 +114,9 @@ public final class PersistableDownload extends PersistableTransfer {
         this.responseHeaders = responseHeaders;
         this.isRequesterPays = isRequesterPays;
         this.file = file;
+        this.partSize = partSize;
+        this.eTag = eTag;
+        this.completedParts = completedParts == null ? null : completedParts.clone();
     }
 
     /**
@@ -134,6 +169,29 @@ public final class PersistableDownload extends PersistableTransfer {
         return file;
     }
 
+    /**
+     * Returns the size of each part of a parallel download, or zero if the
+     * object is downloaded through a single connection.
+     */
+    long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns the ETag of the object being downloaded in parallel parts.
+     */
+    String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the numbers of the parts of a parallel download that have
+     * already been written to the file.
+     */
+    int[] getCompletedParts() {
+        return completedParts == null ? null : completedParts.clone();
+    }
+
     String getPauseType() {
         return pauseType;
     }
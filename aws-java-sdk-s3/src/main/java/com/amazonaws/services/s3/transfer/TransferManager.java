@@ -59,6 +59,7 @@ import com.amazonaws.services.s3.model.MultipartUploadListing;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.exception.FileLockException;
@@ -67,6 +68,7 @@ import com.amazonaws.services.s3.transfer.internal.CopyImpl;
 import com.amazonaws.services.s3.transfer.internal.CopyMonitor;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.MultipartDownloadMonitor;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferMonitor;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileUploadImpl;
@@ -336,6 +338,14 @@ public class TransferManager {
      * resources become available.
      * </p>
      * <p>
+     * If the metadata doesn't specify the content length of the stream, the
+     * stream is read into buffers of the minimum upload part size, which are
+     * uploaded as the parts of a multipart upload as soon as they are full, so
+     * that a stream of any length is uploaded with a bounded amount of memory;
+     * see {@link TransferManagerConfiguration#setStreamingUploadBufferCount(int)}.
+     * A stream shorter than a part is uploaded with a single request.
+     * </p>
+     * <p>
      * If you are uploading <a href="http://aws.amazon.com/kms/">AWS
      * KMS</a>-encrypted objects, you need to specify the correct region of the
      * bucket on your client and configure AWS Signature Version 4 for added
@@ -688,7 +698,7 @@ public class TransferManager {
      *             request.
      */
     public Download download(final GetObjectRequest getObjectRequest, final File file) {
-        return doDownload(getObjectRequest, file, null, null, OVERWRITE_MODE);
+        return doDownload(getObjectRequest, file, null, null, OVERWRITE_MODE, null);
     }
 
     /**
@@ -730,7 +740,7 @@ public class TransferManager {
     public Download download(final GetObjectRequest getObjectRequest,
             final File file, final S3ProgressListener progressListener) {
         return doDownload(getObjectRequest, file, null, progressListener,
-                OVERWRITE_MODE);
+                OVERWRITE_MODE, null);
     }
 
     /**
@@ -742,7 +752,8 @@ public class TransferManager {
     private Download doDownload(final GetObjectRequest getObjectRequest,
             final File file, final TransferStateChangeListener stateListener,
             final S3ProgressListener s3progressListener,
-            final boolean resumeExistingDownload)
+            final boolean resumeExistingDownload,
+            final PersistableDownload persistableDownload)
     {
         appendSingleObjectUserAgent(getObjectRequest);
         String description = "Downloading from " + getObjectRequest.getBucketName() + "/" + getObjectRequest.getKey();
@@ -763,6 +774,7 @@ public class TransferManager {
 
         long startingByte = 0;
         long lastByte;
+        ObjectMetadata objectMetadata = null;
 
         long[] range = getObjectRequest.getRange();
         if (range != null
@@ -776,11 +788,20 @@ public class TransferManager {
                 getObjectMetadataRequest.setSSECustomerKey(getObjectRequest.getSSECustomerKey());
             if (getObjectRequest.getVersionId() != null)
                 getObjectMetadataRequest.setVersionId(getObjectRequest.getVersionId());
-            final ObjectMetadata objectMetadata = s3.getObjectMetadata(getObjectMetadataRequest);
+            objectMetadata = s3.getObjectMetadata(getObjectMetadataRequest);
 
             lastByte = objectMetadata.getContentLength() - 1;
         }
         final long origStartingByte = startingByte;
+
+        if (objectMetadata != null) {
+            Download download = doParallelDownload(getObjectRequest, file,
+                    stateListener, description, transferProgress,
+                    listenerChain, objectMetadata, persistableDownload);
+            if (download != null)
+                return download;
+        }
+
         // We still pass the unfiltered listener chain into DownloadImpl
         final DownloadImpl download = new DownloadImpl(description,
                 transferProgress, listenerChain, null, stateListener,
@@ -831,6 +852,59 @@ public class TransferManager {
         return download;
     }
 
+    /**
+     * Schedules the download of the given object as byte ranges fetched in
+     * parallel, if the download is eligible for it.
+     *
+     * @return the scheduled download, or null if the object should be
+     *         downloaded through a single connection.
+     */
+    private Download doParallelDownload(final GetObjectRequest getObjectRequest,
+            final File file, final TransferStateChangeListener stateListener,
+            final String description, final TransferProgress transferProgress,
+            final S3ProgressListenerChain listenerChain,
+            final ObjectMetadata objectMetadata,
+            final PersistableDownload persistableDownload) {
+        final long contentLength = objectMetadata.getContentLength();
+        final String eTag = objectMetadata.getETag();
+        long partSize;
+        int[] completedParts = null;
+
+        if (persistableDownload != null) {
+            partSize = persistableDownload.getPartSize();
+            if (partSize <= 0)
+                return null;
+            if (eTag != null && eTag.equals(persistableDownload.getETag())) {
+                completedParts = persistableDownload.getCompletedParts();
+            } else {
+                log.info("Object " + getObjectRequest.getBucketName() + "/"
+                        + getObjectRequest.getKey()
+                        + " has changed since the download was paused; downloading all parts");
+            }
+        } else if (TransferManagerUtils.isDownloadParallelizable(s3,
+                getObjectRequest, contentLength, configuration)) {
+            partSize = TransferManagerUtils.calculateOptimalPartSizeForDownload(
+                    contentLength, configuration);
+        } else {
+            return null;
+        }
+
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(getObjectRequest.getBucketName());
+        s3Object.setKey(getObjectRequest.getKey());
+        s3Object.setObjectMetadata(objectMetadata);
+
+        // We still pass the unfiltered listener chain into DownloadImpl
+        final DownloadImpl download = new DownloadImpl(description,
+                transferProgress, listenerChain, s3Object, stateListener,
+                getObjectRequest, file, partSize, eTag, completedParts);
+        transferProgress.setTotalBytesToTransfer(contentLength);
+        download.setMonitor(MultipartDownloadMonitor.create(s3, download,
+                threadPool, getObjectRequest, file, 0, contentLength - 1,
+                partSize, eTag, completedParts));
+        return download;
+    }
+
     /**
      * Downloads all objects in the virtual directory designated by the
      * keyPrefix given to the destination directory given. All virtual
@@ -935,7 +1009,7 @@ public class TransferManager {
                                     .<GetObjectRequest>withGeneralProgressListener(
                                             listener),
                             f,
-                            transferListener, null, false));
+                            transferListener, null, false, null));
         }
 
         if ( downloads.isEmpty() ) {
@@ -1546,7 +1620,7 @@ public class TransferManager {
         request.setResponseHeaders(persistableDownload.getResponseHeaders());
 
         return doDownload(request, new File(persistableDownload.getFile()), null, null,
-                APPEND_MODE);
+                APPEND_MODE, persistableDownload);
     }
 
     /**
@@ -39,6 +39,15 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /** Default size threshold for when to use parallel ranged downloads; disabled by default. */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD = Long.MAX_VALUE;
+
+    /** Default minimum size of each ranged part of a parallel download. */
+    private static final long DEFAULT_MINIMUM_DOWNLOAD_PART_SIZE = 16 * MB;
+
+    /** Default maximum number of part buffers of an upload of unknown length. */
+    private static final int DEFAULT_STREAMING_UPLOAD_BUFFER_COUNT = 4;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -77,6 +86,30 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * The size threshold, in bytes, for when to download an object as byte
+     * ranges fetched in parallel. Downloads of objects over this size will
+     * fetch several ranges concurrently and write each of them into its offset
+     * of the destination file, while smaller objects are downloaded through a
+     * single connection.
+     */
+    private long multipartDownloadThreshold = DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The minimum size in bytes of each ranged part of a parallel download.
+     */
+    private long minimumDownloadPartSize = DEFAULT_MINIMUM_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The maximum number of buffers, each of the minimum upload part size,
+     * into which an upload from an input stream of unknown length reads its
+     * parts, and into which a multipart upload through an
+     * {@link com.amazonaws.services.s3.AmazonS3EncryptionClient} encrypts its
+     * parts. Bounds both the memory used by such an upload and the number of
+     * its parts uploaded concurrently.
+     */
+    private int streamingUploadBufferCount = DEFAULT_STREAMING_UPLOAD_BUFFER_COUNT;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -192,4 +225,95 @@ public class TransferManagerConfiguration {
     public void setMultipartCopyThreshold(long multipartCopyThreshold) {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the size threshold in bytes for when to download an object as
+     * byte ranges fetched in parallel. Parallel downloads are disabled by
+     * default.
+     *
+     * @return The size threshold in bytes for when to use parallel ranged
+     *         downloads.
+     */
+    public long getMultipartDownloadThreshold() {
+        return multipartDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to download an object as byte
+     * ranges fetched in parallel. Downloads of objects over this size will
+     * fetch several ranges concurrently on the transfer manager's thread pool
+     * and write each of them into its offset of the destination file; a paused
+     * parallel download only fetches the missing ranges when resumed.
+     * <p>
+     * Parallel downloads are not used for requests that specify a range or
+     * ETag/date constraints, nor for client-side encrypted objects.
+     *
+     * @param multipartDownloadThreshold
+     *            The size threshold in bytes for when to use parallel ranged
+     *            downloads.
+     */
+    public void setMultipartDownloadThreshold(long multipartDownloadThreshold) {
+        this.multipartDownloadThreshold = multipartDownloadThreshold;
+    }
+
+    /**
+     * Returns the minimum size in bytes of each ranged part of a parallel
+     * download.
+     *
+     * @return The minimum size in bytes of each part of a parallel download.
+     */
+    public long getMinimumDownloadPartSize() {
+        return minimumDownloadPartSize;
+    }
+
+    /**
+     * Sets the minimum size in bytes of each ranged part of a parallel
+     * download. Decreasing the part size increases the number of requests
+     * made to Amazon S3.
+     *
+     * @param minimumDownloadPartSize
+     *            The minimum size in bytes of each part of a parallel
+     *            download.
+     */
+    public void setMinimumDownloadPartSize(long minimumDownloadPartSize) {
+        this.minimumDownloadPartSize = minimumDownloadPartSize;
+    }
+
+    /**
+     * Returns the maximum number of part buffers held in memory by an upload
+     * from an input stream of unknown length.
+     *
+     * @return The maximum number of part buffers of an upload of unknown
+     *         length.
+     */
+    public int getStreamingUploadBufferCount() {
+        return streamingUploadBufferCount;
+    }
+
+    /**
+     * Sets the maximum number of part buffers held in memory by an upload
+     * from an input stream of unknown length. Such a stream is read into
+     * buffers of the minimum upload part size, each of which is uploaded as a
+     * part on the transfer manager's thread pool as soon as it is full and
+     * reused once its part has been uploaded; an upload therefore uses at
+     * most this many times the minimum upload part size of memory, whatever
+     * the length of the stream. When all the buffers are in use, the thread
+     * reading the stream uploads the next part itself.
+     * <p>
+     * Multipart uploads through an
+     * {@link com.amazonaws.services.s3.AmazonS3EncryptionClient}, whose parts
+     * must be encrypted in order, are likewise encrypted by a single thread
+     * into at least two such buffers, while the encrypted parts are uploaded
+     * concurrently.
+     *
+     * @param streamingUploadBufferCount
+     *            The maximum number of part buffers of an upload of unknown
+     *            length; at least 1.
+     */
+    public void setStreamingUploadBufferCount(int streamingUploadBufferCount) {
+        if (streamingUploadBufferCount < 1)
+            throw new IllegalArgumentException(
+                    "streamingUploadBufferCount must be at least 1");
+        this.streamingUploadBufferCount = streamingUploadBufferCount;
+    }
+}
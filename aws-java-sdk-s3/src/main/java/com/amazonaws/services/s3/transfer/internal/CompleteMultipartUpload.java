@@ -91,6 +91,7 @@ public class CompleteMultipartUpload implements Callable<UploadResult> {
             res = s3.completeMultipartUpload(req);
         } catch (Exception e) {
             publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+            monitor.uploadFailed();
             throw e;
         }
 
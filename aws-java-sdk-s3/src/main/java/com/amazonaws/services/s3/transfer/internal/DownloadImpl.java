@@ -35,13 +35,50 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     private final PersistableDownload persistableDownload;
 
+    private final GetObjectRequest getObjectRequest;
+    private final File file;
+
+    /**
+     * The size of each part of a parallel download; or zero if the object is
+     * downloaded through a single connection.
+     */
+    private final long partSize;
+
+    /** The ETag of the object being downloaded in parallel parts. */
+    private final String eTag;
+
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object,
             TransferStateChangeListener listener,
             GetObjectRequest getObjectRequest, File file) {
+        this(description, transferProgress, progressListenerChain, s3Object,
+                listener, getObjectRequest, file, 0, null, null);
+    }
+
+    /**
+     * Constructs a download that may be performed as parallel ranged parts.
+     *
+     * @param partSize
+     *            the size of each part of the download, or zero if the object
+     *            is downloaded through a single connection.
+     * @param eTag
+     *            the ETag of the object being downloaded in parts.
+     * @param completedParts
+     *            the parts that have already been downloaded, if this download
+     *            is resumed; or null.
+     */
+    public DownloadImpl(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, S3Object s3Object,
+            TransferStateChangeListener listener,
+            GetObjectRequest getObjectRequest, File file, long partSize,
+            String eTag, int[] completedParts) {
         super(description, transferProgress, progressListenerChain, listener);
         this.s3Object = s3Object;
-        this.persistableDownload = captureDownloadState(getObjectRequest, file);
+        this.getObjectRequest = getObjectRequest;
+        this.file = file;
+        this.partSize = partSize;
+        this.eTag = eTag;
+        this.persistableDownload = captureDownloadState(completedParts);
         S3ProgressPublisher.publishTransferPersistable(progressListenerChain,
                 persistableDownload);
     }
@@ -81,8 +118,11 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     public synchronized void abort() throws IOException {
 
         this.monitor.getFuture().cancel(true);
+        if (monitor instanceof MultipartDownloadMonitor) {
+            ((MultipartDownloadMonitor) monitor).cancelFutures();
+        }
 
-        if ( s3Object != null ) {
+        if ( s3Object != null && s3Object.getObjectContent() != null ) {
               s3Object.getObjectContent().abort();
         }
         setState(TransferState.Canceled);
@@ -95,6 +135,9 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     public synchronized void abortWithoutNotifyingStateChangeListener() throws IOException {
         this.monitor.getFuture().cancel(true);
+        if (monitor instanceof MultipartDownloadMonitor) {
+            ((MultipartDownloadMonitor) monitor).cancelFutures();
+        }
         this.state = TransferState.Canceled;
     }
 
@@ -119,18 +162,19 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     }
 
     /**
-     * Returns the captured state of the download; or null if it should not be
+     * Returns the captured state of the download, including the given
+     * completed parts of a parallel download; or null if it should not be
      * captured (for security reason).
      */
-    private PersistableDownload captureDownloadState(
-            final GetObjectRequest getObjectRequest, final File file) {
+    PersistableDownload captureDownloadState(int[] completedParts) {
         if (getObjectRequest.getSSECustomerKey() == null) {
             return new PersistableDownload(
                     getObjectRequest.getBucketName(),
                     getObjectRequest.getKey(), getObjectRequest.getVersionId(),
                     getObjectRequest.getRange(),
                     getObjectRequest.getResponseHeaders(),
-                    getObjectRequest.isRequesterPays(), file.getAbsolutePath());
+                    getObjectRequest.isRequesterPays(), file.getAbsolutePath(),
+                    partSize, eTag, completedParts);
         }
         return null;
     }
@@ -150,6 +194,11 @@ public class DownloadImpl extends AbstractTransfer implements Download {
             throw new PauseException(TransferManagerUtils.determinePauseStatus(
                     currentState, forceCancel));
         }
+        if (monitor instanceof MultipartDownloadMonitor) {
+            // Record the parts already on disk so only the rest are refetched
+            return captureDownloadState(
+                    ((MultipartDownloadMonitor) monitor).cancelFutures());
+        }
         return persistableDownload;
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static com.amazonaws.util.IOUtils.closeQuietly;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.FileChannelSink;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+
+/**
+ * Downloads a single byte range of an object and writes it into its offset of
+ * the destination file through positional {@link FileChannel} writes, so that
+ * any number of parts may be written into the same file concurrently.
+ * <p>
+ * A part that fails part way through with a retryable error is retried from
+ * the first byte that has not yet been written.
+ */
+public class DownloadPartCallable implements Callable<Integer> {
+    private static final Log log = LogFactory.getLog(DownloadPartCallable.class);
+
+    /** Maximum number of attempts made to download a single part. */
+    static final int MAX_ATTEMPTS = 3;
+
+    private final AmazonS3 s3;
+    private final GetObjectRequest request;
+    private final FileChannel channel;
+    private final int partNumber;
+    private final long fileOffset;
+
+    /**
+     * @param s3
+     *            The client used to fetch the part.
+     * @param request
+     *            The ranged request for this part; its range is advanced on
+     *            retry.
+     * @param channel
+     *            The channel of the destination file, shared by all parts.
+     * @param partNumber
+     *            The zero based index of this part.
+     * @param fileOffset
+     *            The position in the destination file at which the first byte
+     *            of this part is written.
+     */
+    public DownloadPartCallable(AmazonS3 s3, GetObjectRequest request,
+            FileChannel channel, int partNumber, long fileOffset) {
+        this.s3 = s3;
+        this.request = request;
+        this.channel = channel;
+        this.partNumber = partNumber;
+        this.fileOffset = fileOffset;
+    }
+
+    /**
+     * Returns the part number of the successfully downloaded part.
+     */
+    public Integer call() throws Exception {
+        final long[] range = request.getRange();
+        final long firstByte = range[0];
+        final long lastByte = range[1];
+        long written = 0;
+        for (int attempt = 1;; attempt++) {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException("Download of part " + partNumber + " canceled");
+            request.setRange(firstByte + written, lastByte);
+            // Service errors are already retried by the client itself
+            S3Object s3Object = s3.getObject(request);
+            if (s3Object == null) {
+                // Only happens if the ETag constraint of the request isn't met
+                throw new AmazonClientException("Object "
+                        + request.getBucketName() + "/" + request.getKey()
+                        + " was modified while the download was in progress");
+            }
+            IOException cause;
+            try {
+                written += writePart(s3Object, fileOffset + written);
+                if (firstByte + written == lastByte + 1)
+                    return partNumber;
+                cause = new IOException("Premature end of content: expected "
+                        + (lastByte - firstByte + 1) + " bytes but received "
+                        + written);
+            } catch (PartialWriteException e) {
+                written += e.written;
+                cause = (IOException) e.getCause();
+                if (cause instanceof ClosedChannelException) {
+                    // The shared channel is closed once the transfer is
+                    // canceled, so there is no point in retrying.
+                    throw new AbortedException("Download of part "
+                            + partNumber + " aborted", cause);
+                }
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new AmazonClientException("Unable to download part "
+                        + partNumber + ": " + cause.getMessage(), cause);
+            }
+            log.info("Retrying download of part " + partNumber + " of "
+                    + request.getBucketName() + "/" + request.getKey()
+                    + " from byte " + (firstByte + written), cause);
+        }
+    }
+
+    /**
+     * Writes the content of the given object at the given position of the
+     * destination file, returning the number of bytes written.
+     */
+    private long writePart(S3Object s3Object, long position)
+            throws PartialWriteException {
+        final S3ObjectInputStream content = s3Object.getObjectContent();
+        final FileChannelSink sink = new FileChannelSink(channel, position, null);
+        try {
+            return sink.transferFrom(content);
+        } catch (IOException e) {
+            content.abort();
+            throw new PartialWriteException(sink.getBytesWritten(), e);
+        } finally {
+            closeQuietly(content, log);
+        }
+    }
+
+    /**
+     * Records how much of a part made it to disk before an I/O failure.
+     */
+    private static final class PartialWriteException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final long written;
+
+        PartialWriteException(long written, IOException cause) {
+            super(cause);
+            this.written = written;
+        }
+    }
+}
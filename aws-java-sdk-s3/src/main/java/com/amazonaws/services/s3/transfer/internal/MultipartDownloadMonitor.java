@@ -0,0 +1,304 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static com.amazonaws.util.IOUtils.closeQuietly;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.FileLocks;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.exception.FileLockException;
+
+/**
+ * Manages a download that is split into byte ranges which are fetched
+ * concurrently on the transfer manager's thread pool, each range being written
+ * into its own offset of the destination file.
+ * <p>
+ * The first run of this monitor sizes the destination file and submits one
+ * {@link DownloadPartCallable} per missing part; it then replaces its future
+ * with one that completes once all the parts have been written. When waiting on
+ * the result of this class via a Future object, clients must call
+ * {@link #isDone()} and {@link #getFuture()}.
+ */
+public class MultipartDownloadMonitor implements Callable<File>, TransferMonitor {
+    private static final Log log = LogFactory.getLog(MultipartDownloadMonitor.class);
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final DownloadImpl download;
+    private final GetObjectRequest origReq;
+    private final File file;
+    private final long firstByte;
+    private final long lastByte;
+    private final long partSize;
+    private final String eTag;
+
+    /** Parts which had been downloaded before this download was resumed. */
+    private final BitSet partsBeforeResume;
+
+    /*
+     * Futures of threads that download the parts.
+     */
+    private final List<Future<Integer>> futures = Collections
+            .synchronizedList(new ArrayList<Future<Integer>>());
+
+    private RandomAccessFile randomAccessFile;
+
+    /*
+     * State for clients wishing to poll for completion
+     */
+    private boolean isDownloadDone = false;
+    private Future<File> future;
+
+    public synchronized Future<File> getFuture() {
+        return future;
+    }
+
+    private synchronized void setFuture(Future<File> future) {
+        this.future = future;
+    }
+
+    public synchronized boolean isDone() {
+        return isDownloadDone;
+    }
+
+    private synchronized void markAllDone() {
+        isDownloadDone = true;
+    }
+
+    /**
+     * Constructs a new monitor for a parallel download and then immediately
+     * submits it to the thread pool.
+     *
+     * @param s3
+     *            The client used to fetch the parts.
+     * @param download
+     *            The transfer being processed.
+     * @param threadPool
+     *            The {@link ExecutorService} to which the parts are submitted.
+     * @param getObjectRequest
+     *            The original request; each part is fetched with a ranged
+     *            copy of it.
+     * @param file
+     *            The destination file.
+     * @param firstByte
+     *            The first byte of the object to download.
+     * @param lastByte
+     *            The last byte (inclusive) of the object to download.
+     * @param partSize
+     *            The size of each part, except possibly the last.
+     * @param eTag
+     *            The ETag of the object; parts are fetched only while the
+     *            object still has this ETag.
+     * @param completedParts
+     *            The parts already written to the file if this download is
+     *            resumed, or null.
+     */
+    public static MultipartDownloadMonitor create(AmazonS3 s3,
+            DownloadImpl download, ExecutorService threadPool,
+            GetObjectRequest getObjectRequest, File file, long firstByte,
+            long lastByte, long partSize, String eTag, int[] completedParts) {
+        MultipartDownloadMonitor monitor = new MultipartDownloadMonitor(s3,
+                download, threadPool, getObjectRequest, file, firstByte,
+                lastByte, partSize, eTag, completedParts);
+        monitor.setFuture(threadPool.submit(monitor));
+        return monitor;
+    }
+
+    private MultipartDownloadMonitor(AmazonS3 s3, DownloadImpl download,
+            ExecutorService threadPool, GetObjectRequest getObjectRequest,
+            File file, long firstByte, long lastByte, long partSize,
+            String eTag, int[] completedParts) {
+        this.s3 = s3;
+        this.download = download;
+        this.threadPool = threadPool;
+        this.origReq = getObjectRequest;
+        this.file = file;
+        this.firstByte = firstByte;
+        this.lastByte = lastByte;
+        this.partSize = partSize;
+        this.eTag = eTag;
+        this.partsBeforeResume = new BitSet();
+        if (completedParts != null) {
+            for (int part : completedParts)
+                partsBeforeResume.set(part);
+        }
+    }
+
+    @Override
+    public File call() throws Exception {
+        try {
+            download.setState(TransferState.InProgress);
+            final long totalBytes = lastByte - firstByte + 1;
+            final FileChannel channel = openFile(totalBytes);
+
+            int partNumber = 0;
+            for (long offset = 0; offset < totalBytes; offset += partSize, partNumber++) {
+                if (threadPool.isShutdown())
+                    throw new CancellationException("TransferManager has been shutdown");
+                final long length = Math.min(partSize, totalBytes - offset);
+                if (partsBeforeResume.get(partNumber)) {
+                    download.getProgress().updateProgress(length);
+                    continue;
+                }
+                GetObjectRequest req = (GetObjectRequest) origReq.clone();
+                req.setRange(firstByte + offset, firstByte + offset + length - 1);
+                if (eTag != null) {
+                    req.setMatchingETagConstraints(Collections.singletonList(eTag));
+                }
+                futures.add(threadPool.submit(new DownloadPartCallable(s3,
+                        req, channel, partNumber, offset)));
+            }
+            setFuture(threadPool.submit(new Callable<File>() {
+                public File call() throws Exception {
+                    return completeDownload();
+                }
+            }));
+            return null;
+        } catch (Exception e) {
+            downloadFailed();
+            throw e;
+        }
+    }
+
+    /**
+     * Locks and sizes the destination file. A file that doesn't have the size
+     * of the object can't hold the parts recorded before a resume, so those
+     * parts are fetched again.
+     *
+     * @return the channel through which all the parts are written.
+     */
+    private FileChannel openFile(long totalBytes) throws IOException {
+        File parentDirectory = file.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()
+                && !parentDirectory.mkdirs()) {
+            throw new AmazonClientException(
+                    "Unable to create directory in the path"
+                            + parentDirectory.getAbsolutePath());
+        }
+        if (!FileLocks.lock(file)) {
+            throw new FileLockException("Fail to lock " + file
+                    + " for parallel download");
+        }
+        synchronized (this) {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            if (randomAccessFile.length() != totalBytes) {
+                if (!partsBeforeResume.isEmpty()) {
+                    log.info("Length of " + file
+                            + " doesn't match the object; downloading all parts");
+                    partsBeforeResume.clear();
+                }
+                randomAccessFile.setLength(totalBytes);
+            }
+            return randomAccessFile.getChannel();
+        }
+    }
+
+    /**
+     * Waits for all the parts to be written, then releases the file and marks
+     * the download as completed.
+     */
+    private File completeDownload() throws Exception {
+        try {
+            for (Future<Integer> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    Throwable t = e.getCause();
+                    if (t instanceof AmazonClientException)
+                        throw (AmazonClientException) t;
+                    throw new AmazonClientException("Unable to download part: "
+                            + t.getMessage(), t);
+                }
+            }
+            releaseFile();
+            markAllDone();
+            download.setState(TransferState.Completed);
+            return file;
+        } catch (Exception e) {
+            downloadFailed();
+            throw e;
+        }
+    }
+
+    private void downloadFailed() {
+        cancelParts();
+        // Downloads aren't allowed to move from canceled to failed
+        if (download.getState() != TransferState.Canceled) {
+            download.setState(TransferState.Failed);
+        }
+    }
+
+    private synchronized void releaseFile() {
+        if (randomAccessFile != null) {
+            closeQuietly(randomAccessFile, log);
+            randomAccessFile = null;
+            FileLocks.unlock(file);
+        }
+    }
+
+    /**
+     * Cancels the in flight parts of this download and releases the
+     * destination file.
+     *
+     * @return the numbers of the parts that have been completely written to
+     *         the file.
+     */
+    int[] cancelFutures() {
+        getFuture().cancel(true);
+        return cancelParts();
+    }
+
+    private int[] cancelParts() {
+        BitSet completed = (BitSet) partsBeforeResume.clone();
+        synchronized (futures) {
+            for (Future<Integer> f : futures) {
+                f.cancel(true);
+                if (f.isDone() && !f.isCancelled()) {
+                    try {
+                        completed.set(f.get());
+                    } catch (Exception e) {
+                        // Part failed; it will be fetched again on resume
+                    }
+                }
+            }
+        }
+        releaseFile();
+        int[] parts = new int[completed.cardinality()];
+        for (int i = completed.nextSetBit(0), j = 0; i >= 0; i = completed.nextSetBit(i + 1)) {
+            parts[j++] = i;
+        }
+        return parts;
+    }
+}
@@ -15,14 +15,22 @@
 package com.amazonaws.services.s3.transfer.internal;
 
 import static com.amazonaws.services.s3.internal.Constants.MAXIMUM_UPLOAD_PARTS;
+import static com.amazonaws.services.s3.internal.Constants.MB;
 
 import java.io.File;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Encryption;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadObjectRequest;
 import com.amazonaws.services.s3.transfer.PauseStatus;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
@@ -71,6 +79,51 @@ public class TransferManagerUtils {
         return (getRequestFile(putObjectRequest) != null);
     }
 
+    /**
+     * Returns true if the specified multipart upload through the given client
+     * can be encrypted as a single stream by one thread while its ciphertext
+     * parts are uploaded in parallel, through
+     * {@link AmazonS3EncryptionClient#uploadObject(UploadObjectRequest)}.
+     * Such uploads need parts of at least 5 MB.
+     *
+     * @param s3
+     *            The client performing the upload.
+     * @param partSize
+     *            The part size of the upload.
+     *
+     * @return True if the upload can encrypt and upload its parts in a
+     *         pipeline.
+     */
+    public static boolean isUploadPipelinable(final AmazonS3 s3, final long partSize) {
+        return s3 instanceof AmazonS3EncryptionClient && partSize >= 5 * MB;
+    }
+
+    /**
+     * Returns true if the specified upload request reads from an input stream
+     * whose length is not known in advance, which is then read into buffers of
+     * the minimum upload part size and uploaded part by part as the buffers
+     * fill, instead of being buffered whole in memory. Encrypted uploads are
+     * excluded since their parts must be uploaded in order.
+     *
+     * @param putObjectRequest
+     *            The request to check.
+     * @param isUsingEncryption
+     *            True if the upload is an encrypted upload, otherwise false.
+     *
+     * @return True if this request should be uploaded as a stream of unknown
+     *         length.
+     */
+    public static boolean isStreamingUpload(final PutObjectRequest putObjectRequest, final boolean isUsingEncryption) {
+        if (isUsingEncryption) return false;
+        if (getRequestFile(putObjectRequest) != null
+                || putObjectRequest.getInputStream() == null) {
+            return false;
+        }
+        ObjectMetadata metadata = putObjectRequest.getMetadata();
+        return metadata == null
+                || metadata.getRawMetadataValue(Headers.CONTENT_LENGTH) == null;
+    }
+
     /**
      * Returns the size of the data in this request, otherwise -1 if the content
      * length is unknown.
@@ -164,6 +217,61 @@ public class TransferManagerUtils {
                 configuration.getMultipartCopyPartSize());
     }
 
+    /**
+     * Returns true if the specified download should be performed as byte
+     * ranges fetched in parallel. Requests for a specific range or with
+     * conditional constraints, and downloads through a client-side encryption
+     * client, are always performed through a single connection.
+     *
+     * @param s3
+     *            The client performing the download.
+     * @param getObjectRequest
+     *            The request containing all the details of the download.
+     * @param contentLength
+     *            The length of the object to download.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     *
+     * @return True if the download should be performed as parallel ranged
+     *         parts.
+     */
+    public static boolean isDownloadParallelizable(AmazonS3 s3,
+            GetObjectRequest getObjectRequest, long contentLength,
+            TransferManagerConfiguration configuration) {
+        if (s3 instanceof AmazonS3Encryption)
+            return false;
+        if (getObjectRequest.getRange() != null
+                || !getObjectRequest.getMatchingETagConstraints().isEmpty()
+                || !getObjectRequest.getNonmatchingETagConstraints().isEmpty()
+                || getObjectRequest.getModifiedSinceConstraint() != null
+                || getObjectRequest.getUnmodifiedSinceConstraint() != null)
+            return false;
+        return contentLength > configuration.getMultipartDownloadThreshold();
+    }
+
+    /**
+     * Returns the optimal part size, in bytes, for each ranged part of a
+     * parallel download.
+     *
+     * @param contentLength
+     *            The length of the object to download.
+     * @param configuration
+     *            Configuration values to use when calculating size.
+     *
+     * @return The optimal part size, in bytes, for each part of a parallel
+     *         download.
+     */
+    public static long calculateOptimalPartSizeForDownload(long contentLength,
+            TransferManagerConfiguration configuration) {
+        // Bound the number of parts so the persisted state of a paused
+        // download stays small
+        double optimalPartSize = Math.ceil((double) contentLength
+                / (double) MAXIMUM_UPLOAD_PARTS);
+        return (long) Math.max(optimalPartSize,
+                configuration.getMinimumDownloadPartSize());
+    }
+
     /**
      * Determines the pause status based on the current state of transfer.
      */
@@ -16,6 +16,9 @@ package com.amazonaws.services.s3.transfer.internal;
 
 import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,29 +26,41 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Encryption;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.UploadObjectObserver;
+import com.amazonaws.services.s3.internal.Constants;
+import com.amazonaws.services.s3.internal.MultiBufferOutputStream;
+import com.amazonaws.services.s3.internal.PartCreationEvent;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptedPutObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.ListPartsRequest;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PartListing;
 import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadObjectRequest;
 import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 import com.amazonaws.services.s3.transfer.PersistableUpload;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.TransferManager;
@@ -74,6 +89,12 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private PersistableUpload persistableUpload;
 
+    /**
+     * True once an input stream of unknown length has turned out to be longer
+     * than a part, and is being uploaded as a multipart upload.
+     */
+    private volatile boolean isStreamedInParts;
+
     public UploadCallable(TransferManager transferManager,
             ExecutorService threadPool, UploadImpl upload,
             PutObjectRequest origReq,
@@ -111,12 +132,23 @@ public class UploadCallable implements Callable<UploadResult> {
      * @return True if this UploadCallable is processing a multipart upload.
      */
     public boolean isMultipartUpload() {
-        return TransferManagerUtils.shouldUseMultipartUpload(origReq, configuration);
+        return isStreamedInParts
+                || TransferManagerUtils.shouldUseMultipartUpload(origReq, configuration);
+    }
+
+    /**
+     * Returns true if this UploadCallable is uploading a stream of unknown
+     * length as a multipart upload.
+     */
+    boolean isStreamedInParts() {
+        return isStreamedInParts;
     }
 
     public UploadResult call() throws Exception {
         upload.setState(TransferState.InProgress);
-        if ( isMultipartUpload() ) {
+        if (TransferManagerUtils.isStreamingUpload(origReq, s3 instanceof AmazonS3Encryption)) {
+            return uploadStream();
+        } else if ( isMultipartUpload() ) {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
             return uploadInParts();
         } else {
@@ -128,11 +160,15 @@ public class UploadCallable implements Callable<UploadResult> {
      * Uploads the given request in a single chunk and returns the result.
      */
     private UploadResult uploadInOneChunk() {
-        PutObjectResult putObjectResult = s3.putObject(origReq);
+        return uploadInOneChunk(origReq);
+    }
+
+    private UploadResult uploadInOneChunk(PutObjectRequest req) {
+        PutObjectResult putObjectResult = s3.putObject(req);
 
         UploadResult uploadResult = new UploadResult();
-        uploadResult.setBucketName(origReq.getBucketName());
-        uploadResult.setKey(origReq.getKey());
+        uploadResult.setBucketName(req.getBucketName());
+        uploadResult.setKey(req.getKey());
         uploadResult.setETag(putObjectResult.getETag());
         uploadResult.setVersionId(putObjectResult.getVersionId());
         return uploadResult;
@@ -173,6 +209,11 @@ public class UploadCallable implements Callable<UploadResult> {
         boolean isUsingEncryption = s3 instanceof AmazonS3Encryption;
         long optimalPartSize = getOptimalPartSize(isUsingEncryption);
 
+        if (multipartUploadId == null
+                && TransferManagerUtils.isUploadPipelinable(s3, optimalPartSize)) {
+            return uploadInPipeline(optimalPartSize);
+        }
+
         try {
             if (multipartUploadId == null) {
                 multipartUploadId = initiateMultipartUpload(origReq,
@@ -201,6 +242,314 @@ public class UploadCallable implements Callable<UploadResult> {
         }
     }
 
+    /**
+     * Uploads an input stream of unknown length. The stream is read into
+     * buffers of the minimum part size taken from a bounded pool; each full
+     * buffer is uploaded as a part on the thread pool while the next one is
+     * read, and goes back to the pool once its part has been uploaded. When
+     * all the buffers are in use, the next part is uploaded in this thread,
+     * which bounds the memory used and never waits on a thread pool that may
+     * be busy with this very upload. A stream that ends within its first part
+     * is uploaded with a single request.
+     */
+    private UploadResult uploadStream() throws Exception {
+        final InputStream input = origReq.getInputStream();
+        final int partSize = (int) Math.min(
+                configuration.getMinimumUploadPartSize(), Integer.MAX_VALUE - 8);
+        try {
+            byte[] buffer = readFirstPart(input, partSize);
+            if (buffer.length < partSize) {
+                // The whole stream fits in a single part
+                transferProgress.setTotalBytesToTransfer(buffer.length);
+                PutObjectRequest req = origReq.clone();
+                req.setInputStream(new ByteArrayInputStream(buffer));
+                if (req.getMetadata() == null) req.setMetadata(new ObjectMetadata());
+                req.getMetadata().setContentLength(buffer.length);
+                return uploadInOneChunk(req);
+            }
+            isStreamedInParts = true;
+            publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+            multipartUploadId = initiateMultipartUpload(origReq, false);
+
+            UploadPartBufferPool bufferPool = new UploadPartBufferPool(
+                    partSize, configuration.getStreamingUploadBufferCount());
+            bufferPool.adopt(buffer);
+            long totalBytes = 0;
+            int partNumber = 1;
+            int firstPendingPart = 0;
+            int length = partSize;
+            while (length > 0) {
+                if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+                if (partNumber > Constants.MAXIMUM_UPLOAD_PARTS) {
+                    throw new AmazonClientException("Unable to upload a stream of more than "
+                            + Constants.MAXIMUM_UPLOAD_PARTS + " parts of " + partSize
+                            + " bytes; increase the minimum upload part size");
+                }
+                totalBytes += length;
+                StreamingUploadPartCallable part = new StreamingUploadPartCallable(
+                        s3, newStreamingUploadPartRequest(partNumber++, buffer, length),
+                        bufferPool, buffer);
+                buffer = bufferPool.tryAcquire();
+                if (buffer != null) {
+                    futures.add(threadPool.submit(part));
+                } else {
+                    FutureTask<PartETag> task = new FutureTask<PartETag>(part);
+                    futures.add(task);
+                    task.run();
+                    buffer = bufferPool.tryAcquire();
+                }
+                firstPendingPart = checkUploadedParts(firstPendingPart);
+                length = length < partSize ? 0 : readFully(input, buffer, partSize);
+            }
+            transferProgress.setTotalBytesToTransfer(totalBytes);
+            return null;
+        } catch (Exception e) {
+            publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+            for (Future<PartETag> future : futures) {
+                future.cancel(true);
+            }
+            performAbortMultipartUpload();
+            throw e;
+        } finally {
+            try { input.close(); } catch (Exception e) {
+                log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Reads the first part of an input stream of unknown length into a buffer
+     * grown as data arrives, so that a short stream doesn't cost a whole part
+     * of memory. Returns a buffer of the given part size if the stream is at
+     * least that long, otherwise a buffer holding exactly the whole stream.
+     */
+    private static byte[] readFirstPart(InputStream input, int partSize) throws IOException {
+        byte[] buffer = new byte[Math.min(8192, partSize)];
+        int length = 0;
+        while (true) {
+            int read = readFully(input, buffer, length, buffer.length - length);
+            length += read;
+            if (length < buffer.length) {
+                byte[] whole = new byte[length];
+                System.arraycopy(buffer, 0, whole, 0, length);
+                return whole;
+            }
+            if (length == partSize) {
+                return buffer;
+            }
+            byte[] grown = new byte[(int) Math.min(2L * buffer.length, partSize)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+
+    /**
+     * Reads from the given stream into the given buffer until it holds the
+     * given number of bytes or the stream ends, and returns the number of
+     * bytes read.
+     */
+    private static int readFully(InputStream input, byte[] buffer, int length) throws IOException {
+        return readFully(input, buffer, 0, length);
+    }
+
+    private static int readFully(InputStream input, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = input.read(buffer, offset + total, length - total);
+            if (read == -1) break;
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Fails fast if a part of a streaming upload has failed, rather than
+     * reading the rest of the stream, by checking the futures of the parts in
+     * order from the first one not yet known to be uploaded. Returns the index
+     * of the first part still pending.
+     */
+    private int checkUploadedParts(int firstPendingPart) {
+        while (firstPendingPart < futures.size()
+                && futures.get(firstPendingPart).isDone()) {
+            try {
+                futures.get(firstPendingPart).get();
+            } catch (ExecutionException e) {
+                throw new AmazonClientException(
+                        "Unable to upload part " + (firstPendingPart + 1)
+                                + " of the stream: " + e.getCause().getMessage(),
+                        e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Upload interrupted");
+            }
+            firstPendingPart++;
+        }
+        return firstPendingPart;
+    }
+
+    /**
+     * Returns the request to upload a part of an input stream of unknown
+     * length from the given buffer.
+     */
+    private UploadPartRequest newStreamingUploadPartRequest(int partNumber,
+            byte[] buffer, int length) {
+        UploadPartRequest req = new UploadPartRequest()
+            .withBucketName(origReq.getBucketName())
+            .withKey(origReq.getKey())
+            .withUploadId(multipartUploadId)
+            .withInputStream(new ByteArrayInputStream(buffer, 0, length))
+            .withPartNumber(partNumber)
+            .withPartSize(length);
+        TransferManager.appendMultipartUserAgent(req);
+
+        if (origReq.getSSECustomerKey() != null) req.setSSECustomerKey(origReq.getSSECustomerKey());
+
+        req.withGeneralProgressListener(origReq.getGeneralProgressListener())
+           .withRequestMetricCollector(origReq.getRequestMetricCollector())
+           ;
+        req.getRequestClientOptions().setReadLimit(origReq.getReadLimit());
+        return req;
+    }
+
+    /**
+     * Uploads the request through the encryption client as a single cipher
+     * stream, which this thread encrypts into buffers of the part size while
+     * the completed ciphertext parts are uploaded in parallel on the thread
+     * pool, then completes the upload and returns the result. The encryption
+     * client aborts the upload on failure.
+     */
+    private UploadResult uploadInPipeline(long partSize) throws Exception {
+        final int bufferCount = Math.max(2, configuration.getStreamingUploadBufferCount());
+        final UploadObjectRequest req = newUploadObjectRequest(origReq)
+            .withPartSize(partSize)
+            .withDiskLimit(bufferCount * partSize)
+            .withMultiFileOutputStream(new MultiBufferOutputStream())
+            .withUploadObjectObserver(new PipelinedUploadObserver(bufferCount))
+            .withExecutorService(threadPool);
+        try {
+            CompleteMultipartUploadResult res =
+                ((AmazonS3EncryptionClient) s3).uploadObject(req);
+
+            UploadResult uploadResult = new UploadResult();
+            uploadResult.setBucketName(res.getBucketName());
+            uploadResult.setKey(res.getKey());
+            uploadResult.setETag(res.getETag());
+            uploadResult.setVersionId(res.getVersionId());
+            return uploadResult;
+        } catch (Exception e) {
+            publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+            throw e;
+        } finally {
+            if (origReq.getInputStream() != null) {
+                try {origReq.getInputStream().close(); } catch (Exception e) {
+                    log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the request to upload the data of the given request through
+     * {@link AmazonS3EncryptionClient#uploadObject(UploadObjectRequest)}.
+     */
+    private static UploadObjectRequest newUploadObjectRequest(PutObjectRequest origReq) {
+        UploadObjectRequest req = origReq.getFile() != null
+            ? new UploadObjectRequest(origReq.getBucketName(), origReq.getKey(), origReq.getFile())
+            : new UploadObjectRequest(origReq.getBucketName(), origReq.getKey(),
+                    origReq.getInputStream(), origReq.getMetadata());
+        req.withMetadata(origReq.getMetadata())
+           .withCannedAcl(origReq.getCannedAcl())
+           .withAccessControlList(origReq.getAccessControlList())
+           .withStorageClass(origReq.getStorageClass())
+           .withRedirectLocation(origReq.getRedirectLocation())
+           .withSSECustomerKey(origReq.getSSECustomerKey())
+           .withSSEAwsKeyManagementParams(origReq.getSSEAwsKeyManagementParams())
+           .withGeneralProgressListener(origReq.getGeneralProgressListener())
+           .withRequestMetricCollector(origReq.getRequestMetricCollector())
+           ;
+        req.getRequestClientOptions().setReadLimit(origReq.getReadLimit());
+        if (origReq instanceof EncryptedPutObjectRequest) {
+            req.setMaterialsDescription(
+                    ((EncryptedPutObjectRequest) origReq).getMaterialsDescription());
+        }
+        return req;
+    }
+
+    /**
+     * Uploads the ciphertext parts of a pipelined upload on the thread pool.
+     * <p>
+     * A part is uploaded in the encrypting thread rather than submitted when
+     * submitting it would leave no free buffer for the next part, and the
+     * parts still queued once the last one has been encrypted are uploaded in
+     * the encrypting thread too. The encrypting thread thereby never waits
+     * for a part queued behind it on the thread pool, which may be fully
+     * taken by such uploads.
+     */
+    private final class PipelinedUploadObserver extends UploadObjectObserver {
+        private final int bufferCount;
+        private final AtomicInteger partsInFlight = new AtomicInteger();
+
+        PipelinedUploadObserver(int bufferCount) {
+            this.bufferCount = bufferCount;
+        }
+
+        @Override
+        protected InitiateMultipartUploadRequest newInitiateMultipartUploadRequest(
+                UploadObjectRequest req) {
+            InitiateMultipartUploadRequest initReq = super.newInitiateMultipartUploadRequest(req);
+            TransferManager.appendMultipartUserAgent(initReq);
+            return initReq;
+        }
+
+        @Override
+        public String onUploadInitiation(UploadObjectRequest req) {
+            String uploadId = super.onUploadInitiation(req);
+            multipartUploadId = uploadId;
+            log.debug("Initiated new multipart upload: " + uploadId);
+            return uploadId;
+        }
+
+        @Override
+        public void onPartCreate(PartCreationEvent event) {
+            final Callable<UploadPartResult> uploadPart = newUploadPartCallable(event);
+            if (partsInFlight.get() + 2 <= bufferCount) {
+                partsInFlight.incrementAndGet();
+                FutureTask<UploadPartResult> task = new FutureTask<UploadPartResult>(
+                        new Callable<UploadPartResult>() {
+                            public UploadPartResult call() throws Exception {
+                                try {
+                                    return uploadPart.call();
+                                } finally {
+                                    partsInFlight.decrementAndGet();
+                                }
+                            }
+                        });
+                getFutures().add(task);
+                getExecutorService().execute(task);
+            } else {
+                FutureTask<UploadPartResult> task = new FutureTask<UploadPartResult>(uploadPart);
+                getFutures().add(task);
+                task.run();
+            }
+            if (event.isLastPart()) {
+                // Uploads the parts not started yet; a no-op for the others
+                for (Future<UploadPartResult> future : getFutures()) {
+                    ((FutureTask<UploadPartResult>) future).run();
+                }
+            }
+        }
+
+        @Override
+        protected UploadPartRequest newUploadPartRequest(PartCreationEvent event, File part) {
+            UploadPartRequest req = super.newUploadPartRequest(event, part);
+            TransferManager.appendMultipartUserAgent(req);
+            req.withGeneralProgressListener(origReq.getGeneralProgressListener())
+               .withRequestMetricCollector(origReq.getRequestMetricCollector())
+               ;
+            return req;
+        }
+    }
+
     /**
      * Performs an
      * {@link AmazonS3#abortMultipartUpload(AbortMultipartUploadRequest)}
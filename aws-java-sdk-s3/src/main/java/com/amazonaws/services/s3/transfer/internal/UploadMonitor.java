@@ -174,6 +174,21 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
         }
     }
 
+    /**
+     * Called when the parts of a parallel multipart upload could not be
+     * completed. An upload from a stream of unknown length cannot be resumed,
+     * so its parts are aborted rather than left in Amazon S3.
+     */
+    void uploadFailed() {
+        if (multipartUploadCallable.isStreamedInParts()) {
+            transfer.setState(TransferState.Failed);
+            for (Future<PartETag> f : futures) {
+                f.cancel(true);
+            }
+            multipartUploadCallable.performAbortMultipartUpload();
+        }
+    }
+
     /**
      * Cancels the futures in the following cases - If the user has requested
      * for forcefully aborting the transfers. - If the upload is a multi part
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded pool of the buffers into which an upload from an input stream of
+ * unknown length reads its parts, so that the stream is uploaded with a
+ * constant amount of memory whatever its length. Buffers are allocated on
+ * demand up to the maximum, and reused once their part has been uploaded.
+ */
+class UploadPartBufferPool {
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final List<byte[]> freeBuffers = new ArrayList<byte[]>();
+    private int allocatedBuffers;
+
+    UploadPartBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns a free buffer, allocating a new one if the maximum has not been
+     * reached; or null if all the buffers are in use.
+     */
+    synchronized byte[] tryAcquire() {
+        if (!freeBuffers.isEmpty()) {
+            return freeBuffers.remove(freeBuffers.size() - 1);
+        }
+        if (allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            return new byte[bufferSize];
+        }
+        return null;
+    }
+
+    /**
+     * Counts the given buffer, allocated by the caller with the size of the
+     * buffers of this pool, as one of the buffers of this pool in use.
+     */
+    synchronized void adopt(byte[] buffer) {
+        if (buffer.length != bufferSize) {
+            throw new IllegalArgumentException("Unexpected buffer size: " + buffer.length);
+        }
+        allocatedBuffers++;
+    }
+
+    /**
+     * Returns the given buffer to this pool once its part has been uploaded.
+     */
+    synchronized void release(byte[] buffer) {
+        freeBuffers.add(buffer);
+    }
+}
@@ -368,6 +368,19 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         return buffer.changeMessageVisibility(changeMessageVisibilityRequest, asyncHandler);
     }
 
+    /**
+     * Changes the visibility timeout of a message, holding the request in a batch for at most
+     * {@code maxDelayMs} milliseconds, or for the batch open time of the buffer if negative.
+     */
+    public Future<Void> changeMessageVisibilityAsync(ChangeMessageVisibilityRequest changeMessageVisibilityRequest,
+                                                     long maxDelayMs,
+                                                     AsyncHandler<ChangeMessageVisibilityRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        ResultConverter.appendUserAgent(changeMessageVisibilityRequest, USER_AGENT);
+        QueueBuffer buffer = getQBuffer(changeMessageVisibilityRequest.getQueueUrl());
+        return buffer.changeMessageVisibility(changeMessageVisibilityRequest, maxDelayMs, asyncHandler);
+    }
+
     public Future<SendMessageResult> sendMessageAsync(SendMessageRequest sendMessageRequest,
                                                       AsyncHandler<SendMessageRequest, SendMessageResult> asyncHandler)
             throws AmazonServiceException, AmazonClientException {
@@ -377,6 +390,18 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
 
     }
 
+    /**
+     * Sends a message, holding the request in a batch for at most {@code maxDelayMs}
+     * milliseconds, or for the batch open time of the buffer if negative.
+     */
+    public Future<SendMessageResult> sendMessageAsync(SendMessageRequest sendMessageRequest, long maxDelayMs,
+                                                      AsyncHandler<SendMessageRequest, SendMessageResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        ResultConverter.appendUserAgent(sendMessageRequest, USER_AGENT);
+        QueueBuffer buffer = getQBuffer(sendMessageRequest.getQueueUrl());
+        return buffer.sendMessage(sendMessageRequest, maxDelayMs, asyncHandler);
+    }
+
     public Future<ReceiveMessageResult> receiveMessageAsync(ReceiveMessageRequest receiveMessageRequest,
                                                             AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult> asyncHandler)
             throws AmazonServiceException, AmazonClientException {
@@ -393,6 +418,18 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         return buffer.deleteMessage(deleteMessageRequest, asyncHandler);
     }
 
+    /**
+     * Deletes a message, holding the request in a batch for at most {@code maxDelayMs}
+     * milliseconds, or for the batch open time of the buffer if negative.
+     */
+    public Future<Void> deleteMessageAsync(DeleteMessageRequest deleteMessageRequest, long maxDelayMs,
+                                           AsyncHandler<DeleteMessageRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        ResultConverter.appendUserAgent(deleteMessageRequest, USER_AGENT);
+        QueueBuffer buffer = getQBuffer(deleteMessageRequest.getQueueUrl());
+        return buffer.deleteMessage(deleteMessageRequest, maxDelayMs, asyncHandler);
+    }
+
     public Future<Void> setQueueAttributesAsync(SetQueueAttributesRequest setQueueAttributesRequest,
                                                 AsyncHandler<SetQueueAttributesRequest, Void> asyncHandler)
             throws AmazonServiceException, AmazonClientException {
@@ -76,11 +76,26 @@ class QueueBuffer {
      */
     public Future<SendMessageResult> sendMessage(SendMessageRequest request,
                                                  AsyncHandler<SendMessageRequest, SendMessageResult> handler) {
+        return sendMessage(request, -1, handler);
+    }
+
+    /**
+     * asynchronously enqueues a message to SQS, waiting at most the given time for other requests
+     * to batch it with.
+     * 
+     * @param maxDelayMs
+     *            the longest time (milliseconds) the request may be held in a batch, or a negative
+     *            value to use the batch open time of the buffer
+     * @return a Future object that will be notified when the operation is completed; never null
+     */
+    public Future<SendMessageResult> sendMessage(SendMessageRequest request, long maxDelayMs,
+                                                 AsyncHandler<SendMessageRequest, SendMessageResult> handler) {
         QueueBufferCallback<SendMessageRequest, SendMessageResult> callback = null;
         if (handler != null) {
             callback = new QueueBufferCallback<SendMessageRequest, SendMessageResult>(handler, request);
         }
-        QueueBufferFuture<SendMessageRequest, SendMessageResult> future = sendBuffer.sendMessage(request, callback);
+        QueueBufferFuture<SendMessageRequest, SendMessageResult> future = sendBuffer.sendMessage(request, maxDelayMs,
+                callback);
         future.setBuffer(this);
         return future;
     }
@@ -102,12 +117,26 @@ class QueueBuffer {
      */
 
     public Future<Void> deleteMessage(DeleteMessageRequest request, AsyncHandler<DeleteMessageRequest, Void> handler) {
+        return deleteMessage(request, -1, handler);
+    }
+
+    /**
+     * Asynchronously deletes a message from SQS, waiting at most the given time for other requests
+     * to batch it with.
+     * 
+     * @param maxDelayMs
+     *            the longest time (milliseconds) the request may be held in a batch, or a negative
+     *            value to use the batch open time of the buffer
+     * @return a Future object that will be notified when the operation is completed; never null
+     */
+    public Future<Void> deleteMessage(DeleteMessageRequest request, long maxDelayMs,
+                                      AsyncHandler<DeleteMessageRequest, Void> handler) {
         QueueBufferCallback<DeleteMessageRequest, Void> callback = null;
         if (handler != null) {
             callback = new QueueBufferCallback<DeleteMessageRequest, Void>(handler, request);
         }
 
-        QueueBufferFuture<DeleteMessageRequest, Void> future = sendBuffer.deleteMessage(request, callback);
+        QueueBufferFuture<DeleteMessageRequest, Void> future = sendBuffer.deleteMessage(request, maxDelayMs, callback);
         future.setBuffer(this);
         return future;
     }
@@ -130,13 +159,27 @@ class QueueBuffer {
 
     public Future<Void> changeMessageVisibility(ChangeMessageVisibilityRequest request,
                                                 AsyncHandler<ChangeMessageVisibilityRequest, Void> handler) {
+        return changeMessageVisibility(request, -1, handler);
+    }
+
+    /**
+     * asynchronously adjust a message's visibility timeout to SQS, waiting at most the given time
+     * for other requests to batch it with.
+     * 
+     * @param maxDelayMs
+     *            the longest time (milliseconds) the request may be held in a batch, or a negative
+     *            value to use the batch open time of the buffer
+     * @return a Future object that will be notified when the operation is completed; never null
+     */
+    public Future<Void> changeMessageVisibility(ChangeMessageVisibilityRequest request, long maxDelayMs,
+                                                AsyncHandler<ChangeMessageVisibilityRequest, Void> handler) {
         QueueBufferCallback<ChangeMessageVisibilityRequest, Void> callback = null;
         if (handler != null) {
             callback = new QueueBufferCallback<ChangeMessageVisibilityRequest, Void>(handler, request);
         }
 
         QueueBufferFuture<ChangeMessageVisibilityRequest, Void> future = sendBuffer.changeMessageVisibility(request,
-                callback);
+                maxDelayMs, callback);
         future.setBuffer(this);
         return future;
     }
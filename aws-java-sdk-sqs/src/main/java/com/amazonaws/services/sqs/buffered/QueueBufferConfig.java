@@ -81,6 +81,29 @@ public class QueueBufferConfig {
     /** 10 batches */
     public static final int MAX_DONE_RECEIVE_BATCHES_DEFAULT = 10;
 
+    /**
+     * Should the number of receive batches be sized adaptively? If enabled, the buffer keeps only as
+     * many receive batches in flight and completed as the observed rate at which messages are
+     * consumed requires, up to maxInflightReceiveBatches and maxDoneReceiveBatches respectively.
+     * The number of prefetched messages is also kept low enough for them to be consumed well
+     * before their visibility timeout expires.
+     */
+    private boolean adaptivePrefetching;
+
+    /** false */
+    public static final boolean ADAPTIVE_PREFETCHING_DEFAULT = false;
+
+    /**
+     * Should the time a send batch is held open be adapted to the rate of outbound requests? If
+     * enabled, a batch is held open only for about as long as it takes for the observed rate of
+     * requests to fill it, up to maxBatchOpenMs; requests arriving less often than maxBatchOpenMs
+     * are sent without waiting for other requests.
+     */
+    private boolean adaptiveBatching;
+
+    /** false */
+    public static final boolean ADAPTIVE_BATCHING_DEFAULT = false;
+
     /**
      * Maximum permitted size of a SendMessage or SendMessageBatch message, in bytes
      */
@@ -122,6 +145,8 @@ public class QueueBufferConfig {
         this.visibilityTimeoutSeconds = visibilityTimeout;
         this.longPollWaitTimeoutSeconds = longPollTimeout;
         this.maxBatchSize = maxBatch;
+        this.adaptivePrefetching = ADAPTIVE_PREFETCHING_DEFAULT;
+        this.adaptiveBatching = ADAPTIVE_BATCHING_DEFAULT;
     }
 
     public QueueBufferConfig() {
@@ -141,6 +166,8 @@ public class QueueBufferConfig {
         maxInflightOutboundBatches = other.maxInflightOutboundBatches;
         maxInflightReceiveBatches = other.maxInflightReceiveBatches;
         visibilityTimeoutSeconds = other.visibilityTimeoutSeconds;
+        adaptivePrefetching = other.adaptivePrefetching;
+        adaptiveBatching = other.adaptiveBatching;
     }
 
     @Override
@@ -149,7 +176,8 @@ public class QueueBufferConfig {
                 + longPoll + ", maxInflightOutboundBatches=" + maxInflightOutboundBatches
                 + ", maxInflightReceiveBatches=" + maxInflightReceiveBatches + ", maxDoneReceiveBatches="
                 + maxDoneReceiveBatches + ", maxBatchSizeBytes=" + maxBatchSizeBytes + ", visibilityTimeoutSeconds="
-                + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds=" + longPollWaitTimeoutSeconds + "]";
+                + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds=" + longPollWaitTimeoutSeconds
+                + ", adaptivePrefetching=" + adaptivePrefetching + ", adaptiveBatching=" + adaptiveBatching + "]";
     }
 
     /**
@@ -183,6 +211,29 @@ public class QueueBufferConfig {
         return this;
     }
 
+    /**
+     * @return true if the time a send batch is held open is adapted to the rate of outbound
+     *         requests, false otherwise.
+     */
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+
+    /**
+     * Specify "true" to adapt the time a send batch is held open to the rate of outbound requests.
+     */
+    public void setAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+    }
+
+    /**
+     * Specify "true" to adapt the time a send batch is held open to the rate of outbound requests.
+     */
+    public QueueBufferConfig withAdaptiveBatching(boolean adaptiveBatching) {
+        setAdaptiveBatching(adaptiveBatching);
+        return this;
+    }
+
     /**
      * @return true if the queue buffer will use long polling while retrieving messages from the
      *         SQS server, false otherwise.
@@ -306,6 +357,29 @@ public class QueueBufferConfig {
         return this;
     }
 
+    /**
+     * @return true if the number of receive batches is sized to the rate at which messages are
+     *         consumed, false otherwise.
+     */
+    public boolean isAdaptivePrefetching() {
+        return adaptivePrefetching;
+    }
+
+    /**
+     * Specify "true" to size the number of receive batches to the rate at which messages are consumed.
+     */
+    public void setAdaptivePrefetching(boolean adaptivePrefetching) {
+        this.adaptivePrefetching = adaptivePrefetching;
+    }
+
+    /**
+     * Specify "true" to size the number of receive batches to the rate at which messages are consumed.
+     */
+    public QueueBufferConfig withAdaptivePrefetching(boolean adaptivePrefetching) {
+        setAdaptivePrefetching(adaptivePrefetching);
+        return this;
+    }
+
     /**
      * Maximum permitted size of a SendMessage or SendMessageBatch message, in bytes. This setting
      * is also enforced on the server, and if this client submits a request of a size larger than
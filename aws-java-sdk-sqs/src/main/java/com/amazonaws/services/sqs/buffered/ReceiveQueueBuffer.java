@@ -19,8 +19,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -39,12 +42,16 @@ import com.amazonaws.services.sqs.model.ReceiveMessageResult;
  * It uses the provided executor to pre-fetch messages from the server and keeps them in a buffer
  * which it uses to satisfy incoming requests. The number of requests pre-fetched and kept in the
  * buffer, as well as the maximum number of threads used to retrieve the messages are configurable.
+ * With {@link QueueBufferConfig#isAdaptivePrefetching()}, those numbers are instead sized from the
+ * observed consumption rate, up to their configured maximums.
  * <p>
- * Synchronization strategy: - Threads must hold the TaskSpawnSyncPoint object monitor to spawn a
- * new task or modify the number of inflight tasks - Threads must hold the monitor of the "futures"
- * list to modify the list - Threads must hold the monitor of the "finishedTasks" list to modify the
- * list - If you need to lock both futures and finishedTasks, lock futures first and finishedTasks
- * second
+ * Synchronization strategy: - Issued futures and finished batches are handed over through
+ * concurrent queues, without locking - Only one thread at a time matches futures with finished
+ * batches; a thread that finds another one matching leaves its work to that thread, which loops
+ * until no work is left (see {@code satisfyWip}) - The number of inflight tasks is only modified
+ * through compare-and-set - Threads must hold the TaskSpawnSyncPoint object monitor to fetch the
+ * visibility timeout of the queue - Threads must hold the monitor of a batch to read or modify
+ * its messages
  */
 public class ReceiveQueueBuffer {
 
@@ -72,7 +79,7 @@ public class ReceiveQueueBuffer {
 
     private final AmazonSQS sqsClient;
 
-    private long bufferCounter = 0;
+    private final AtomicLong bufferCounter = new AtomicLong();
 
     /**
      * This buffer's queue visibility timeout. Used to detect expired message that should not be
@@ -82,13 +89,12 @@ public class ReceiveQueueBuffer {
     private volatile long visibilityTimeoutNanos = -1;
 
     /**
-     * Used as permits controlling the number of in flight receive batches. Synchronized by
-     * {@code taskSpawnSyncPoint}.
+     * Used as permits controlling the number of in flight receive batches.
      */
-    private volatile int inflightReceiveMessageBatches;
+    private final AtomicInteger inflightReceiveMessageBatches = new AtomicInteger();
 
     /**
-     * synchronize on this object to create new receive batches or modify inflight message count
+     * synchronize on this object to fetch the visibility timeout of the queue
      */
     private final Object taskSpawnSyncPoint = new Object();
 
@@ -96,17 +102,26 @@ public class ReceiveQueueBuffer {
     volatile boolean shutDown = false;
 
     /** message delivery futures we gave out */
-    private final LinkedList<ReceiveMessageFuture> futures = new LinkedList<ReceiveMessageFuture>();
+    private final ConcurrentLinkedQueue<ReceiveMessageFuture> futures = new ConcurrentLinkedQueue<ReceiveMessageFuture>();
 
-    /** finished batches are stored in this list. */
-    private LinkedList<ReceiveMessageBatchTask> finishedTasks = new LinkedList<ReceiveMessageBatchTask>();
+    /** finished batches are stored in this queue. */
+    private final ConcurrentLinkedQueue<ReceiveMessageBatchTask> finishedTasks = new ConcurrentLinkedQueue<ReceiveMessageBatchTask>();
+
+    /**
+     * Number of requests to match futures with finished batches that haven't been served yet. The
+     * thread that increments it from zero does the matching for all of them.
+     */
+    private final AtomicInteger satisfyWip = new AtomicInteger();
+
+    /** sizes the receive batches in adaptive mode; null otherwise */
+    private final PrefetchSizer prefetchSizer;
 
     ReceiveQueueBuffer(AmazonSQS paramSQS, Executor paramExecutor, QueueBufferConfig paramConfig, String url) {
         config = paramConfig;
         executor = paramExecutor;
         sqsClient = paramSQS;
         qUrl = url;
-
+        prefetchSizer = config.isAdaptivePrefetching() ? new PrefetchSizer() : null;
     }
 
     /**
@@ -116,7 +131,7 @@ public class ReceiveQueueBuffer {
     public void shutdown() {
         shutDown = true;
         try {
-            while (inflightReceiveMessageBatches > 0)
+            while (inflightReceiveMessageBatches.get() > 0)
                 Thread.sleep(100);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -153,51 +168,57 @@ public class ReceiveQueueBuffer {
     }
 
     /**
-     * Creates and returns a new future object. Sleeps if the list of already-issued but as yet
-     * unsatisfied futures is over a throttle limit.
+     * Creates and returns a new future object.
      * 
      * @return never null
      */
     private ReceiveMessageFuture issueFuture(int size,
                                              QueueBufferCallback<ReceiveMessageRequest, ReceiveMessageResult> callback) {
-        synchronized (futures) {
-            ReceiveMessageFuture theFuture = new ReceiveMessageFuture(callback, size);
-            futures.addLast(theFuture);
-            return theFuture;
+        ReceiveMessageFuture theFuture = new ReceiveMessageFuture(callback, size);
+        futures.add(theFuture);
+        if (prefetchSizer != null) {
+            prefetchSizer.messagesRequested(size);
         }
+        return theFuture;
     }
 
     /**
      * Attempts to satisfy some or all of the already-issued futures from the local buffer. If the
-     * buffer is empty or there are no futures, this method won't do anything.
+     * buffer is empty or there are no futures, this method won't do anything. If another thread is
+     * already satisfying futures, this method returns right away and leaves the work to that
+     * thread.
      */
     private void satisfyFuturesFromBuffer() {
-        synchronized (futures) {
-            synchronized (finishedTasks) {
-                // attempt to satisfy futures until we run out of either futures or
-                // finished tasks
-                while ((!futures.isEmpty()) && (!finishedTasks.isEmpty())) {
-                    // Remove any expired tasks before attempting to fufill the future
-                    pruneExpiredTasks();
-                    // Fufill the future from a non expired task if there is one. There is still a
-                    // slight chance that the first task could have expired between the time we
-                    // pruned and the time we fufill the future
-                    if (!finishedTasks.isEmpty()) {
-                        fufillFuture(futures.poll());
-                    }
+        if (satisfyWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            // attempt to satisfy futures until we run out of either futures or
+            // finished tasks
+            while (!futures.isEmpty()) {
+                // Remove any expired tasks before attempting to fufill the future
+                pruneExpiredTasks();
+                // Fufill the future from a non expired task if there is one. There is still a
+                // slight chance that the first task could have expired between the time we
+                // pruned and the time we fufill the future
+                ReceiveMessageBatchTask task = finishedTasks.peek();
+                if (task == null) {
+                    break;
                 }
+                // only this thread removes futures, so there is one
+                fufillFuture(futures.poll(), task);
             }
-        }
+            missed = satisfyWip.addAndGet(-missed);
+        } while (missed != 0);
     }
 
     /**
-     * Fills the future with whatever results were received by the full batch currently at the head
-     * of the completed batch queue. Those results may be retrieved messages, or an exception. This
-     * method assumes that you are holding the finished tasks lock locks when invoking it. violate
-     * this assumption at your own peril
+     * Fills the future with whatever results were received by the given batch, which is at the
+     * head of the completed batch queue. Those results may be retrieved messages, or an exception.
+     * This method assumes that it is only invoked by the thread currently satisfying futures.
      */
-    private void fufillFuture(ReceiveMessageFuture future) {
-        ReceiveMessageBatchTask task = finishedTasks.getFirst();
+    private void fufillFuture(ReceiveMessageFuture future, ReceiveMessageBatchTask task) {
         ReceiveMessageResult result = new ReceiveMessageResult();
         LinkedList<Message> messages = new LinkedList<Message>();
         result.setMessages(messages);
@@ -219,7 +240,7 @@ public class ReceiveQueueBuffer {
         // we may have just drained the batch.
         batchDone = batchDone || task.isEmpty() || (exception != null);
         if (batchDone) {
-            finishedTasks.removeFirst();
+            finishedTasks.remove(task);
         }
         result.setMessages(messages);
 
@@ -236,7 +257,7 @@ public class ReceiveQueueBuffer {
 
     /**
      * Prune any expired tasks that do not have an exception associated with them. This method
-     * assumes that you are holding the finishedTasks lock when invoking it
+     * assumes that it is only invoked by the thread currently satisfying futures.
      */
     private void pruneExpiredTasks() {
         int numberExpiredTasksPruned = pruneHeadTasks(new Predicate<ReceiveQueueBuffer.ReceiveMessageBatchTask>() {
@@ -260,7 +281,7 @@ public class ReceiveQueueBuffer {
     /**
      * Prune all tasks at the beginning of the finishedTasks list that meet the given condition.
      * Once a task is found that does not meet the given condition the pruning stops. This method
-     * assumes that you are holding the finishedTasks lock when invoking it.
+     * assumes that it is only invoked by the thread currently satisfying futures.
      * 
      * @param pruneCondition
      *            Condition on whether a task is eligible to be pruned
@@ -268,9 +289,10 @@ public class ReceiveQueueBuffer {
      */
     private int pruneHeadTasks(Predicate<ReceiveMessageBatchTask> pruneCondition) {
         int numberPruned = 0;
-        while (!finishedTasks.isEmpty()) {
-            if (pruneCondition.test(finishedTasks.getFirst())) {
-                finishedTasks.removeFirst();
+        ReceiveMessageBatchTask task;
+        while ((task = finishedTasks.peek()) != null) {
+            if (pruneCondition.test(task)) {
+                finishedTasks.remove(task);
                 numberPruned++;
             } else {
                 break;
@@ -291,60 +313,81 @@ public class ReceiveQueueBuffer {
         int desiredBatches = config.getMaxDoneReceiveBatches();
         desiredBatches = desiredBatches < 1 ? 1 : desiredBatches;
 
-        synchronized (finishedTasks) {
-            if (finishedTasks.size() >= desiredBatches)
-                return;
+        int max = config.getMaxInflightReceiveBatches();
+        // must allow at least one inflight receive task, or receive won't
+        // work at all.
+        max = max > 0 ? max : 1;
 
-            // if we have some finished batches already, and
-            // existing inflight batches will bring us to the limit,
-            // don't spawn more. if our finished tasks cache is empty, we will
-            // always spawn a thread.
-            if (finishedTasks.size() > 0 && (finishedTasks.size() + inflightReceiveMessageBatches) >= desiredBatches) {
-                return;
-            }
+        if (prefetchSizer != null && visibilityTimeoutNanos != -1) {
+            prefetchSizer.resize(max, desiredBatches, futures.size(), getVisibilityTimeoutNanos());
+            desiredBatches = prefetchSizer.getDoneBatches();
+            max = prefetchSizer.getInflightBatches();
         }
 
-        synchronized (taskSpawnSyncPoint) {
-            if (visibilityTimeoutNanos == -1) {
-                GetQueueAttributesRequest request = new GetQueueAttributesRequest().withQueueUrl(qUrl)
-                        .withAttributeNames("VisibilityTimeout");
-                ResultConverter.appendUserAgent(request, AmazonSQSBufferedAsyncClient.USER_AGENT);
-                long visibilityTimeoutSeconds = Long.parseLong(sqsClient.getQueueAttributes(request).getAttributes()
-                        .get("VisibilityTimeout"));
-                visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(visibilityTimeoutSeconds, TimeUnit.SECONDS);
-            }
+        int finished = finishedTasks.size();
+        if (finished >= desiredBatches)
+            return;
 
-            int max = config.getMaxInflightReceiveBatches();
-            // must allow at least one inflight receive task, or receive won't
-            // work at all.
-            max = max > 0 ? max : 1;
-            int toSpawn = max - inflightReceiveMessageBatches;
-            if (toSpawn > 0) {
-                ReceiveMessageBatchTask task = new ReceiveMessageBatchTask(this);
-                ++inflightReceiveMessageBatches;
-                ++bufferCounter;
-                if (log.isTraceEnabled()) {
-                    log.trace("Spawned receive batch #" + bufferCounter + " (" + inflightReceiveMessageBatches + " of "
-                            + max + " inflight) for queue " + qUrl);
+        // if we have some finished batches already, and
+        // existing inflight batches will bring us to the limit,
+        // don't spawn more. if our finished tasks cache is empty, we will
+        // always spawn a thread.
+        if (finished > 0 && (finished + inflightReceiveMessageBatches.get()) >= desiredBatches) {
+            return;
+        }
+
+        if (visibilityTimeoutNanos == -1) {
+            synchronized (taskSpawnSyncPoint) {
+                if (visibilityTimeoutNanos == -1) {
+                    GetQueueAttributesRequest request = new GetQueueAttributesRequest().withQueueUrl(qUrl)
+                            .withAttributeNames("VisibilityTimeout");
+                    ResultConverter.appendUserAgent(request, AmazonSQSBufferedAsyncClient.USER_AGENT);
+                    long visibilityTimeoutSeconds = Long.parseLong(sqsClient.getQueueAttributes(request)
+                            .getAttributes().get("VisibilityTimeout"));
+                    visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(visibilityTimeoutSeconds, TimeUnit.SECONDS);
                 }
-                executor.execute(task);
             }
         }
+
+        int inflight;
+        do {
+            inflight = inflightReceiveMessageBatches.get();
+            if (inflight >= max) {
+                return;
+            }
+        } while (!inflightReceiveMessageBatches.compareAndSet(inflight, inflight + 1));
+
+        ReceiveMessageBatchTask task = new ReceiveMessageBatchTask(this);
+        long batchNumber = bufferCounter.incrementAndGet();
+        if (log.isTraceEnabled()) {
+            log.trace("Spawned receive batch #" + batchNumber + " (" + (inflight + 1) + " of " + max
+                    + " inflight) for queue " + qUrl);
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Returns the visibility timeout of the messages received by this buffer.
+     */
+    private long getVisibilityTimeoutNanos() {
+        if (config.getVisibilityTimeoutSeconds() > 0) {
+            return TimeUnit.NANOSECONDS.convert(config.getVisibilityTimeoutSeconds(), TimeUnit.SECONDS);
+        }
+        return visibilityTimeoutNanos;
     }
 
     /**
      * This method is called by the batches after they have finished retrieving the messages.
      */
     void reportBatchFinished(ReceiveMessageBatchTask batch) {
-        synchronized (finishedTasks) {
-            finishedTasks.addLast(batch);
-            if (log.isTraceEnabled()) {
-                log.info("Queue " + qUrl + " now has " + finishedTasks.size() + " receive results cached ");
-            }
+        if (prefetchSizer != null && batch.exception == null) {
+            prefetchSizer.batchReceived(batch.messages.size(), batch.receiveNanos);
         }
-        synchronized (taskSpawnSyncPoint) {
-            --inflightReceiveMessageBatches;
+        finishedTasks.add(batch);
+        if (log.isTraceEnabled()) {
+            log.trace("Queue " + qUrl + " now has " + finishedTasks.size() + " receive results cached ");
         }
+        inflightReceiveMessageBatches.decrementAndGet();
         satisfyFuturesFromBuffer();
         spawnMoreReceiveTasks();
     }
@@ -355,10 +398,7 @@ public class ReceiveQueueBuffer {
     public void clear() {
         boolean done = false;
         while (!done) {
-            ReceiveMessageBatchTask currentBatch = null;
-            synchronized (finishedTasks) {
-                currentBatch = finishedTasks.poll();
-            }
+            ReceiveMessageBatchTask currentBatch = finishedTasks.poll();
 
             if (currentBatch != null) {
                 currentBatch.clear();
@@ -394,6 +434,8 @@ public class ReceiveQueueBuffer {
         private Exception exception = null;
         private List<Message> messages;
         private long visibilityDeadlineNano;
+        /** how long the receive call took */
+        private long receiveNanos;
         private boolean open = false;
         private ReceiveQueueBuffer parentBuffer;
 
@@ -512,7 +554,9 @@ public class ReceiveQueueBuffer {
                     request.withWaitTimeSeconds(config.getLongPollWaitTimeoutSeconds());
                 }
 
+                long startNanos = System.nanoTime();
                 messages = sqsClient.receiveMessage(request).getMessages();
+                receiveNanos = System.nanoTime() - startNanos;
             } catch (AmazonClientException e) {
                 exception = e;
             } finally {
@@ -523,4 +567,86 @@ public class ReceiveQueueBuffer {
 
         }
     }
+
+    /**
+     * Sizes the receive batches of a buffer in adaptive mode.
+     * <p>
+     * Consumers are expected to keep requesting messages at the rate they recently did. Enough
+     * batches are kept in flight to receive those messages in the time a receive call takes, and
+     * no more completed batches are kept than can be consumed within half the visibility timeout.
+     * Once a receive call comes back empty, the queue is drained and a single long poll waits for
+     * new messages.
+     */
+    private final class PrefetchSizer {
+        /** the period over which the request rate is measured */
+        private final long rateWindowNanos = TimeUnit.SECONDS.toNanos(1);
+
+        /** messages requested since the start of the current window */
+        private int windowRequested;
+
+        private long windowStartNanos = System.nanoTime();
+
+        /** smoothed number of messages requested per second */
+        private double requestRate;
+
+        /** smoothed duration of the receive calls that returned messages */
+        private double receiveSeconds = 0.1;
+
+        private boolean queueDrained;
+
+        private volatile int inflightBatches = 1;
+
+        private volatile int doneBatches = 1;
+
+        synchronized void messagesRequested(int count) {
+            windowRequested += count;
+            updateRequestRate(System.nanoTime());
+        }
+
+        synchronized void batchReceived(int count, long nanos) {
+            queueDrained = count == 0;
+            if (!queueDrained) {
+                receiveSeconds = smooth(receiveSeconds, nanos / 1e9);
+            }
+        }
+
+        /**
+         * Recomputes the number of batches to keep in flight and completed, up to the given
+         * maximums. Consumers that are already waiting for messages get a batch each on top of
+         * the estimate, since the request rate can't exceed the rate at which they are served.
+         */
+        synchronized void resize(int maxInflight, int maxDone, int waitingFutures, long visibilityNanos) {
+            updateRequestRate(System.nanoTime());
+            int batchSize = Math.max(1, config.getMaxBatchSize());
+            int inflight = (int) Math.ceil(requestRate * receiveSeconds / batchSize) + 1 + waitingFutures;
+            int expiryCap = (int) (requestRate * (visibilityNanos / 2e9) / batchSize);
+            inflightBatches = queueDrained ? 1 : bound(inflight, maxInflight);
+            doneBatches = bound(Math.min(inflight, expiryCap), maxDone);
+        }
+
+        int getInflightBatches() {
+            return inflightBatches;
+        }
+
+        int getDoneBatches() {
+            return doneBatches;
+        }
+
+        private void updateRequestRate(long now) {
+            long elapsed = now - windowStartNanos;
+            if (elapsed >= rateWindowNanos) {
+                requestRate = smooth(requestRate, windowRequested / (elapsed / 1e9));
+                windowRequested = 0;
+                windowStartNanos = now;
+            }
+        }
+
+        private double smooth(double average, double sample) {
+            return average / 2 + sample / 2;
+        }
+
+        private int bound(int value, int max) {
+            return Math.max(1, Math.min(value, max));
+        }
+    }
 }
@@ -14,8 +14,10 @@
  */
 package com.amazonaws.services.sqs.buffered;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -25,7 +27,11 @@ import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.ByteThroughputProvider;
+import com.amazonaws.metrics.ServiceLatencyProvider;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.metrics.SQSServiceMetric;
 import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
 import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
 import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
@@ -37,6 +43,7 @@ import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
 import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
 import com.amazonaws.services.sqs.model.SendMessageBatchResult;
@@ -49,8 +56,10 @@ import com.amazonaws.services.sqs.model.SendMessageResult;
  * delete a message and change the visibility of the message. <br>
  * When a request arrives, the buffer adds the message to a message batch of an appropriate type
  * (creating such a batch if there currently isn't one outstanding). When the outstanding batch
- * becomes full, or when a configurable timeout expires, the buffer makes a call to SQS to execute
- * the current batch. <br>
+ * becomes full, either in number of entries or in aggregate message payload, or when its open time
+ * expires, the buffer makes a call to SQS to execute the current batch. The open time is
+ * {@code maxBatchOpenMs}, possibly adapted to the rate of requests and shortened by the latency
+ * budget of the requests in the batch. <br>
  * Internally, the batch objects maintain a list of futures corresponding to the requests added to
  * them. When a batch completes, it loads the results into the futures and marks the futures as
  * complete.
@@ -112,6 +121,22 @@ public class SendQueueBuffer {
      */
     private final ChangeMessageVisibilityBatchTask[] openChangeMessageVisibilityBatchTask = new ChangeMessageVisibilityBatchTask[1];
 
+    /**
+     * Open time of sendMessage batches. Synchronized by {@code sendMessageLock}.
+     */
+    private final BatchOpenTime sendMessageOpenTime = new BatchOpenTime();
+
+    /**
+     * Open time of deleteMessage batches. Synchronized by {@code deleteMessageLock}.
+     */
+    private final BatchOpenTime deleteMessageOpenTime = new BatchOpenTime();
+
+    /**
+     * Open time of changeMessageVisibility batches. Synchronized by
+     * {@code changeMessageVisibilityLock}.
+     */
+    private final BatchOpenTime changeMessageVisibilityOpenTime = new BatchOpenTime();
+
     /**
      * Permits controlling the number of in flight SendMessage batches.
      */
@@ -150,8 +175,21 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<SendMessageRequest, SendMessageResult> sendMessage(SendMessageRequest request,
                                                                                 QueueBufferCallback<SendMessageRequest, SendMessageResult> callback) {
+        return sendMessage(request, -1, callback);
+    }
+
+    /**
+     * @param maxDelayMs
+     *            the longest time (milliseconds) the request may wait in an open batch for other
+     *            requests, or a negative value to only wait as long as the batch is open
+     * @return never null
+     */
+    public QueueBufferFuture<SendMessageRequest, SendMessageResult> sendMessage(SendMessageRequest request,
+                                                                                long maxDelayMs,
+                                                                                QueueBufferCallback<SendMessageRequest, SendMessageResult> callback) {
         QueueBufferFuture<SendMessageRequest, SendMessageResult> result = submitOutboundRequest(sendMessageLock,
-                openSendMessageBatchTask, request, inflightSendMessageBatches, callback);
+                openSendMessageBatchTask, sendMessageOpenTime, request, maxDelayMs, inflightSendMessageBatches,
+                callback);
         return result;
     }
 
@@ -160,8 +198,20 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<DeleteMessageRequest, Void> deleteMessage(DeleteMessageRequest request,
                                                                        QueueBufferCallback<DeleteMessageRequest, Void> callback) {
-        return submitOutboundRequest(deleteMessageLock, openDeleteMessageBatchTask, request,
-                inflightDeleteMessageBatches, callback);
+        return deleteMessage(request, -1, callback);
+    }
+
+    /**
+     * @param maxDelayMs
+     *            the longest time (milliseconds) the request may wait in an open batch for other
+     *            requests, or a negative value to only wait as long as the batch is open
+     * @return never null
+     */
+    public QueueBufferFuture<DeleteMessageRequest, Void> deleteMessage(DeleteMessageRequest request,
+                                                                       long maxDelayMs,
+                                                                       QueueBufferCallback<DeleteMessageRequest, Void> callback) {
+        return submitOutboundRequest(deleteMessageLock, openDeleteMessageBatchTask, deleteMessageOpenTime, request,
+                maxDelayMs, inflightDeleteMessageBatches, callback);
     }
 
     /**
@@ -169,22 +219,36 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<ChangeMessageVisibilityRequest, Void> changeMessageVisibility(ChangeMessageVisibilityRequest request,
                                                                                            QueueBufferCallback<ChangeMessageVisibilityRequest, Void> callback) {
-        return submitOutboundRequest(changeMessageVisibilityLock, openChangeMessageVisibilityBatchTask, request,
-                inflightChangeMessageVisibilityBatches, callback);
+        return changeMessageVisibility(request, -1, callback);
+    }
+
+    /**
+     * @param maxDelayMs
+     *            the longest time (milliseconds) the request may wait in an open batch for other
+     *            requests, or a negative value to only wait as long as the batch is open
+     * @return never null
+     */
+    public QueueBufferFuture<ChangeMessageVisibilityRequest, Void> changeMessageVisibility(ChangeMessageVisibilityRequest request,
+                                                                                           long maxDelayMs,
+                                                                                           QueueBufferCallback<ChangeMessageVisibilityRequest, Void> callback) {
+        return submitOutboundRequest(changeMessageVisibilityLock, openChangeMessageVisibilityBatchTask,
+                changeMessageVisibilityOpenTime, request, maxDelayMs, inflightChangeMessageVisibilityBatches,
+                callback);
     }
 
     /**
      * @return new {@code OutboundBatchTask} of appropriate type, never null
      */
     @SuppressWarnings("unchecked")
-    private <R extends AmazonWebServiceRequest, Result> OutboundBatchTask<R, Result> newOutboundBatchTask(R request) {
+    private <R extends AmazonWebServiceRequest, Result> OutboundBatchTask<R, Result> newOutboundBatchTask(R request,
+                                                                                                          long openNanos) {
 
         if (request instanceof SendMessageRequest)
-            return (OutboundBatchTask<R, Result>) new SendMessageBatchTask();
+            return (OutboundBatchTask<R, Result>) new SendMessageBatchTask(openNanos);
         else if (request instanceof DeleteMessageRequest)
-            return (OutboundBatchTask<R, Result>) new DeleteMessageBatchTask();
+            return (OutboundBatchTask<R, Result>) new DeleteMessageBatchTask(openNanos);
         else if (request instanceof ChangeMessageVisibilityRequest)
-            return (OutboundBatchTask<R, Result>) new ChangeMessageVisibilityBatchTask();
+            return (OutboundBatchTask<R, Result>) new ChangeMessageVisibilityBatchTask(openNanos);
         else
             // this should never happen
             throw new IllegalArgumentException("Unsupported request type " + request.getClass().getName());
@@ -226,8 +290,12 @@ public class SendQueueBuffer {
      *            {@code deleteMessage}, {@code changeMessageVisibility} )
      * @param openOutboundBatchTask
      *            the open batch task for this call type
+     * @param openTime
+     *            the open time of the batches for this call type
      * @param request
      *            the request to submit
+     * @param maxDelayMs
+     *            the longest time the request may wait in an open batch, or a negative value
      * @param inflightOperationBatches
      *            the permits controlling the batches for this type of request
      * @return never null
@@ -237,21 +305,25 @@ public class SendQueueBuffer {
     @SuppressWarnings("unchecked")
     <OBT extends OutboundBatchTask<R, Result>, R extends AmazonWebServiceRequest, Result> QueueBufferFuture<R, Result> submitOutboundRequest(Object operationLock,
                                                                                                                                              OBT[] openOutboundBatchTask,
+                                                                                                                                             BatchOpenTime openTime,
                                                                                                                                              R request,
+                                                                                                                                             long maxDelayMs,
                                                                                                                                              final Semaphore inflightOperationBatches,
                                                                                                                                              QueueBufferCallback<R, Result> callback) {
         /*
          * Callers add requests to a single batch task (openOutboundBatchTask) until it is full or
-         * maxBatchOpenMs elapses. The total number of batch task in flight is controlled by the
+         * its open time elapses. The total number of batch task in flight is controlled by the
          * inflightOperationBatch semaphore capped at maxInflightOutboundBatches.
          */
         QueueBufferFuture<R, Result> theFuture = null;
+        long maxDelayNanos = maxDelayMs < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
         try {
             synchronized (operationLock) {
+                openTime.onRequest();
                 if (openOutboundBatchTask[0] == null
-                        || ((theFuture = openOutboundBatchTask[0].addRequest(request, callback))) == null) {
+                        || ((theFuture = openOutboundBatchTask[0].addRequest(request, maxDelayNanos, callback))) == null) {
 
-                    OBT obt = (OBT) newOutboundBatchTask(request);
+                    OBT obt = (OBT) newOutboundBatchTask(request, openTime.getNanos());
                     inflightOperationBatches.acquire();
                     openOutboundBatchTask[0] = obt;
 
@@ -269,7 +341,7 @@ public class SendQueueBuffer {
                                 + inflightOperationBatches.availablePermits() + " free slots remain");
                     }
 
-                    theFuture = openOutboundBatchTask[0].addRequest(request, callback);
+                    theFuture = openOutboundBatchTask[0].addRequest(request, maxDelayNanos, callback);
                     executor.execute(openOutboundBatchTask[0]);
                     if (null == theFuture) {
                         // this can happen only if the request itself is flawed,
@@ -293,8 +365,9 @@ public class SendQueueBuffer {
     /**
      * Task to send a batch of outbound requests to SQS.
      * <p>
-     * The batch task is constructed open and accepts requests until full, or until
-     * {@code maxBatchOpenMs} elapses. At that point, the batch closes and the collected requests
+     * The batch task is constructed open and accepts requests until full, or until its open time
+     * elapses; a request added with a latency budget shortens the open time so that the batch
+     * closes before the budget runs out. At that point, the batch closes and the collected requests
      * are assembled into a single batch request to SQS. Specialized for each type of outbound
      * request.
      * <p>
@@ -312,11 +385,25 @@ public class SendQueueBuffer {
 
         private boolean closed;
 
+        /**
+         * The {@code System.nanoTime()} at which the batch closes.
+         */
+        private long deadlineNanos;
+
+        /**
+         * Measures how long the batch is held open; null if metrics are disabled.
+         */
+        private final ServiceLatencyProvider waitTime;
+
         private volatile Listener<OutboundBatchTask<R, Result>> onCompleted;
 
-        public OutboundBatchTask() {
+        public OutboundBatchTask(long openNanos) {
             this.requests = new ArrayList<R>(config.getMaxBatchSize());
             this.futures = new ArrayList<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
+            this.waitTime = AwsSdkMetrics.isMetricsEnabled()
+                    ? new ServiceLatencyProvider(SQSServiceMetric.SQSOutboundBatchWaitTime)
+                    : null;
+            this.deadlineNanos = System.nanoTime() + openNanos;
         }
 
         public void setOnCompleted(Listener<OutboundBatchTask<R, Result>> value) {
@@ -326,10 +413,14 @@ public class SendQueueBuffer {
         /**
          * Adds a request to the batch if it is still open and has capacity.
          * 
+         * @param maxDelayNanos
+         *            the longest time the request may wait for the batch to close, or a negative
+         *            value if the request may wait as long as the batch is open
          * @return the future that can be used to get the results of the execution, or null if the
          *         addition failed.
          */
-        public synchronized QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
+        public synchronized QueueBufferFuture<R, Result> addRequest(R request, long maxDelayNanos,
+                                                                    QueueBufferCallback<R, Result> callback) {
 
             if (closed) {
                 return null;
@@ -342,6 +433,12 @@ public class SendQueueBuffer {
             if ((null == theFuture) || isFull()) {
                 closed = true;
                 notify();
+            } else if (maxDelayNanos >= 0) {
+                long deadline = System.nanoTime() + maxDelayNanos;
+                if (deadline - deadlineNanos < 0) {
+                    deadlineNanos = deadline;
+                    notify();
+                }
             }
 
             return theFuture;
@@ -405,6 +502,14 @@ public class SendQueueBuffer {
             return requests.size() >= config.getMaxBatchSize();
         }
 
+        /**
+         * A hook to report the metrics of the batch once closed. Is <em>NOT</em> called with a
+         * lock on {@code this}, and only if metrics are enabled.
+         */
+        protected void collectMetrics(List<R> requests) {
+            // to be overridden by subclasses
+        }
+
         /**
          * Processes the batch once closed. Is <em>NOT</em> called with a lock on {@code this}.
          * However, it's passed a local copy of both the {@code requests} and {@code futures} lists
@@ -416,19 +521,15 @@ public class SendQueueBuffer {
         public final void run() {
             try {
 
-                long deadlineMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS)
-                        + config.getMaxBatchOpenMs() + 1;
-                long t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
-
                 List<R> requests;
                 List<QueueBufferFuture<R, Result>> futures;
 
                 synchronized (this) {
-                    while (!closed && (t < deadlineMs)) {
-                        t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
-
+                    // the deadline may be brought forward by the requests added while we wait
+                    long remaining;
+                    while (!closed && (remaining = deadlineNanos - System.nanoTime()) > 0) {
                         // zero means "wait forever", can't have that.
-                        long toWait = Math.max(1, deadlineMs - t);
+                        long toWait = Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
                         wait(toWait);
                     }
 
@@ -438,6 +539,11 @@ public class SendQueueBuffer {
                     futures = new ArrayList<QueueBufferFuture<R, Result>>(this.futures);
                 }
 
+                if (waitTime != null) {
+                    AwsSdkMetrics.getServiceMetricCollector().collectLatency(waitTime.endTiming());
+                    collectMetrics(requests);
+                }
+
                 process(requests, futures);
 
             } catch (InterruptedException e) {
@@ -469,17 +575,33 @@ public class SendQueueBuffer {
 
     private class SendMessageBatchTask extends OutboundBatchTask<SendMessageRequest, SendMessageResult> {
 
-        int batchSizeBytes = 0;
+        /**
+         * Aggregate payload of the messages in the batch.
+         */
+        long batchSizeBytes = 0;
+
+        /**
+         * Payload of the request last checked by {@code isOkToAdd}, so that it is computed only
+         * once per request.
+         */
+        private long requestSizeBytes;
+
+        private final long startNanos = System.nanoTime();
+
+        SendMessageBatchTask(long openNanos) {
+            super(openNanos);
+        }
 
         @Override
         protected boolean isOkToAdd(SendMessageRequest request) {
+            requestSizeBytes = payloadSize(request);
             return (requests.size() < config.getMaxBatchSize())
-                    && ((request.getMessageBody().getBytes().length + batchSizeBytes) < config.getMaxBatchSizeBytes());
+                    && ((requestSizeBytes + batchSizeBytes) <= config.getMaxBatchSizeBytes());
         }
 
         @Override
         protected void onRequestAdded(SendMessageRequest request) {
-            batchSizeBytes += request.getMessageBody().getBytes().length;
+            batchSizeBytes += requestSizeBytes;
         }
 
         @Override
@@ -487,6 +609,23 @@ public class SendQueueBuffer {
             return (requests.size() >= config.getMaxBatchSize()) || (batchSizeBytes >= config.getMaxBatchSizeBytes());
         }
 
+        @Override
+        protected void collectMetrics(List<SendMessageRequest> requests) {
+            long bytes;
+            synchronized (this) {
+                bytes = batchSizeBytes;
+            }
+            if (bytes > 0) {
+                BatchThroughput throughput = new BatchThroughput();
+                throughput.increment((int) bytes, startNanos);
+                AwsSdkMetrics.getServiceMetricCollector().collectByteThroughput(throughput);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Queue " + qUrl + " sending batch of " + requests.size() + " messages, " + bytes
+                        + " bytes (" + (bytes * 100 / config.getMaxBatchSizeBytes()) + "% full)");
+            }
+        }
+
         @Override
         protected void process(List<SendMessageRequest> requests,
                                List<QueueBufferFuture<SendMessageRequest, SendMessageResult>> futures) {
@@ -535,6 +674,10 @@ public class SendQueueBuffer {
 
     private class DeleteMessageBatchTask extends OutboundBatchTask<DeleteMessageRequest, Void> {
 
+        DeleteMessageBatchTask(long openNanos) {
+            super(openNanos);
+        }
+
         @Override
         protected void process(List<DeleteMessageRequest> requests,
                                List<QueueBufferFuture<DeleteMessageRequest, Void>> futures) {
@@ -580,6 +723,10 @@ public class SendQueueBuffer {
 
     private class ChangeMessageVisibilityBatchTask extends OutboundBatchTask<ChangeMessageVisibilityRequest, Void> {
 
+        ChangeMessageVisibilityBatchTask(long openNanos) {
+            super(openNanos);
+        }
+
         @Override
         protected void process(List<ChangeMessageVisibilityRequest> requests,
                                List<QueueBufferFuture<ChangeMessageVisibilityRequest, Void>> futures) {
@@ -626,4 +773,106 @@ public class SendQueueBuffer {
         }
     }
 
+    /**
+     * Returns the size of the payload of a message as counted by SQS against the size limit: the
+     * body plus the names, types and values of the message attributes, all in UTF-8.
+     */
+    static long payloadSize(SendMessageRequest request) {
+        long size = utf8Length(request.getMessageBody());
+        Map<String, MessageAttributeValue> attributes = request.getMessageAttributes();
+        if (attributes != null) {
+            for (Map.Entry<String, MessageAttributeValue> entry : attributes.entrySet()) {
+                MessageAttributeValue value = entry.getValue();
+                size += utf8Length(entry.getKey());
+                if (value != null) {
+                    size += utf8Length(value.getDataType()) + utf8Length(value.getStringValue());
+                    ByteBuffer binary = value.getBinaryValue();
+                    if (binary != null) {
+                        size += binary.remaining();
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of the UTF-8 encoding of the given string, without encoding it.
+     */
+    private static long utf8Length(String s) {
+        if (s == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Works out how long a batch is held open for more requests of one type. Unless adaptive
+     * batching is enabled this is {@code maxBatchOpenMs}; otherwise it is about the time the
+     * observed rate of requests takes to fill a batch, so that batches of infrequent requests are
+     * sent right away. Synchronized by the lock of the request type.
+     */
+    private class BatchOpenTime {
+        /** Weight of the latest inter-arrival time in the moving average. */
+        private static final double ALPHA = 0.125;
+
+        private long lastRequestNanos;
+
+        /**
+         * Moving average of the time between two requests, capped at the max open time; negative
+         * until the second request.
+         */
+        private double interArrivalNanos = -1;
+
+        void onRequest() {
+            long now = System.nanoTime();
+            if (lastRequestNanos != 0) {
+                long maxOpenNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchOpenMs());
+                long sample = Math.min(now - lastRequestNanos, maxOpenNanos);
+                interArrivalNanos = interArrivalNanos < 0 ? sample : interArrivalNanos + ALPHA
+                        * (sample - interArrivalNanos);
+            }
+            lastRequestNanos = now;
+        }
+
+        long getNanos() {
+            long maxOpenNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchOpenMs());
+            if (!config.isAdaptiveBatching()) {
+                return maxOpenNanos;
+            }
+            if (interArrivalNanos < 0 || interArrivalNanos >= maxOpenNanos) {
+                // no other request is expected while the batch is open
+                return 0;
+            }
+            return (long) Math.min(maxOpenNanos, interArrivalNanos * (config.getMaxBatchSize() - 1));
+        }
+    }
+
+    /**
+     * Reports the payload of a send batch against the time the batch was open.
+     */
+    private static class BatchThroughput extends ByteThroughputProvider {
+        BatchThroughput() {
+            super(SQSServiceMetric.SQSSendBatchThroughput);
+        }
+
+        @Override
+        protected void increment(int bytesDelta, long startTimeNano) {
+            super.increment(bytesDelta, startTimeNano);
+        }
+    }
 }
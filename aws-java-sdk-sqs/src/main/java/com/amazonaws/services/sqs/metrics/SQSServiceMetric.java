@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.sqs.metrics;
+
+import com.amazonaws.metrics.ServiceMetricType;
+import com.amazonaws.metrics.SimpleMetricType;
+import com.amazonaws.metrics.ThroughputMetricType;
+
+/**
+ * SQS specific service metrics in the form of "simulated enum", reported by
+ * the buffered client.
+ * <p>
+ * None of these metrics is predefined, so they have to be added with
+ * {@link com.amazonaws.metrics.AwsSdkMetrics#add(com.amazonaws.metrics.MetricType)}
+ * for the default AWS SDK metric collection system to upload them.
+ */
+public class SQSServiceMetric extends SimpleMetricType implements ServiceMetricType {
+    static final String SERVICE_NAME_PREFIX = "SQS";
+    static final String SERVICE_DISPLAY_NAME = "Amazon SQS";
+
+    /**
+     * Returns a metric name by concatenating the service name prefix with the
+     * given suffix.
+     */
+    private static final String metricName(String suffix) {
+        return SERVICE_NAME_PREFIX + suffix;
+    }
+
+    /**
+     * Time an outbound batch was held open, from the arrival of its first
+     * request until it was closed for sending.
+     */
+    public static final SQSServiceMetric SQSOutboundBatchWaitTime = new SQSServiceMetric(
+            metricName("OutboundBatchWaitTime"));
+    /**
+     * Rate at which message payload filled the send batches; the byte count of
+     * each batch, compared to the 256 KB limit, gives its fill ratio.
+     */
+    public static final SQSThroughputMetric SQSSendBatchThroughput = new SQSThroughputMetric(
+            metricName("SendBatchThroughput")) {
+        @Override
+        public ServiceMetricType getByteCountMetricType() {
+            return SQSSendBatchByteCount;
+        }
+    };
+    public static final SQSServiceMetric SQSSendBatchByteCount = new SQSServiceMetric(
+            metricName("SendBatchByteCount"));
+    private static final SQSServiceMetric[] values = {
+        SQSOutboundBatchWaitTime,
+        SQSSendBatchThroughput,
+        SQSSendBatchByteCount
+    };
+
+    private final String name;
+    private SQSServiceMetric(String name) { this.name = name; }
+    @Override public String name() { return name; }
+    @Override public String getServiceName() {
+        return SERVICE_DISPLAY_NAME;
+    }
+
+    private static abstract class SQSThroughputMetric extends SQSServiceMetric
+            implements ThroughputMetricType {
+        private SQSThroughputMetric(String name) {
+            super(name);
+        }
+    };
+
+    public static SQSServiceMetric[] values() { return values.clone(); }
+    public static SQSServiceMetric valueOf(String name) {
+        for (SQSServiceMetric e: values()) {
+            if (e.name().equals(name)) {
+                return e;
+            }
+        }
+        throw new IllegalArgumentException("No SQSServiceMetric defined for the name "+ name);
+    }
+}
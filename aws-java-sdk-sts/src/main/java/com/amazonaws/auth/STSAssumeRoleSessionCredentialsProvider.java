@@ -15,8 +15,6 @@
 
 package com.amazonaws.auth;
 
-import java.util.Date;
-
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.internal.StaticCredentialsProvider;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
@@ -41,11 +39,17 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSSessionCreden
     /** The client for starting STS sessions. */
     private final AWSSecurityTokenService securityTokenService;
 
-    /** The current session credentials. */
-    private AWSSessionCredentials sessionCredentials;
-
-    /** The expiration time for the current session credentials. */
-    private Date sessionCredentialsExpiration;
+    /**
+     * The current session credentials, renewed in the background when they
+     * are within a few minutes of expiring.
+     */
+    private final SessionCredentialsRefresher sessionRefresher = new SessionCredentialsRefresher(
+            new SessionCredentialsRefresher.SessionStarter() {
+                @Override
+                public Credentials startSession() {
+                    return STSAssumeRoleSessionCredentialsProvider.this.startSession();
+                }
+            }, EXPIRY_TIME_MILLIS);
 
     /** The arn of the role to be assumed. */
     private String roleArn;
@@ -238,21 +242,25 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSSessionCreden
      */
     public void setSTSClientEndpoint(String endpoint) {
         securityTokenService.setEndpoint(endpoint);
-        sessionCredentials = null;
+        sessionRefresher.invalidate();
     }
 
-    
+
+    /**
+     * Returns the current session credentials, starting a new session if
+     * there is none or if the current one is within
+     * {@link #EXPIRY_TIME_MILLIS} milliseconds of expiring. Sessions within a
+     * few minutes of expiring are renewed in the background, while their
+     * credentials keep being returned.
+     */
     @Override
     public AWSSessionCredentials getCredentials() {
-        if (needsNewSession()) {
-            startSession();
-        }
-        return sessionCredentials;
+        return sessionRefresher.getCredentials();
     }
 
     @Override
     public void refresh() {
-        startSession();
+        sessionRefresher.refresh();
     }
 
     /**
@@ -261,7 +269,7 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSSessionCreden
      * class then vends the short lived session credentials for the assumed Role
      * sent back from STS.
      */
-    private void startSession() {
+    private Credentials startSession() {
         AssumeRoleRequest assumeRoleRequest = new AssumeRoleRequest()
             .withRoleArn(roleArn).withDurationSeconds(roleSessionDurationSeconds)
             .withRoleSessionName(roleSessionName);
@@ -269,29 +277,9 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSSessionCreden
             assumeRoleRequest = assumeRoleRequest.withExternalId(roleExternalId);
         }
         AssumeRoleResult assumeRoleResult = securityTokenService.assumeRole(assumeRoleRequest);
-        Credentials stsCredentials = assumeRoleResult.getCredentials();
-
-        sessionCredentials = new BasicSessionCredentials(stsCredentials.getAccessKeyId(),
-                stsCredentials.getSecretAccessKey(), stsCredentials.getSessionToken());
-        sessionCredentialsExpiration = stsCredentials.getExpiration();
-    }
-
-    /**
-     * Returns true if a new STS session needs to be started. A new STS session
-     * is needed when no session has been started yet, or if the last session is
-     * within {@link #EXPIRY_TIME_MILLIS} seconds of expiring.
-     * 
-     * @return True if a new STS session needs to be started.
-     */
-    private boolean needsNewSession() {
-        if (sessionCredentials == null) {
-            return true;
-        }
-        long timeRemaining = sessionCredentialsExpiration.getTime() - System.currentTimeMillis();
-        return timeRemaining < EXPIRY_TIME_MILLIS;
+        return assumeRoleResult.getCredentials();
     }
     
-    
     /**
      * Provides a builder pattern to avoid combinatorial explosion of the number of parameters that are passed
      * to constructors. The builder introspects which parameters have been set and calls the appropriate constructor.
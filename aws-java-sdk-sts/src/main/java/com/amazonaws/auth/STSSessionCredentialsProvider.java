@@ -15,8 +15,6 @@
 
 package com.amazonaws.auth;
 
-import java.util.Date;
-
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
@@ -33,15 +31,23 @@ public class STSSessionCredentialsProvider implements AWSSessionCredentialsProvi
     /** Default duration for started sessions */
     public static final int DEFAULT_DURATION_SECONDS = 3600;
 
+    /** Time before expiry within which callers wait for new credentials. */
+    private static final int EXPIRY_TIME_MILLIS = 60 * 1000;
+
     /** The client for starting STS sessions */
     private final AWSSecurityTokenService securityTokenService;
 
-    /** The current session credentials */
-    private AWSSessionCredentials sessionCredentials;
-
-    /** The expiration time for the current session credentials */
-    private Date sessionCredentialsExpiration;
-
+    /**
+     * The current session credentials, renewed in the background when they
+     * are within a few minutes of expiring.
+     */
+    private final SessionCredentialsRefresher sessionRefresher = new SessionCredentialsRefresher(
+            new SessionCredentialsRefresher.SessionStarter() {
+                @Override
+                public Credentials startSession() {
+                    return STSSessionCredentialsProvider.this.startSession();
+                }
+            }, EXPIRY_TIME_MILLIS);
 
     /**
      * Constructs a new STSSessionCredentialsProvider, which will use the
@@ -119,19 +125,23 @@ public class STSSessionCredentialsProvider implements AWSSessionCredentialsProvi
      */
     public void setSTSClientEndpoint(String endpoint) {
         securityTokenService.setEndpoint(endpoint);
-        sessionCredentials = null;
+        sessionRefresher.invalidate();
     }
 
+    /**
+     * Returns the current session credentials, starting a new session if
+     * there is none or if the current one is within a minute of expiring.
+     * Sessions within a few minutes of expiring are renewed in the background,
+     * while their credentials keep being returned.
+     */
     @Override
     public AWSSessionCredentials getCredentials() {
-        if (needsNewSession()) startSession();
-
-        return sessionCredentials;
+        return sessionRefresher.getCredentials();
     }
 
     @Override
     public void refresh() {
-        startSession();
+        sessionRefresher.refresh();
     }
 
     /**
@@ -139,30 +149,10 @@ public class STSSessionCredentialsProvider implements AWSSessionCredentialsProvi
      * Service (STS) with the long lived AWS credentials. This class then vends
      * the short lived session credentials sent back from STS.
      */
-    private void startSession() {
+    private Credentials startSession() {
         GetSessionTokenResult sessionTokenResult = securityTokenService
                 .getSessionToken(new GetSessionTokenRequest().withDurationSeconds(DEFAULT_DURATION_SECONDS));
-        Credentials stsCredentials = sessionTokenResult.getCredentials();
-
-        sessionCredentials = new BasicSessionCredentials(
-                stsCredentials.getAccessKeyId(),
-                stsCredentials.getSecretAccessKey(),
-                stsCredentials.getSessionToken());
-        sessionCredentialsExpiration = stsCredentials.getExpiration();
-    }
-
-    /**
-     * Returns true if a new STS session needs to be started. A new STS session
-     * is needed when no session has been started yet, or if the last session is
-     * within 60 seconds of expiring.
-     *
-     * @return True if a new STS session needs to be started.
-     */
-    private boolean needsNewSession() {
-        if (sessionCredentials == null) return true;
-
-        long timeRemaining = sessionCredentialsExpiration.getTime() - System.currentTimeMillis();
-        return timeRemaining < (60 * 1000);
+        return sessionTokenResult.getCredentials();
     }
 
 }
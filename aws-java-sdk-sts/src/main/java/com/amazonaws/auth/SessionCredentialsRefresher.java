@@ -0,0 +1,222 @@
+/*
+ * Copyright 2011-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth;
+
+import java.lang.ref.WeakReference;
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.internal.CredentialsRefreshScheduler;
+import com.amazonaws.services.securitytoken.model.Credentials;
+
+/**
+ * Holds the session credentials of an STS credentials provider and starts new
+ * sessions in the background before they expire, so that request threads
+ * don't wait for STS.
+ * <p>
+ * A new session is started {@value #REFRESH_THRESHOLD_MILLIS} milliseconds
+ * before the current one expires, moved ahead by up to
+ * {@value #REFRESH_JITTER_MILLIS} milliseconds at random so that hosts that
+ * started their sessions together don't all call STS at the same time. The
+ * current credentials keep being returned meanwhile. Callers only wait for
+ * STS when there is no session yet or when the current one is about to
+ * expire, in which case concurrent callers share a single call.
+ * <p>
+ * The refreshes run on the {@link CredentialsRefreshScheduler} shared with
+ * the other credentials providers.
+ */
+final class SessionCredentialsRefresher {
+
+    /** Starts a new session with STS. */
+    interface SessionStarter {
+        Credentials startSession();
+    }
+
+    private static final Log LOG = LogFactory.getLog(SessionCredentialsRefresher.class);
+
+    /** Time before expiry at which a new session is started in the background. */
+    static final long REFRESH_THRESHOLD_MILLIS = 5 * 60 * 1000;
+
+    /** Maximum random time by which background refreshes are moved ahead. */
+    static final long REFRESH_JITTER_MILLIS = 60 * 1000;
+
+    /** Minimum time between the background attempts to start a session. */
+    private static final long MIN_REFRESH_INTERVAL_MILLIS = 30 * 1000;
+
+    private final SessionStarter sessionStarter;
+
+    /** Time before expiry within which callers wait for a new session. */
+    private final long expiryThresholdMillis;
+
+    private final Object lock = new Object();
+
+    /** True while a refresh requested by a caller is pending. */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Session session;
+
+    private volatile ScheduledFuture<?> scheduledRefresh;
+
+    SessionCredentialsRefresher(SessionStarter sessionStarter, long expiryThresholdMillis) {
+        this.sessionStarter = sessionStarter;
+        this.expiryThresholdMillis = expiryThresholdMillis;
+    }
+
+    AWSSessionCredentials getCredentials() {
+        final Session current = session;
+        if (current == null || current.expiresWithin(expiryThresholdMillis)) {
+            return startSessionUnlessRefreshed(current);
+        }
+        if (current.expiresWithin(REFRESH_THRESHOLD_MILLIS)
+                && refreshing.compareAndSet(false, true)) {
+            schedule(current, 0);
+        }
+        return current.credentials;
+    }
+
+    /**
+     * Starts a new session, waiting for STS.
+     */
+    void refresh() {
+        synchronized (lock) {
+            startSession();
+        }
+    }
+
+    /**
+     * Discards the current session, so that a new one is started on the next
+     * call to {@link #getCredentials()}.
+     */
+    void invalidate() {
+        synchronized (lock) {
+            session = null;
+            cancelScheduledRefresh();
+        }
+    }
+
+    private AWSSessionCredentials startSessionUnlessRefreshed(Session stale) {
+        synchronized (lock) {
+            final Session current = session;
+            if (current == null || current == stale
+                    || current.expiresWithin(expiryThresholdMillis)) {
+                startSession();
+            }
+            return session.credentials;
+        }
+    }
+
+    /**
+     * Starts a new session and schedules its refresh. Must be called with the
+     * lock held.
+     */
+    private void startSession() {
+        final Credentials stsCredentials = sessionStarter.startSession();
+        final Session newSession = new Session(new BasicSessionCredentials(
+                stsCredentials.getAccessKeyId(),
+                stsCredentials.getSecretAccessKey(),
+                stsCredentials.getSessionToken()),
+                stsCredentials.getExpiration());
+        session = newSession;
+
+        final long jitter = CredentialsRefreshScheduler.jitter(REFRESH_JITTER_MILLIS);
+        final long delay = newSession.expiration.getTime() - REFRESH_THRESHOLD_MILLIS
+                - jitter - System.currentTimeMillis();
+        cancelScheduledRefresh();
+        schedule(newSession, Math.max(delay, MIN_REFRESH_INTERVAL_MILLIS));
+    }
+
+    /**
+     * Starts a new session from the background thread, unless the given one
+     * has already been replaced.
+     */
+    private void refreshInBackground(Session stale) {
+        boolean retrying = false;
+        try {
+            synchronized (lock) {
+                if (session == stale) startSession();
+            }
+        } catch (AmazonClientException ace) {
+            LOG.warn("Unable to refresh session credentials from STS", ace);
+            synchronized (lock) {
+                if (session == stale && !stale.expiresWithin(0)) {
+                    // Keeps callers from triggering refreshes until the retry
+                    refreshing.set(true);
+                    schedule(stale, MIN_REFRESH_INTERVAL_MILLIS);
+                    retrying = true;
+                }
+            }
+        } finally {
+            if (!retrying) refreshing.set(false);
+        }
+    }
+
+    private void schedule(Session stale, long delayMillis) {
+        scheduledRefresh = CredentialsRefreshScheduler.schedule(
+                new RefreshTask(this, stale), delayMillis);
+    }
+
+    private void cancelScheduledRefresh() {
+        final ScheduledFuture<?> refresh = scheduledRefresh;
+        if (refresh != null) {
+            refresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        cancelScheduledRefresh();
+    }
+
+    /** Session credentials and their expiration. */
+    private static final class Session {
+        private final AWSSessionCredentials credentials;
+        private final Date expiration;
+
+        Session(AWSSessionCredentials credentials, Date expiration) {
+            this.credentials = credentials;
+            this.expiration = expiration;
+        }
+
+        boolean expiresWithin(long millis) {
+            return expiration.getTime() - System.currentTimeMillis() < millis;
+        }
+    }
+
+    /**
+     * Refreshes a session in the background, without keeping its refresher
+     * from being garbage collected.
+     */
+    private static final class RefreshTask implements Runnable {
+        private final WeakReference<SessionCredentialsRefresher> refresher;
+        private final Session stale;
+
+        RefreshTask(SessionCredentialsRefresher refresher, Session stale) {
+            this.refresher = new WeakReference<SessionCredentialsRefresher>(refresher);
+            this.stale = stale;
+        }
+
+        @Override
+        public void run() {
+            final SessionCredentialsRefresher r = refresher.get();
+            if (r != null) r.refreshInBackground(stale);
+        }
+    }
+}